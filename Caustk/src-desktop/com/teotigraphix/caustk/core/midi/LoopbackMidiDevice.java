@@ -0,0 +1,182 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core.midi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiDevice;
+import javax.sound.midi.MidiUnavailableException;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Transmitter;
+
+/**
+ * The {@link LoopbackMidiDevice} is a software input device, messages passed
+ * to {@link #send(int, int, int)} are transmitted to its receivers on the
+ * calling thread.
+ * <p>
+ * Stands in for a hardware controller, for instance for an on screen keyboard
+ * or to measure the latency of a {@link MidiInputRouter}.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class LoopbackMidiDevice implements MidiDevice {
+
+    private static final Info INFO = new Info("Loopback", "teotigraphix",
+            "Software MIDI input", "1.0") {
+    };
+
+    private final List<Transmitter> transmitters = new ArrayList<Transmitter>();
+
+    // copy on write, iterated on the sending thread
+    private volatile LoopbackTransmitter[] open = new LoopbackTransmitter[0];
+
+    private volatile boolean opened;
+
+    private final long startTime = System.nanoTime();
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Transmits a short message to the receivers of the open transmitters.
+     *
+     * @param status The status byte with channel.
+     * @param data1 The first data byte.
+     * @param data2 The second data byte.
+     * @throws InvalidMidiDataException The message is not a valid short
+     *             message.
+     */
+    public void send(int status, int data1, int data2) throws InvalidMidiDataException {
+        final LoopbackTransmitter[] transmitters = open;
+        if (transmitters.length == 0)
+            return;
+        final ShortMessage message = new ShortMessage(status, data1, data2);
+        final long timeStamp = getMicrosecondPosition();
+        for (LoopbackTransmitter transmitter : transmitters) {
+            final Receiver receiver = transmitter.receiver;
+            if (receiver != null)
+                receiver.send(message, timeStamp);
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // MidiDevice API :: Methods
+    //--------------------------------------------------------------------------
+
+    @Override
+    public Info getDeviceInfo() {
+        return INFO;
+    }
+
+    @Override
+    public void open() throws MidiUnavailableException {
+        opened = true;
+    }
+
+    @Override
+    public synchronized void close() {
+        opened = false;
+        for (Transmitter transmitter : new ArrayList<Transmitter>(transmitters)) {
+            transmitter.close();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return opened;
+    }
+
+    @Override
+    public long getMicrosecondPosition() {
+        return (System.nanoTime() - startTime) / 1000L;
+    }
+
+    @Override
+    public int getMaxReceivers() {
+        return 0;
+    }
+
+    @Override
+    public int getMaxTransmitters() {
+        return -1;
+    }
+
+    @Override
+    public Receiver getReceiver() throws MidiUnavailableException {
+        throw new MidiUnavailableException("Loopback device has no receiver");
+    }
+
+    @Override
+    public List<Receiver> getReceivers() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public synchronized Transmitter getTransmitter() throws MidiUnavailableException {
+        if (!opened)
+            throw new MidiUnavailableException("Loopback device is not open");
+        final LoopbackTransmitter transmitter = new LoopbackTransmitter();
+        transmitters.add(transmitter);
+        updateOpen();
+        return transmitter;
+    }
+
+    @Override
+    public synchronized List<Transmitter> getTransmitters() {
+        return Collections.unmodifiableList(new ArrayList<Transmitter>(transmitters));
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private void updateOpen() {
+        open = transmitters.toArray(new LoopbackTransmitter[transmitters.size()]);
+    }
+
+    private final class LoopbackTransmitter implements Transmitter {
+
+        private volatile Receiver receiver;
+
+        @Override
+        public void setReceiver(Receiver receiver) {
+            this.receiver = receiver;
+        }
+
+        @Override
+        public Receiver getReceiver() {
+            return receiver;
+        }
+
+        @Override
+        public void close() {
+            synchronized (LoopbackMidiDevice.this) {
+                transmitters.remove(this);
+                updateOpen();
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core.midi;
+
+import javax.sound.midi.MidiDevice;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.MidiUnavailableException;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Transmitter;
+
+import com.teotigraphix.caustk.core.midi.MidiInputRouter.Port;
+
+/**
+ * The {@link MidiDeviceInput} connects a desktop <code>javax.sound.midi</code>
+ * input device to a {@link MidiInputRouter} port.
+ * <p>
+ * Short messages are offered to the port on the device's driver thread, other
+ * messages are ignored. The class is part of the desktop sources, the Android
+ * platform has no <code>javax.sound.midi</code> and its inputs call
+ * {@link Port#send(int, int, int)} directly.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class MidiDeviceInput implements Receiver {
+
+    private final MidiDevice device;
+
+    private final Port port;
+
+    private Transmitter transmitter;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    public MidiDevice getDevice() {
+        return device;
+    }
+
+    public Port getPort() {
+        return port;
+    }
+
+    public boolean isOpen() {
+        return transmitter != null;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates an input, the port is named after the device.
+     *
+     * @param device The input device.
+     * @param router The router the device plays.
+     */
+    public MidiDeviceInput(MidiDevice device, MidiInputRouter router) {
+        this.device = device;
+        this.port = router.addPort(device.getDeviceInfo().getName());
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Opens the device and connects its transmitter.
+     *
+     * @throws MidiUnavailableException The device is in use or has no
+     *             transmitter.
+     */
+    public synchronized void open() throws MidiUnavailableException {
+        if (transmitter != null)
+            return;
+        if (!device.isOpen())
+            device.open();
+        transmitter = device.getTransmitter();
+        transmitter.setReceiver(this);
+    }
+
+    @Override
+    public void send(MidiMessage message, long timeStamp) {
+        if (message instanceof ShortMessage) {
+            final ShortMessage shortMessage = (ShortMessage)message;
+            port.send(shortMessage.getStatus(), shortMessage.getData1(),
+                    shortMessage.getData2());
+        }
+    }
+
+    /**
+     * Disconnects the transmitter and closes the device.
+     */
+    @Override
+    public synchronized void close() {
+        if (transmitter == null)
+            return;
+        transmitter.close();
+        transmitter = null;
+        device.close();
+    }
+}
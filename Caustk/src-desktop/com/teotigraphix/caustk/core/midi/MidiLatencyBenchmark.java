@@ -0,0 +1,136 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core.midi;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.sound.midi.InvalidMidiDataException;
+
+import com.teotigraphix.caustk.core.ICaustkRack;
+
+/**
+ * The {@link MidiLatencyBenchmark} measures the note latency of a
+ * {@link MidiInputRouter}.
+ * <p>
+ * Note on/off pairs are played on a {@link LoopbackMidiDevice} connected
+ * through a {@link MidiDeviceInput}, the router plays them on a stub rack
+ * whose engine only counts messages. The main thread stands in for the app
+ * thread and calls {@link MidiInputRouter#frameChanged(float)} at 60 frames a
+ * second. The latency is the time from a message's arrival at its port to the
+ * return of the engine send, so it includes the wait for the next frame.
+ * <p>
+ * Usage: <code>MidiLatencyBenchmark [notes] [rounds]</code>, the first round
+ * warms up.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class MidiLatencyBenchmark {
+
+    private static final int MACHINE_INDEX = 0;
+
+    private static final long FRAME_MILLIS = 16;
+
+    private static volatile int numMessages;
+
+    public static void main(String[] args) throws Exception {
+        final int numNotes = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        final int numRounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        final MidiInputRouter router = new MidiInputRouter(createRack());
+        final LoopbackMidiDevice device = new LoopbackMidiDevice();
+        final MidiDeviceInput input = new MidiDeviceInput(device, router);
+        input.open();
+        input.getPort().route(0, MACHINE_INDEX);
+        router.start();
+        try {
+            for (int round = 0; round < numRounds; round++) {
+                router.resetMetrics();
+                numMessages = 0;
+                final Thread player = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (int i = 0; i < numNotes; i++) {
+                                final int pitch = 48 + i % 24;
+                                device.send(0x90, pitch, 100);
+                                device.send(0x80, pitch, 0);
+                                // a fast player's pace
+                                if (i % 4 == 0)
+                                    Thread.sleep(1);
+                            }
+                        } catch (InvalidMidiDataException e) {
+                            throw new IllegalStateException(e);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }, "MidiLatencyBenchmark-player");
+                player.start();
+                while (numMessages < numNotes * 2) {
+                    router.frameChanged(FRAME_MILLIS / 1000f);
+                    Thread.sleep(FRAME_MILLIS);
+                }
+                player.join();
+                System.out.println(String.format(
+                        "%s notes=%d avg=%.1fus max=%.1fus dropped=%d",
+                        round == 0 ? "warm up" : "round " + round, router.getNumNotes(),
+                        router.getAverageLatency() / 1000.0, router.getMaxLatency() / 1000.0,
+                        input.getPort().getQueue().getNumDropped()));
+            }
+        } finally {
+            router.stop();
+            input.close();
+        }
+    }
+
+    /**
+     * Creates a loaded rack with one machine, the engine counts messages.
+     */
+    private static ICaustkRack createRack() {
+        return (ICaustkRack)Proxy.newProxyInstance(ICaustkRack.class.getClassLoader(),
+                new Class<?>[] {
+                    ICaustkRack.class
+                }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        final String name = method.getName();
+                        if (name.equals("sendMessage")) {
+                            numMessages++;
+                            return 0f;
+                        } else if (name.equals("isLoaded")) {
+                            return true;
+                        } else if (name.equals("contains")) {
+                            return (Integer)args[0] == MACHINE_INDEX;
+                        }
+                        final Class<?> type = method.getReturnType();
+                        if (type == boolean.class)
+                            return false;
+                        else if (type == float.class)
+                            return 0f;
+                        else if (type == int.class)
+                            return 0;
+                        return null;
+                    }
+                });
+    }
+}
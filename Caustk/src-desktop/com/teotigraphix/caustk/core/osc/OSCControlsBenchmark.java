@@ -0,0 +1,193 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core.osc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+
+import com.teotigraphix.caustk.core.ISoundGenerator;
+import com.teotigraphix.caustk.core.internal.CaustkRuntime;
+import com.teotigraphix.caustk.node.RackInstance;
+import com.teotigraphix.caustk.node.effect.DelayEffect;
+import com.teotigraphix.caustk.node.machine.PCMSynthMachine;
+import com.teotigraphix.caustk.node.machine.patch.MixerChannel;
+
+/**
+ * The {@link OSCControlsBenchmark} compares the switch dispatch of the
+ * {@link OSCControlsMap} with its reflective setter lookup.
+ * <p>
+ * Both paths set the same effect and mixer controls on nodes of a runtime
+ * whose sound generator ignores all messages, the node setters send and post
+ * as they do in the application. The setters are also called directly, the
+ * dispatch cost of a path is its time less the direct calls.
+ * <p>
+ * The paths are run with unchanged values first, the setters return on the
+ * equal value and the time is the dispatch alone. With changed values the
+ * send and post of the setters are included and dominate the time.
+ * <p>
+ * Usage: <code>OSCControlsBenchmark [calls] [rounds]</code>, the first round
+ * warms up, the best of the other rounds is printed last.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class OSCControlsBenchmark {
+
+    private static final EffectControls[] EFFECT_CONTROLS = {
+            EffectControls.Delay_Feedback, EffectControls.Delay_Wet
+    };
+
+    private static final MixerControls[] MIXER_CONTROLS = {
+            MixerControls.DelaySend, MixerControls.ReverbSend, MixerControls.Pan
+    };
+
+    public static void main(String[] args) {
+        final int numCalls = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        final int numRounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        CaustkRuntime.createInstance(null, createSoundGenerator());
+        final PCMSynthMachine machine = new PCMSynthMachine(new RackInstance(), 0, "bench");
+        final DelayEffect effect = new DelayEffect(machine, 0);
+        final MixerChannel mixer = machine.getMixer();
+
+        for (int mode = 0; mode < 2; mode++) {
+            final boolean changing = mode == 1;
+            System.out.println(changing ? "changed values, the setters send and post:"
+                    : "unchanged values, the setters return early:");
+            // [direct, switch, reflective] of the effect then the mixer, best of the rounds
+            final long[] best = new long[6];
+            Arrays.fill(best, Long.MAX_VALUE);
+            for (int round = 0; round < numRounds; round++) {
+                final long[] times = run(effect, mixer, numCalls, changing);
+                print(round == 0 ? "warm up" : "round " + round, times, numCalls);
+                if (round == 0)
+                    continue;
+                for (int i = 0; i < best.length; i++) {
+                    best[i] = Math.min(best[i], times[i]);
+                }
+            }
+            if (numRounds > 1)
+                print("best", best, numCalls);
+        }
+    }
+
+    private static long[] run(DelayEffect effect, MixerChannel mixer, int numCalls,
+            boolean changing) {
+        final long[] times = new long[6];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < numCalls; i++) {
+            if (i % 2 == 0)
+                effect.setFeedback(toValue(i, changing));
+            else
+                effect.setWet(toValue(i, changing));
+        }
+        times[0] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < numCalls; i++) {
+            OSCControlsMap.applyValue(effect, EFFECT_CONTROLS[i % 2], toValue(i, changing));
+        }
+        times[1] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < numCalls; i++) {
+            final EffectControls control = EFFECT_CONTROLS[i % 2];
+            OSCControlsMap.invokeSetter(effect,
+                    OSCControlsMap.toSetterName(control.getControl()), toValue(i, changing));
+        }
+        times[2] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < numCalls; i++) {
+            switch (i % 3) {
+                case 0:
+                    mixer.setDelaySend(toValue(i, changing));
+                    break;
+                case 1:
+                    mixer.setReverbSend(toValue(i, changing));
+                    break;
+                default:
+                    mixer.setPan(toValue(i, changing));
+                    break;
+            }
+        }
+        times[3] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < numCalls; i++) {
+            OSCControlsMap.applyValue(mixer, MIXER_CONTROLS[i % 3], toValue(i, changing));
+        }
+        times[4] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < numCalls; i++) {
+            final MixerControls control = MIXER_CONTROLS[i % 3];
+            OSCControlsMap.invokeSetter(mixer,
+                    OSCControlsMap.toSetterName(control.getControl()), toValue(i, changing));
+        }
+        times[5] = System.nanoTime() - start;
+        return times;
+    }
+
+    /**
+     * Prints the direct setter call and the dispatch cost over it.
+     */
+    private static void print(String label, long[] times, int numCalls) {
+        System.out.println(String.format("%s effect setter=%.1fns dispatch switch=%.1fns "
+                + "reflective=%.1fns, mixer setter=%.1fns dispatch switch=%.1fns "
+                + "reflective=%.1fns", label, (double)times[0] / numCalls,
+                (double)(times[1] - times[0]) / numCalls,
+                (double)(times[2] - times[0]) / numCalls, (double)times[3] / numCalls,
+                (double)(times[4] - times[3]) / numCalls,
+                (double)(times[5] - times[3]) / numCalls));
+    }
+
+    /**
+     * Returns the value of a call, alternated so no setter returns early on
+     * an equal value when changing.
+     */
+    private static float toValue(int call, boolean changing) {
+        if (!changing)
+            return 0.5f;
+        return (call / 3 & 1) == 0 ? 0.25f : 0.75f;
+    }
+
+    private static ISoundGenerator createSoundGenerator() {
+        return (ISoundGenerator)Proxy.newProxyInstance(ISoundGenerator.class.getClassLoader(),
+                new Class<?>[] {
+                    ISoundGenerator.class
+                }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        final Class<?> type = method.getReturnType();
+                        if (type == boolean.class)
+                            return false;
+                        else if (type == float.class)
+                            return 0f;
+                        else if (type == int.class)
+                            return 0;
+                        return null;
+                    }
+                });
+    }
+}
@@ -20,11 +20,13 @@
 package com.teotigraphix.caustk.core;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 
 import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
@@ -180,6 +182,57 @@ public class CausticFile {
         readFile(file);
     }
 
+    /**
+     * Reads the metadata descriptor information using positional reads on the
+     * channel, the channel's position is not changed.
+     * <p>
+     * Safe to call from worker threads with a channel per file.
+     * 
+     * @param channel The open channel of this .caustic file.
+     * @throws java.io.IOException
+     */
+    public void read(FileChannel channel) throws IOException {
+        // 4 bytes for DESC + 4 bytes for meta length
+        final int footerLength = 8;
+        final long fileLength = channel.size();
+
+        hasDescription = false;
+        if (fileLength < footerLength)
+            return;
+
+        ByteBuffer footer = ByteBuffer.allocate(footerLength).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, footer, fileLength - footerLength);
+
+        // Check fo the DESC tag
+        byte[] desc = new byte[4];
+        footer.get(desc);
+        hasDescription = new String(desc).equals(DESC_TAG);
+        if (!hasDescription)
+            return;
+
+        int metadataLength = footer.getInt();
+        long position = fileLength - metadataLength - footerLength;
+        if (metadataLength < 0 || position < 0) {
+            hasDescription = false;
+            return;
+        }
+
+        ByteBuffer bytes = ByteBuffer.allocate(metadataLength);
+        readFully(channel, bytes, position);
+
+        String s = new String(bytes.array(), Charset.forName("UTF-8"));
+
+        String[] split = s.split("\\|");
+        final int slen = split.length;
+        artist = split[0];
+        title = slen > 1 ? split[1] : null;
+        description = slen > 2 ? split[2] : null;
+        if (slen > 3)
+            linkText = split[3];
+        if (slen > 4)
+            linkUrl = split[4];
+    }
+
     /**
      * Writes a .caustic file and attaches the metadata descriptor information
      * to it.
@@ -225,56 +278,30 @@ public class CausticFile {
     }
 
     private void readFile(File file) throws FileNotFoundException {
-        RandomAccessFile accessFile = new RandomAccessFile(file, "r");
-
+        FileInputStream stream = new FileInputStream(file);
         try {
-            // 4 bytes for DESC + 4 bytes for meta length
-            final int footerLength = 8;
-            // File size
-            long fileLength = accessFile.length();
-
-            accessFile.seek(fileLength - footerLength);
-
-            // Check fo the DESC tag
-            byte[] desc = new byte[4];
-            accessFile.read(desc, 0, 4);
-
-            hasDescription = new String(desc).equals(DESC_TAG);
-            if (!hasDescription)
-                return;
-
-            int metadataLength = reverse(accessFile.readInt());
-
-            accessFile.seek(0);
-            accessFile.seek(fileLength - metadataLength - footerLength);
-
-            byte[] bytes = new byte[metadataLength];
-            accessFile.read(bytes, 0, metadataLength);
-
-            String s = new String(bytes, Charset.forName("UTF-8"));
-
-            String[] split = s.split("\\|");
-            final int slen = split.length;
-            artist = split[0];
-            title = split[1];
-            description = split[2];
-            if (slen > 3)
-                linkText = split[3];
-            if (slen > 4)
-                linkUrl = split[4];
-
+            read(stream.getChannel());
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
             try {
-                if (accessFile != null)
-                    accessFile.close();
+                stream.close();
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
     }
 
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                throw new IOException("Unexpected end of .caustic file");
+        }
+        buffer.flip();
+    }
+
     private void writeFile() throws IOException {
         final StringBuilder metadata = new StringBuilder();
         metadata.append(artist);
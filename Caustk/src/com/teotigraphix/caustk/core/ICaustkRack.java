@@ -24,10 +24,13 @@ import java.io.IOException;
 import java.util.Collection;
 
 import com.google.common.eventbus.EventBus;
+import com.teotigraphix.caustk.core.midi.MidiInputRouter;
+import com.teotigraphix.caustk.core.sample.SamplePool;
 import com.teotigraphix.caustk.gdx.app.ICaustkApplication;
 import com.teotigraphix.caustk.gdx.app.Project;
 import com.teotigraphix.caustk.groove.library.LibraryGroup;
 import com.teotigraphix.caustk.node.NodeBase;
+import com.teotigraphix.caustk.node.NodeEventDispatcher;
 import com.teotigraphix.caustk.node.RackInstance;
 import com.teotigraphix.caustk.node.machine.Machine;
 import com.teotigraphix.caustk.node.master.MasterDelayNode;
@@ -58,6 +61,15 @@ public interface ICaustkRack extends ISoundGenerator {
 
     EventBus getEventBus();
 
+    NodeEventDispatcher getEventDispatcher();
+
+    MessageThrottle getMessageThrottle();
+
+    /**
+     * Returns the router of live MIDI input, created on the first call.
+     */
+    MidiInputRouter getMidiInputRouter();
+
     ICaustkApplication getApplication();
 
     ICaustkSerializer getSerializer();
@@ -78,6 +90,12 @@ public interface ICaustkRack extends ISoundGenerator {
      */
     RackInstance getRackInstance();
 
+    /**
+     * Returns the rack wide registry of the samples loaded into machine
+     * channels.
+     */
+    SamplePool getSamplePool();
+
     String getName();
 
     String getPath();
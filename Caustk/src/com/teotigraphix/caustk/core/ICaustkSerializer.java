@@ -18,6 +18,14 @@ public interface ICaustkSerializer {
 
     <T> T deserialize(File file, Class<T> type) throws IOException;
 
+    /**
+     * Returns a deep copy of the instance, only the serialized state is
+     * copied.
+     * 
+     * @param instance The instance to copy.
+     */
+    <T> T copy(T instance);
+
     <T> T fromXMLManifest(File manifestFile, Class<T> clazz) throws FileNotFoundException;
 
     <T> T fromXMLManifest(String manifestData, Class<T> clazz) throws FileNotFoundException;
@@ -0,0 +1,300 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The {@link MessageThrottle} limits the rate of control messages sent to the
+ * native engine while a knob or slider is dragged.
+ * <p>
+ * Messages sent between {@link #begin()} and {@link #end()} on a thread are
+ * throttled per OSC address, the address being the message without its last
+ * (value) token. The first message of an address is sent immediately, later
+ * messages within {@link #getInterval()} replace the pending message of the
+ * address, only the latest value is sent when the interval has passed. Node
+ * setters update the model before they send, so model values are always
+ * current.
+ * <p>
+ * Pending messages are sent by {@link #frameChanged(float)} and all at once
+ * by {@link #flush()} when a gesture ends. A message sent outside of a
+ * throttled call replaces the pending message of its address, a query of an
+ * address sends its pending message first.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public abstract class MessageThrottle {
+
+    /**
+     * The default maximum number of messages per second and address.
+     */
+    public static final float DEFAULT_MAX_RATE = 30f;
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    private final ThreadLocal<int[]> depth = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    private volatile int numPending;
+
+    private float maxRate = DEFAULT_MAX_RATE;
+
+    private long interval = toInterval(DEFAULT_MAX_RATE);
+
+    private boolean enabled = true;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    //----------------------------------
+    // maxRate
+    //----------------------------------
+
+    /**
+     * Returns the maximum number of messages per second sent for one address.
+     */
+    public synchronized float getMaxRate() {
+        return maxRate;
+    }
+
+    /**
+     * Sets the maximum number of messages per second sent for one address,
+     * default {@link #DEFAULT_MAX_RATE}.
+     *
+     * @param maxRate The rate, greater than 0.
+     */
+    public synchronized void setMaxRate(float maxRate) {
+        if (maxRate <= 0f)
+            throw new IllegalArgumentException("maxRate must be greater than 0: " + maxRate);
+        this.maxRate = maxRate;
+        interval = toInterval(maxRate);
+    }
+
+    /**
+     * Returns the minimum time between two messages of one address in
+     * milliseconds.
+     */
+    public synchronized float getInterval() {
+        return interval / 1000000f;
+    }
+
+    //----------------------------------
+    // enabled
+    //----------------------------------
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether messages are throttled, disabling sends all pending
+     * messages.
+     *
+     * @param enabled Whether messages are throttled.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        if (!enabled)
+            flush();
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the number of addresses with a pending message.
+     */
+    public int getNumPending() {
+        return numPending;
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Starts throttling the messages sent by the current thread, calls nest.
+     */
+    public void begin() {
+        depth.get()[0]++;
+    }
+
+    /**
+     * Ends a {@link #begin()}.
+     */
+    public void end() {
+        final int[] count = depth.get();
+        if (count[0] > 0)
+            count[0]--;
+    }
+
+    /**
+     * Sends the pending messages whose interval has passed, call once per
+     * render frame.
+     *
+     * @param deltaTime The time since the last frame in seconds.
+     */
+    public synchronized void frameChanged(float deltaTime) {
+        if (entries.isEmpty())
+            return;
+        final long now = System.nanoTime();
+        for (Iterator<Entry> i = entries.values().iterator(); i.hasNext();) {
+            final Entry entry = i.next();
+            if (now - entry.sent < interval)
+                continue;
+            if (entry.message == null) {
+                // an idle address sends its next message immediately
+                i.remove();
+            } else {
+                sendPending(entry, now);
+            }
+        }
+    }
+
+    /**
+     * Sends all pending messages, called when a gesture ends.
+     */
+    public synchronized void flush() {
+        if (numPending == 0)
+            return;
+        final long now = System.nanoTime();
+        for (Entry entry : entries.values()) {
+            if (entry.message != null)
+                sendPending(entry, now);
+        }
+    }
+
+    /**
+     * Called by the engine for each message, returns whether the throttle
+     * took the message.
+     * <p>
+     * A message that was not taken must be sent by the engine.
+     *
+     * @param message The OSC message.
+     */
+    public boolean offer(String message) {
+        if (depth.get()[0] == 0) {
+            if (numPending > 0)
+                settle(message);
+            return false;
+        }
+        final int space = message.lastIndexOf(' ');
+        if (space == -1)
+            return false;
+
+        final String address = message.substring(0, space);
+        synchronized (this) {
+            if (!enabled)
+                return false;
+            final long now = System.nanoTime();
+            Entry entry = entries.get(address);
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(address, entry);
+            } else if (now - entry.sent < interval) {
+                if (entry.message == null)
+                    numPending++;
+                entry.message = message;
+                return true;
+            } else if (entry.message != null) {
+                entry.message = null;
+                numPending--;
+            }
+            entry.sent = now;
+            send(message);
+        }
+        return true;
+    }
+
+    /**
+     * Called by the engine before a message or query that was not throttled.
+     * <p>
+     * The pending message of the same address is dropped, the pending message
+     * of a queried address is sent first.
+     *
+     * @param message The OSC message or query.
+     */
+    public void settle(String message) {
+        if (numPending == 0)
+            return;
+        synchronized (this) {
+            final Entry query = entries.get(message);
+            if (query != null && query.message != null) {
+                sendPending(query, System.nanoTime());
+                return;
+            }
+            final int space = message.lastIndexOf(' ');
+            if (space == -1)
+                return;
+            final Entry entry = entries.get(message.substring(0, space));
+            if (entry != null && entry.message != null) {
+                entry.message = null;
+                numPending--;
+            }
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Protected :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Sends a message to the engine without throttling.
+     *
+     * @param message The OSC message.
+     */
+    protected abstract void send(String message);
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private void sendPending(Entry entry, long now) {
+        final String message = entry.message;
+        entry.message = null;
+        entry.sent = now;
+        numPending--;
+        send(message);
+    }
+
+    private static long toInterval(float maxRate) {
+        return (long)(NANOS_PER_SECOND / maxRate);
+    }
+
+    private static final class Entry {
+
+        /**
+         * The latest message not sent yet, <code>null</code> if none.
+         */
+        String message;
+
+        /**
+         * The time of the last message sent in nanoseconds.
+         */
+        long sent;
+    }
+}
@@ -21,7 +21,10 @@ package com.teotigraphix.caustk.core.internal;
 
 import com.google.common.eventbus.EventBus;
 import com.teotigraphix.caustk.core.ISoundGenerator;
+import com.teotigraphix.caustk.core.MessageThrottle;
 import com.teotigraphix.caustk.node.NodeBase;
+import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
+import com.teotigraphix.caustk.node.NodeEventDispatcher;
 import com.teotigraphix.caustk.node.RackInstance;
 
 // TODO (caustk) create custom exception handler for all EventBus usages
@@ -49,6 +52,15 @@ public class CaustkEngine implements ISoundGenerator {
 
     private final EventBus eventBus;
 
+    private final NodeEventDispatcher eventDispatcher;
+
+    private final MessageThrottle messageThrottle = new MessageThrottle() {
+        @Override
+        protected void send(String message) {
+            dispatchMessage(message);
+        }
+    };
+
     //--------------------------------------------------------------------------
     // Public Property API
     //--------------------------------------------------------------------------
@@ -77,13 +89,44 @@ public class CaustkEngine implements ISoundGenerator {
         return eventBus;
     }
 
+    //----------------------------------
+    // eventDispatcher
+    //----------------------------------
+
+    /**
+     * Returns the dispatcher of all {@link NodeBase} events.
+     * <p>
+     * {@link NodeEvent}s posted on the {@link #getEventBus()} are delivered by
+     * the dispatcher, objects registered on the bus receive them through the
+     * dispatcher's {@link com.google.common.eventbus.Subscribe} bridge. Views
+     * that follow parameter changes subscribe typed listeners here.
+     */
+    public NodeEventDispatcher getEventDispatcher() {
+        return eventDispatcher;
+    }
+
+    //----------------------------------
+    // messageThrottle
+    //----------------------------------
+
+    /**
+     * Returns the throttle of control messages sent while a control is
+     * dragged.
+     *
+     * @see com.teotigraphix.caustk.core.osc.OSCControlsMap
+     */
+    public MessageThrottle getMessageThrottle() {
+        return messageThrottle;
+    }
+
     //--------------------------------------------------------------------------
     // Constructor
     //--------------------------------------------------------------------------
 
     CaustkEngine(ISoundGenerator soundGenerator) {
         this.soundGenerator = soundGenerator;
-        this.eventBus = new EventBus("engine");
+        this.eventDispatcher = new NodeEventDispatcher();
+        this.eventBus = new RackEventBus("engine", eventDispatcher);
     }
 
     //--------------------------------------------------------------------------
@@ -169,19 +212,26 @@ public class CaustkEngine implements ISoundGenerator {
 
     @Override
     public final float sendMessage(String message) {
-        if (collectOscMessaged) {
-            oscMessages.append("[Message] " + message);
-            oscMessages.append("\n");
-        }
-        return soundGenerator.sendMessage(message);
+        if (messageThrottle.offer(message))
+            return 0f;
+        return dispatchMessage(message);
     }
 
     @Override
     public final String queryMessage(String message) {
+        messageThrottle.settle(message);
         if (collectOscMessaged) {
             oscMessages.append("[  Query] " + message);
             oscMessages.append("\n");
         }
         return soundGenerator.queryMessage(message);
     }
+
+    private float dispatchMessage(String message) {
+        if (collectOscMessaged) {
+            oscMessages.append("[Message] " + message);
+            oscMessages.append("\n");
+        }
+        return soundGenerator.sendMessage(message);
+    }
 }
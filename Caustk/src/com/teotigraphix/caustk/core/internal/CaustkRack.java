@@ -20,11 +20,18 @@
 package com.teotigraphix.caustk.core.internal;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.io.FileUtils;
 
@@ -35,7 +42,9 @@ import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer;
 import com.teotigraphix.caustk.core.CausticException;
 import com.teotigraphix.caustk.core.ICaustkRack;
 import com.teotigraphix.caustk.core.ICaustkSerializer;
+import com.teotigraphix.caustk.core.midi.MidiInputRouter;
 import com.teotigraphix.caustk.core.osc.RackMessage;
+import com.teotigraphix.caustk.core.sample.SamplePool;
 import com.teotigraphix.caustk.gdx.app.ICaustkApplication;
 import com.teotigraphix.caustk.gdx.app.Project;
 import com.teotigraphix.caustk.groove.importer.CausticFileImporter;
@@ -46,9 +55,11 @@ import com.teotigraphix.caustk.groove.library.LibraryPatternBank;
 import com.teotigraphix.caustk.groove.library.LibrarySound;
 import com.teotigraphix.caustk.node.NodeBase;
 import com.teotigraphix.caustk.node.RackInstance;
+import com.teotigraphix.caustk.node.effect.EffectNode;
 import com.teotigraphix.caustk.node.machine.Machine;
 import com.teotigraphix.caustk.node.machine.MachineType;
 import com.teotigraphix.caustk.node.machine.patch.MixerChannel;
+import com.teotigraphix.caustk.node.machine.sequencer.NoteNode;
 import com.teotigraphix.caustk.node.machine.sequencer.PatternNode;
 import com.teotigraphix.caustk.node.master.MasterDelayNode;
 import com.teotigraphix.caustk.node.master.MasterEqualizerNode;
@@ -57,6 +68,7 @@ import com.teotigraphix.caustk.node.master.MasterReverbNode;
 import com.teotigraphix.caustk.node.master.MasterVolumeNode;
 import com.teotigraphix.caustk.node.sequencer.MasterSequencerChannel;
 import com.teotigraphix.caustk.utils.core.RuntimeUtils;
+import com.teotigraphix.caustk.utils.node.PresetUtils;
 
 /**
  * The {@link CaustkRack} holds the current {@link RackInstance} session state.
@@ -76,10 +88,16 @@ public class CaustkRack extends CaustkEngine implements ICaustkRack {
     // Private :: Variables
     //--------------------------------------------------------------------------
 
+    private static final int MAX_FILL_THREADS = 4;
+
     private final CaustkRuntime runtime;
 
     private ICaustkSerializer serializer;
 
+    private SamplePool samplePool;
+
+    private volatile MidiInputRouter midiInputRouter;
+
     //private RackInstance rackInstance;
 
     //--------------------------------------------------------------------------
@@ -109,6 +127,29 @@ public class CaustkRack extends CaustkEngine implements ICaustkRack {
         return serializer;
     }
 
+    //----------------------------------
+    // samplePool
+    //----------------------------------
+
+    @Override
+    public final synchronized SamplePool getSamplePool() {
+        if (samplePool == null)
+            samplePool = new SamplePool(new File(RuntimeUtils.getApplicationIndexDirectory(),
+                    "peaks"));
+        return samplePool;
+    }
+
+    //----------------------------------
+    // midiInputRouter
+    //----------------------------------
+
+    @Override
+    public final synchronized MidiInputRouter getMidiInputRouter() {
+        if (midiInputRouter == null)
+            midiInputRouter = new MidiInputRouter(this);
+        return midiInputRouter;
+    }
+
     //----------------------------------
     // rackNode
     //----------------------------------
@@ -273,50 +314,62 @@ public class CaustkRack extends CaustkEngine implements ICaustkRack {
         fill(libraryGroup, true, true, true, true);
     }
 
+    /**
+     * Fills the rack with the group's sounds.
+     * <p>
+     * Worker threads prepare the sounds ahead of the engine, writing the
+     * cached preset files and copying the effect and pattern note data. The
+     * calling thread only creates the machines and sends the prepared data, in
+     * sound order.
+     */
     @Override
-    public RackInstance fill(LibraryGroup libraryGroup, boolean importPreset,
-            boolean importEffects, boolean importPatterns, boolean importMixer)
+    public RackInstance fill(LibraryGroup libraryGroup, final boolean importPreset,
+            boolean importEffects, final boolean importPatterns, boolean importMixer)
             throws CausticException, IOException {
         //        RackNode rackNode = create();
         // remove all machines, clear rack
         //        setRackNode(rackNode);
 
-        // create machines
-        for (LibrarySound librarySound : libraryGroup.getSounds()) {
-            LibraryEffect libraryEffect = librarySound.getEffect();
-            LibraryInstrument libraryInstrument = librarySound.getInstrument();
-            LibraryPatternBank patternBank = librarySound.getPatternBank();
-
-            int index = librarySound.getIndex();
-            MachineType machineType = libraryInstrument.getMachine().getType();
-            String machineName = libraryInstrument.getMachine().getName();
-            Machine machineNode = getRackInstance().createMachine(index, machineType, machineName);
-
-            //libraryInstrument.setMachineNode(machineNode);
-
-            if (importPreset) {
-                File presetFile = libraryInstrument.getPendingPresetFile();
-                if (presetFile == null) {
-                    presetFile = loadTempPresetFile(libraryInstrument, machineNode);
-                    libraryInstrument.setPendingPresetFile(presetFile);
-                }
-                if (machineType != MachineType.Vocoder)
-                    loadPrest(machineNode, libraryInstrument);
-            }
-
-            if (importEffects) {
-                loadEffects(machineNode, libraryEffect);
-            }
-
-            if (importMixer) {
-                loadMixerChannel(machineNode, libraryInstrument);
+        final List<LibrarySound> sounds = new ArrayList<LibrarySound>(libraryGroup.getSounds());
+        if (sounds.isEmpty())
+            return getRackInstance();
+
+        final int threads = Math.min(Math.min(MAX_FILL_THREADS, sounds.size()), Runtime
+                .getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CaustkRack-fill");
+                thread.setDaemon(true);
+                return thread;
             }
-
-            if (importPatterns) {
-                loadPatternSequencer(machineNode, patternBank);
+        });
+        try {
+            final LinkedList<Future<PreparedSound>> pending =
+                    new LinkedList<Future<PreparedSound>>();
+            int next = 0;
+            for (int i = 0; i < sounds.size(); i++) {
+                // keep a bounded window of prepared sounds ahead of the engine
+                while (next < sounds.size() && pending.size() < threads * 2) {
+                    final LibrarySound librarySound = sounds.get(next);
+                    pending.add(executor.submit(new Callable<PreparedSound>() {
+                        @Override
+                        public PreparedSound call() throws Exception {
+                            return prepareSound(librarySound, importPreset, importPatterns);
+                        }
+                    }));
+                    next++;
+                }
+                applySound(await(pending.removeFirst()), importPreset, importEffects,
+                        importPatterns, importMixer);
             }
+        } finally {
+            executor.shutdownNow();
         }
 
+        // presets of the machines this group replaced are no longer loaded
+        PresetUtils.prunePresetCache(this);
+
         return getRackInstance();
     }
 
@@ -339,10 +392,8 @@ public class CaustkRack extends CaustkEngine implements ICaustkRack {
         //        PatternSequencerComponent oldSequencer = libraryInstrument.getMachineNode().getSequencer();
         //        machineNode.updateSequencer(oldSequencer);
 
-        for (PatternNode patternNode : patternBank.getPatterns()) {
-            //System.out.println("    " + patternNode.getName());
-            machineNode.getSequencer().addPattern(patternNode);
-        }
+        List<PatternNode> patterns = new ArrayList<PatternNode>(patternBank.getPatterns());
+        machineNode.getSequencer().addPatterns(patterns, copyNotes(patterns));
     }
 
     private Project project;
@@ -433,19 +484,109 @@ public class CaustkRack extends CaustkEngine implements ICaustkRack {
     @Override
     public void frameChanged(float deltaTime) {
         getRackInstance().getSequencer().frameChanged(deltaTime);
+        getRackInstance().getAutomation().frameChanged(deltaTime);
+        final MidiInputRouter router = midiInputRouter;
+        if (router != null)
+            router.frameChanged(deltaTime);
+        getEventDispatcher().frameChanged(deltaTime);
+        getMessageThrottle().frameChanged(deltaTime);
+    }
+
+    private PreparedSound prepareSound(LibrarySound librarySound, boolean importPreset,
+            boolean importPatterns) throws IOException {
+        PreparedSound prepared = new PreparedSound(librarySound);
+        LibraryInstrument libraryInstrument = librarySound.getInstrument();
+        if (importPreset && !hasPendingPresetFile(libraryInstrument))
+            prepared.presetFile = loadTempPresetFile(libraryInstrument);
+
+        LibraryEffect libraryEffect = librarySound.getEffect();
+        prepared.effect1 = libraryEffect.get(0);
+        prepared.effect2 = libraryEffect.get(1);
+
+        if (importPatterns) {
+            prepared.patterns.addAll(librarySound.getPatternBank().getPatterns());
+            prepared.notes.addAll(copyNotes(prepared.patterns));
+        }
+        return prepared;
+    }
+
+    private void applySound(PreparedSound prepared, boolean importPreset, boolean importEffects,
+            boolean importPatterns, boolean importMixer) throws CausticException,
+            IOException {
+        LibrarySound librarySound = prepared.sound;
+        LibraryInstrument libraryInstrument = librarySound.getInstrument();
+
+        int index = librarySound.getIndex();
+        MachineType machineType = libraryInstrument.getMachine().getType();
+        String machineName = libraryInstrument.getMachine().getName();
+        Machine machineNode = getRackInstance().createMachine(index, machineType, machineName);
+
+        if (importPreset) {
+            if (!hasPendingPresetFile(libraryInstrument))
+                libraryInstrument.setPendingPresetFile(prepared.presetFile);
+            if (machineType != MachineType.Vocoder
+                    && libraryInstrument.getPendingPresetFile() != null)
+                loadPrest(machineNode, libraryInstrument);
+        }
+
+        if (importEffects) {
+            machineNode.getEffect().updateEffects(machineNode, prepared.effect1,
+                    prepared.effect2);
+        }
+
+        if (importMixer) {
+            loadMixerChannel(machineNode, libraryInstrument);
+        }
+
+        if (importPatterns) {
+            machineNode.getSequencer().addPatterns(prepared.patterns, prepared.notes);
+        }
     }
 
-    private File loadTempPresetFile(LibraryInstrument libraryInstrument, Machine machineNode)
-            throws IOException {
+    private static boolean hasPendingPresetFile(LibraryInstrument libraryInstrument) {
+        // a cached preset file of an earlier load could have been pruned since
+        File presetFile = libraryInstrument.getPendingPresetFile();
+        return presetFile != null && presetFile.exists();
+    }
+
+    private static List<ArrayList<NoteNode>> copyNotes(List<PatternNode> patterns) {
+        List<ArrayList<NoteNode>> result = new ArrayList<ArrayList<NoteNode>>(patterns.size());
+        for (PatternNode patternNode : patterns) {
+            result.add(new ArrayList<NoteNode>(patternNode.getNotes()));
+        }
+        return result;
+    }
+
+    private static PreparedSound await(Future<PreparedSound> future) throws CausticException,
+            IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while preparing the group's sounds");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException)cause;
+            if (cause instanceof CausticException)
+                throw (CausticException)cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            if (cause instanceof Error)
+                throw (Error)cause;
+            throw new IOException(cause.getMessage());
+        }
+    }
+
+    private File loadTempPresetFile(LibraryInstrument libraryInstrument) throws IOException {
         File tempPreset = null;
-        MachineType machineType = machineNode.getType();
+        MachineType machineType = libraryInstrument.getMachine().getType();
         if (machineType != MachineType.Vocoder) {
-            File cacheDirectory = CaustkRuntime.getInstance().getFactory()
-                    .getCacheDirectory("temp_presets");
-            tempPreset = new File(cacheDirectory, "preset." + machineType.getExtension());
             byte[] data = libraryInstrument.getMachine().getPreset().getRestoredData();
             if (data != null) {
-                FileUtils.writeByteArrayToFile(tempPreset, data);
+                // keyed by content, each instrument keeps its own file and
+                // identical presets across a group share one
+                tempPreset = PresetUtils.toCachedPresetFile(data, "preset", machineType);
             } else {
                 runtime.getLogger().err("CausticRack",
                         "Could not load preset data for: " + libraryInstrument.getMachine());
@@ -455,6 +596,28 @@ public class CaustkRack extends CaustkEngine implements ICaustkRack {
         return tempPreset;
     }
 
+    /**
+     * A sound of a group fill, with the data sent to the engine read ahead.
+     */
+    private static final class PreparedSound {
+
+        final LibrarySound sound;
+
+        File presetFile;
+
+        EffectNode effect1;
+
+        EffectNode effect2;
+
+        final List<PatternNode> patterns = new ArrayList<PatternNode>();
+
+        final List<ArrayList<NoteNode>> notes = new ArrayList<ArrayList<NoteNode>>();
+
+        PreparedSound(LibrarySound sound) {
+            this.sound = sound;
+        }
+    }
+
     class CaustkSerializer implements ICaustkSerializer {
 
         private CausticFileImporter importer;
@@ -483,18 +646,37 @@ public class CaustkRack extends CaustkEngine implements ICaustkRack {
             CaustkSerializerTags.register(kryo);
         }
 
+        // Kryo is not thread safe, library items are (de)serialized from
+        // worker threads so only the in memory encoding holds the lock
+
         @Override
         public void serialize(File target, Object node) throws IOException {
-            Output output = new Output(new FileOutputStream(target.getAbsolutePath()));
-            kryo.writeObject(output, node);
-            output.close();
+            byte[] data;
+            synchronized (kryo) {
+                Output output = new Output(4096, -1);
+                kryo.writeObject(output, node);
+                data = output.toBytes();
+            }
+            FileUtils.writeByteArrayToFile(target, data);
         }
 
         @Override
         public <T> T deserialize(File file, Class<T> type) throws IOException {
-            Input input = new Input(new FileInputStream(file));
-            T instance = kryo.readObject(input, type);
-            return instance;
+            byte[] data = FileUtils.readFileToByteArray(file);
+            synchronized (kryo) {
+                return kryo.readObject(new Input(data), type);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T copy(T instance) {
+            synchronized (kryo) {
+                Output output = new Output(4096, -1);
+                kryo.writeObject(output, instance);
+                return (T)kryo.readObject(new Input(output.getBuffer(), 0, output.position()),
+                        instance.getClass());
+            }
         }
 
         @Override
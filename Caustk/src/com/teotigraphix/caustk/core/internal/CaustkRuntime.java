@@ -155,6 +155,14 @@ public class CaustkRuntime implements ICaustkRuntime {
         return instance;
     }
 
+    /**
+     * Returns whether {@link #createInstance(ICaustkApplication, ISoundGenerator)}
+     * was called.
+     */
+    public static boolean hasInstance() {
+        return instance != null;
+    }
+
     /**
      * DO NOT USE.
      * 
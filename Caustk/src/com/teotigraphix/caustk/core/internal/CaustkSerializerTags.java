@@ -18,6 +18,7 @@ import com.teotigraphix.caustk.core.midi.MidiReference;
 import com.teotigraphix.caustk.core.midi.NoteReference;
 import com.teotigraphix.caustk.core.midi.ScaleReference;
 import com.teotigraphix.caustk.core.osc.BasslineMessage;
+import com.teotigraphix.caustk.core.osc.EffectControls;
 import com.teotigraphix.caustk.core.osc.EffectsRackMessage.ChorusMode;
 import com.teotigraphix.caustk.core.osc.EffectsRackMessage.DelayMode;
 import com.teotigraphix.caustk.core.osc.EffectsRackMessage.DistortionProgram;
@@ -27,6 +28,8 @@ import com.teotigraphix.caustk.core.osc.EffectsRackMessage.StaticFlangerMode;
 import com.teotigraphix.caustk.core.osc.FMSynthMessage;
 import com.teotigraphix.caustk.core.osc.FMSynthMessage.FMOperatorControl;
 import com.teotigraphix.caustk.core.osc.FilterMessage.FilterType;
+import com.teotigraphix.caustk.core.osc.MixerControls;
+import com.teotigraphix.caustk.core.osc.PCMSynthControls;
 import com.teotigraphix.caustk.core.osc.PCMSynthMessage.LFO1Waveform;
 import com.teotigraphix.caustk.core.osc.PCMSynthMessage.PlayMode;
 import com.teotigraphix.caustk.core.osc.PadSynthMessage.LFO1Target;
@@ -40,7 +43,11 @@ import com.teotigraphix.caustk.gdx.app.Project;
 import com.teotigraphix.caustk.gdx.app.ProjectProperties;
 import com.teotigraphix.caustk.gdx.app.model.machine.SongFileMachine;
 import com.teotigraphix.caustk.gdx.app.model.song.SongFile;
+import com.teotigraphix.caustk.gdx.app.model.song.SongFileIndex;
 import com.teotigraphix.caustk.gdx.app.model.song.SongFileSource;
+import com.teotigraphix.caustk.groove.browser.BrowserBank;
+import com.teotigraphix.caustk.groove.browser.LibraryIndex;
+import com.teotigraphix.caustk.groove.browser.LibraryIndexEntry;
 import com.teotigraphix.caustk.groove.library.LibraryEffect;
 import com.teotigraphix.caustk.groove.library.LibraryGroup;
 import com.teotigraphix.caustk.groove.library.LibraryInstrument;
@@ -62,6 +69,9 @@ import com.teotigraphix.caustk.groove.session.SceneManager;
 import com.teotigraphix.caustk.groove.session.SessionManager;
 import com.teotigraphix.caustk.node.NodeMetaData;
 import com.teotigraphix.caustk.node.RackInstance;
+import com.teotigraphix.caustk.node.automation.AutomationChannel;
+import com.teotigraphix.caustk.node.automation.AutomationLane;
+import com.teotigraphix.caustk.node.automation.AutomationLaneSerializer;
 import com.teotigraphix.caustk.node.effect.AutoWahEffect;
 import com.teotigraphix.caustk.node.effect.BitcrusherEffect;
 import com.teotigraphix.caustk.node.effect.CabinetSimulatorEffect;
@@ -146,6 +156,7 @@ import com.teotigraphix.caustk.node.machine.patch.vocoder.VocoderModulatorCompon
 import com.teotigraphix.caustk.node.machine.sequencer.ClipChannel;
 import com.teotigraphix.caustk.node.machine.sequencer.NoteNode;
 import com.teotigraphix.caustk.node.machine.sequencer.PatternNode;
+import com.teotigraphix.caustk.node.machine.sequencer.PatternNodeSerializer;
 import com.teotigraphix.caustk.node.machine.sequencer.SequencerChannel;
 import com.teotigraphix.caustk.node.machine.sequencer.TrackChannel;
 import com.teotigraphix.caustk.node.machine.sequencer.TrackEntryNode;
@@ -245,7 +256,7 @@ public final class CaustkSerializerTags {
         kryo.register(MasterSequencerChannel.ShuffleMode.class, 258);
         kryo.register(MasterSequencerChannel.SongEndMode.class, 259);
 
-        kryo.register(PatternNode.class, 260);
+        kryo.register(PatternNode.class, new PatternNodeSerializer(kryo), 260);
         kryo.register(PatternNode.Resolution.class, 261);
         kryo.register(PatternNode.ShuffleMode.class, 262);
         kryo.register(NoteNode.class, 263);
@@ -402,6 +413,20 @@ public final class CaustkSerializerTags {
         kryo.register(CarrierOscWaveform.class, 802);
         kryo.register(VocoderModulatorComponent.class, 803);
 
+        //------------------------------
+        // Automation 851-900
+        //------------------------------
+
+        kryo.register(AutomationChannel.class, 851);
+        kryo.register(AutomationLane.class, new AutomationLaneSerializer(kryo), 852);
+        // lanes outlive the order of the control constants
+        kryo.register(EffectControls.class, new EnumNameSerializer<EffectControls>(
+                EffectControls.class), 853);
+        kryo.register(MixerControls.class, new EnumNameSerializer<MixerControls>(
+                MixerControls.class), 854);
+        kryo.register(PCMSynthControls.class, new EnumNameSerializer<PCMSynthControls>(
+                PCMSynthControls.class), 855);
+
         //------------------------------
         // Groove framework 901-1000
         //------------------------------
@@ -421,6 +446,11 @@ public final class CaustkSerializerTags {
         kryo.register(LibraryPatternBank.class, 935);
         kryo.register(LibraryPatternBankManifest.class, 936);
 
+        kryo.register(BrowserBank.class, 937);
+        kryo.register(LibraryIndex.class, 938);
+        kryo.register(LibraryIndex.ProductEntry.class, 939);
+        kryo.register(LibraryIndexEntry.class, 940);
+
         kryo.register(SessionManager.class, 950);
         kryo.register(SceneManager.class, 951);
         kryo.register(Scene.class, 952);
@@ -435,6 +465,7 @@ public final class CaustkSerializerTags {
         kryo.register(SongFile.class, 980);
         kryo.register(SongFileMachine.class, 981);
         kryo.register(SongFileSource.class, 982);
+        kryo.register(SongFileIndex.class, 983);
     }
 
     public static class UUIDSerializer extends Serializer<UUID> {
@@ -454,6 +485,30 @@ public final class CaustkSerializerTags {
         }
     }
 
+    /**
+     * Writes an enum constant by name instead of by ordinal, constants can be
+     * added or reordered without changing what serialized data reads back as.
+     */
+    public static class EnumNameSerializer<T extends Enum<T>> extends Serializer<T> {
+
+        private final Class<T> type;
+
+        public EnumNameSerializer(Class<T> type) {
+            this.type = type;
+            setImmutable(true);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, T value) {
+            output.writeString(value.name());
+        }
+
+        @Override
+        public T read(Kryo kryo, Input input, Class<T> clazz) {
+            return Enum.valueOf(type, input.readString());
+        }
+    }
+
     public static class FileSerializer extends Serializer<File> {
 
         @Override
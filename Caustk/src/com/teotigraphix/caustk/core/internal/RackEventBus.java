@@ -0,0 +1,66 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core.internal;
+
+import com.google.common.eventbus.EventBus;
+import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
+import com.teotigraphix.caustk.node.NodeEventDispatcher;
+
+/**
+ * The rack's {@link EventBus}, {@link NodeEvent}s are delivered by the
+ * {@link NodeEventDispatcher}.
+ * <p>
+ * A registered object receives node events through the dispatcher's
+ * {@link NodeEventDispatcher#register(Object)} bridge and all other events
+ * through the bus, existing subscribers do not change.
+ * 
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+final class RackEventBus extends EventBus {
+
+    private final NodeEventDispatcher dispatcher;
+
+    RackEventBus(String identifier, NodeEventDispatcher dispatcher) {
+        super(identifier);
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void register(Object object) {
+        super.register(object);
+        dispatcher.register(object);
+    }
+
+    @Override
+    public void unregister(Object object) {
+        dispatcher.unregister(object);
+        super.unregister(object);
+    }
+
+    @Override
+    public void post(Object event) {
+        if (event instanceof NodeEvent) {
+            dispatcher.post((NodeEvent)event);
+        } else {
+            super.post(event);
+        }
+    }
+}
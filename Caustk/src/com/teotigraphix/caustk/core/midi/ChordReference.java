@@ -1,8 +1,11 @@
 
 package com.teotigraphix.caustk.core.midi;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -266,6 +269,29 @@ public enum ChordReference {
             0, 4, 6, 10
     };
 
+    private static final ChordReference[] all = values();
+
+    // pitch class mask -> ordinal * 12 + root + 1, 0 when no chord matches
+    private static final short[] detection = new short[4096];
+
+    // the degree arrays are assigned above, the masks are computed after
+    static {
+        for (ChordReference chord : all) {
+            int mask = 0;
+            for (int degree : chord.getDegrees()) {
+                mask |= 1 << (degree % 12);
+            }
+            for (int root = 0; root < 12; root++) {
+                chord.masks[root] = ((mask << root) | (mask >>> (12 - root))) & 0xFFF;
+                if (detection[chord.masks[root]] == 0)
+                    detection[chord.masks[root]] = (short)(chord.ordinal() * 12 + root + 1);
+            }
+        }
+    }
+
+    // root -> pitch class mask
+    private final int[] masks = new int[12];
+
     ChordReference(String commonName) {
         this.commonName = commonName;
     }
@@ -364,6 +390,84 @@ public enum ChordReference {
         return commonName;
     }
 
+    /**
+     * Returns the 12 bit pitch class mask of the chord at C, bit 0 is C.
+     * Degrees above the octave fold into their pitch class.
+     */
+    public int getMask() {
+        return masks[0];
+    }
+
+    /**
+     * Returns the 12 bit pitch class mask of the chord at the root.
+     * 
+     * @param root The root pitch class, 0 == C.
+     */
+    public int getMask(int root) {
+        return masks[toPitchClass(root)];
+    }
+
+    /**
+     * Returns whether the pitch is in the chord at the root.
+     * 
+     * @param pitch The MIDI note.
+     * @param root The root pitch class, 0 == C.
+     */
+    public boolean contains(int pitch, int root) {
+        return (masks[toPitchClass(root)] & (1 << toPitchClass(pitch))) != 0;
+    }
+
+    /**
+     * Returns the 12 bit pitch class mask of the MIDI notes.
+     * 
+     * @param pitches The MIDI notes.
+     */
+    public static int toMask(int[] pitches) {
+        int mask = 0;
+        for (int pitch : pitches) {
+            mask |= 1 << toPitchClass(pitch);
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the chord whose pitch classes are exactly the mask at any root,
+     * <code>null</code> when no chord matches.
+     * <p>
+     * When chords share the pitch classes, for instance m7 and 6 or add2 and
+     * add9, the chord declared first wins.
+     * 
+     * @param mask The 12 bit pitch class mask, see {@link #toMask(int[])}.
+     * @see #getRoot(int)
+     */
+    public static ChordReference fromMask(int mask) {
+        int entry = detection[mask & 0xFFF];
+        return entry == 0 ? null : all[(entry - 1) / 12];
+    }
+
+    /**
+     * Returns the root pitch class of the {@link #fromMask(int)} chord, -1
+     * when no chord matches.
+     * 
+     * @param mask The 12 bit pitch class mask.
+     */
+    public static int getRoot(int mask) {
+        int entry = detection[mask & 0xFFF];
+        return entry == 0 ? -1 : (entry - 1) % 12;
+    }
+
+    /**
+     * Returns the chords at the root that contain all pitch classes of the
+     * mask, in declaration order.
+     * 
+     * @param mask The 12 bit pitch class mask.
+     * @param root The root pitch class, 0 == C.
+     * @return An unmodifiable list, empty when no chord contains the notes.
+     */
+    public static List<ChordReference> getChordsContaining(int mask, int root) {
+        return Containing.chords[toPitchClass(root) * 4096 + (mask & 0xFFF)];
+    }
+
     /**
      * Reverse lookup of the enum ChordReference by the abbreviation. Passing in
      * "maj13" will return the MAJOR_THIRTEENTH ChordReference
@@ -374,4 +478,45 @@ public enum ChordReference {
     public static ChordReference get(String commonName) {
         return lookup.get(commonName);
     }
+
+    /*
+     * Pitch class of the MIDI note or root, negative values wrap.
+     */
+    private static int toPitchClass(int pitch) {
+        return ((pitch % 12) + 12) % 12;
+    }
+
+    /*
+     * Chords by root and pitch class subset, built on first use.
+     */
+    private static final class Containing {
+
+        private static final List<ChordReference> EMPTY = Collections.emptyList();
+
+        @SuppressWarnings({
+                "unchecked", "rawtypes"
+        })
+        static final List<ChordReference>[] chords = new List[12 * 4096];
+
+        static {
+            for (ChordReference chord : values()) {
+                for (int root = 0; root < 12; root++) {
+                    int mask = chord.masks[root];
+                    // every subset of the chord's mask, the mask itself first
+                    for (int subset = mask;; subset = (subset - 1) & mask) {
+                        int index = root * 4096 + subset;
+                        if (chords[index] == null)
+                            chords[index] = new ArrayList<ChordReference>(4);
+                        chords[index].add(chord);
+                        if (subset == 0)
+                            break;
+                    }
+                }
+            }
+            for (int i = 0; i < chords.length; i++) {
+                chords[i] = chords[i] == null ? EMPTY : Collections
+                        .unmodifiableList(chords[i]);
+            }
+        }
+    }
 }
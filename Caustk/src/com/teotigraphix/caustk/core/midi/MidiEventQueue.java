@@ -0,0 +1,166 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core.midi;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link MidiEventQueue} is a lock free single producer, single consumer
+ * ring buffer of short MIDI messages.
+ * <p>
+ * A message is packed in an int with its receive time in nanoseconds, offering
+ * and draining never allocate or block. One thread offers, for instance the
+ * MIDI driver thread of a device, and one thread drains.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public final class MidiEventQueue {
+
+    private final int[] messages;
+
+    private final long[] times;
+
+    private final int mask;
+
+    // next slot to read, written by the consumer
+    private final AtomicLong head = new AtomicLong();
+
+    // next slot to write, written by the producer
+    private final AtomicLong tail = new AtomicLong();
+
+    // producer's last seen head, avoids reading the head on every offer
+    private long headCache;
+
+    private volatile int numDropped;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the number of messages the queue holds at most.
+     */
+    public int getCapacity() {
+        return messages.length;
+    }
+
+    /**
+     * Returns the number of messages waiting to be drained.
+     */
+    public int size() {
+        return (int)(tail.get() - head.get());
+    }
+
+    /**
+     * Returns the number of messages dropped because the queue was full.
+     */
+    public int getNumDropped() {
+        return numDropped;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates a queue.
+     *
+     * @param capacity The capacity, rounded up to a power of two.
+     */
+    public MidiEventQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        messages = new int[size];
+        times = new long[size];
+        mask = size - 1;
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Packs a short message, <code>status << 16 | data1 << 8 | data2</code>.
+     *
+     * @param status The status byte.
+     * @param data1 The first data byte.
+     * @param data2 The second data byte.
+     */
+    public static int pack(int status, int data1, int data2) {
+        return (status & 0xFF) << 16 | (data1 & 0xFF) << 8 | data2 & 0xFF;
+    }
+
+    /**
+     * Adds a message, called by the producer thread only.
+     *
+     * @param message The packed message, see {@link #pack(int, int, int)}.
+     * @param time The receive time, {@link System#nanoTime()}.
+     * @return Whether the message was added, <code>false</code> when full.
+     */
+    public boolean offer(int message, long time) {
+        final long t = tail.get();
+        if (t - headCache >= messages.length) {
+            headCache = head.get();
+            if (t - headCache >= messages.length) {
+                numDropped++;
+                return false;
+            }
+        }
+        final int index = (int)t & mask;
+        messages[index] = message;
+        times[index] = time;
+        // publishes the slot writes
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Passes all waiting messages to the handler in order, called by the
+     * consumer thread only.
+     *
+     * @param handler The message handler.
+     * @return The number of messages drained.
+     */
+    public int drain(Handler handler) {
+        final long h = head.get();
+        final long t = tail.get();
+        for (long i = h; i < t; i++) {
+            final int index = (int)i & mask;
+            handler.onMessage(messages[index], times[index]);
+        }
+        if (t != h)
+            head.lazySet(t);
+        return (int)(t - h);
+    }
+
+    /**
+     * Receives drained messages.
+     */
+    public interface Handler {
+
+        /**
+         * Called for each message in the order offered.
+         *
+         * @param message The packed message.
+         * @param time The receive time in nanoseconds.
+         */
+        void onMessage(int message, long time);
+    }
+}
@@ -0,0 +1,658 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core.midi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.teotigraphix.caustk.core.ICaustkRack;
+import com.teotigraphix.caustk.core.MessageThrottle;
+import com.teotigraphix.caustk.core.internal.CaustkRuntime;
+import com.teotigraphix.caustk.core.osc.IAutomatableControl;
+import com.teotigraphix.caustk.core.osc.IEffectControl;
+import com.teotigraphix.caustk.core.osc.IMachineControl;
+import com.teotigraphix.caustk.core.osc.MixerControls;
+import com.teotigraphix.caustk.core.osc.OSCControlKind;
+import com.teotigraphix.caustk.node.effect.EffectNode;
+import com.teotigraphix.caustk.node.machine.Machine;
+import com.teotigraphix.caustk.node.machine.PCMSynthMachine;
+import com.teotigraphix.caustk.node.machine.sequencer.PatternNode;
+
+/**
+ * The {@link MidiInputRouter} plays live MIDI input on the rack's machines.
+ * <p>
+ * Each input device gets a {@link Port}, a port routes its MIDI channels to
+ * machine indexes and its controllers to {@link IAutomatableControl}s. The
+ * device thread offers raw messages to the port's {@link MidiEventQueue}
+ * without locking, the rack drains the queues on the app thread in
+ * {@link #frameChanged(float)} and sends note messages straight to the
+ * engine, the command manager and event bus are not involved. The engine and
+ * node graph are only ever touched from the app thread.
+ * <p>
+ * A controller value (0..127) is scaled to the control's range and applied to
+ * the node through the rack's {@link MessageThrottle}, controller values
+ * received within one frame are coalesced.
+ * <p>
+ * Incoming notes can be snapped to a {@link ScaleReference}. In record mode
+ * played notes are written to the selected pattern of their machine when
+ * released, quantized to {@link #getQuantize()} beats.
+ * <p>
+ * The time from a message's arrival at its port to the return of its engine
+ * send is measured for each note, it includes the wait for the next frame.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ * @see ICaustkRack#getMidiInputRouter()
+ */
+public class MidiInputRouter {
+
+    private static final String TAG = "MidiInputRouter";
+
+    /**
+     * The default capacity of a port's queue.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The default record quantize, a sixteenth note.
+     */
+    public static final float DEFAULT_QUANTIZE = 0.25f;
+
+    private static final int NUM_MACHINES = 14;
+
+    private static final int NOTE_OFF = 0x80;
+
+    private static final int NOTE_ON = 0x90;
+
+    private static final int CONTROL_CHANGE = 0xB0;
+
+    private final ICaustkRack rack;
+
+    private volatile Port[] ports = new Port[0];
+
+    private volatile boolean running;
+
+    private volatile ScaleReference scale;
+
+    private volatile int scaleRoot;
+
+    private volatile boolean recording;
+
+    private volatile float quantize = DEFAULT_QUANTIZE;
+
+    // app thread state
+
+    private final StringBuilder message = new StringBuilder(48);
+
+    // machine * 128 + input pitch -> sounding pitch, -1 when released
+    private final int[] sounding = new int[NUM_MACHINES * 128];
+
+    // machine * 128 + sounding pitch -> number of input pitches holding it,
+    // input pitches snapped to one scale pitch share its engine note
+    private final int[] holds = new int[NUM_MACHINES * 128];
+
+    // machine * 128 + input pitch -> record start beat, NaN when not held
+    private final float[] starts = new float[NUM_MACHINES * 128];
+
+    private final float[] velocities = new float[NUM_MACHINES * 128];
+
+    private Port current;
+
+    // controllers received during a drain, applied once after it
+    private final List<ControlRoute> pendingControls = new ArrayList<ControlRoute>();
+
+    private final MidiEventQueue.Handler handler = new MidiEventQueue.Handler() {
+        @Override
+        public void onMessage(int message, long time) {
+            dispatch(current, message, time);
+        }
+    };
+
+    // metrics, written by the app thread
+
+    private volatile long lastLatency;
+
+    private volatile long maxLatency;
+
+    private volatile long totalLatency;
+
+    private volatile int numNotes;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    //----------------------------------
+    // scale
+    //----------------------------------
+
+    public ScaleReference getScale() {
+        return scale;
+    }
+
+    public int getScaleRoot() {
+        return scaleRoot;
+    }
+
+    /**
+     * Sets the scale incoming notes snap to, see
+     * {@link ScaleReference#quantize(int, int)}.
+     *
+     * @param scale The scale, <code>null</code> plays notes unchanged.
+     * @param root The root pitch class, 0 == C.
+     */
+    public void setScale(ScaleReference scale, int root) {
+        this.scaleRoot = root;
+        this.scale = scale;
+    }
+
+    //----------------------------------
+    // recording
+    //----------------------------------
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Sets whether played notes are written to the selected patterns, notes
+     * held when recording stops are still written on release.
+     *
+     * @param recording Whether notes are recorded.
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    //----------------------------------
+    // quantize
+    //----------------------------------
+
+    public float getQuantize() {
+        return quantize;
+    }
+
+    /**
+     * Sets the record grid in beats, the start and length of a recorded note
+     * snap to the grid.
+     *
+     * @param quantize The grid in beats, 0 records unquantized.
+     */
+    public void setQuantize(float quantize) {
+        this.quantize = quantize;
+    }
+
+    //----------------------------------
+    // metrics
+    //----------------------------------
+
+    /**
+     * Returns the latency of the last note in nanoseconds, from the arrival at
+     * its port to the return of the engine send.
+     */
+    public long getLastLatency() {
+        return lastLatency;
+    }
+
+    /**
+     * Returns the longest note latency in nanoseconds.
+     */
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * Returns the average note latency in nanoseconds.
+     */
+    public long getAverageLatency() {
+        final int count = numNotes;
+        return count == 0 ? 0 : totalLatency / count;
+    }
+
+    /**
+     * Returns the number of notes sent since the metrics were reset.
+     */
+    public int getNumNotes() {
+        return numNotes;
+    }
+
+    /**
+     * Resets the latency metrics, call while no input is played.
+     */
+    public void resetMetrics() {
+        lastLatency = 0;
+        maxLatency = 0;
+        totalLatency = 0;
+        numNotes = 0;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates a router, {@link #start()} it to play input.
+     * The rack's router is created by {@link ICaustkRack#getMidiInputRouter()}.
+     *
+     * @param rack The rack played.
+     */
+    public MidiInputRouter(ICaustkRack rack) {
+        this.rack = rack;
+        Arrays.fill(sounding, -1);
+        Arrays.fill(starts, Float.NaN);
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Adds an input port with the default capacity.
+     *
+     * @param name The name of the input, for instance the device name.
+     */
+    public Port addPort(String name) {
+        return addPort(name, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Adds an input port.
+     *
+     * @param name The name of the input, for instance the device name.
+     * @param capacity The number of messages the port buffers.
+     */
+    public synchronized Port addPort(String name, int capacity) {
+        final Port port = new Port(name, capacity);
+        final Port[] result = Arrays.copyOf(ports, ports.length + 1);
+        result[ports.length] = port;
+        ports = result;
+        return port;
+    }
+
+    /**
+     * Removes a port, messages still queued are dropped.
+     *
+     * @param port The port.
+     */
+    public synchronized void removePort(Port port) {
+        final Port[] result = new Port[ports.length];
+        int count = 0;
+        for (Port p : ports) {
+            if (p != port)
+                result[count++] = p;
+        }
+        ports = Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Returns the ports.
+     */
+    public Port[] getPorts() {
+        return ports.clone();
+    }
+
+    /**
+     * Starts playing input, queued messages are dispatched each frame.
+     */
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * Stops playing input and releases held notes, call from the app thread.
+     * Messages still queued are dispatched when the router starts again.
+     */
+    public void stop() {
+        if (!running)
+            return;
+        running = false;
+        releaseAll();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Dispatches all queued messages and applies the last value of each
+     * controller received, {@link #frameChanged(float)} calls this while
+     * running. Call from the app thread only.
+     *
+     * @return The number of messages dispatched.
+     */
+    public int drain() {
+        int count = 0;
+        for (Port port : ports) {
+            current = port;
+            count += port.queue.drain(handler);
+        }
+        current = null;
+        for (int i = 0; i < pendingControls.size(); i++) {
+            final ControlRoute route = pendingControls.get(i);
+            route.queued = false;
+            control(route, route.pending);
+        }
+        pendingControls.clear();
+        return count;
+    }
+
+    /**
+     * Sends a note off for every held note, call from the app thread.
+     */
+    public void releaseAll() {
+        for (int i = 0; i < sounding.length; i++) {
+            if (sounding[i] != -1)
+                noteOff(i / 128, i % 128);
+        }
+    }
+
+    /**
+     * Dispatches the input queued since the last frame, called by the rack on
+     * the app thread each frame.
+     *
+     * @param deltaTime The frame time in seconds.
+     */
+    public void frameChanged(float deltaTime) {
+        if (running)
+            drain();
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private void dispatch(Port port, int message, long time) {
+        final int status = message >>> 16 & 0xFF;
+        final int channel = status & 0x0F;
+        final int data1 = message >>> 8 & 0x7F;
+        final int data2 = message & 0x7F;
+        final int command = status & 0xF0;
+        if (command == NOTE_ON && data2 > 0) {
+            final int machineIndex = port.machines[channel];
+            if (machineIndex != -1 && noteOn(machineIndex, data1, data2)) {
+                final long latency = System.nanoTime() - time;
+                lastLatency = latency;
+                if (latency > maxLatency)
+                    maxLatency = latency;
+                totalLatency += latency;
+                numNotes++;
+            }
+        } else if (command == NOTE_ON || command == NOTE_OFF) {
+            // a note on without velocity is a note off
+            final int machineIndex = port.machines[channel];
+            if (machineIndex != -1)
+                noteOff(machineIndex, data1);
+        } else if (command == CONTROL_CHANGE) {
+            final ControlRoute route = port.controls[channel * 128 + data1];
+            if (route != null) {
+                route.pending = data2;
+                if (!route.queued) {
+                    route.queued = true;
+                    pendingControls.add(route);
+                }
+            }
+        }
+    }
+
+    private boolean noteOn(int machineIndex, int pitch, int velocity) {
+        if (!rack.isLoaded() || !rack.contains(machineIndex))
+            return false;
+
+        final int key = machineIndex * 128 + pitch;
+        if (sounding[key] != -1)
+            noteOff(machineIndex, pitch);
+
+        final ScaleReference scale = this.scale;
+        final int played = scale != null ? scale.quantize(pitch, scaleRoot) : pitch;
+        final float value = velocity / 127f;
+        sounding[key] = played;
+        holds[machineIndex * 128 + played]++;
+
+        // a shared pitch is triggered again, it is released with its last hold
+        // Message: /caustic/[machine_index]/note/[pitch] [mode] [velocity]
+        message.setLength(0);
+        message.append("/caustic/").append(machineIndex).append("/note/").append(played)
+                .append(" 1 ").append(value);
+        rack.sendMessage(message.toString());
+
+        if (recording) {
+            starts[key] = rack.getCurrentBeat();
+            velocities[key] = value;
+        }
+        return true;
+    }
+
+    private void noteOff(int machineIndex, int pitch) {
+        final int key = machineIndex * 128 + pitch;
+        final int played = sounding[key];
+        if (played == -1)
+            return;
+        sounding[key] = -1;
+
+        final int playedKey = machineIndex * 128 + played;
+        if (--holds[playedKey] == 0) {
+            message.setLength(0);
+            message.append("/caustic/").append(machineIndex).append("/note/").append(played)
+                    .append(" 0");
+            rack.sendMessage(message.toString());
+        }
+
+        final float start = starts[key];
+        if (!Float.isNaN(start)) {
+            starts[key] = Float.NaN;
+            record(machineIndex, played, start, rack.getCurrentBeat(), velocities[key]);
+        }
+    }
+
+    private void record(int machineIndex, int pitch, float startBeat, float endBeat,
+            float velocity) {
+        if (!rack.isLoaded())
+            return;
+        final Machine machine = rack.get(machineIndex);
+        if (machine == null)
+            return;
+        final PatternNode pattern = machine.getSequencer().getSelectedPattern();
+        if (pattern == null)
+            return;
+
+        final float grid = quantize;
+        final float numBeats = pattern.getNumMeasures() * 4;
+        float duration = Math.max(0f, endBeat - startBeat);
+        float start = startBeat;
+        if (grid > 0f) {
+            start = Math.round(start / grid) * grid;
+            duration = Math.max(grid, Math.round(duration / grid) * grid);
+        }
+        start = start % numBeats;
+        if (start < 0f)
+            start += numBeats;
+        final float end = Math.min(start + duration, numBeats);
+
+        try {
+            if (pattern.getNote(start, pitch) != null)
+                pattern.destroyNote(start, pitch);
+            pattern.createNote(start, pitch, end, velocity, 0);
+        } catch (RuntimeException e) {
+            CaustkRuntime.getInstance().getLogger().err(TAG, "Could not record note " + pitch, e);
+        }
+    }
+
+    private void control(ControlRoute route, int data) {
+        if (!rack.isLoaded())
+            return;
+        final Machine machine = rack.get(route.machineIndex);
+        if (machine == null)
+            return;
+
+        final IAutomatableControl control = route.control;
+        final float min = control.getMin();
+        final float max = control.getMax();
+        float value;
+        if (control.getKind() == OSCControlKind.Boolean) {
+            value = data >= 64 ? max : min;
+        } else {
+            value = min + (max - min) * data / 127f;
+            if (control.getKind() != OSCControlKind.Float)
+                value = Math.round(value);
+        }
+
+        final MessageThrottle throttle = rack.getMessageThrottle();
+        throttle.begin();
+        try {
+            if (control instanceof MixerControls) {
+                machine.getMixer().invoke((MixerControls)control, value);
+            } else if (control instanceof IEffectControl) {
+                final EffectNode effect = machine.getEffect().getEfffect(route.slot);
+                if (effect != null)
+                    effect.invoke((IEffectControl)control, value);
+            } else if (control instanceof IMachineControl && machine instanceof PCMSynthMachine) {
+                ((PCMSynthMachine)machine).invoke((IMachineControl)control, value);
+            }
+        } catch (RuntimeException e) {
+            CaustkRuntime.getInstance().getLogger()
+                    .err(TAG, "Could not apply " + control.getControl(), e);
+        } finally {
+            throttle.end();
+        }
+    }
+
+    /**
+     * An input of the router, messages are offered by one thread.
+     */
+    public final class Port {
+
+        private final String name;
+
+        private final MidiEventQueue queue;
+
+        // channel -> machine index
+        private volatile int[] machines = new int[16];
+
+        // channel * 128 + controller -> route
+        private volatile ControlRoute[] controls = new ControlRoute[16 * 128];
+
+        Port(String name, int capacity) {
+            this.name = name;
+            queue = new MidiEventQueue(capacity);
+            Arrays.fill(machines, -1);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the port's queue, for its dropped message count.
+         */
+        public MidiEventQueue getQueue() {
+            return queue;
+        }
+
+        /**
+         * Offers a short message to the router, never blocks.
+         *
+         * @param status The status byte with channel.
+         * @param data1 The first data byte.
+         * @param data2 The second data byte.
+         * @return Whether the message was queued, <code>false</code> when the
+         *         queue is full.
+         */
+        public boolean send(int status, int data1, int data2) {
+            return queue.offer(MidiEventQueue.pack(status, data1, data2), System.nanoTime());
+        }
+
+        /**
+         * Returns the machine index a channel plays, -1 when not routed.
+         *
+         * @param channel The MIDI channel (0..15).
+         */
+        public int getMachineIndex(int channel) {
+            return machines[channel];
+        }
+
+        /**
+         * Routes the notes of a channel to a machine.
+         *
+         * @param channel The MIDI channel (0..15).
+         * @param machineIndex The machine index, -1 removes the route.
+         */
+        public synchronized void route(int channel, int machineIndex) {
+            final int[] result = machines.clone();
+            result[channel] = machineIndex;
+            machines = result;
+        }
+
+        /**
+         * Maps a controller of a channel to a machine control.
+         *
+         * @param channel The MIDI channel (0..15).
+         * @param controller The controller number (0..127).
+         * @param machineIndex The machine index.
+         * @param slot The effect slot of an {@link IEffectControl}, else -1.
+         * @param control The control, a {@link MixerControls},
+         *            {@link IEffectControl} or PCM synth
+         *            {@link IMachineControl}.
+         */
+        public synchronized void mapControl(int channel, int controller, int machineIndex,
+                int slot, IAutomatableControl control) {
+            final ControlRoute[] result = controls.clone();
+            result[channel * 128 + controller] = new ControlRoute(machineIndex, slot, control);
+            controls = result;
+        }
+
+        /**
+         * Removes a controller mapping.
+         *
+         * @param channel The MIDI channel (0..15).
+         * @param controller The controller number (0..127).
+         */
+        public synchronized void unmapControl(int channel, int controller) {
+            final ControlRoute[] result = controls.clone();
+            result[channel * 128 + controller] = null;
+            controls = result;
+        }
+
+        @Override
+        public String toString() {
+            return "Port[" + name + "]";
+        }
+    }
+
+    private static final class ControlRoute {
+
+        final int machineIndex;
+
+        final int slot;
+
+        final IAutomatableControl control;
+
+        // the last controller value of a drain
+        int pending;
+
+        boolean queued;
+
+        ControlRoute(int machineIndex, int slot, IAutomatableControl control) {
+            this.machineIndex = machineIndex;
+            this.slot = slot;
+            this.control = control;
+        }
+    }
+}
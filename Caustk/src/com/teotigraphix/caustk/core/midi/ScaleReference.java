@@ -115,6 +115,12 @@ public enum ScaleReference {
 
     private int[] intervals;
 
+    // root -> pitch class mask
+    private final int[] masks = new int[12];
+
+    // root * 12 + pitch class -> offset to the nearest scale pitch
+    private final byte[] snaps = new byte[144];
+
     public String getName() {
         return name;
     }
@@ -131,10 +137,82 @@ public enum ScaleReference {
         return intervals;
     }
 
+    /**
+     * Returns the 12 bit pitch class mask of the scale at C, bit 0 is C.
+     */
+    public int getMask() {
+        return masks[0];
+    }
+
+    /**
+     * Returns the 12 bit pitch class mask of the scale at the root.
+     * 
+     * @param root The root pitch class, 0 == C.
+     */
+    public int getMask(int root) {
+        return masks[toPitchClass(root)];
+    }
+
+    /**
+     * Returns whether the pitch is in the scale at the root.
+     * 
+     * @param pitch The MIDI note.
+     * @param root The root pitch class, 0 == C.
+     */
+    public boolean contains(int pitch, int root) {
+        return (masks[toPitchClass(root)] & (1 << toPitchClass(pitch))) != 0;
+    }
+
+    /**
+     * Returns the scale pitch nearest to the pitch at the root, a pitch between
+     * two scale pitches snaps down.
+     * <p>
+     * The result stays within 0..127, a snap past the range ends is taken an
+     * octave back.
+     * 
+     * @param pitch The MIDI note.
+     * @param root The root pitch class, 0 == C.
+     */
+    public int quantize(int pitch, int root) {
+        int result = pitch + snaps[toPitchClass(root) * 12 + toPitchClass(pitch)];
+        if (result < 0)
+            return result + 12;
+        if (result > 127)
+            return result - 12;
+        return result;
+    }
+
     ScaleReference(String name, int[] intervals) {
         this.name = name;
         this.intervals = intervals;
 
+        int mask = 0;
+        for (int interval : intervals) {
+            mask |= 1 << (interval % 12);
+        }
+        for (int root = 0; root < 12; root++) {
+            masks[root] = ((mask << root) | (mask >>> (12 - root))) & 0xFFF;
+            for (int pitchClass = 0; pitchClass < 12; pitchClass++) {
+                snaps[root * 12 + pitchClass] = (byte)nearest(masks[root], pitchClass);
+            }
+        }
+    }
+
+    private static int nearest(int mask, int pitchClass) {
+        for (int distance = 0; distance < 12; distance++) {
+            if ((mask & (1 << ((pitchClass - distance + 12) % 12))) != 0)
+                return -distance;
+            if ((mask & (1 << ((pitchClass + distance) % 12))) != 0)
+                return distance;
+        }
+        return 0;
+    }
+
+    /*
+     * Pitch class of the MIDI note or root, negative values wrap.
+     */
+    private static int toPitchClass(int pitch) {
+        return ((pitch % 12) + 12) % 12;
     }
 
     public static ScaleReference fromName(String scaleName) {
@@ -10,17 +10,58 @@ import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 
+import com.teotigraphix.caustk.core.MessageThrottle;
 import com.teotigraphix.caustk.core.internal.CaustkRuntime;
+import com.teotigraphix.caustk.node.effect.AutoWahEffect;
+import com.teotigraphix.caustk.node.effect.BitcrusherEffect;
+import com.teotigraphix.caustk.node.effect.CabinetSimulatorEffect;
+import com.teotigraphix.caustk.node.effect.ChorusEffect;
+import com.teotigraphix.caustk.node.effect.CombFilterEffect;
+import com.teotigraphix.caustk.node.effect.CompressorEffect;
+import com.teotigraphix.caustk.node.effect.DelayEffect;
+import com.teotigraphix.caustk.node.effect.DistortionEffect;
 import com.teotigraphix.caustk.node.effect.EffectNode;
 import com.teotigraphix.caustk.node.effect.EffectType;
+import com.teotigraphix.caustk.node.effect.FlangerEffect;
+import com.teotigraphix.caustk.node.effect.LimiterEffect;
+import com.teotigraphix.caustk.node.effect.MultiFilterEffect;
+import com.teotigraphix.caustk.node.effect.ParametricEQEffect;
+import com.teotigraphix.caustk.node.effect.PhaserEffect;
+import com.teotigraphix.caustk.node.effect.ReverbEffect;
+import com.teotigraphix.caustk.node.effect.StaticFlangerEffect;
+import com.teotigraphix.caustk.node.effect.VinylSimulatorEffect;
 import com.teotigraphix.caustk.node.machine.MachineChannel;
 import com.teotigraphix.caustk.node.machine.Machine;
 import com.teotigraphix.caustk.node.machine.MachineType;
 import com.teotigraphix.caustk.node.machine.PCMSynthMachine;
 import com.teotigraphix.caustk.node.machine.patch.MixerChannel;
 
+/**
+ * The {@link OSCControlsMap} maps the OSC controls of each effect, machine and
+ * the mixer to their node setters.
+ * <p>
+ * The setters of the {@link EffectControls}, {@link PCMSynthControls} and
+ * {@link MixerControls} are called directly through a switch on the control,
+ * the OSC addresses of machine and effect queries are formatted once. Other
+ * control implementations fall back to a reflective setter lookup.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
 public final class OSCControlsMap {
 
+    private static final String TAG = "OSCControlsMap";
+
+    /**
+     * The number of machine indexes with preformatted query addresses.
+     */
+    private static final int NUM_MACHINES = 14;
+
+    /**
+     * The number of effect slots per machine.
+     */
+    private static final int NUM_SLOTS = 2;
+
     //--------------------------------------------------------------------------
     // Private :: Variables
     //--------------------------------------------------------------------------
@@ -31,10 +72,50 @@ public final class OSCControlsMap {
 
     private static Collection<IMixerControl> mixerChannelList = new ArrayList<IMixerControl>();
 
+    /**
+     * [machineIndex][PCMSynthControls.ordinal()]
+     */
+    private static final String[][] machineAddresses = new String[NUM_MACHINES][];
+
+    /**
+     * [machineIndex * NUM_SLOTS + slot][EffectControls.ordinal()], filled on
+     * first query, a lost race formats an equal string twice.
+     */
+    private static final String[][] effectAddresses = new String[NUM_MACHINES * NUM_SLOTS][];
+
+    /**
+     * [EffectType.ordinal()][EffectControls.ordinal()], whether the effect
+     * type has the control.
+     */
+    private static final boolean[][] effectControls = new boolean[EffectType.values().length][];
+
     static {
         MixerControls.initialize();
         EffectControls.initialize();
         PCMSynthControls.initialize();
+
+        final PCMSynthControls[] controls = PCMSynthControls.values();
+        for (int i = 0; i < NUM_MACHINES; i++) {
+            machineAddresses[i] = new String[controls.length];
+            for (PCMSynthControls control : controls) {
+                machineAddresses[i][control.ordinal()] = toMachineAddress(i, control);
+            }
+        }
+        final int numEffectControls = EffectControls.values().length;
+        for (int i = 0; i < effectAddresses.length; i++) {
+            effectAddresses[i] = new String[numEffectControls];
+        }
+        for (EffectType type : EffectType.values()) {
+            final boolean[] supported = new boolean[numEffectControls];
+            final Collection<IEffectControl> collection = effectMap.get(type);
+            if (collection != null) {
+                for (IEffectControl control : collection) {
+                    if (control instanceof EffectControls)
+                        supported[((EffectControls)control).ordinal()] = true;
+                }
+            }
+            effectControls[type.ordinal()] = supported;
+        }
     }
 
     //--------------------------------------------------------------------------
@@ -46,8 +127,8 @@ public final class OSCControlsMap {
     }
 
     public static float getValue(int machineIndex, int slot, IEffectControl control) {
-        float value = EffectsRackMessage.GET.query(CaustkRuntime.getInstance().getRack(),
-                machineIndex, slot, control.getControl());
+        float value = CaustkRuntime.getInstance().getRack()
+                .sendMessage(getEffectAddress(machineIndex, slot, control));
         if (value < control.getMin()) {
             System.err.println(control + " MIN EffectNode " + value);
             value = control.getMin();
@@ -59,30 +140,13 @@ public final class OSCControlsMap {
         return value;
     }
 
-    public static void setValue(EffectNode effectNode, IEffectControl control, float value) {
-        String methodName = toSetterName(control.getControl());
-
-        try {
-            Method m = effectNode.getClass().getMethod(methodName, float.class);
-            m.invoke(effectNode, value);
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
-        } catch (InvocationTargetException e) {
-            e.printStackTrace();
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
-        }
-    }
-
     public static Collection<IMachineControl> get(MachineType type) {
         return machineMap.get(type);
     }
 
     public static float getValue(Machine machineNode, IMachineControl control) {
         float value = CaustkRuntime.getInstance().getRack()
-                .sendMessage("/caustic/" + machineNode.getIndex() + "/" + control.getControl());
+                .sendMessage(getMachineAddress(machineNode.getIndex(), control));
         if (value < control.getMin()) {
             System.err.println(control + " MIN EffectNode " + value);
             value = control.getMin();
@@ -93,7 +157,100 @@ public final class OSCControlsMap {
         return value;
     }
 
+    /**
+     * Sets an effect control, the message is throttled when sent between the
+     * rack's {@link MessageThrottle#begin()} and {@link MessageThrottle#end()}
+     * of a gesture.
+     *
+     * @param effectNode The effect.
+     * @param control The control.
+     * @param value The control value.
+     */
+    public static void setValue(EffectNode effectNode, IEffectControl control, float value) {
+        applyValue(effectNode, control, value);
+    }
+
+    /**
+     * Sets a PCM synth control, the message is throttled when sent between the
+     * rack's {@link MessageThrottle#begin()} and {@link MessageThrottle#end()}
+     * of a gesture.
+     *
+     * @param machine The machine.
+     * @param control The control.
+     * @param value The control value.
+     */
     public static void setValue(PCMSynthMachine machine, IMachineControl control, float value) {
+        applyValue(machine, control, value);
+    }
+
+    /**
+     * Sets a mixer control, the message is throttled when sent between the
+     * rack's {@link MessageThrottle#begin()} and {@link MessageThrottle#end()}
+     * of a gesture.
+     *
+     * @param mixerChannel The mixer channel.
+     * @param control The control.
+     * @param value The control value.
+     */
+    public static void setValue(MixerChannel mixerChannel, IMixerControl control, float value) {
+        applyValue(mixerChannel, control, value);
+    }
+
+    public static Collection<IMixerControl> getMixerChannels() {
+        return Collections.unmodifiableCollection(mixerChannelList);
+    }
+
+    //--------------------------------------------------------------------------
+    // Internal :: Methods
+    //--------------------------------------------------------------------------
+
+    static void add(EffectType type, IEffectControl control) {
+        Collection<IEffectControl> collection = effectMap.get(type);
+        if (collection == null) {
+            collection = new ArrayList<IEffectControl>();
+            effectMap.put(type, collection);
+        }
+        collection.add(control);
+    }
+
+    static void add(MachineType type, IMachineControl control) {
+        Collection<IMachineControl> collection = machineMap.get(type);
+        if (collection == null) {
+            collection = new ArrayList<IMachineControl>();
+            machineMap.put(type, collection);
+        }
+        collection.add(control);
+    }
+
+    static void add(IMixerControl control) {
+        mixerChannelList.add(control);
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    static void applyValue(EffectNode effectNode, IEffectControl control, float value) {
+        if (control instanceof EffectControls) {
+            final EffectControls effectControl = (EffectControls)control;
+            final EffectType type = effectNode.getType();
+            // a node without type was not deserialized yet, its setters are called as is
+            if (type != null && !effectControls[type.ordinal()][effectControl.ordinal()]) {
+                CaustkRuntime.getInstance().getLogger()
+                        .warn(TAG, control + " is not a control of " + type);
+                return;
+            }
+            if (setEffectValue(effectNode, effectControl, value))
+                return;
+        }
+        invokeSetter(effectNode, toSetterName(control.getControl()), value);
+    }
+
+    private static void applyValue(PCMSynthMachine machine, IMachineControl control, float value) {
+        if (control instanceof PCMSynthControls
+                && setPCMSynthValue(machine, (PCMSynthControls)control, value))
+            return;
+
         String methodName = control.getControl();
         String[] split = methodName.split("_");
         String component = split[0];
@@ -116,38 +273,387 @@ public final class OSCControlsMap {
             machineComponent = machine.getFilter();
         }
 
-        try {
-            Method m = machineComponent.getClass().getMethod(setterName, float.class);
-            m.invoke(machineComponent, value);
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
-        } catch (InvocationTargetException e) {
-            e.printStackTrace();
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
+        invokeSetter(machineComponent, setterName, value);
+    }
+
+    static void applyValue(MixerChannel mixerChannel, IMixerControl control, float value) {
+        if (control instanceof MixerControls
+                && setMixerValue(mixerChannel, (MixerControls)control, value))
+            return;
+        invokeSetter(mixerChannel, toSetterName(control.getControl()), value);
+    }
+
+    private static String getMachineAddress(int machineIndex, IMachineControl control) {
+        if (control instanceof PCMSynthControls && machineIndex >= 0
+                && machineIndex < NUM_MACHINES)
+            return machineAddresses[machineIndex][((PCMSynthControls)control).ordinal()];
+        return toMachineAddress(machineIndex, control);
+    }
+
+    private static String toMachineAddress(int machineIndex, IMachineControl control) {
+        return "/caustic/" + machineIndex + "/" + control.getControl();
+    }
+
+    private static String getEffectAddress(int machineIndex, int slot, IEffectControl control) {
+        if (!(control instanceof EffectControls) || machineIndex < 0
+                || machineIndex >= NUM_MACHINES || slot < 0 || slot >= NUM_SLOTS)
+            return toEffectAddress(machineIndex, slot, control);
+        final String[] addresses = effectAddresses[machineIndex * NUM_SLOTS + slot];
+        final int ordinal = ((EffectControls)control).ordinal();
+        String address = addresses[ordinal];
+        if (address == null) {
+            address = toEffectAddress(machineIndex, slot, control);
+            addresses[ordinal] = address;
         }
+        return address;
     }
 
-    public static void setValue(MixerChannel mixerChannel, IMixerControl control, float value) {
-        String methodName = toSetterName(control.getControl());
+    private static String toEffectAddress(int machineIndex, int slot, IEffectControl control) {
+        return "/caustic/effects_rack/" + machineIndex + "/" + slot + "/" + control.getControl();
+    }
 
+    private static boolean setMixerValue(MixerChannel mixerChannel, MixerControls control,
+            float value) {
+        switch (control) {
+            case EqBass:
+                mixerChannel.setEqBass(value);
+                return true;
+            case EqMid:
+                mixerChannel.setEqMid(value);
+                return true;
+            case EqHigh:
+                mixerChannel.setEqHigh(value);
+                return true;
+            case DelaySend:
+                mixerChannel.setDelaySend(value);
+                return true;
+            case ReverbSend:
+                mixerChannel.setReverbSend(value);
+                return true;
+            case Pan:
+                mixerChannel.setPan(value);
+                return true;
+            case StereoWidth:
+                mixerChannel.setStereoWidth(value);
+                return true;
+            case Mute:
+                mixerChannel.setMute(value);
+                return true;
+            case Solo:
+                mixerChannel.setSolo(value);
+                return true;
+            case Volume:
+                mixerChannel.setVolume(value);
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean setPCMSynthValue(PCMSynthMachine machine, PCMSynthControls control,
+            float value) {
+        switch (control) {
+            case Volume_Out:
+                machine.getVolume().setOut(value);
+                return true;
+            case Volume_Attack:
+                machine.getVolumeEnvelope().setAttack(value);
+                return true;
+            case Volume_Decay:
+                machine.getVolumeEnvelope().setDecay(value);
+                return true;
+            case Volume_Sustain:
+                machine.getVolumeEnvelope().setSustain(value);
+                return true;
+            case Volume_Release:
+                machine.getVolumeEnvelope().setRelease(value);
+                return true;
+            case LFO_Depth:
+                machine.getLFO1().setDepth(value);
+                return true;
+            case LFO_Rate:
+                machine.getLFO1().setRate(value);
+                return true;
+            case LFO_Target:
+                machine.getLFO1().setTarget(value);
+                return true;
+            case LFO_Waveform:
+                machine.getLFO1().setWaveform(value);
+                return true;
+            case Pitch_Octave:
+                machine.getTuner().setOctave(value);
+                return true;
+            case Pitch_Semis:
+                machine.getTuner().setSemis(value);
+                return true;
+            case Pitch_Cents:
+                machine.getTuner().setCents(value);
+                return true;
+            case Filter_Cutoff:
+                machine.getFilter().setCutoff(value);
+                return true;
+            case Filter_Resonance:
+                machine.getFilter().setResonance(value);
+                return true;
+            case Filter_Type:
+                machine.getFilter().setType(value);
+                return true;
+            case Filter_Attack:
+                machine.getFilter().setAttack(value);
+                return true;
+            case Filter_Decay:
+                machine.getFilter().setDecay(value);
+                return true;
+            case Filter_Sustain:
+                machine.getFilter().setSustain(value);
+                return true;
+            case Filter_Release:
+                machine.getFilter().setRelease(value);
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean setEffectValue(EffectNode effectNode, EffectControls control,
+            float value) {
+        switch (control) {
+            case Global_Bypass:
+                effectNode.setBypass(value);
+                return true;
+            case Autowah_Cutoff:
+                ((AutoWahEffect)effectNode).setCutoff(value);
+                return true;
+            case Autowah_Depth:
+                ((AutoWahEffect)effectNode).setDepth(value);
+                return true;
+            case Autowah_Resonance:
+                ((AutoWahEffect)effectNode).setResonance(value);
+                return true;
+            case Autowah_Speed:
+                ((AutoWahEffect)effectNode).setSpeed(value);
+                return true;
+            case Autowah_Wet:
+                ((AutoWahEffect)effectNode).setWet(value);
+                return true;
+            case Bitcrusher_Depth:
+                ((BitcrusherEffect)effectNode).setDepth(value);
+                return true;
+            case Bitcrusher_Jitter:
+                ((BitcrusherEffect)effectNode).setJitter(value);
+                return true;
+            case Bitcrusher_Rate:
+                ((BitcrusherEffect)effectNode).setRate(value);
+                return true;
+            case Bitcrusher_Wet:
+                ((BitcrusherEffect)effectNode).setWet(value);
+                return true;
+            case CabinetSimulator_Damping:
+                ((CabinetSimulatorEffect)effectNode).setDamping(value);
+                return true;
+            case CabinetSimulator_Height:
+                ((CabinetSimulatorEffect)effectNode).setHeight(value);
+                return true;
+            case CabinetSimulator_Tone:
+                ((CabinetSimulatorEffect)effectNode).setTone(value);
+                return true;
+            case CabinetSimulator_Wet:
+                ((CabinetSimulatorEffect)effectNode).setWet(value);
+                return true;
+            case CabinetSimulator_Width:
+                ((CabinetSimulatorEffect)effectNode).setWidth(value);
+                return true;
+            case Chorus_Delay:
+                ((ChorusEffect)effectNode).setDelay(value);
+                return true;
+            case Chorus_Depth:
+                ((ChorusEffect)effectNode).setDepth(value);
+                return true;
+            case Chorus_Mode:
+                ((ChorusEffect)effectNode).setMode(value);
+                return true;
+            case Chorus_Rate:
+                ((ChorusEffect)effectNode).setRate(value);
+                return true;
+            case Chorus_Wet:
+                ((ChorusEffect)effectNode).setWet(value);
+                return true;
+            case CombFilter_Freq:
+                ((CombFilterEffect)effectNode).setRate(value);
+                return true;
+            case CombFilter_Reso:
+                ((CombFilterEffect)effectNode).setFeedback(value);
+                return true;
+            case CombFilter_Wet:
+                ((CombFilterEffect)effectNode).setDepth(value);
+                return true;
+            case Compressor_Attack:
+                ((CompressorEffect)effectNode).setAttack(value);
+                return true;
+            case Compressor_Ratio:
+                ((CompressorEffect)effectNode).setRatio(value);
+                return true;
+            case Compressor_Release:
+                ((CompressorEffect)effectNode).setRelease(value);
+                return true;
+            case Compressor_Sidechain:
+                ((CompressorEffect)effectNode).setSidechain(value);
+                return true;
+            case Compressor_Threshold:
+                ((CompressorEffect)effectNode).setThreshold(value);
+                return true;
+            case Delay_Feedback:
+                ((DelayEffect)effectNode).setFeedback(value);
+                return true;
+            case Delay_Mode:
+                ((DelayEffect)effectNode).setMode(value);
+                return true;
+            case Delay_Time:
+                ((DelayEffect)effectNode).setTime(value);
+                return true;
+            case Delay_Wet:
+                ((DelayEffect)effectNode).setWet(value);
+                return true;
+            case Distortion_Amount:
+                ((DistortionEffect)effectNode).setAmount(value);
+                return true;
+            case Distortion_PostGain:
+                ((DistortionEffect)effectNode).setPostGain(value);
+                return true;
+            case Distortion_PreGain:
+                ((DistortionEffect)effectNode).setPreGain(value);
+                return true;
+            case Distortion_Program:
+                ((DistortionEffect)effectNode).setProgram(value);
+                return true;
+            case Flanger_Depth:
+                ((FlangerEffect)effectNode).setDepth(value);
+                return true;
+            case Flanger_Feedback:
+                ((FlangerEffect)effectNode).setFeedback(value);
+                return true;
+            case Flanger_Mode:
+                ((FlangerEffect)effectNode).setMode(value);
+                return true;
+            case Flanger_Rate:
+                ((FlangerEffect)effectNode).setRate(value);
+                return true;
+            case Flanger_Wet:
+                ((FlangerEffect)effectNode).setWet(value);
+                return true;
+            case Limiter_Attack:
+                ((LimiterEffect)effectNode).setAttack(value);
+                return true;
+            case Limiter_PostGain:
+                ((LimiterEffect)effectNode).setPostGain(value);
+                return true;
+            case Limiter_PreGain:
+                ((LimiterEffect)effectNode).setPreGain(value);
+                return true;
+            case Limiter_Release:
+                ((LimiterEffect)effectNode).setRelease(value);
+                return true;
+            case MultiFilter_Frequency:
+                ((MultiFilterEffect)effectNode).setFrequency(value);
+                return true;
+            case MultiFilter_Gain:
+                ((MultiFilterEffect)effectNode).setGain(value);
+                return true;
+            case MultiFilter_Mode:
+                ((MultiFilterEffect)effectNode).setMode(value);
+                return true;
+            case MultiFilter_Resonance:
+                ((MultiFilterEffect)effectNode).setResonance(value);
+                return true;
+            case ParametricEQ_Frequency:
+                ((ParametricEQEffect)effectNode).setFrequency(value);
+                return true;
+            case ParametricEQ_Gain:
+                ((ParametricEQEffect)effectNode).setGain(value);
+                return true;
+            case ParametricEQ_Width:
+                ((ParametricEQEffect)effectNode).setWidth(value);
+                return true;
+            case Phaser_Depth:
+                ((PhaserEffect)effectNode).setDepth(value);
+                return true;
+            case Phaser_Feedback:
+                ((PhaserEffect)effectNode).setFeedback(value);
+                return true;
+            case Phaser_HighFreq:
+                ((PhaserEffect)effectNode).setHighfreq(value);
+                return true;
+            case Phaser_LowFreq:
+                ((PhaserEffect)effectNode).setLowfreq(value);
+                return true;
+            case Phaser_Rate:
+                ((PhaserEffect)effectNode).setRate(value);
+                return true;
+            case Reverb_Damping:
+                ((ReverbEffect)effectNode).setDamping(value);
+                return true;
+            case Reverb_Delay:
+                ((ReverbEffect)effectNode).setDelay(value);
+                return true;
+            case Reverb_Room:
+                ((ReverbEffect)effectNode).setRoom(value);
+                return true;
+            case Reverb_Wet:
+                ((ReverbEffect)effectNode).setWet(value);
+                return true;
+            case Reverb_Width:
+                ((ReverbEffect)effectNode).setWidth(value);
+                return true;
+            case StaticFlanger_Depth:
+                ((StaticFlangerEffect)effectNode).setDepth(value);
+                return true;
+            case StaticFlanger_Feedback:
+                ((StaticFlangerEffect)effectNode).setFeedback(value);
+                return true;
+            case StaticFlanger_Mode:
+                ((StaticFlangerEffect)effectNode).setMode(value);
+                return true;
+            case StaticFlanger_Wet:
+                ((StaticFlangerEffect)effectNode).setWet(value);
+                return true;
+            case VinylSimulator_Age:
+                ((VinylSimulatorEffect)effectNode).setAge(value);
+                return true;
+            case VinylSimulator_Dust:
+                ((VinylSimulatorEffect)effectNode).setDust(value);
+                return true;
+            case VinylSimulator_Noise:
+                ((VinylSimulatorEffect)effectNode).setNoise(value);
+                return true;
+            case VinylSimulator_Scratch:
+                ((VinylSimulatorEffect)effectNode).setScratch(value);
+                return true;
+            case VinylSimulator_Wet:
+                ((VinylSimulatorEffect)effectNode).setWet(value);
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * The reflective fallback, package private for the dispatch benchmark.
+     */
+    static void invokeSetter(Object target, String setterName, float value) {
         try {
-            Method m = mixerChannel.getClass().getMethod(methodName, float.class);
-            m.invoke(mixerChannel, value);
+            Method m = target.getClass().getMethod(setterName, float.class);
+            m.invoke(target, value);
+        } catch (NoSuchMethodException e) {
+            CaustkRuntime.getInstance().getLogger()
+                    .err(TAG, "No setter " + setterName + " on " + target.getClass(), e);
         } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
+            CaustkRuntime.getInstance().getLogger()
+                    .err(TAG, "Can not call " + setterName + " on " + target.getClass(), e);
         } catch (InvocationTargetException e) {
-            e.printStackTrace();
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
+            CaustkRuntime.getInstance().getLogger()
+                    .err(TAG, setterName + "(" + value + ") failed on " + target.getClass(),
+                            e.getCause());
         }
     }
 
-    private static String toSetterName(String methodName) {
+    static String toSetterName(String methodName) {
         int index = methodName.indexOf("_");
         if (index != -1) {
             String start = methodName.substring(0, index);
@@ -160,34 +666,4 @@ public final class OSCControlsMap {
         setterName = "set" + first + setterName;
         return setterName;
     }
-
-    public static Collection<IMixerControl> getMixerChannels() {
-        return Collections.unmodifiableCollection(mixerChannelList);
-    }
-
-    //--------------------------------------------------------------------------
-    // Internal :: Methods
-    //--------------------------------------------------------------------------
-
-    static void add(EffectType type, IEffectControl control) {
-        Collection<IEffectControl> collection = effectMap.get(type);
-        if (collection == null) {
-            collection = new ArrayList<IEffectControl>();
-            effectMap.put(type, collection);
-        }
-        collection.add(control);
-    }
-
-    static void add(MachineType type, IMachineControl control) {
-        Collection<IMachineControl> collection = machineMap.get(type);
-        if (collection == null) {
-            collection = new ArrayList<IMachineControl>();
-            machineMap.put(type, collection);
-        }
-        collection.add(control);
-    }
-
-    static void add(IMixerControl control) {
-        mixerChannelList.add(control);
-    }
 }
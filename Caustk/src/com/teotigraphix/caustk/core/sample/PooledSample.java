@@ -0,0 +1,124 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core.sample;
+
+import java.io.File;
+
+/**
+ * A distinct sample of the {@link SamplePool}.
+ * <p>
+ * Files with the same content share one {@link PooledSample}, its
+ * {@link #getFile()} is the first file of that content added to the pool. The
+ * sample stays pooled while machine channels reference it.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public final class PooledSample {
+
+    private File file;
+
+    private WavInfo info;
+
+    private String hash;
+
+    private int numReferences;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the canonical file of the sample, the file its header and
+     * waveform peaks are read from.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the header values of the sample.
+     */
+    public WavInfo getInfo() {
+        return info;
+    }
+
+    /**
+     * Returns the number of machine channels the sample is loaded into.
+     */
+    public int getNumReferences() {
+        return numReferences;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    PooledSample(File file, WavInfo info) {
+        this.file = file;
+        this.info = info;
+    }
+
+    //--------------------------------------------------------------------------
+    // Overridden Public :: Methods
+    //--------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "PooledSample [" + file.getName() + ", " + info + ", " + numReferences + "]";
+    }
+
+    //--------------------------------------------------------------------------
+    // Package :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the content hash, <code>null</code> until a file of the same
+     * size was added to the pool.
+     */
+    String getHash() {
+        return hash;
+    }
+
+    void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Points the sample at another file of the same content, the canonical file
+     * was deleted or changed.
+     */
+    void rebase(File file, WavInfo info) {
+        this.file = file;
+        this.info = info;
+    }
+
+    boolean isCurrent() {
+        return info.isCurrent(file);
+    }
+
+    void retain() {
+        numReferences++;
+    }
+
+    void release() {
+        numReferences--;
+    }
+}
@@ -0,0 +1,348 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core.sample;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * The {@link SamplePool} is the rack wide registry of the WAV samples loaded
+ * into machine channels.
+ * <p>
+ * Samples are identified by content, a file with the same bytes as a pooled
+ * sample resolves to the pooled sample. Content is only hashed when a file has
+ * the same size as a pooled sample. The pool tracks which sample and file each
+ * machine channel holds, so loading the same file into the same channel again
+ * does not send a load message.
+ * <p>
+ * A sample is pooled while it is loaded into at least one channel, it leaves
+ * the pool with its last {@link #release(int, int)}.
+ * <p>
+ * Anything that replaces the native samples of a machine (a preset load, a
+ * new machine at the index, a song load or a blank rack) must release the
+ * machine's channels.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class SamplePool {
+
+    private final Map<String, Alias> aliases = new HashMap<String, Alias>();
+
+    private final Map<Long, List<PooledSample>> sizes = new HashMap<Long, List<PooledSample>>();
+
+    private final Map<Long, ChannelSample> channels = new HashMap<Long, ChannelSample>();
+
+    private final File peakDirectory;
+
+    private WaveformPeakCache peakCache;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the waveform peaks of the pooled samples.
+     */
+    public synchronized WaveformPeakCache getPeakCache() {
+        if (peakCache == null)
+            peakCache = new WaveformPeakCache(peakDirectory);
+        return peakCache;
+    }
+
+    /**
+     * Returns all pooled samples, the samples loaded into a channel.
+     */
+    public synchronized Collection<PooledSample> getSamples() {
+        List<PooledSample> result = new ArrayList<PooledSample>();
+        for (List<PooledSample> samples : sizes.values()) {
+            result.addAll(samples);
+        }
+        return result;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates a sample pool.
+     *
+     * @param peakDirectory The directory of the {@link #getPeakCache()}.
+     */
+    public SamplePool(File peakDirectory) {
+        this.peakDirectory = peakDirectory;
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the pooled sample of a WAV file, a new sample if no sample with
+     * the same content is pooled.
+     * <p>
+     * A new sample is added to the pool when it is retained by a channel. The
+     * header of a pooled file is read once, until the file changes.
+     *
+     * @param file The WAV file.
+     * @throws IOException The file is not a supported WAV file.
+     */
+    public synchronized PooledSample get(File file) throws IOException {
+        final String path = file.getAbsolutePath();
+        final Alias alias = aliases.get(path);
+        if (alias != null && alias.isCurrent(file) && alias.sample.isCurrent())
+            return alias.sample;
+
+        final WavInfo info = WavInfo.read(file);
+        String hash = null;
+        final List<PooledSample> candidates = sizes.get(info.getLength());
+        if (candidates != null) {
+            for (Iterator<PooledSample> i = candidates.iterator(); i.hasNext();) {
+                final PooledSample candidate = i.next();
+                final boolean current = candidate.isCurrent();
+                if (candidate.getHash() == null) {
+                    if (!current) {
+                        // gone before it was ever compared, cannot be matched
+                        i.remove();
+                        continue;
+                    }
+                    candidate.setHash(toHash(candidate.getFile()));
+                }
+                if (hash == null)
+                    hash = toHash(file);
+                if (!hash.equals(candidate.getHash())) {
+                    if (!current && candidate.getNumReferences() == 0)
+                        i.remove();
+                    continue;
+                }
+                if (!current)
+                    candidate.rebase(file, info);
+                aliases.put(path, new Alias(candidate, info));
+                return candidate;
+            }
+        }
+
+        final PooledSample sample = new PooledSample(file, info);
+        sample.setHash(hash);
+        return sample;
+    }
+
+    /**
+     * Returns the pooled sample of a WAV file, <code>null</code> if the file
+     * is not a supported WAV file.
+     * <p>
+     * Callers load the file as is when <code>null</code> is returned and
+     * leave the error to the engine.
+     *
+     * @param file The WAV file.
+     * @see #get(File)
+     */
+    public PooledSample find(File file) {
+        try {
+            return get(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the sample loaded into a machine channel, <code>null</code> if
+     * the pool does not know the channel's sample.
+     *
+     * @param machineIndex The machine index.
+     * @param channel The sampler channel index.
+     */
+    public synchronized PooledSample getSample(int machineIndex, int channel) {
+        final ChannelSample loaded = channels.get(toChannelKey(machineIndex, channel));
+        return loaded != null ? loaded.sample : null;
+    }
+
+    /**
+     * Whether the file is known to be loaded into the machine channel.
+     * <p>
+     * The engine names a channel's sample after the loaded file, a duplicate
+     * of the channel's sample with another name is not loaded.
+     *
+     * @param machineIndex The machine index.
+     * @param channel The sampler channel index.
+     * @param sample The pooled sample of the file.
+     * @param file The WAV file.
+     */
+    public synchronized boolean isLoaded(int machineIndex, int channel, PooledSample sample,
+            File file) {
+        final ChannelSample loaded = channels.get(toChannelKey(machineIndex, channel));
+        return loaded != null && loaded.sample == sample
+                && loaded.name.equals(file.getName());
+    }
+
+    /**
+     * Records the file loaded into a machine channel, replacing the channel's
+     * previous sample.
+     *
+     * @param machineIndex The machine index.
+     * @param channel The sampler channel index.
+     * @param sample The pooled sample of the file.
+     * @param file The WAV file.
+     */
+    public synchronized void retain(int machineIndex, int channel, PooledSample sample,
+            File file) {
+        final ChannelSample old = channels.put(toChannelKey(machineIndex, channel),
+                new ChannelSample(sample, file.getName()));
+        if (old != null && old.sample == sample)
+            return;
+        if (sample.getNumReferences() == 0)
+            add(sample);
+        sample.retain();
+        if (old != null)
+            release(old.sample);
+    }
+
+    /**
+     * Forgets the sample of a machine channel.
+     *
+     * @param machineIndex The machine index.
+     * @param channel The sampler channel index.
+     */
+    public synchronized void release(int machineIndex, int channel) {
+        final ChannelSample old = channels.remove(toChannelKey(machineIndex, channel));
+        if (old != null)
+            release(old.sample);
+    }
+
+    /**
+     * Forgets the samples of all channels of a machine.
+     *
+     * @param machineIndex The machine index.
+     */
+    public synchronized void releaseMachine(int machineIndex) {
+        for (Iterator<Map.Entry<Long, ChannelSample>> i = channels.entrySet().iterator(); i
+                .hasNext();) {
+            final Map.Entry<Long, ChannelSample> entry = i.next();
+            if ((int)(entry.getKey() >> 32) == machineIndex) {
+                i.remove();
+                release(entry.getValue().sample);
+            }
+        }
+    }
+
+    /**
+     * Forgets the samples of all machine channels, which empties the pool.
+     */
+    public synchronized void releaseAll() {
+        for (ChannelSample loaded : channels.values()) {
+            release(loaded.sample);
+        }
+        channels.clear();
+    }
+
+    /**
+     * Removes all samples and stops the {@link #getPeakCache()}.
+     */
+    public synchronized void dispose() {
+        releaseAll();
+        aliases.clear();
+        sizes.clear();
+        if (peakCache != null)
+            peakCache.dispose();
+        peakCache = null;
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private void add(PooledSample sample) {
+        final long length = sample.getInfo().getLength();
+        List<PooledSample> samples = sizes.get(length);
+        if (samples == null) {
+            samples = new ArrayList<PooledSample>(1);
+            sizes.put(length, samples);
+        }
+        if (!samples.contains(sample))
+            samples.add(sample);
+        aliases.put(sample.getFile().getAbsolutePath(), new Alias(sample, sample.getInfo()));
+    }
+
+    private void release(PooledSample sample) {
+        sample.release();
+        if (sample.getNumReferences() > 0)
+            return;
+        final long length = sample.getInfo().getLength();
+        final List<PooledSample> samples = sizes.get(length);
+        if (samples != null) {
+            samples.remove(sample);
+            if (samples.isEmpty())
+                sizes.remove(length);
+        }
+        for (Iterator<Alias> i = aliases.values().iterator(); i.hasNext();) {
+            if (i.next().sample == sample)
+                i.remove();
+        }
+    }
+
+    private static long toChannelKey(int machineIndex, int channel) {
+        return (long)machineIndex << 32 | channel & 0xFFFFFFFFL;
+    }
+
+    private static String toHash(File file) throws IOException {
+        return Files.hash(file, Hashing.sha1()).toString();
+    }
+
+    private static final class ChannelSample {
+
+        final PooledSample sample;
+
+        final String name;
+
+        ChannelSample(PooledSample sample, String name) {
+            this.sample = sample;
+            this.name = name;
+        }
+    }
+
+    private static final class Alias {
+
+        final PooledSample sample;
+
+        final long length;
+
+        final long lastModified;
+
+        Alias(PooledSample sample, WavInfo info) {
+            this.sample = sample;
+            this.length = info.getLength();
+            this.lastModified = info.getLastModified();
+        }
+
+        boolean isCurrent(File file) {
+            return file.length() == length && file.lastModified() == lastModified;
+        }
+    }
+}
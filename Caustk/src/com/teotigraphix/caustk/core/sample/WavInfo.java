@@ -0,0 +1,315 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core.sample;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * The {@link WavInfo} holds the header values of a WAV file, the sample data is
+ * not read.
+ * <p>
+ * Integer PCM (8, 16, 24 and 32 bit) and 32 bit float data are supported,
+ * plain or in a <code>WAVE_FORMAT_EXTENSIBLE</code> header. Loop points and the
+ * root key are read from a <code>smpl</code> chunk when present.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public final class WavInfo {
+
+    public static final int FORMAT_PCM = 1;
+
+    public static final int FORMAT_FLOAT = 3;
+
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private static final int RIFF = 0x46464952; // "RIFF"
+
+    private static final int WAVE = 0x45564157; // "WAVE"
+
+    private static final int FMT = 0x20746d66; // "fmt "
+
+    private static final int DATA = 0x61746164; // "data"
+
+    private static final int SMPL = 0x6c706d73; // "smpl"
+
+    private final long length;
+
+    private final long lastModified;
+
+    private int format;
+
+    private int numChannels;
+
+    private int sampleRate;
+
+    private int bitsPerSample;
+
+    private int blockAlign;
+
+    private long dataOffset = -1;
+
+    private long dataLength;
+
+    private int rootKey = -1;
+
+    private long loopStart = -1;
+
+    private long loopEnd = -1;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the length of the file when it was read.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the modification time of the file when it was read.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns {@link #FORMAT_PCM} or {@link #FORMAT_FLOAT}.
+     */
+    public int getFormat() {
+        return format;
+    }
+
+    public int getNumChannels() {
+        return numChannels;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    /**
+     * Returns the bytes of one frame, all channels of one sample.
+     */
+    public int getBlockAlign() {
+        return blockAlign;
+    }
+
+    /**
+     * Returns the file offset of the first sample.
+     */
+    public long getDataOffset() {
+        return dataOffset;
+    }
+
+    /**
+     * Returns the byte length of the sample data.
+     */
+    public long getDataLength() {
+        return dataLength;
+    }
+
+    /**
+     * Returns the number of frames (samples per channel).
+     */
+    public long getNumFrames() {
+        return dataLength / blockAlign;
+    }
+
+    /**
+     * Returns the length in seconds.
+     */
+    public float getDuration() {
+        return (float)getNumFrames() / sampleRate;
+    }
+
+    /**
+     * Returns the MIDI root key of the <code>smpl</code> chunk, -1 if the file
+     * has none.
+     */
+    public int getRootKey() {
+        return rootKey;
+    }
+
+    /**
+     * Whether the file has a loop in its <code>smpl</code> chunk.
+     */
+    public boolean hasLoop() {
+        return loopStart >= 0;
+    }
+
+    /**
+     * Returns the first frame of the loop, -1 if the file has no loop.
+     */
+    public long getLoopStart() {
+        return loopStart;
+    }
+
+    /**
+     * Returns the last frame of the loop, -1 if the file has no loop.
+     */
+    public long getLoopEnd() {
+        return loopEnd;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    private WavInfo(File file) {
+        this.length = file.length();
+        this.lastModified = file.lastModified();
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Whether the file changed since it was read.
+     *
+     * @param file The WAV file.
+     */
+    public boolean isCurrent(File file) {
+        return file.length() == length && file.lastModified() == lastModified;
+    }
+
+    /**
+     * Reads the header of a WAV file.
+     *
+     * @param file The WAV file.
+     * @throws IOException The file is not a supported WAV file.
+     */
+    public static WavInfo read(File file) throws IOException {
+        final WavInfo info = new WavInfo(file);
+        final RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            if (input.length() < 12 || readInt(input) != RIFF) {
+                throw new IOException("Not a RIFF file: " + file);
+            }
+            readInt(input); // riff size
+            if (readInt(input) != WAVE)
+                throw new IOException("Not a WAVE file: " + file);
+
+            final long fileLength = input.length();
+            long position = 12;
+            while (position + 8 <= fileLength) {
+                input.seek(position);
+                final int id = readInt(input);
+                final long size = readInt(input) & 0xFFFFFFFFL;
+                final long start = position + 8;
+                if (id == FMT) {
+                    info.readFormat(input, size, file);
+                } else if (id == DATA) {
+                    info.dataOffset = start;
+                    // streamed files leave the size unset
+                    info.dataLength = size == 0 || size == 0xFFFFFFFFL
+                            || start + size > fileLength ? fileLength - start : size;
+                } else if (id == SMPL) {
+                    info.readSampler(input, size);
+                }
+                position = start + size + (size & 1);
+            }
+        } finally {
+            input.close();
+        }
+
+        if (info.numChannels == 0)
+            throw new IOException("WAVE file has no fmt chunk: " + file);
+        if (info.dataOffset < 0)
+            throw new IOException("WAVE file has no data chunk: " + file);
+        info.dataLength -= info.dataLength % info.blockAlign;
+        if (info.loopEnd >= info.getNumFrames())
+            info.loopEnd = info.getNumFrames() - 1;
+        return info;
+    }
+
+    @Override
+    public String toString() {
+        return "WavInfo [" + numChannels + "ch, " + sampleRate + "Hz, " + bitsPerSample
+                + "bit, " + getNumFrames() + " frames]";
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private void readFormat(RandomAccessFile input, long size, File file) throws IOException {
+        if (size < 16)
+            throw new IOException("Invalid fmt chunk: " + file);
+        format = readShort(input);
+        numChannels = readShort(input);
+        sampleRate = readInt(input);
+        readInt(input); // byte rate
+        blockAlign = readShort(input);
+        bitsPerSample = readShort(input);
+        if (format == FORMAT_EXTENSIBLE && size >= 40) {
+            readShort(input); // extension size
+            readShort(input); // valid bits
+            readInt(input); // channel mask
+            format = readShort(input); // first two bytes of the sub format guid
+        }
+        if (format != FORMAT_PCM && format != FORMAT_FLOAT)
+            throw new IOException("Unsupported WAVE format " + format + ": " + file);
+        if (format == FORMAT_FLOAT && bitsPerSample != 32)
+            throw new IOException("Unsupported float WAVE: " + bitsPerSample + " bit: " + file);
+        if (bitsPerSample != 8 && bitsPerSample != 16 && bitsPerSample != 24
+                && bitsPerSample != 32)
+            throw new IOException("Unsupported WAVE sample size " + bitsPerSample + ": "
+                    + file);
+        if (numChannels < 1 || blockAlign < numChannels * (bitsPerSample / 8))
+            throw new IOException("Invalid WAVE block alignment: " + file);
+    }
+
+    private void readSampler(RandomAccessFile input, long size) throws IOException {
+        if (size < 36)
+            return;
+        input.skipBytes(12);
+        rootKey = readInt(input);
+        input.skipBytes(12);
+        final int numLoops = readInt(input);
+        if (numLoops < 1 || size < 36 + 24)
+            return;
+        input.skipBytes(4 + 8); // sampler data, cue point id, type
+        loopStart = readInt(input) & 0xFFFFFFFFL;
+        loopEnd = readInt(input) & 0xFFFFFFFFL;
+        if (loopEnd < loopStart) {
+            loopStart = -1;
+            loopEnd = -1;
+        }
+    }
+
+    private static int readShort(RandomAccessFile input) throws IOException {
+        return input.readUnsignedByte() | input.readUnsignedByte() << 8;
+    }
+
+    private static int readInt(RandomAccessFile input) throws IOException {
+        return input.readUnsignedByte() | input.readUnsignedByte() << 8
+                | input.readUnsignedByte() << 16 | input.readUnsignedByte() << 24;
+    }
+}
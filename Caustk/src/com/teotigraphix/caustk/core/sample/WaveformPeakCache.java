@@ -0,0 +1,464 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core.sample;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import com.google.common.hash.Hashing;
+import com.teotigraphix.caustk.utils.core.ZipUtils;
+
+/**
+ * The {@link WaveformPeakCache} writes the {@link WaveformPeaks} of WAV files
+ * into peak files and maps them for drawing.
+ * <p>
+ * A sample is decoded once, streaming, the first time its peaks are asked for.
+ * Peak files are kept in the cache directory under a directory per sample
+ * path, they are rewritten when the sample's length or modification time
+ * changes. Whole sample folders can be prepared on a background thread with
+ * {@link #generate(File)}.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class WaveformPeakCache {
+
+    /**
+     * The number of frames of a level 0 peak.
+     */
+    public static final int BASE_FRAMES_PER_PEAK = 64;
+
+    /**
+     * The number of peaks of a level merged into one peak of the next level.
+     */
+    public static final int LEVEL_FACTOR = 4;
+
+    public static final int MAX_LEVELS = 8;
+
+    private static final int MAX_MAPPED = 64;
+
+    private static final int MAX_WORKERS = 2;
+
+    private static final String EXTENSION = ".peaks";
+
+    private final File directory;
+
+    private final Map<String, WaveformPeaks> mapped = new LinkedHashMap<String, WaveformPeaks>(
+            16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, WaveformPeaks> eldest) {
+            return size() > MAX_MAPPED;
+        }
+    };
+
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<String, Object>();
+
+    private ExecutorService executor;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the directory holding the peak files.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates a peak cache.
+     *
+     * @param directory The directory holding the peak files.
+     */
+    public WaveformPeakCache(File directory) {
+        this.directory = directory;
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the peak file of the current version of a sample.
+     *
+     * @param source The WAV file.
+     */
+    public File getPeakFile(File source) {
+        return new File(getSourceDirectory(source), source.length() + "-"
+                + source.lastModified() + EXTENSION);
+    }
+
+    /**
+     * Returns the peaks of a sample, the sample is decoded and its peak file
+     * written if the file does not exist or the sample changed.
+     *
+     * @param source The WAV file.
+     * @throws IOException The sample could not be decoded or the peak file not
+     *             written.
+     */
+    public WaveformPeaks getPeaks(File source) throws IOException {
+        final String key = source.getAbsolutePath();
+        WaveformPeaks peaks = getMapped(key, source);
+        if (peaks != null)
+            return peaks;
+
+        synchronized (toLock(key)) {
+            peaks = getMapped(key, source);
+            if (peaks != null)
+                return peaks;
+            final File peakFile = getPeakFile(source);
+            if (!WaveformPeaks.isCurrent(peakFile, source))
+                write(source, peakFile);
+            peaks = WaveformPeaks.map(peakFile);
+            synchronized (mapped) {
+                mapped.put(key, peaks);
+            }
+            return peaks;
+        }
+    }
+
+    /**
+     * Returns the peaks of a sample on the background thread.
+     *
+     * @param source The WAV file.
+     * @see #getPeaks(File)
+     */
+    public Future<WaveformPeaks> loadPeaks(final File source) {
+        return getExecutor().submit(new Callable<WaveformPeaks>() {
+            @Override
+            public WaveformPeaks call() throws Exception {
+                return getPeaks(source);
+            }
+        });
+    }
+
+    /**
+     * Writes the peak files of all WAV files in a folder and its sub folders
+     * on the background thread.
+     * <p>
+     * Files that are not supported WAV files are skipped. The future returns
+     * the number of peak files that are current when done, cancel it to stop.
+     *
+     * @param folder The sample folder.
+     */
+    public Future<Integer> generate(final File folder) {
+        return getExecutor().submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                int count = 0;
+                for (File source : listSamples(folder)) {
+                    if (Thread.interrupted())
+                        throw new InterruptedException();
+                    try {
+                        final File peakFile = getPeakFile(source);
+                        synchronized (toLock(source.getAbsolutePath())) {
+                            if (!WaveformPeaks.isCurrent(peakFile, source))
+                                write(source, peakFile);
+                        }
+                        count++;
+                    } catch (IOException e) {
+                        // not a supported sample, skip it
+                    }
+                }
+                return count;
+            }
+        });
+    }
+
+    /**
+     * Unmaps all peaks and stops the background thread, peak files are kept.
+     */
+    public void dispose() {
+        synchronized (this) {
+            if (executor != null)
+                executor.shutdownNow();
+            executor = null;
+        }
+        synchronized (mapped) {
+            mapped.clear();
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Package :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Decodes a sample and writes its peak file, replacing peak files of older
+     * versions of the sample.
+     */
+    static void write(File source, File peakFile) throws IOException {
+        final WavInfo info = WavInfo.read(source);
+        final int numChannels = info.getNumChannels();
+
+        final List<Integer> counts = new ArrayList<Integer>();
+        counts.add(toPeakCount(info.getNumFrames(), BASE_FRAMES_PER_PEAK));
+        while (counts.size() < MAX_LEVELS && counts.get(counts.size() - 1) > 1) {
+            counts.add(toPeakCount(counts.get(counts.size() - 1), LEVEL_FACTOR));
+        }
+
+        final int numLevels = counts.size();
+        long size = WaveformPeaks.HEADER_SIZE + numLevels * WaveformPeaks.LEVEL_HEADER_SIZE;
+        final int[] offsets = new int[numLevels];
+        for (int i = 0; i < numLevels; i++) {
+            offsets[i] = (int)size;
+            size += (long)counts.get(i) * numChannels * 4;
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Sample too large for a peak file: " + source);
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate((int)size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, WaveformPeaks.MAGIC);
+        buffer.putInt(4, WaveformPeaks.VERSION);
+        buffer.putLong(8, info.getLength());
+        buffer.putLong(16, info.getLastModified());
+        buffer.putInt(24, numChannels);
+        buffer.putInt(28, info.getSampleRate());
+        buffer.putLong(32, info.getNumFrames());
+        buffer.putInt(40, numLevels);
+        int framesPerPeak = BASE_FRAMES_PER_PEAK;
+        for (int i = 0; i < numLevels; i++) {
+            final int position = WaveformPeaks.HEADER_SIZE + i * WaveformPeaks.LEVEL_HEADER_SIZE;
+            buffer.putInt(position, framesPerPeak);
+            buffer.putInt(position + 4, counts.get(i));
+            buffer.putLong(position + 8, offsets[i]);
+            framesPerPeak *= LEVEL_FACTOR;
+        }
+
+        decode(source, info, buffer, offsets[0]);
+        for (int i = 1; i < numLevels; i++) {
+            merge(buffer, numChannels, offsets[i - 1], counts.get(i - 1), offsets[i],
+                    counts.get(i));
+        }
+
+        final File parent = peakFile.getParentFile();
+        FileUtils.forceMkdir(parent);
+        final File tempFile = File.createTempFile("peaks", ".tmp", parent);
+        final FileOutputStream output = new FileOutputStream(tempFile);
+        try {
+            final FileChannel channel = output.getChannel();
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            output.close();
+        }
+        if (!tempFile.renameTo(peakFile)) {
+            FileUtils.deleteQuietly(peakFile);
+            if (!tempFile.renameTo(peakFile)) {
+                FileUtils.deleteQuietly(tempFile);
+                throw new IOException("Could not write peak file: " + peakFile);
+            }
+        }
+
+        // older versions, may fail while still mapped
+        final File[] files = parent.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.equals(peakFile) && file.getName().endsWith(EXTENSION))
+                    FileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Streams the sample data once and writes the level 0 min/max pairs.
+     */
+    private static void decode(File source, WavInfo info, ByteBuffer buffer, int offset)
+            throws IOException {
+        final int numChannels = info.getNumChannels();
+        final int blockAlign = info.getBlockAlign();
+        final int bytesPerSample = info.getBitsPerSample() / 8;
+        final boolean isFloat = info.getFormat() == WavInfo.FORMAT_FLOAT;
+        final long numFrames = info.getNumFrames();
+
+        final short[] min = new short[numChannels];
+        final short[] max = new short[numChannels];
+        reset(min, max);
+
+        final byte[] block = new byte[BASE_FRAMES_PER_PEAK * blockAlign * 16];
+        final InputStream input = new BufferedInputStream(new FileInputStream(source),
+                ZipUtils.BUFFER_SIZE);
+        try {
+            IOUtils.skipFully(input, info.getDataOffset());
+            long frame = 0;
+            int position = offset;
+            while (frame < numFrames) {
+                final int frames = (int)Math.min(block.length / blockAlign, numFrames - frame);
+                IOUtils.readFully(input, block, 0, frames * blockAlign);
+                for (int i = 0; i < frames; i++) {
+                    final int base = i * blockAlign;
+                    for (int c = 0; c < numChannels; c++) {
+                        final short value = toShort(block, base + c * bytesPerSample,
+                                bytesPerSample, isFloat);
+                        if (value < min[c])
+                            min[c] = value;
+                        if (value > max[c])
+                            max[c] = value;
+                    }
+                    frame++;
+                    if (frame % BASE_FRAMES_PER_PEAK == 0 || frame == numFrames) {
+                        for (int c = 0; c < numChannels; c++) {
+                            buffer.putShort(position, min[c]);
+                            buffer.putShort(position + 2, max[c]);
+                            position += 4;
+                        }
+                        reset(min, max);
+                    }
+                }
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    private static void merge(ByteBuffer buffer, int numChannels, int sourceOffset,
+            int sourceCount, int targetOffset, int targetCount) {
+        for (int peak = 0; peak < targetCount; peak++) {
+            final int first = peak * LEVEL_FACTOR;
+            final int last = Math.min(first + LEVEL_FACTOR, sourceCount);
+            for (int c = 0; c < numChannels; c++) {
+                short low = Short.MAX_VALUE;
+                short high = Short.MIN_VALUE;
+                for (int i = first; i < last; i++) {
+                    final int position = sourceOffset + (i * numChannels + c) * 4;
+                    low = (short)Math.min(low, buffer.getShort(position));
+                    high = (short)Math.max(high, buffer.getShort(position + 2));
+                }
+                final int position = targetOffset + (peak * numChannels + c) * 4;
+                buffer.putShort(position, low);
+                buffer.putShort(position + 2, high);
+            }
+        }
+    }
+
+    private static short toShort(byte[] data, int index, int bytesPerSample, boolean isFloat) {
+        switch (bytesPerSample) {
+            case 1:
+                return (short)(((data[index] & 0xFF) - 128) << 8);
+            case 2:
+                return (short)((data[index] & 0xFF) | data[index + 1] << 8);
+            case 3:
+                return (short)((data[index + 1] & 0xFF) | data[index + 2] << 8);
+            default:
+                if (!isFloat)
+                    return (short)((data[index + 2] & 0xFF) | data[index + 3] << 8);
+                final float value = Float.intBitsToFloat((data[index] & 0xFF)
+                        | (data[index + 1] & 0xFF) << 8 | (data[index + 2] & 0xFF) << 16
+                        | data[index + 3] << 24);
+                return (short)Math.round(Math.max(-1f, Math.min(1f, value)) * Short.MAX_VALUE);
+        }
+    }
+
+    private static void reset(short[] min, short[] max) {
+        for (int c = 0; c < min.length; c++) {
+            min[c] = Short.MAX_VALUE;
+            max[c] = Short.MIN_VALUE;
+        }
+    }
+
+    private static int toPeakCount(long count, int factor) {
+        return (int)Math.max(1, (count + factor - 1) / factor);
+    }
+
+    private static Collection<File> listSamples(File folder) {
+        return FileUtils.listFiles(folder, new String[] {
+                "wav", "WAV"
+        }, true);
+    }
+
+    private WaveformPeaks getMapped(String key, File source) {
+        synchronized (mapped) {
+            final WaveformPeaks peaks = mapped.get(key);
+            if (peaks != null && peaks.getSourceLength() == source.length()
+                    && peaks.getSourceLastModified() == source.lastModified())
+                return peaks;
+            return null;
+        }
+    }
+
+    private File getSourceDirectory(File source) {
+        final String hash = Hashing.sha1().hashUnencodedChars(source.getAbsolutePath())
+                .toString();
+        return new File(directory, hash);
+    }
+
+    private Object toLock(String key) {
+        Object lock = locks.get(key);
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = locks.putIfAbsent(key, newLock);
+            if (lock == null)
+                lock = newLock;
+        }
+        return lock;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            final int workers = Math.max(1,
+                    Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()));
+            executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "WaveformPeakCache");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,284 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.core.sample;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * The {@link WaveformPeaks} reads the min/max peak levels of a sample from a
+ * memory mapped peak file written by the {@link WaveformPeakCache}.
+ * <p>
+ * Level 0 holds one min/max pair per channel for every
+ * {@link WaveformPeakCache#BASE_FRAMES_PER_PEAK} frames, each following level
+ * covers {@link WaveformPeakCache#LEVEL_FACTOR} times as many frames. Values
+ * are in the range -1..1. Reads do not change the buffer, an instance can be
+ * shared between threads.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class WaveformPeaks {
+
+    static final int MAGIC = 0x4b504b43; // "CKPK"
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 44;
+
+    static final int LEVEL_HEADER_SIZE = 16;
+
+    private static final float SCALE = 1f / Short.MAX_VALUE;
+
+    private final ByteBuffer buffer;
+
+    private final long sourceLength;
+
+    private final long sourceLastModified;
+
+    private final int numChannels;
+
+    private final int sampleRate;
+
+    private final long numFrames;
+
+    private final int[] framesPerPeak;
+
+    private final int[] numPeaks;
+
+    private final int[] offsets;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    public int getNumChannels() {
+        return numChannels;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getNumFrames() {
+        return numFrames;
+    }
+
+    public int getNumLevels() {
+        return numPeaks.length;
+    }
+
+    /**
+     * Returns the number of frames covered by one peak of the level.
+     *
+     * @param level The level (0..numLevels - 1).
+     */
+    public int getFramesPerPeak(int level) {
+        return framesPerPeak[level];
+    }
+
+    /**
+     * Returns the number of peaks of the level.
+     *
+     * @param level The level (0..numLevels - 1).
+     */
+    public int getNumPeaks(int level) {
+        return numPeaks[level];
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    WaveformPeaks(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION)
+            throw new IOException("Invalid peak file");
+        sourceLength = buffer.getLong(8);
+        sourceLastModified = buffer.getLong(16);
+        numChannels = buffer.getInt(24);
+        sampleRate = buffer.getInt(28);
+        numFrames = buffer.getLong(32);
+        final int numLevels = buffer.getInt(40);
+        if (numChannels < 1 || numLevels < 1
+                || buffer.capacity() < HEADER_SIZE + numLevels * LEVEL_HEADER_SIZE)
+            throw new IOException("Invalid peak file");
+
+        framesPerPeak = new int[numLevels];
+        numPeaks = new int[numLevels];
+        offsets = new int[numLevels];
+        for (int i = 0; i < numLevels; i++) {
+            final int position = HEADER_SIZE + i * LEVEL_HEADER_SIZE;
+            framesPerPeak[i] = buffer.getInt(position);
+            numPeaks[i] = buffer.getInt(position + 4);
+            final long offset = buffer.getLong(position + 8);
+            if (offset + (long)numPeaks[i] * numChannels * 4 > buffer.capacity())
+                throw new IOException("Truncated peak file");
+            offsets[i] = (int)offset;
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the minimum of a peak.
+     *
+     * @param level The level (0..numLevels - 1).
+     * @param channel The channel (0..numChannels - 1).
+     * @param peak The peak index within the level.
+     */
+    public float getMin(int level, int channel, int peak) {
+        return buffer.getShort(toPosition(level, channel, peak)) * SCALE;
+    }
+
+    /**
+     * Returns the maximum of a peak.
+     *
+     * @param level The level (0..numLevels - 1).
+     * @param channel The channel (0..numChannels - 1).
+     * @param peak The peak index within the level.
+     */
+    public float getMax(int level, int channel, int peak) {
+        return buffer.getShort(toPosition(level, channel, peak) + 2) * SCALE;
+    }
+
+    /**
+     * Returns the coarsest level that still has at least one peak per pixel.
+     *
+     * @param framesPerPixel The number of frames drawn in one pixel.
+     */
+    public int getLevel(double framesPerPixel) {
+        int level = 0;
+        while (level + 1 < numPeaks.length && framesPerPeak[level + 1] <= framesPerPixel) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Fills one min/max pair per pixel for a frame range of a channel, reading
+     * from the level matching the zoom.
+     *
+     * @param channel The channel (0..numChannels - 1).
+     * @param startFrame The first frame drawn.
+     * @param endFrame The frame after the last frame drawn.
+     * @param min The minimum of each pixel, its length is the pixel width.
+     * @param max The maximum of each pixel, same length as min.
+     */
+    public void getPeaks(int channel, long startFrame, long endFrame, float[] min, float[] max) {
+        final int width = Math.min(min.length, max.length);
+        if (width == 0)
+            return;
+        final double framesPerPixel = (double)(endFrame - startFrame) / width;
+        final int level = getLevel(framesPerPixel);
+        final int frames = framesPerPeak[level];
+        final int count = numPeaks[level];
+        for (int x = 0; x < width; x++) {
+            final long from = startFrame + (long)(x * framesPerPixel);
+            final long to = Math.max(from + 1, startFrame + (long)((x + 1) * framesPerPixel));
+            int first = (int)Math.max(0, from / frames);
+            int last = (int)Math.min(count - 1, (to - 1) / frames);
+            if (from >= numFrames || from < 0 || first > last) {
+                min[x] = 0f;
+                max[x] = 0f;
+                continue;
+            }
+            short low = Short.MAX_VALUE;
+            short high = Short.MIN_VALUE;
+            for (int peak = first; peak <= last; peak++) {
+                final int position = toPosition(level, channel, peak);
+                low = (short)Math.min(low, buffer.getShort(position));
+                high = (short)Math.max(high, buffer.getShort(position + 2));
+            }
+            min[x] = low * SCALE;
+            max[x] = high * SCALE;
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Package :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Maps a peak file read only, the mapping stays valid after the file is
+     * closed.
+     *
+     * @param file The peak file.
+     * @throws IOException
+     */
+    static WaveformPeaks map(File file) throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = input.getChannel();
+            final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            return new WaveformPeaks(buffer);
+        } finally {
+            input.close();
+        }
+    }
+
+    long getSourceLength() {
+        return sourceLength;
+    }
+
+    long getSourceLastModified() {
+        return sourceLastModified;
+    }
+
+    /**
+     * Whether the peak file was written for the current version of the
+     * source file.
+     */
+    static boolean isCurrent(File peakFile, File source) {
+        if (!peakFile.isFile() || peakFile.length() < HEADER_SIZE)
+            return false;
+        try {
+            final RandomAccessFile input = new RandomAccessFile(peakFile, "r");
+            try {
+                final ByteBuffer header = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+                input.getChannel().read(header, 0);
+                return header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                        && header.getLong(8) == source.length()
+                        && header.getLong(16) == source.lastModified();
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private int toPosition(int level, int channel, int peak) {
+        return offsets[level] + (peak * numChannels + channel) * 4;
+    }
+}
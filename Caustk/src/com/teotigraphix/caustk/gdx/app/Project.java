@@ -254,6 +254,7 @@ public abstract class Project {
     public void reset() {
         this.rackInstance = RackNodeUtils.create();
         RackMessage.BLANKRACK.send(getRack());
+        getRack().getSamplePool().releaseAll();
     }
 
     public void flush() throws IOException {
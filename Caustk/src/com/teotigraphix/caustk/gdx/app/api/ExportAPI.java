@@ -3,22 +3,59 @@ package com.teotigraphix.caustk.gdx.app.api;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import com.badlogic.gdx.Gdx;
-import com.teotigraphix.caustk.core.CausticException;
+import com.google.common.eventbus.Subscribe;
 import com.teotigraphix.caustk.gdx.app.AbstractProjectModelAPI;
 import com.teotigraphix.caustk.gdx.app.ProjectModel;
 import com.teotigraphix.caustk.gdx.app.ProjectState;
 import com.teotigraphix.caustk.node.RackInstance;
 import com.teotigraphix.caustk.node.machine.Machine;
 import com.teotigraphix.caustk.node.machine.sequencer.PatternNode;
-import com.teotigraphix.caustk.node.machine.sequencer.TrackChannel;
-import com.teotigraphix.caustk.node.sequencer.MasterSequencerChannel.ExportLoopMode;
+import com.teotigraphix.caustk.node.sequencer.ExportJob;
+import com.teotigraphix.caustk.node.sequencer.ExportQueue;
+import com.teotigraphix.caustk.node.sequencer.ExportQueue.ExportQueueEvent;
+import com.teotigraphix.caustk.node.sequencer.ExportQueue.ExportQueueEventKind;
 import com.teotigraphix.caustk.node.sequencer.MasterSequencerChannel.ExportType;
+import com.teotigraphix.caustk.node.sequencer.PatternExportJob;
+import com.teotigraphix.caustk.node.sequencer.StemExportJob;
+import com.teotigraphix.caustk.node.sequencer.StemExportJob.StemMode;
 
 public class ExportAPI extends AbstractProjectModelAPI {
 
-    private ProjectModel projectModel;
+    private static final int EXPORT_QUALITY = 100;
+
+    private ExportQueue exportQueue;
+
+    private final Set<ExportJob> wavJobs = Collections
+            .newSetFromMap(new ConcurrentHashMap<ExportJob, Boolean>());
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the queue that renders exports, its events are posted on the
+     * project model's event bus on the UI thread.
+     */
+    public ExportQueue getExportQueue() {
+        if (exportQueue == null) {
+            exportQueue = new ExportQueue(getProjectModel().getEventBus(), new Executor() {
+                @Override
+                public void execute(Runnable runnable) {
+                    Gdx.app.postRunnable(runnable);
+                }
+            });
+            getProjectModel().getEventBus().register(this);
+        }
+        return exportQueue;
+    }
 
     //--------------------------------------------------------------------------
     // Constructors
@@ -33,69 +70,97 @@ public class ExportAPI extends AbstractProjectModelAPI {
     //--------------------------------------------------------------------------
 
     /**
-     * @throws IOException
-     * @throws CausticException
+     * Queues the export of a pattern as a .wav file.
+     * <p>
+     * Does not wait for the render, the render needs the UI thread. An
+     * {@link ExportAPIEvent} of {@link ExportAPIEventKind#ExportWavComplete} is
+     * posted on the project model's event bus when the file is written.
+     * 
+     * @param name The name used in the file name.
+     * @param pattern The pattern to export.
+     * @return The queued job.
+     * @throws IOException The export directory could not be created.
      */
-    public File exportWav(String name, PatternNode pattern) throws IOException, CausticException {
-        String uniqueName = createName(name);
-        File location = new File(getProjectModel().getProjectAPI().getProject()
-                .getResource("export"), uniqueName);
-        final File absoluteLocation = new File(getProjectModel().getProjectAPI().getProject()
-                .getResource("export"), uniqueName + ".wav");
-
-        int numBars = pattern.getNumMeasures();
-        int bankIndex = pattern.getBankIndex();
-        int patternIndex = pattern.getPatternIndex();
-
-        RackInstance rackNode = getRackInstance();
-        Machine machine = rackNode.getMachine(0);
-
-        rackNode.getSequencer().clearPatterns();
-
-        // add current pattern to song sequencer
-        TrackChannel track = machine.getTrack();
-        track.clearEntries();
-
-        track.addEntry(machine.getSequencer().getPattern(bankIndex, patternIndex), 0, numBars);
-        // set loop points
-        rackNode.getSequencer().setLoopPoints(0, numBars);
-
-        // remove delay, reverb
-        float delaySend = machine.getMixer().getDelaySend();
-        float reverbSend = machine.getMixer().getReverbSend();
-        machine.getMixer().setDelaySend(0f);
-        machine.getMixer().setReverbSend(0f);
-
-        // XXX Figure out how to do this on a thread
-        // export wav
-        rackNode.getSequencer().exportSong(ExportLoopMode.Song, ExportType.Wav, 100,
-                location.getAbsolutePath());
+    public PatternExportJob exportWav(String name, PatternNode pattern) throws IOException {
+        PatternExportJob job = queueWav(name, Collections.singletonList(pattern));
+        wavJobs.add(job);
+        // the job could be done before it was added
+        if (job.isDone())
+            onExportQueueEvent(new ExportQueueEvent(ExportQueueEventKind.Complete, job));
+        return job;
+    }
 
-        try {
-            Thread.sleep(3000);
-        } catch (InterruptedException e) {
+    /**
+     * Queues a job that exports patterns as .wav files in the project's export
+     * directory, one file per pattern.
+     * <p>
+     * The song sequencer and the mixer sends are restored when the job is
+     * done.
+     * 
+     * @param name The name used in the file names.
+     * @param patterns The patterns to export.
+     * @return The queued job.
+     * @throws IOException The export directory could not be created.
+     */
+    public PatternExportJob queueWav(String name, Collection<PatternNode> patterns)
+            throws IOException {
+        File directory = getProjectModel().getProjectAPI().getProject().getResource("export");
+        PatternExportJob job = new PatternExportJob(getRackInstance(), name, ExportType.Wav,
+                EXPORT_QUALITY);
+        Set<String> names = new HashSet<String>();
+        for (PatternNode pattern : patterns) {
+            String uniqueName = name;
+            if (patterns.size() > 1) {
+                // patterns of different machines share names (A01)
+                Machine machine = pattern.getMachineNode();
+                uniqueName = name + "-" + machine.getName() + "-" + pattern.getName();
+                if (!names.add(uniqueName))
+                    uniqueName = name + "-" + machine.getName() + machine.getIndex() + "-"
+                            + pattern.getName();
+            }
+            job.add(pattern, new File(directory, createName(uniqueName)));
         }
+        return getExportQueue().submit(job);
+    }
 
-        machine.getMixer().setDelaySend(delaySend);
-        machine.getMixer().setReverbSend(reverbSend);
-
-        // clear patterns
-        rackNode.getSequencer().clearPatterns();
-        track.clearEntries();
-
-        // check file exists
-        if (!absoluteLocation.exists())
-            throw new IOException("Wav was not exported: " + location);
+    /**
+     * Queues a job that exports one file per machine of the song in the
+     * project's export directory.
+     * 
+     * @param name The name used in the file names.
+     * @param type The media type of the stems.
+     * @param mode Whether the machine stems keep their sends.
+     * @param includeReturns Whether delay and reverb return stems are
+     *            exported in {@link StemMode#Dry}.
+     * @return The queued job.
+     * @throws IOException The export directory could not be created.
+     * @see StemExportJob
+     */
+    public StemExportJob queueStems(String name, ExportType type, StemMode mode,
+            boolean includeReturns) throws IOException {
+        File directory = getProjectModel().getProjectAPI().getProject().getResource("export");
+        StemExportJob job = new StemExportJob(getRackInstance(), name, type, EXPORT_QUALITY,
+                directory, createName(name));
+        job.setMode(mode);
+        job.setIncludeReturns(includeReturns);
+        return getExportQueue().submit(job);
+    }
 
+    @Subscribe
+    public void onExportQueueEvent(ExportQueueEvent event) {
+        ExportJob job = event.getJob();
+        if (!event.getJob().isDone() || !wavJobs.remove(job))
+            return;
+        if (job.getState() != ExportJob.ExportJobState.Complete)
+            return;
+        final File absoluteLocation = job.getFiles().get(0);
         Gdx.app.postRunnable(new Runnable() {
             @Override
             public void run() {
-                projectModel.getEventBus().post(
+                getProjectModel().getEventBus().post(
                         new ExportAPIEvent(ExportAPIEventKind.ExportWavComplete, absoluteLocation));
             }
         });
-
-        return absoluteLocation;
     }
 
     public static enum ExportAPIEventKind {
@@ -19,10 +19,23 @@
 
 package com.teotigraphix.caustk.gdx.app.controller.view;
 
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.utils.Array;
 import com.teotigraphix.caustk.core.midi.NoteReference;
 
+/**
+ * The {@link Scales} lays out scale notes on a pad grid.
+ * <p>
+ * The scale matrices of a grid size and the note and sequencer matrices of a
+ * scale, root, octave and chromatic state are computed once and memoized in
+ * immutable layouts shared by all instances, a grid redraw only looks them
+ * up. Note colors are served from a table built from the pitch class mask of
+ * the rooted scale.
+ */
 public class Scales {
 
     public Array<ScaleInfo> getScales() {
@@ -30,8 +43,7 @@ public class Scales {
     }
 
     public int getPitch(int row) {
-        int[] sequencerMatrix = getSequencerMatrix();
-        return sequencerMatrix[row];
+        return getLayout().sequencerMatrix[row];
     }
 
     //--------------------------------------------------------------------------
@@ -67,7 +79,82 @@ public class Scales {
     //            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1
     //    };
 
-    private static ScaleInterval[] intervals;
+    /**
+     * The color of the root notes.
+     */
+    public static final Color ROOT_COLOR = new Color(0f, 0.47f, 0.75f, 1f);
+
+    /**
+     * The color of the scale notes.
+     */
+    public static final Color SCALE_COLOR = Color.WHITE;
+
+    /**
+     * The color of notes outside the scale and of empty pads.
+     */
+    public static final Color OFF_COLOR = Color.BLACK;
+
+    private static final ScaleInterval[] intervals = {
+            new ScaleInterval("Major", new int[] {
+                    0, 2, 4, 5, 7, 9, 11
+            }), new ScaleInterval("Minor", new int[] {
+                    0, 2, 3, 5, 7, 8, 10
+            }), new ScaleInterval("Dorian", new int[] {
+                    0, 2, 3, 5, 7, 9, 10
+            }), new ScaleInterval("Mixolydian", new int[] {
+                    0, 2, 4, 5, 7, 9, 10
+            }), new ScaleInterval("Lydian", new int[] {
+                    0, 2, 4, 6, 7, 9, 11
+            }), new ScaleInterval("Phrygian", new int[] {
+                    0, 1, 3, 5, 7, 8, 10
+            }), new ScaleInterval("Locrian", new int[] {
+                    0, 1, 3, 4, 6, 8, 10
+            }), new ScaleInterval("Diminished", new int[] {
+                    0, 1, 3, 4, 6, 7, 9
+            }), new ScaleInterval("Whole-half", new int[] {
+                    0, 2, 3, 5, 6, 8, 9
+            }), new ScaleInterval("Whole Tone", new int[] {
+                    0, 2, 4, 6, 8, 10
+            }), new ScaleInterval("Minor Blues", new int[] {
+                    0, 3, 5, 6, 7, 10
+            }), new ScaleInterval("Minor Pentatonic", new int[] {
+                    0, 3, 5, 7, 10
+            }), new ScaleInterval("Major Pentatonic", new int[] {
+                    0, 2, 4, 7, 9
+            }), new ScaleInterval("Harmonic Minor", new int[] {
+                    0, 2, 3, 5, 7, 8, 11
+            }), new ScaleInterval("Melodic Minor", new int[] {
+                    0, 2, 3, 5, 7, 9, 11
+            }), new ScaleInterval("Super Locrian", new int[] {
+                    0, 1, 3, 4, 6, 8, 10
+            }), new ScaleInterval("Bhairav", new int[] {
+                    0, 1, 4, 5, 7, 8, 11
+            }), new ScaleInterval("Hungarian Minor", new int[] {
+                    0, 2, 3, 6, 7, 8, 11
+            }), new ScaleInterval("Minor Gypsy", new int[] {
+                    0, 1, 4, 5, 7, 8, 10
+            }), new ScaleInterval("Hirojoshi", new int[] {
+                    0, 4, 6, 7, 11
+            }), new ScaleInterval("In-Sen", new int[] {
+                    0, 1, 5, 7, 10
+            }), new ScaleInterval("Iwato", new int[] {
+                    0, 1, 5, 6, 10
+            }), new ScaleInterval("Kumoi", new int[] {
+                    0, 2, 3, 7, 9
+            }), new ScaleInterval("Pelog", new int[] {
+                    0, 1, 3, 7, 8
+            }), new ScaleInterval("Spanish", new int[] {
+                    0, 1, 4, 5, 7, 9, 10
+            })
+    };
+
+    // (numRows, numColumns, shift, orientation) -> scale matrices
+    private static final ConcurrentMap<Key, ScaleInfo[]> scaleCache =
+            new ConcurrentHashMap<Key, ScaleInfo[]>();
+
+    // (scale, root, octave, chromatic, grid) -> note layout
+    private static final ConcurrentMap<Key, NoteLayout> layoutCache =
+            new ConcurrentHashMap<Key, NoteLayout>();
 
     //    private static final int FOURTH_UP = 0;
     //
@@ -123,6 +210,8 @@ public class Scales {
 
     //    private int drumOctave;
 
+    private NoteLayout layout;
+
     //--------------------------------------------------------------------------
     // Public API :: Properties
     //--------------------------------------------------------------------------
@@ -160,10 +249,11 @@ public class Scales {
 
     public void setChromatic(boolean chromatic) {
         this.chromatic = chromatic;
+        layout = null;
     }
 
     public void toggleChromatic() {
-        chromatic = !chromatic;
+        setChromatic(!chromatic);
     }
 
     //----------------------------------
@@ -181,6 +271,7 @@ public class Scales {
      */
     void setRootKey(int rootKey) {
         this.rootKey = rootKey;
+        layout = null;
     }
 
     /**
@@ -191,7 +282,7 @@ public class Scales {
     public void setRootKey(NoteReference rootKey) {
         for (int i = 0; i < BASES.length; i++) {
             if (BASES[i].equals(rootKey.getBaseName())) {
-                this.rootKey = i;
+                setRootKey(i);
             }
         }
     }
@@ -214,6 +305,7 @@ public class Scales {
 
     void setSelectdScale(int scaleIndex) {
         selectedScale = Math.max(0, Math.min(scaleIndex, scales.length - 1));
+        layout = null;
     }
 
     /**
@@ -247,6 +339,7 @@ public class Scales {
 
     void setOctave(int octave) {
         this.octave = Math.max(-3, Math.min(octave, 3));
+        layout = null;
     }
 
     public int getOctave() {
@@ -282,40 +375,47 @@ public class Scales {
     //--------------------------------------------------------------------------
 
     // SequencerView uses
+    /**
+     * Returns the color of a pad, the root, scale or off color.
+     * 
+     * @param noteMap The note or sequencer matrix.
+     * @param note The pad index in the matrix.
+     */
     public Color getSequencerColor(int[] noteMap, int note) {
-        //        int midiNote = noteMap[note];
-        //        if (midiNote == -1)
-        //            return Model.BLACK;
-        //        int n = (midiNote - Scales.OFFSETS[rootKey]) % 12;
-        //        if (n == 0)
-        //            return Model.OCEAN;
-        //        if (isChromatic()) {
-        //            int[] notes = Scales.intervals[selectedScale].notes;
-        //            for (int i = 0; i < notes.length; i++) {
-        //                if (notes[i] == n)
-        //                    return Model.WHITE;
-        //            }
-        //            return Model.BLACK;
-        //        }
-        //        return Model.WHITE;
-        return null;
+        int midiNote = noteMap[note];
+        if (midiNote == -1)
+            return OFF_COLOR;
+        return getLayout().colors[midiNote % 12];
     }
 
-    // SequencerView uses
+    /**
+     * Returns the pitch class mask of the selected scale at the root key, bit
+     * 0 is C.
+     */
+    public int getPitchClassMask() {
+        return getLayout().pitchClassMask;
+    }
 
-    public int[] getSequencerMatrix() {
-        return getSequencerMatrix(numRows);
+    /**
+     * Returns whether the MIDI note is in the selected scale at the root key.
+     * 
+     * @param midiNote The MIDI note.
+     */
+    public boolean isInScale(int midiNote) {
+        return (getLayout().pitchClassMask & (1 << (midiNote % 12))) != 0;
     }
 
-    private int[] getSequencerMatrix(int rows) {
-        return getSequencerMatrix(rows, startNote + (12 * octave));
+    // SequencerView uses
+
+    public int[] getSequencerMatrix() {
+        return getLayout().sequencerMatrix.clone();
     }
 
     /**
      * @param rows The number of row notes eg 8 for Beatbox 47-54.
      * @param midiRoot The midi root value to start at, bottom to top.
      */
-    private int[] getSequencerMatrix(int rows, int midiRoot) {
+    private int[] createSequencerMatrix(int rows, int midiRoot) {
         int[] matrix = getActiveMatrix();
         int[] noteMap = initArray(-1, rows);
         for (int note = 0; note < rows; note++) {
@@ -339,22 +439,7 @@ public class Scales {
     //--------------------------------------------------------------------------
 
     Color getColor(int[] noteMap, int note) {
-        //        int midiNote = noteMap[note];
-        //        if (midiNote == -1)
-        //            return Model.BLACK;
-        //        int n = (midiNote - Scales.OFFSETS[rootKey]) % 12;
-        //        if (n == 0)
-        //            return Model.OCEAN;
-        //        if (isChromatic()) {
-        //            int[] notes = Scales.intervals[selectedScale].notes;
-        //            for (int i = 0; i < notes.length; i++) {
-        //                if (notes[i] == n)
-        //                    return Model.WHITE;
-        //            }
-        //            return Model.BLACK;
-        //        }
-        //        return Model.WHITE;
-        return null;
+        return getSequencerColor(noteMap, note);
     }
 
     int[] getActiveMatrix() {
@@ -362,6 +447,10 @@ public class Scales {
     };
 
     public int[] getNoteMatrix() {
+        return getLayout().noteMatrix.clone();
+    }
+
+    private int[] createNoteMatrix() {
         int[] matrix = getActiveMatrix();
         int[] noteMap = getEmptyMatrix();
         for (int note = startNote; note < endNote; note++) {
@@ -425,60 +514,6 @@ public class Scales {
         shift = 3; // TODO figure out how this works when creating scales
         //        drumOctave = 0;
 
-        intervals = new ScaleInterval[] {
-                new ScaleInterval("Major", new int[] {
-                        0, 2, 4, 5, 7, 9, 11
-                }), new ScaleInterval("Minor", new int[] {
-                        0, 2, 3, 5, 7, 8, 10
-                }), new ScaleInterval("Dorian", new int[] {
-                        0, 2, 3, 5, 7, 9, 10
-                }), new ScaleInterval("Mixolydian", new int[] {
-                        0, 2, 4, 5, 7, 9, 10
-                }), new ScaleInterval("Lydian", new int[] {
-                        0, 2, 4, 6, 7, 9, 11
-                }), new ScaleInterval("Phrygian", new int[] {
-                        0, 1, 3, 5, 7, 8, 10
-                }), new ScaleInterval("Locrian", new int[] {
-                        0, 1, 3, 4, 6, 8, 10
-                }), new ScaleInterval("Diminished", new int[] {
-                        0, 1, 3, 4, 6, 7, 9
-                }), new ScaleInterval("Whole-half", new int[] {
-                        0, 2, 3, 5, 6, 8, 9
-                }), new ScaleInterval("Whole Tone", new int[] {
-                        0, 2, 4, 6, 8, 10
-                }), new ScaleInterval("Minor Blues", new int[] {
-                        0, 3, 5, 6, 7, 10
-                }), new ScaleInterval("Minor Pentatonic", new int[] {
-                        0, 3, 5, 7, 10
-                }), new ScaleInterval("Major Pentatonic", new int[] {
-                        0, 2, 4, 7, 9
-                }), new ScaleInterval("Harmonic Minor", new int[] {
-                        0, 2, 3, 5, 7, 8, 11
-                }), new ScaleInterval("Melodic Minor", new int[] {
-                        0, 2, 3, 5, 7, 9, 11
-                }), new ScaleInterval("Super Locrian", new int[] {
-                        0, 1, 3, 4, 6, 8, 10
-                }), new ScaleInterval("Bhairav", new int[] {
-                        0, 1, 4, 5, 7, 8, 11
-                }), new ScaleInterval("Hungarian Minor", new int[] {
-                        0, 2, 3, 6, 7, 8, 11
-                }), new ScaleInterval("Minor Gypsy", new int[] {
-                        0, 1, 4, 5, 7, 8, 10
-                }), new ScaleInterval("Hirojoshi", new int[] {
-                        0, 4, 6, 7, 11
-                }), new ScaleInterval("In-Sen", new int[] {
-                        0, 1, 5, 7, 10
-                }), new ScaleInterval("Iwato", new int[] {
-                        0, 1, 5, 6, 10
-                }), new ScaleInterval("Kumoi", new int[] {
-                        0, 2, 3, 7, 9
-                }), new ScaleInterval("Pelog", new int[] {
-                        0, 1, 3, 7, 8
-                }), new ScaleInterval("Spanish", new int[] {
-                        0, 1, 4, 5, 7, 9, 10
-                })
-        };
-
         generateMatrices();
     }
 
@@ -600,12 +635,55 @@ public class Scales {
     };
 
     void generateMatrices() {
+        layout = null;
+        Key key = new Key(numRows, numColumns, shift, orientation);
+        scales = scaleCache.get(key);
+        if (scales != null)
+            return;
         scales = new ScaleInfo[Scales.intervals.length];
         for (int i = 0; i < Scales.intervals.length; i++)
             scales[i] = createScale(Scales.intervals[i]);
+        ScaleInfo[] current = scaleCache.putIfAbsent(key, scales);
+        if (current != null)
+            scales = current;
+    }
+
+    private NoteLayout getLayout() {
+        if (layout == null) {
+            Key key = new Key(selectedScale, rootKey, octave, chromatic ? 1 : 0, startNote,
+                    endNote, numRows, numColumns, shift, orientation);
+            layout = layoutCache.get(key);
+            if (layout == null) {
+                layout = createLayout();
+                NoteLayout current = layoutCache.putIfAbsent(key, layout);
+                if (current != null)
+                    layout = current;
+            }
+        }
+        return layout;
+    }
+
+    private NoteLayout createLayout() {
+        int root = Scales.OFFSETS[rootKey];
+        int mask = 0;
+        for (int note : Scales.intervals[selectedScale].notes) {
+            mask |= 1 << ((note + root) % 12);
+        }
+        Color[] colors = new Color[12];
+        for (int pitchClass = 0; pitchClass < 12; pitchClass++) {
+            if (pitchClass == root) {
+                colors[pitchClass] = ROOT_COLOR;
+            } else if (chromatic && (mask & (1 << pitchClass)) == 0) {
+                colors[pitchClass] = OFF_COLOR;
+            } else {
+                colors[pitchClass] = SCALE_COLOR;
+            }
+        }
+        return new NoteLayout(createNoteMatrix(), createSequencerMatrix(numRows, startNote
+                + (12 * octave)), mask, colors);
     }
 
-    public class ScaleInfo {
+    public static class ScaleInfo {
 
         private String name;
 
@@ -625,7 +703,7 @@ public class Scales {
 
     }
 
-    class ScaleInterval {
+    static class ScaleInterval {
         private String name;
 
         private int[] notes;
@@ -636,6 +714,48 @@ public class Scales {
         }
     }
 
+    /*
+     * The memoized matrices of a scale, root, octave, chromatic state and grid,
+     * never modified after creation.
+     */
+    private static final class NoteLayout {
+
+        final int[] noteMatrix;
+
+        final int[] sequencerMatrix;
+
+        final int pitchClassMask;
+
+        // pitch class -> color
+        final Color[] colors;
+
+        NoteLayout(int[] noteMatrix, int[] sequencerMatrix, int pitchClassMask, Color[] colors) {
+            this.noteMatrix = noteMatrix;
+            this.sequencerMatrix = sequencerMatrix;
+            this.pitchClassMask = pitchClassMask;
+            this.colors = colors;
+        }
+    }
+
+    private static final class Key {
+
+        private final int[] values;
+
+        Key(int... values) {
+            this.values = values;
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(values, ((Key)obj).values);
+        }
+    }
+
     private static int[] initArray(int value, int length) {
         int[] result = new int[length];
         for (int i = 0; i < length; i++) {
@@ -22,6 +22,24 @@ public interface ISongFileCollection {
 
     SongFileSource removeSourceDirectory(File sourceDirectory);
 
+    /**
+     * Loads the engine dependent data (bpm, machines, tracks) of a song file,
+     * call when the file is selected; scans only read the file's metadata.
+     * 
+     * @param songFile The selected song file.
+     */
+    void enrich(SongFile songFile);
+
+    /**
+     * Selects or deselects a song file, a selected file is enriched before
+     * {@link SongFileCollectionEventKind#SelectedFilesChange} is posted.
+     * 
+     * @param songFile The song file.
+     * @param selected Whether the file is selected.
+     * @see #enrich(SongFile)
+     */
+    void setSelected(SongFile songFile, boolean selected);
+
     void reset();
 
     public static enum SongFileCollectionEventKind {
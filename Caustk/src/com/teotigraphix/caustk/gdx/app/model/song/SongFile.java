@@ -2,6 +2,8 @@
 package com.teotigraphix.caustk.gdx.app.model.song;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -67,6 +69,12 @@ public class SongFile extends CausticFile {
     @Tag(34)
     private float fbpm;
 
+    @Tag(35)
+    private long lastModified;
+
+    @Tag(36)
+    private boolean enriched;
+
     @Tag(40)
     private Map<Integer, SongFileMachine> machines;
 
@@ -132,6 +140,33 @@ public class SongFile extends CausticFile {
         return measureCount;
     }
 
+    /**
+     * Returns the file's modified time recorded when it was last scanned or
+     * enriched.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Whether the engine dependent data (bpm, machines, tracks, length) has
+     * been loaded.
+     * 
+     * @see #enrich(ICaustkRack)
+     */
+    public boolean isEnriched() {
+        return enriched;
+    }
+
+    /**
+     * Whether the size and modified time recorded at scan still match the
+     * file on disk.
+     */
+    public boolean isCurrent() {
+        File file = getFile();
+        return file.length() == size && file.lastModified() == lastModified;
+    }
+
     SongFile() {
     }
 
@@ -152,11 +187,41 @@ public class SongFile extends CausticFile {
         return result;
     }
 
+    /**
+     * Reads the file size, modified time and <code>DESC</code> metadata only,
+     * does not touch the engine.
+     * 
+     * @param channel The open channel of the file.
+     * @throws IOException
+     */
+    void scan(FileChannel channel) throws IOException {
+        size = channel.size();
+        lastModified = getFile().lastModified();
+        read(channel);
+    }
+
+    /**
+     * Loads the engine dependent data if not already loaded.
+     * <p>
+     * Loading the song into the engine blanks the rack, only call when the
+     * file is selected.
+     * 
+     * @param rack The rack used to load and query the song.
+     */
+    public void enrich(ICaustkRack rack) {
+        if (enriched)
+            return;
+        load(rack);
+    }
+
     void load(ICaustkRack rack) {
         size = FileUtils.sizeOf(getFile());
+        lastModified = getFile().lastModified();
+        machines.clear();
 
         RackMessage.BLANKRACK.send(rack);
         RackMessage.LOAD_SONG.send(rack, getFile().getAbsolutePath());
+        rack.getSamplePool().releaseAll();
         fbpm = OutputPanelMessage.BPM.query(rack);
         bpm = (int)fbpm;
         String songPatterns = SequencerMessage.QUERY_PATTERN_EVENT.queryString(rack);
@@ -196,6 +261,7 @@ public class SongFile extends CausticFile {
             //this.songLength = (appendMeasure * 4f) / fbpm;
         }
         RackMessage.BLANKRACK.send(rack);
+        enriched = true;
     }
 
     public String toTrackPositionString() {
@@ -164,6 +164,21 @@ public class SongFileCollection implements ISongFileCollection {
         return null;
     }
 
+    @Override
+    public void enrich(SongFile songFile) {
+        loader.enrich(songFile);
+    }
+
+    @Override
+    public void setSelected(SongFile songFile, boolean selected) {
+        if (selected)
+            enrich(songFile);
+        songFile.setSelected(selected);
+        getEventBus().post(
+                new SongFileCollectionEvent(SongFileCollectionEventKind.SelectedFilesChange,
+                        songFile.getFile()));
+    }
+
     @Override
     public void reset() {
         //files.clear();
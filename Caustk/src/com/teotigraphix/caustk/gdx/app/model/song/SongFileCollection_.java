@@ -63,11 +63,19 @@ public class SongFileCollection_ implements ISongFileCollection {
     }
 
     public void setSelectedFiles(Array<SongFile> selectedFiles) {
-
+        ArrayList<SongFile> result = new ArrayList<SongFile>(selectedFiles.size);
+        for (SongFile songFile : selectedFiles) {
+            result.add(songFile);
+        }
+        setSelectedFiles(result);
     }
 
     public void setSelectedFiles(ArrayList<SongFile> selectedFiles) {
         this.selectedFiles = selectedFiles;
+        // scans only read the metadata, the engine data loads on selection
+        for (SongFile songFile : selectedFiles) {
+            enrich(songFile);
+        }
         getEventBus().post(
                 new SongFileCollectionEvent(SongFileCollectionEventKind.SelectedFilesChange));
     }
@@ -93,6 +101,21 @@ public class SongFileCollection_ implements ISongFileCollection {
         return CaustkRuntime.getInstance().getRack();
     }
 
+    @Override
+    public void enrich(SongFile songFile) {
+        loader.enrich(songFile);
+    }
+
+    @Override
+    public void setSelected(SongFile songFile, boolean selected) {
+        ArrayList<SongFile> result = new ArrayList<SongFile>(selectedFiles);
+        result.remove(songFile);
+        if (selected)
+            result.add(songFile);
+        songFile.setSelected(selected);
+        setSelectedFiles(result);
+    }
+
     @Override
     public void reset() {
         selectedFiles.clear();
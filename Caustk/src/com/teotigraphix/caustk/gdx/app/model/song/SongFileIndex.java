@@ -0,0 +1,99 @@
+
+package com.teotigraphix.caustk.gdx.app.model.song;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
+import com.teotigraphix.caustk.core.ICaustkSerializer;
+import com.teotigraphix.caustk.core.internal.CaustkRuntime;
+
+/**
+ * The {@link SongFileIndex} persists scanned {@link SongFile}s keyed by
+ * absolute path.
+ * <p>
+ * An entry is only returned while the file's size and modified time match
+ * the values recorded when it was scanned, so a rescan only reads files that
+ * changed.
+ * 
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class SongFileIndex {
+
+    private static final String TAG = "SongFileIndex";
+
+    @Tag(0)
+    private HashMap<String, SongFile> files = new HashMap<String, SongFile>();
+
+    SongFileIndex() {
+    }
+
+    /**
+     * Returns the indexed {@link SongFile} if it is still current, otherwise
+     * <code>null</code>.
+     * 
+     * @param file The .caustic file.
+     */
+    public synchronized SongFile get(File file) {
+        SongFile songFile = files.get(file.getAbsolutePath());
+        if (songFile == null)
+            return null;
+        if (!songFile.isCurrent()) {
+            files.remove(file.getAbsolutePath());
+            return null;
+        }
+        return songFile;
+    }
+
+    public synchronized void put(SongFile songFile) {
+        files.put(songFile.getFile().getAbsolutePath(), songFile);
+    }
+
+    /**
+     * Removes entries whose file no longer exists.
+     */
+    public synchronized void prune() {
+        Collection<String> remove = new ArrayList<String>();
+        for (Map.Entry<String, SongFile> entry : files.entrySet()) {
+            if (!new File(entry.getKey()).exists())
+                remove.add(entry.getKey());
+        }
+        files.keySet().removeAll(remove);
+    }
+
+    public synchronized int size() {
+        return files.size();
+    }
+
+    /**
+     * Loads an index from disk, returns an empty index if the file does not
+     * exist or can not be read.
+     * 
+     * @param serializer The rack's serializer.
+     * @param file The index file.
+     */
+    public static SongFileIndex load(ICaustkSerializer serializer, File file) {
+        if (file.exists()) {
+            try {
+                return serializer.deserialize(file, SongFileIndex.class);
+            } catch (Exception e) {
+                // a stale or corrupt index is rebuilt by the next scan
+                CaustkRuntime.getInstance().getLogger()
+                        .err(TAG, "Could not read song index, rebuilding: " + file, e);
+            }
+        }
+        return new SongFileIndex();
+    }
+
+    public synchronized void save(ICaustkSerializer serializer, File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists())
+            parent.mkdirs();
+        serializer.serialize(file, this);
+    }
+}
@@ -2,10 +2,9 @@
 package com.teotigraphix.caustk.gdx.app.model.song;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.Collection;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
 
 import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
 import com.google.common.eventbus.EventBus;
@@ -13,27 +12,24 @@ import com.teotigraphix.caustk.core.ICaustkRack;
 import com.teotigraphix.caustk.core.internal.CaustkRuntime;
 import com.teotigraphix.caustk.gdx.app.model.song.ISongFileCollection.SongFileCollectionEvent;
 import com.teotigraphix.caustk.gdx.app.model.song.ISongFileCollection.SongFileCollectionEventKind;
+import com.teotigraphix.caustk.gdx.app.model.song.SongFileScanner.OnSongFileScanListener;
 import com.teotigraphix.caustk.utils.core.RuntimeUtils;
 
 public class SongFileLoader {
 
-    @Tag(0)
-    private ISongFileCollection _collection;
+    private static final String TAG = "SongFileLoader";
 
-    private Queue<SongFileQueueItem> exportQueue = new LinkedList<SongFileQueueItem>();
+    private static final String INDEX_FILE = "songs.bin";
 
-    private SongFileQueueItem currentExport;
+    @Tag(0)
+    private ISongFileCollection _collection;
 
-    private SongFileSource currentSource;
+    private SongFileScanner scanner;
 
     private EventBus getEventBus() {
         return CaustkRuntime.getInstance().getApplication().getEventBus();
     }
 
-    public synchronized SongFileQueueItem getCurrentExport() {
-        return currentExport;
-    }
-
     SongFileLoader() {
     }
 
@@ -41,15 +37,9 @@ public class SongFileLoader {
         load(source, rawFiles, false);
     }
 
-    void load(SongFileSource source, Collection<File> rawFiles, boolean clear) {
-        this.currentSource = source;
-
-        if (clear)
-            currentSource.getFiles().clear();
-
-        for (File file : rawFiles) {
-            exportQueue.add(new SongFileQueueItem(currentSource, file));
-        }
+    void load(final SongFileSource source, final Collection<File> rawFiles, boolean clear) {
+        if (clear && source != null)
+            source.getFiles().clear();
 
         getEventBus().post(
                 new SongFileCollectionEvent(SongFileCollectionEventKind.Action_FileLoadStart));
@@ -57,79 +47,87 @@ public class SongFileLoader {
         Thread thread = new Thread(new Runnable() {
             @Override
             public void run() {
-                nextItem();
+                scan(source, rawFiles);
             }
-        });
+        }, "SongFileLoader");
         thread.start();
+    }
 
+    /**
+     * Loads the engine dependent data of a selected file and records it in the
+     * index.
+     * 
+     * @param songFile The selected song file.
+     */
+    void enrich(SongFile songFile) {
+        if (songFile.isEnriched())
+            return;
+        songFile.enrich(getRack());
+        getScanner().getIndex().put(songFile);
+        saveIndex();
     }
 
-    private void nextItem() {
-        if (exportQueue.isEmpty()) {
-            currentExport = null;
-            exportQueue.clear();
-            System.out.println("Action_FileLoadComplete");
-            RuntimeUtils.postRunnable(new Runnable() {
+    private void scan(final SongFileSource source, Collection<File> rawFiles) {
+        List<SongFile> songFiles = null;
+        try {
+            songFiles = getScanner().scan(rawFiles, new OnSongFileScanListener() {
                 @Override
-                public void run() {
-                    getEventBus()
-                            .post(new SongFileCollectionEvent(
-                                    SongFileCollectionEventKind.UI_FilesChange));
-                    getEventBus().post(
-                            new SongFileCollectionEvent(
-                                    SongFileCollectionEventKind.Action_SourceLoadComplete,
-                                    currentSource));
-                    currentSource = null;
+                public void onScan(SongFile songFile) {
+                    fire(SongFileCollectionEventKind.Action_FileLoadUpdate, songFile.getFile());
                 }
             });
-        } else {
-            currentExport = exportQueue.remove();
-            setCurrentExport(currentExport);
-            currentExport.load();
-
-            nextItem();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-    }
 
-    private void fire(SongFileCollectionEventKind kind, File file) {
-        getEventBus().post(new SongFileCollectionEvent(kind, file));
-    }
+        if (source != null && songFiles != null)
+            source.getFiles().addAll(songFiles);
+
+        saveIndex();
 
-    private void setCurrentExport(SongFileQueueItem currentExport) {
-        this.currentExport = currentExport;
-        final File file = currentExport.file;
         RuntimeUtils.postRunnable(new Runnable() {
             @Override
             public void run() {
-                fire(SongFileCollectionEventKind.Action_FileLoadUpdate, file);
+                getEventBus().post(
+                        new SongFileCollectionEvent(SongFileCollectionEventKind.UI_FilesChange));
+                getEventBus().post(
+                        new SongFileCollectionEvent(
+                                SongFileCollectionEventKind.Action_SourceLoadComplete, source));
             }
         });
     }
 
-    class SongFileQueueItem {
-
-        private File file;
-
-        private SongFileSource root;
+    private void fire(final SongFileCollectionEventKind kind, final File file) {
+        RuntimeUtils.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+                getEventBus().post(new SongFileCollectionEvent(kind, file));
+            }
+        });
+    }
 
-        SongFileQueueItem(SongFileSource root, File file) {
-            this.root = root;
-            this.file = file;
+    private synchronized SongFileScanner getScanner() {
+        if (scanner == null) {
+            SongFileIndex index = SongFileIndex.load(getRack().getSerializer(), getIndexFile());
+            index.prune();
+            scanner = new SongFileScanner(index);
         }
+        return scanner;
+    }
 
-        void load() {
-            SongFile songFile = SongFile.create(file);
-            songFile.load(getRack());
-            root.getFiles().add(songFile);
-            try {
-                songFile.read();
-            } catch (FileNotFoundException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }
+    private synchronized void saveIndex() {
+        try {
+            getScanner().getIndex().save(getRack().getSerializer(), getIndexFile());
+        } catch (IOException e) {
+            CaustkRuntime.getInstance().getLogger()
+                    .err(TAG, "Could not save song index: " + getIndexFile(), e);
         }
     }
 
+    private static File getIndexFile() {
+        return new File(RuntimeUtils.getApplicationIndexDirectory(), INDEX_FILE);
+    }
+
     ICaustkRack getRack() {
         return CaustkRuntime.getInstance().getRack();
     }
@@ -0,0 +1,140 @@
+
+package com.teotigraphix.caustk.gdx.app.model.song;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.teotigraphix.caustk.core.internal.CaustkRuntime;
+
+/**
+ * The {@link SongFileScanner} reads the <code>DESC</code> footer of .caustic
+ * files in parallel on a bounded worker pool.
+ * <p>
+ * Files still current in the {@link SongFileIndex} are not opened at all.
+ * Nothing here touches the engine, see {@link SongFile#enrich}.
+ * 
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class SongFileScanner {
+
+    private static final String TAG = "SongFileScanner";
+
+    private static final int MAX_WORKERS = 4;
+
+    private final SongFileIndex index;
+
+    private final ExecutorService executor;
+
+    public SongFileIndex getIndex() {
+        return index;
+    }
+
+    public SongFileScanner(SongFileIndex index) {
+        this.index = index;
+        int workers = Math.max(1,
+                Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()));
+        executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "SongFileScanner-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Scans the files and returns their {@link SongFile}s in the same order,
+     * blocks until all files are scanned.
+     * <p>
+     * Files that fail to read are logged and left out of the result.
+     * 
+     * @param files The .caustic files.
+     * @param listener Notified from worker threads as each file completes, may
+     *            be <code>null</code>.
+     * @throws InterruptedException
+     */
+    public List<SongFile> scan(Collection<File> files, final OnSongFileScanListener listener)
+            throws InterruptedException {
+        final List<File> sources = new ArrayList<File>(files);
+        final int size = sources.size();
+        final SongFile[] result = new SongFile[size];
+
+        List<Future<SongFile>> futures = new ArrayList<Future<SongFile>>(size);
+        for (int i = 0; i < size; i++) {
+            final File file = sources.get(i);
+            result[i] = index.get(file);
+            if (result[i] != null) {
+                if (listener != null)
+                    listener.onScan(result[i]);
+                futures.add(null);
+                continue;
+            }
+            futures.add(executor.submit(new Callable<SongFile>() {
+                @Override
+                public SongFile call() throws Exception {
+                    SongFile songFile = scan(file);
+                    index.put(songFile);
+                    if (listener != null)
+                        listener.onScan(songFile);
+                    return songFile;
+                }
+            }));
+        }
+
+        for (int i = 0; i < size; i++) {
+            Future<SongFile> future = futures.get(i);
+            if (future == null)
+                continue;
+            try {
+                result[i] = future.get();
+            } catch (ExecutionException e) {
+                CaustkRuntime.getInstance().getLogger()
+                        .err(TAG, "Could not scan " + sources.get(i), e.getCause());
+            }
+        }
+
+        List<SongFile> songFiles = new ArrayList<SongFile>(size);
+        for (SongFile songFile : result) {
+            if (songFile != null)
+                songFiles.add(songFile);
+        }
+        return songFiles;
+    }
+
+    /**
+     * Stops the worker pool.
+     */
+    public void dispose() {
+        executor.shutdownNow();
+    }
+
+    private static SongFile scan(File file) throws IOException {
+        SongFile songFile = SongFile.create(file);
+        FileInputStream stream = new FileInputStream(file);
+        try {
+            songFile.scan(stream.getChannel());
+        } finally {
+            stream.close();
+        }
+        return songFile;
+    }
+
+    public interface OnSongFileScanListener {
+        void onScan(SongFile songFile);
+    }
+}
@@ -58,6 +58,11 @@ public interface IScene {
      */
     Group getRoot();
 
+    /**
+     * Returns the scheduler running deferred view refreshes each frame.
+     */
+    UpdateScheduler getUpdateScheduler();
+
     /**
      * Returns whether this screen has been initialized.
      * <p>
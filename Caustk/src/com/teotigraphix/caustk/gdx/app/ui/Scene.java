@@ -67,6 +67,8 @@ public abstract class Scene implements IScene {
 
     private ShapeRenderer debugRenderer;
 
+    private final UpdateScheduler updateScheduler = new UpdateScheduler();
+
     //--------------------------------------------------------------------------
     // Public API :: Properties
     //--------------------------------------------------------------------------
@@ -119,6 +121,15 @@ public abstract class Scene implements IScene {
         return root;
     }
 
+    //----------------------------------
+    // updateScheduler
+    //----------------------------------
+
+    @Override
+    public UpdateScheduler getUpdateScheduler() {
+        return updateScheduler;
+    }
+
     //----------------------------------
     // initialized
     //----------------------------------
@@ -202,6 +213,9 @@ public abstract class Scene implements IScene {
             behavior.onUpdate();
         }
 
+        // deferred view refreshes within the frame budget
+        updateScheduler.update();
+
         stage.act(delta);
 
         stage.draw();
@@ -282,6 +296,7 @@ public abstract class Scene implements IScene {
         }
 
         behaviors.clear();
+        updateScheduler.clear();
 
         if (skin != null)
             skin.dispose();
@@ -0,0 +1,338 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.gdx.app.ui;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import com.badlogic.gdx.scenes.scene2d.Actor;
+
+/**
+ * The {@link UpdateScheduler} runs deferred view refreshes under a per frame
+ * time budget.
+ * <p>
+ * Views schedule an update instead of refreshing from an event callback, an
+ * update scheduled again before it ran is coalesced and keeps its place.
+ * {@link #update()} is called once per frame by the {@link Scene}, it runs the
+ * updates of views on the stage first and the updates of hidden views after,
+ * until the budget is spent. The remaining updates are carried to the next
+ * frame, at least one update runs each frame.
+ * <p>
+ * The frame and update times are kept to verify loads do not hitch, a frame
+ * longer than the hitch threshold is counted as a hitch.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class UpdateScheduler {
+
+    /**
+     * The default time in milliseconds updates may take per frame.
+     */
+    public static final float DEFAULT_BUDGET = 4f;
+
+    /**
+     * The default frame time in milliseconds counted as a hitch, two frames at
+     * 60 fps.
+     */
+    public static final float DEFAULT_HITCH_THRESHOLD = 33.4f;
+
+    private static final float NANOS_PER_MILLI = 1000000f;
+
+    // update -> view, the view is null for updates without a view
+    private final LinkedHashMap<Runnable, Actor> pending = new LinkedHashMap<Runnable, Actor>();
+
+    private float budget = DEFAULT_BUDGET;
+
+    private float hitchThreshold = DEFAULT_HITCH_THRESHOLD;
+
+    private long lastFrameStart;
+
+    private float frameTime;
+
+    private float maxFrameTime;
+
+    private float updateTime;
+
+    private float maxUpdateTime;
+
+    private int numFrames;
+
+    private int numHitches;
+
+    private int numUpdates;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    //----------------------------------
+    // budget
+    //----------------------------------
+
+    public float getBudget() {
+        return budget;
+    }
+
+    /**
+     * Sets the time updates may take per frame.
+     *
+     * @param budget The budget in milliseconds.
+     */
+    public void setBudget(float budget) {
+        this.budget = budget;
+    }
+
+    //----------------------------------
+    // hitchThreshold
+    //----------------------------------
+
+    public float getHitchThreshold() {
+        return hitchThreshold;
+    }
+
+    /**
+     * Sets the frame time counted as a hitch.
+     *
+     * @param hitchThreshold The threshold in milliseconds.
+     */
+    public void setHitchThreshold(float hitchThreshold) {
+        this.hitchThreshold = hitchThreshold;
+    }
+
+    //----------------------------------
+    // metrics
+    //----------------------------------
+
+    /**
+     * Returns the number of scheduled updates that did not run yet.
+     */
+    public synchronized int getNumPending() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the time in milliseconds between the last two frames.
+     */
+    public float getFrameTime() {
+        return frameTime;
+    }
+
+    /**
+     * Returns the longest frame time in milliseconds since the metrics were
+     * reset.
+     */
+    public float getMaxFrameTime() {
+        return maxFrameTime;
+    }
+
+    /**
+     * Returns the time in milliseconds the updates of the last frame took.
+     */
+    public float getUpdateTime() {
+        return updateTime;
+    }
+
+    /**
+     * Returns the longest update time of a frame in milliseconds since the
+     * metrics were reset.
+     */
+    public float getMaxUpdateTime() {
+        return maxUpdateTime;
+    }
+
+    /**
+     * Returns the number of frames since the metrics were reset.
+     */
+    public int getNumFrames() {
+        return numFrames;
+    }
+
+    /**
+     * Returns the number of frames longer than the hitch threshold since the
+     * metrics were reset.
+     */
+    public int getNumHitches() {
+        return numHitches;
+    }
+
+    /**
+     * Returns the number of updates run since the metrics were reset.
+     */
+    public int getNumUpdates() {
+        return numUpdates;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates a scheduler with the default budget.
+     */
+    public UpdateScheduler() {
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Schedules an update of a view.
+     * <p>
+     * Keep one {@link Runnable} per kind of refresh, the update reads the
+     * view's state when it runs.
+     *
+     * @param view The view refreshed, decides the priority, may be
+     *            <code>null</code>.
+     * @param update The refresh.
+     */
+    public synchronized void schedule(Actor view, Runnable update) {
+        if (!pending.containsKey(update))
+            pending.put(update, view);
+    }
+
+    /**
+     * Removes a scheduled update.
+     *
+     * @param update The refresh.
+     * @return Whether the update was pending.
+     */
+    public synchronized boolean cancel(Runnable update) {
+        if (!pending.containsKey(update))
+            return false;
+        pending.remove(update);
+        return true;
+    }
+
+    /**
+     * Returns whether the update is scheduled.
+     *
+     * @param update The refresh.
+     */
+    public synchronized boolean isPending(Runnable update) {
+        return pending.containsKey(update);
+    }
+
+    /**
+     * Runs the scheduled updates within the budget, called once per frame.
+     */
+    public void update() {
+        final long start = System.nanoTime();
+        if (lastFrameStart != 0) {
+            frameTime = (start - lastFrameStart) / NANOS_PER_MILLI;
+            maxFrameTime = Math.max(maxFrameTime, frameTime);
+            numFrames++;
+            if (frameTime > hitchThreshold)
+                numHitches++;
+        }
+        lastFrameStart = start;
+
+        final long deadline = start + (long)(budget * NANOS_PER_MILLI);
+        boolean showing = true;
+        while (true) {
+            Runnable update = next(showing);
+            if (update == null) {
+                if (!showing)
+                    break;
+                showing = false;
+                continue;
+            }
+            update.run();
+            numUpdates++;
+            if (System.nanoTime() >= deadline)
+                break;
+        }
+
+        updateTime = (System.nanoTime() - start) / NANOS_PER_MILLI;
+        maxUpdateTime = Math.max(maxUpdateTime, updateTime);
+    }
+
+    /**
+     * Runs all scheduled updates regardless of the budget.
+     */
+    public void flush() {
+        Runnable update;
+        while ((update = next(false)) != null) {
+            update.run();
+            numUpdates++;
+        }
+    }
+
+    /**
+     * Removes all scheduled updates without running them.
+     */
+    public synchronized void clear() {
+        pending.clear();
+    }
+
+    /**
+     * Resets the frame metrics, the next frame is not timed.
+     */
+    public void resetMetrics() {
+        lastFrameStart = 0;
+        frameTime = 0f;
+        maxFrameTime = 0f;
+        updateTime = 0f;
+        maxUpdateTime = 0f;
+        numFrames = 0;
+        numHitches = 0;
+        numUpdates = 0;
+    }
+
+    /**
+     * Returns whether the actor is on a stage and it and all its parents are
+     * visible.
+     *
+     * @param actor The actor.
+     */
+    public static boolean isShowing(Actor actor) {
+        if (actor.getStage() == null)
+            return false;
+        while (actor != null) {
+            if (!actor.isVisible())
+                return false;
+            actor = actor.getParent();
+        }
+        return true;
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    /*
+     * Removes and returns the oldest update, of a showing view when
+     * showingOnly. Updates without a view count as showing.
+     */
+    private synchronized Runnable next(boolean showingOnly) {
+        final Iterator<Entry<Runnable, Actor>> i = pending.entrySet().iterator();
+        while (i.hasNext()) {
+            final Entry<Runnable, Actor> entry = i.next();
+            final Actor view = entry.getValue();
+            if (!showingOnly || view == null || isShowing(view)) {
+                i.remove();
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+}
@@ -21,7 +21,9 @@ package com.teotigraphix.caustk.gdx.scene2d.ui;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
 
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Event;
@@ -32,14 +34,24 @@ import com.badlogic.gdx.scenes.scene2d.utils.ActorGestureListener;
 import com.badlogic.gdx.scenes.scene2d.utils.Align;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
 import com.badlogic.gdx.utils.Pools;
 import com.teotigraphix.caustk.gdx.scene2d.ui.AdvancedListListener.AdvancedListEvent;
 import com.teotigraphix.caustk.gdx.scene2d.ui.AdvancedListListener.AdvancedListEventKind;
 import com.teotigraphix.caustk.gdx.scene2d.ui.ListRowRenderer.ListRowRendererStyle;
-import com.teotigraphix.caustk.gdx.scene2d.ui.ScrollList.LabelRow;
 
 // http://www.badlogicgames.com/forum/viewtopic.php?f=11&t=11108&p=50062&hilit=list#p50062
 
+/**
+ * A vertical list of {@link ListRowRenderer} rows.
+ * <p>
+ * By default one renderer is created per item. A virtualized list only
+ * materializes the rows intersecting the culling area set by a parent
+ * {@link com.badlogic.gdx.scenes.scene2d.ui.ScrollPane}, renderers leaving the
+ * viewport are pooled and rebound to the items scrolled in. Row heights are
+ * measured when a row is first shown and cached for the preferred height,
+ * rows not shown yet are estimated with the height of the first row.
+ */
 public class AdvancedList<T extends ListRowRenderer> extends Table {
 
     //--------------------------------------------------------------------------
@@ -56,6 +68,25 @@ public class AdvancedList<T extends ListRowRenderer> extends Table {
 
     private Array<T> renderers = new Array<T>();
 
+    private Constructor<T> constructor;
+
+    private boolean virtualized;
+
+    private Pool<T> rendererPool;
+
+    // item index of renderers.get(0), always 0 when not virtualized
+    private int firstIndex;
+
+    private float[] heights;
+
+    private float[] offsets;
+
+    private boolean offsetsInvalid = true;
+
+    private float estimatedHeight = -1f;
+
+    private Rectangle cullingArea;
+
     private int selectedIndex = -1;
 
     private boolean selectable = true;
@@ -88,13 +119,44 @@ public class AdvancedList<T extends ListRowRenderer> extends Table {
 
     public void setItems(Object[] items) {
         this.items = items;
-        renderers.clear();
+        if (virtualized) {
+            releaseRenderers();
+        } else {
+            renderers.clear();
+        }
         selectedIndex = -1;
+        overIndex = -1;
         clearChildren();
+        resetHeights();
         createChildren(skin);
         invalidateHierarchy();
     }
 
+    //----------------------------------
+    // virtualized
+    //----------------------------------
+
+    public boolean isVirtualized() {
+        return virtualized;
+    }
+
+    /**
+     * Sets whether only the rows in the viewport are materialized.
+     * <p>
+     * Renderers of a virtualized list are rebound with
+     * {@link ListRowRenderer#bind(Object)} and must not build children that
+     * depend on the first item they were created for.
+     *
+     * @param virtualized Whether the list is virtualized.
+     */
+    public void setVirtualized(boolean virtualized) {
+        if (virtualized == this.virtualized)
+            return;
+        this.virtualized = virtualized;
+        if (items != null)
+            setItems(items);
+    }
+
     //----------------------------------
     // type
     //----------------------------------
@@ -143,8 +205,8 @@ public class AdvancedList<T extends ListRowRenderer> extends Table {
         changeEvent.setKind(AdvancedListEventKind.Change);
 
         Object selection = null;
-        if (getSelection() != null) {
-            selection = getSelection().getUserObject();
+        if (selectedIndex >= 0 && selectedIndex < items.length) {
+            selection = items[selectedIndex];
         }
 
         changeEvent.setSelectedIndex(selectedIndex, selection);
@@ -189,46 +251,63 @@ public class AdvancedList<T extends ListRowRenderer> extends Table {
 
     /**
      * @return The ListRow of the currently selected item, or null if the list
-     *         is empty or nothing is selected.
+     *         is empty, nothing is selected or the selected row of a
+     *         virtualized list is not in the viewport.
      */
     public T getSelection() {
-        if (renderers.size == 0 || selectedIndex == -1)
-            return null;
+        return getRenderer(selectedIndex);
+    }
 
-        return renderers.get(selectedIndex);
+    /**
+     * Returns the renderer showing the item, <code>null</code> when the row is
+     * not materialized.
+     *
+     * @param index The item index.
+     */
+    public T getRenderer(int index) {
+        int i = index - firstIndex;
+        if (index == -1 || i < 0 || i >= renderers.size)
+            return null;
+        return renderers.get(i);
     }
 
-    @SuppressWarnings("unchecked")
     void createChildren(Skin skin) {
+        // virtualized rows are materialized in layout()
+        if (virtualized)
+            return;
         for (Object item : items) {
-            String text = item.toString();
-            try {
-                Constructor<T> constructor = type.getConstructor(Skin.class);
-                ListRowRenderer instance = constructor.newInstance(skin);
-                instance.setStyle(rendererStyle);
-                instance.setText(text);
-                instance.setUserObject(item);
-                instance.createChildren();
-                addRenderItem((T)instance);
-            } catch (InstantiationException e) {
-                e.printStackTrace();
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
-            } catch (NoSuchMethodException e) {
-                e.printStackTrace();
-            } catch (IllegalArgumentException e) {
-                e.printStackTrace();
-            } catch (InvocationTargetException e) {
-                e.printStackTrace();
-            }
+            T instance = newRenderer(item);
+            if (instance != null)
+                addRenderItem(instance);
         }
     }
 
     public float getItemHeight() {
+        if (virtualized)
+            return getEstimatedHeight();
         return renderers.get(0).getHeight();
     }
 
+    /**
+     * Returns the index of the item at the local y coordinate, clamped to the
+     * items.
+     *
+     * @param y The y coordinate in the list's coordinate system.
+     */
+    public int getIndexAt(float y) {
+        if (!virtualized)
+            return Math.max(0, Math.min(items.length - 1, (int)((getHeight() - y) / getItemHeight())));
+        return indexAtOffset(getHeight() - y);
+    }
+
     void addRenderItem(final T item) {
+        addRendererListeners(item);
+        renderers.add(item);
+        add(item);
+        row();
+    }
+
+    private void addRendererListeners(final T item) {
 
         item.addListener(new ActorGestureListener() {
             @SuppressWarnings("unchecked")
@@ -237,7 +316,7 @@ public class AdvancedList<T extends ListRowRenderer> extends Table {
                 T listenerActor = (T)event.getListenerActor(); // renderer item
                 if (selectable && !mouseDownChange) {
                     if (count == 1) {
-                        fireChange(renderers.indexOf(listenerActor, false));
+                        fireChange(indexOf(listenerActor));
                     } else if (count == 2) {
                         AdvancedListEvent e = Pools.obtain(AdvancedListEvent.class);
                         e.setKind(AdvancedListEventKind.DoubleTap);
@@ -263,7 +342,7 @@ public class AdvancedList<T extends ListRowRenderer> extends Table {
             public boolean touchDown(InputEvent event, float x, float y, int pointer, int button) {
                 T listenerActor = (T)event.getListenerActor(); // renderer item
                 if (selectable && mouseDownChange) {
-                    fireChange(renderers.indexOf(listenerActor, false));
+                    fireChange(indexOf(listenerActor));
                 }
                 if (selectable)
                     listenerActor.setDown(true);
@@ -285,10 +364,6 @@ public class AdvancedList<T extends ListRowRenderer> extends Table {
                     setOverIndex(-1);
             }
         });
-
-        renderers.add(item);
-        add(item);
-        row();
     }
 
     private int overIndex = -1;
@@ -319,9 +394,7 @@ public class AdvancedList<T extends ListRowRenderer> extends Table {
 
     void touchMove(float y) {
         int oldIndex = overIndex;
-        int newOverIndex = (int)((getHeight() - y) / getItemHeight());
-        newOverIndex = Math.max(0, newOverIndex);
-        newOverIndex = Math.min(getItems().length - 1, newOverIndex);
+        int newOverIndex = getIndexAt(y);
         if (oldIndex != newOverIndex) {
             setOverIndex(newOverIndex);
         }
@@ -338,6 +411,17 @@ public class AdvancedList<T extends ListRowRenderer> extends Table {
      * Remove the selected row
      */
     public void removeSelected() {
+        if (virtualized) {
+            if (selectedIndex < 0 || selectedIndex >= items.length)
+                return;
+            Object[] result = new Object[items.length - 1];
+            System.arraycopy(items, 0, result, 0, selectedIndex);
+            System.arraycopy(items, selectedIndex + 1, result, selectedIndex, result.length
+                    - selectedIndex);
+            setItems(result);
+            return;
+        }
+
         if (selectedIndex < 0 || selectedIndex >= renderers.size)
             return;
 
@@ -348,17 +432,42 @@ public class AdvancedList<T extends ListRowRenderer> extends Table {
      * Refreshes the item renderers.
      */
     public void refresh() {
-        int index = 0;
-        for (Object item : items) {
-            String text = item.toString();
-            LabelRow instance = (LabelRow)getChildren().get(index);
-            instance.setText(text);
-            index++;
+        for (int i = 0; i < renderers.size; i++) {
+            renderers.get(i).setText(items[firstIndex + i].toString());
+        }
+    }
+
+    @Override
+    public float getPrefHeight() {
+        if (!virtualized)
+            return super.getPrefHeight();
+        if (items == null || items.length == 0)
+            return 0f;
+        validateOffsets();
+        return offsets[items.length];
+    }
+
+    @Override
+    public void setCullingArea(Rectangle cullingArea) {
+        super.setCullingArea(cullingArea);
+        this.cullingArea = cullingArea;
+        // the scroll pane sets the area each frame, rebind only when scrolled
+        if (virtualized && cullingArea != null) {
+            float top = getHeight() - cullingArea.y - cullingArea.height;
+            float bottom = getHeight() - cullingArea.y;
+            if (indexAtOffset(top) != firstIndex
+                    || indexAtOffset(bottom) != firstIndex + renderers.size - 1)
+                layoutRows();
         }
     }
 
     @Override
     public void layout() {
+        if (virtualized) {
+            layoutRows();
+            return;
+        }
+
         super.layout();
 
         if (renderers.size != 0) {
@@ -378,4 +487,185 @@ public class AdvancedList<T extends ListRowRenderer> extends Table {
     private void fireChange(int newSelectedIndex) {
         setSelectedIndex(newSelectedIndex);
     }
+
+    private int indexOf(T renderer) {
+        return firstIndex + renderers.indexOf(renderer, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newRenderer(Object item) {
+        try {
+            if (constructor == null)
+                constructor = type.getConstructor(Skin.class);
+            ListRowRenderer instance = constructor.newInstance(skin);
+            instance.setStyle(rendererStyle);
+            instance.setText(item.toString());
+            instance.setUserObject(item);
+            instance.createChildren();
+            return (T)instance;
+        } catch (InstantiationException e) {
+            e.printStackTrace();
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        } catch (NoSuchMethodException e) {
+            e.printStackTrace();
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        } catch (InvocationTargetException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Virtualized Rows
+    //--------------------------------------------------------------------------
+
+    private T obtainRenderer(Object item) {
+        if (rendererPool == null) {
+            rendererPool = new Pool<T>() {
+                @Override
+                protected T newObject() {
+                    T renderer = newRenderer(items[0]);
+                    addRendererListeners(renderer);
+                    return renderer;
+                }
+            };
+        }
+        T renderer = rendererPool.obtain();
+        renderer.bind(item);
+        return renderer;
+    }
+
+    private void freeRenderer(T renderer) {
+        renderer.remove();
+        renderer.setDown(false);
+        renderer.setOver(false);
+        rendererPool.free(renderer);
+    }
+
+    private void releaseRenderers() {
+        for (T renderer : renderers) {
+            freeRenderer(renderer);
+        }
+        renderers.clear();
+        firstIndex = 0;
+    }
+
+    private void resetHeights() {
+        heights = null;
+        offsets = null;
+        offsetsInvalid = true;
+        estimatedHeight = -1f;
+    }
+
+    private float getEstimatedHeight() {
+        if (estimatedHeight < 0f) {
+            if (items == null || items.length == 0)
+                return 0f;
+            T renderer = obtainRenderer(items[0]);
+            estimatedHeight = renderer.getPrefHeight();
+            freeRenderer(renderer);
+        }
+        return estimatedHeight;
+    }
+
+    private void validateOffsets() {
+        final int count = items.length;
+        if (heights == null || heights.length != count) {
+            heights = new float[count];
+            offsets = new float[count + 1];
+            Arrays.fill(heights, -1f);
+            offsetsInvalid = true;
+        }
+        if (!offsetsInvalid)
+            return;
+        final float estimate = getEstimatedHeight();
+        float offset = 0f;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = offset;
+            offset += heights[i] < 0f ? estimate : heights[i];
+        }
+        offsets[count] = offset;
+        offsetsInvalid = false;
+    }
+
+    /*
+     * Returns the item index at the distance from the top of the list.
+     */
+    private int indexAtOffset(float offset) {
+        if (items == null || items.length == 0)
+            return -1;
+        validateOffsets();
+        int low = 0;
+        int high = items.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= offset)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return low;
+    }
+
+    private void layoutRows() {
+        if (items == null || items.length == 0) {
+            releaseRenderers();
+            return;
+        }
+
+        final float height = getHeight();
+        int first = 0;
+        int last = items.length - 1;
+        if (cullingArea != null) {
+            first = indexAtOffset(height - cullingArea.y - cullingArea.height);
+            last = indexAtOffset(height - cullingArea.y);
+        }
+
+        // free the rows that left the viewport, keep the ones still shown
+        Array<T> shown = new Array<T>(last - first + 1);
+        for (int i = 0; i < renderers.size; i++) {
+            int index = firstIndex + i;
+            if (index < first || index > last)
+                freeRenderer(renderers.get(i));
+        }
+        for (int index = first; index <= last; index++) {
+            T renderer = getRenderer(index);
+            if (renderer == null) {
+                renderer = obtainRenderer(items[index]);
+                addActor(renderer);
+                measure(index, renderer);
+            }
+            shown.add(renderer);
+        }
+        renderers = shown;
+        firstIndex = first;
+
+        // a measured height moved the rows below it
+        if (offsetsInvalid) {
+            validateOffsets();
+            invalidateHierarchy();
+        }
+
+        final float width = getWidth();
+        for (int i = 0; i < renderers.size; i++) {
+            int index = firstIndex + i;
+            T renderer = renderers.get(i);
+            renderer.setBounds(0f, height - offsets[index + 1], width, offsets[index + 1]
+                    - offsets[index]);
+            renderer.setSelected(index == selectedIndex);
+            renderer.setOver(index == overIndex);
+        }
+    }
+
+    private void measure(int index, T renderer) {
+        float height = renderer.getPrefHeight();
+        if (heights[index] == height)
+            return;
+        float current = heights[index] < 0f ? getEstimatedHeight() : heights[index];
+        heights[index] = height;
+        if (current != height)
+            offsetsInvalid = true;
+    }
 }
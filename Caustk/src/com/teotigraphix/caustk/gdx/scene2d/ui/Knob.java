@@ -36,7 +36,9 @@ import com.teotigraphix.caustk.core.osc.OSCUtils;
  * <p>
  * The knob dispatches a
  * {@link com.badlogic.gdx.scenes.scene2d.utils.ChangeListener.ChangeEvent} when
- * the value changes.
+ * the value changes. A change event is also dispatched when a drag ends, the
+ * end of the drag is the change seen while {@link #isDragging()} is
+ * <code>false</code>.
  * 
  * @author Michael Schmalle
  * @since 1.0
@@ -103,6 +105,18 @@ public class Knob extends UITable {
         return !cancelled;
     }
 
+    //----------------------------------
+    // dragging
+    //----------------------------------
+
+    /**
+     * Returns whether the knob is dragged, <code>false</code> during the
+     * change event fired when the drag ends.
+     */
+    public boolean isDragging() {
+        return draggingPointer != -1;
+    }
+
     //----------------------------------
     // stepSize
     //----------------------------------
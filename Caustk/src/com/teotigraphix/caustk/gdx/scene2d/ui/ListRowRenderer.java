@@ -179,6 +179,26 @@ public abstract class ListRowRenderer extends Table {
         });
     }
 
+    //--------------------------------------------------------------------------
+    // Public Method :: API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Binds the renderer to an item of a virtualized {@link AdvancedList}, the
+     * renderer is reused for other items while the list scrolls.
+     * <p>
+     * Subclasses showing more than the item's text override to update their
+     * children.
+     *
+     * @param item The item shown by the row.
+     */
+    public void bind(Object item) {
+        setUserObject(item);
+        setText(item.toString());
+        setSelected(false);
+        down = false;
+    }
+
     public void createChildren() {
         content = new Table();
 
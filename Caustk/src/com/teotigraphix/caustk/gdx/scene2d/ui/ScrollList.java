@@ -46,7 +46,7 @@ public class ScrollList extends ScrollPane {
         if (list == null) {
             list = new AdvancedList<LabelRow>(items.toArray(), LabelRow.class, skin,
                     skin.get(ListRowRendererStyle.class));
-            list.createChildren(skin);
+            list.setVirtualized(true);
             setWidget(list);
         } else {
             list.setItems(items.toArray());
@@ -125,7 +125,8 @@ public class ScrollList extends ScrollPane {
         //setFlickScroll(false);
         list = new AdvancedList<LabelRow>(new Object[] {}, LabelRow.class, skin,
                 skin.get(ListRowRendererStyle.class));
-        list.createChildren(skin);
+        // only the rows in the viewport are created, libraries can be large
+        list.setVirtualized(true);
         setWidget(list);
     }
 
@@ -25,6 +25,7 @@ import java.util.Map;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.teotigraphix.caustk.gdx.app.ui.UpdateScheduler;
 
 public abstract class UITable extends Table { // IHelpManagerAware, IValueAware
 
@@ -42,6 +43,8 @@ public abstract class UITable extends Table { // IHelpManagerAware, IValueAware
 
     private float originalValue = Float.MIN_VALUE;
 
+    private UpdateScheduler updateScheduler;
+
     //--------------------------------------------------------------------------
     // Public Property :: API
     //--------------------------------------------------------------------------
@@ -127,6 +130,26 @@ public abstract class UITable extends Table { // IHelpManagerAware, IValueAware
         this.skin = skin;
     }
 
+    //----------------------------------
+    // updateScheduler
+    //----------------------------------
+
+    public UpdateScheduler getUpdateScheduler() {
+        return updateScheduler;
+    }
+
+    /**
+     * Sets the scheduler deferring the refreshes of
+     * {@link #scheduleUpdate(Runnable)}, without a scheduler they run
+     * immediately.
+     * 
+     * @param updateScheduler The scene's scheduler.
+     * @see com.teotigraphix.caustk.gdx.app.ui.IScene#getUpdateScheduler()
+     */
+    public void setUpdateScheduler(UpdateScheduler updateScheduler) {
+        this.updateScheduler = updateScheduler;
+    }
+
     //----------------------------------
     // originalValue
     //----------------------------------
@@ -193,6 +216,20 @@ public abstract class UITable extends Table { // IHelpManagerAware, IValueAware
      */
     protected abstract void createChildren();
 
+    /**
+     * Schedules a refresh of this component with the
+     * {@link #getUpdateScheduler()}, or runs it when there is no scheduler.
+     * 
+     * @param update The refresh, keep one instance per kind of refresh.
+     */
+    protected void scheduleUpdate(Runnable update) {
+        if (updateScheduler == null) {
+            update.run();
+        } else {
+            updateScheduler.schedule(this, update);
+        }
+    }
+
     /**
      * Returns the component style based on styleName.
      * 
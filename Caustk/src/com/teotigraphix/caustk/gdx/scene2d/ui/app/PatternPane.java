@@ -61,6 +61,15 @@ public class PatternPane extends UITable {
 
     private boolean disabled;
 
+    private Machine pendingMachine;
+
+    private final Runnable redrawUpdate = new Runnable() {
+        @Override
+        public void run() {
+            redrawNow(pendingMachine);
+        }
+    };
+
     //--------------------------------------------------------------------------
     // Constructor
     //--------------------------------------------------------------------------
@@ -121,7 +130,19 @@ public class PatternPane extends UITable {
     // Public Method :: API
     //--------------------------------------------------------------------------
 
+    /**
+     * Redraws the pane from the machine's sequencer on the next update, calls
+     * before the update runs are coalesced.
+     * 
+     * @param machineNode The selected machine, <code>null</code> disables the
+     *            pane.
+     */
     public void redraw(Machine machineNode) {
+        pendingMachine = machineNode;
+        scheduleUpdate(redrawUpdate);
+    }
+
+    void redrawNow(Machine machineNode) {
         setDisabled(machineNode == null);
 
         if (machineNode == null)
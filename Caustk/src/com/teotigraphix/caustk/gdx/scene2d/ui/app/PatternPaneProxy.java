@@ -0,0 +1,54 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.gdx.scene2d.ui.app;
+
+import com.teotigraphix.caustk.groove.behavior.GrooveBehavior;
+
+/**
+ * @see com.teotigraphix.caustk.gdx.scene2d.ui.app.PatternPane
+ * @see #create()
+ * @see #redraw()
+ */
+public class PatternPaneProxy {
+
+    private GrooveBehavior behavior;
+
+    private PatternPane pane;
+
+    public PatternPane getPane() {
+        return pane;
+    }
+
+    public PatternPaneProxy(GrooveBehavior behavior) {
+        this.behavior = behavior;
+    }
+
+    public PatternPane create() {
+        pane = new PatternPane(behavior.getSkin());
+        if (behavior.getScene() != null)
+            pane.setUpdateScheduler(behavior.getScene().getUpdateScheduler());
+        pane.create("default");
+        return pane;
+    }
+
+    public void redraw() {
+        pane.redraw(behavior.getProjectModel().getMachineAPI().getSelectedMachine());
+    }
+}
@@ -19,6 +19,10 @@
 
 package com.teotigraphix.caustk.gdx.scene2d.ui.app;
 
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.ui.Button;
@@ -44,6 +48,27 @@ public class SoundPane extends UITable {
 
     private boolean updating;
 
+    private final Map<Integer, Machine> pendingRefresh = new HashMap<Integer, Machine>();
+
+    private final BitSet pendingConnected = new BitSet();
+
+    private final Map<Integer, Machine> pendingRedraw = new HashMap<Integer, Machine>();
+
+    private final Runnable update = new Runnable() {
+        @Override
+        public void run() {
+            for (Machine machineNode : pendingRefresh.values()) {
+                refreshNow(machineNode, pendingConnected.get(machineNode.getIndex()));
+            }
+            for (Machine machineNode : pendingRedraw.values()) {
+                redrawNow(machineNode);
+            }
+            pendingRefresh.clear();
+            pendingConnected.clear();
+            pendingRedraw.clear();
+        }
+    };
+
     // --------------------------------------------------------------------------
     // Constructor
     // --------------------------------------------------------------------------
@@ -53,7 +78,20 @@ public class SoundPane extends UITable {
         setStyleClass(PatternPaneStyle.class);
     }
 
+    /**
+     * Refreshes the machine's button on the next update, calls before the
+     * update runs are coalesced per machine.
+     * 
+     * @param machineNode The machine.
+     * @param isConnected Whether the machine exists in the rack.
+     */
     public void refresh(Machine machineNode, boolean isConnected) {
+        pendingRefresh.put(machineNode.getIndex(), machineNode);
+        pendingConnected.set(machineNode.getIndex(), isConnected);
+        scheduleUpdate(update);
+    }
+
+    void refreshNow(Machine machineNode, boolean isConnected) {
         int index = machineNode.getIndex();
         if (isConnected) {
             setMachineName(index, machineNode.getName());
@@ -132,7 +170,17 @@ public class SoundPane extends UITable {
         return null;
     }
 
+    /**
+     * Colors the machine's button on the next update.
+     * 
+     * @param machineNode The machine.
+     */
     public void redraw(Machine machineNode) {
+        pendingRedraw.put(machineNode.getIndex(), machineNode);
+        scheduleUpdate(update);
+    }
+
+    void redrawNow(Machine machineNode) {
         TextButton button = gridGroup.getButtons().get(machineNode.getIndex());
         Color color = StylesDefault.getMachineColor(machineNode.getType());
         if (color != null)
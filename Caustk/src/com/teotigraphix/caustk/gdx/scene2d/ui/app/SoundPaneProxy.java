@@ -0,0 +1,68 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.gdx.scene2d.ui.app;
+
+import com.teotigraphix.caustk.gdx.app.api.MachineAPI;
+import com.teotigraphix.caustk.groove.behavior.GrooveBehavior;
+import com.teotigraphix.caustk.node.machine.Machine;
+
+/**
+ * @see com.teotigraphix.caustk.gdx.scene2d.ui.app.SoundPane
+ * @see #create()
+ * @see #redraw()
+ */
+public class SoundPaneProxy {
+
+    private GrooveBehavior behavior;
+
+    private SoundPane pane;
+
+    public SoundPane getPane() {
+        return pane;
+    }
+
+    public SoundPaneProxy(GrooveBehavior behavior) {
+        this.behavior = behavior;
+    }
+
+    public SoundPane create() {
+        pane = new SoundPane(behavior.getSkin());
+        if (behavior.getScene() != null)
+            pane.setUpdateScheduler(behavior.getScene().getUpdateScheduler());
+        pane.create("default");
+        return pane;
+    }
+
+    public void redraw() {
+        MachineAPI machineAPI = behavior.getProjectModel().getMachineAPI();
+        for (Machine machineNode : machineAPI.machines()) {
+            pane.refresh(machineNode, true);
+            pane.redraw(machineNode);
+        }
+        Machine selected = machineAPI.getSelectedMachine();
+        if (selected != null)
+            pane.select(selected.getIndex());
+    }
+
+    public void refresh(Machine machineNode, boolean isConnected) {
+        pane.refresh(machineNode, isConnected);
+        pane.redraw(machineNode);
+    }
+}
@@ -43,6 +43,11 @@ public class AutoTextKnob extends AutomationTableBase {
         super(skin, automationItem);
     }
 
+    @Override
+    public boolean isDragging() {
+        return knob.isDragging();
+    }
+
     @Override
     protected void createChildren() {
         super.createChildren();
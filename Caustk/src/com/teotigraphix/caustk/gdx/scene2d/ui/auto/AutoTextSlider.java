@@ -45,6 +45,11 @@ public class AutoTextSlider extends AutomationTableBase {
         super(skin, automationItem);
     }
 
+    @Override
+    public boolean isDragging() {
+        return slider.getSlider().isDragging();
+    }
+
     @Override
     protected void createChildren() {
         super.createChildren();
@@ -23,9 +23,11 @@ import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.utils.ActorGestureListener;
 import com.badlogic.gdx.utils.Pools;
+import com.teotigraphix.caustk.core.MessageThrottle;
 import com.teotigraphix.caustk.gdx.scene2d.ui.UITable;
 import com.teotigraphix.caustk.gdx.scene2d.ui.auto.AutomationTableListener.AutomationTableEvent;
 import com.teotigraphix.caustk.gdx.scene2d.ui.auto.AutomationTableListener.AutomationTableEventKind;
+import com.teotigraphix.caustk.utils.gdx.BehaviorUtils;
 
 public abstract class AutomationTableBase extends UITable {
 
@@ -58,6 +60,15 @@ public abstract class AutomationTableBase extends UITable {
         });
     }
 
+    /**
+     * Returns whether the value is being dragged, the control messages sent by
+     * {@link AutomationTableEventKind#ValueChange} listeners during a drag are
+     * throttled. A change while not dragged also fires
+     * {@link AutomationTableEventKind#ValueCommit} and flushes the throttled
+     * control messages.
+     */
+    public abstract boolean isDragging();
+
     protected void resetDefaultValue() {
         setValue(automationItem.getControl().getDefaultValue());
     }
@@ -65,11 +76,29 @@ public abstract class AutomationTableBase extends UITable {
     protected void fireChange() {
         automationItem.setValue(getValue());
 
+        final boolean dragging = isDragging();
+        final MessageThrottle throttle = dragging ? BehaviorUtils.getMessageThrottle() : null;
+        if (throttle != null)
+            throttle.begin();
         AutomationTableEvent event = Pools.obtain(AutomationTableEvent.class);
-        event.setKind(AutomationTableEventKind.ValueChange);
-        event.setAutomationItem(automationItem);
-        fire(event);
-        Pools.free(event);
+        try {
+            event.setKind(AutomationTableEventKind.ValueChange);
+            event.setAutomationItem(automationItem);
+            fire(event);
+        } finally {
+            Pools.free(event);
+            if (throttle != null)
+                throttle.end();
+        }
+
+        if (!dragging) {
+            event = Pools.obtain(AutomationTableEvent.class);
+            event.setKind(AutomationTableEventKind.ValueCommit);
+            event.setAutomationItem(automationItem);
+            fire(event);
+            Pools.free(event);
+            BehaviorUtils.endGesture();
+        }
     }
 
 }
@@ -35,6 +35,9 @@ public abstract class AutomationTableListener implements EventListener {
                 case ValueChange:
                     valueChange(e, e.getAutomationItem());
                     break;
+                case ValueCommit:
+                    valueCommit(e, e.getAutomationItem());
+                    break;
             }
         }
         return false;
@@ -42,8 +45,19 @@ public abstract class AutomationTableListener implements EventListener {
 
     public abstract void valueChange(AutomationTableEvent event, AutomationItem item);
 
+    /**
+     * Called after the last change of a drag or a change without drag, the
+     * throttled control messages are flushed after the call.
+     *
+     * @see com.teotigraphix.caustk.utils.gdx.BehaviorUtils#endGesture()
+     */
+    public void valueCommit(AutomationTableEvent event, AutomationItem item) {
+    }
+
     public enum AutomationTableEventKind {
-        ValueChange
+        ValueChange,
+
+        ValueCommit
     }
 
     public static class AutomationTableEvent extends Event {
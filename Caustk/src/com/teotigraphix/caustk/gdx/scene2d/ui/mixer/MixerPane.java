@@ -28,6 +28,7 @@ import com.badlogic.gdx.scenes.scene2d.ui.ScrollPane;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.teotigraphix.caustk.core.osc.MixerControls;
+import com.teotigraphix.caustk.gdx.app.ui.UpdateScheduler;
 import com.teotigraphix.caustk.gdx.scene2d.ui.UITable;
 import com.teotigraphix.caustk.gdx.scene2d.ui.mixer.MixerPaneItem.MixerPaneItemListener;
 import com.teotigraphix.caustk.node.machine.Machine;
@@ -44,6 +45,13 @@ public class MixerPane extends UITable {
 
     private MixerPaneListener listener;
 
+    private final Runnable masterUpdate = new Runnable() {
+        @Override
+        public void run() {
+            masterItem.redraw(povider.getRack().getRackInstance().getMaster());
+        }
+    };
+
     //--------------------------------------------------------------------------
     // Private Component :: Variables
     //--------------------------------------------------------------------------
@@ -61,6 +69,24 @@ public class MixerPane extends UITable {
         this.povider = povider;
     }
 
+    //--------------------------------------------------------------------------
+    // Public :: Properties
+    //--------------------------------------------------------------------------
+
+    /**
+     * Sets the scheduler of the pane and its channel items, redraws run on the
+     * scheduler's frame budget.
+     */
+    @Override
+    public void setUpdateScheduler(UpdateScheduler updateScheduler) {
+        super.setUpdateScheduler(updateScheduler);
+        for (MixerPaneItem item : mixers) {
+            item.setUpdateScheduler(updateScheduler);
+        }
+        if (masterItem != null)
+            masterItem.setUpdateScheduler(updateScheduler);
+    }
+
     //--------------------------------------------------------------------------
     // Public :: Methods
     //--------------------------------------------------------------------------
@@ -79,6 +105,28 @@ public class MixerPane extends UITable {
         }
     }
 
+    /**
+     * Schedules the redraw of the machine's channel item.
+     * 
+     * @param machineNode The machine.
+     */
+    public void redraw(Machine machineNode) {
+        MixerPaneItem item = mixers.get(machineNode.getIndex());
+        item.setMachineColor(povider.getItemColor(machineNode.getIndex()));
+        item.scheduleRedraw(machineNode);
+        // TODO needs to be moved
+        redrawMaster();
+    }
+
+    /**
+     * Schedules the redraw of the master item.
+     */
+    public void redrawMaster() {
+        if (povider.hasMaster()) {
+            scheduleUpdate(masterUpdate);
+        }
+    }
+
     public void redrawTriggers(List<Integer> machines) {
         for (MixerPaneItem item : mixers) {
             item.setTriggered(false);
@@ -111,6 +159,7 @@ public class MixerPane extends UITable {
 
         for (int i = 0; i < 14; i++) {
             MixerPaneItem item = new MixerPaneItem(getSkin(), i);
+            item.setUpdateScheduler(getUpdateScheduler());
             item.setMixerPaneItemListener(new MixerPaneItemListener() {
                 @Override
                 public void onSend(int index, MixerControls control, float value) {
@@ -124,6 +173,7 @@ public class MixerPane extends UITable {
 
         if (povider.hasMaster()) {
             masterItem = new MixerPaneItem(getSkin(), -1);
+            masterItem.setUpdateScheduler(getUpdateScheduler());
             masterItem.setMixerPaneItemListener(new MixerPaneItemListener() {
                 @Override
                 public void onSend(int index, MixerControls control, float value) {
@@ -144,17 +194,7 @@ public class MixerPane extends UITable {
     public void _refreshSolo(Collection<? extends Machine> machines) {
         for (Machine machineNode : machines) {
             MixerPaneItem item = mixers.get(machineNode.getIndex());
-            item.redrawSolo(machineNode);
-        }
-    }
-
-    private void redraw(Machine machineNode) {
-        MixerPaneItem item = mixers.get(machineNode.getIndex());
-        item.setMachineColor(povider.getItemColor(machineNode.getIndex()));
-        item.redraw(machineNode);
-        // TODO needs to be moved
-        if (povider.hasMaster()) {
-            masterItem.redraw(povider.getRack().getRackInstance().getMaster());
+            item.scheduleRedrawSolo(machineNode);
         }
     }
 
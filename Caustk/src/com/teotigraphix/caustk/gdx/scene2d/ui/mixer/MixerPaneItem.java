@@ -72,6 +72,22 @@ public class MixerPaneItem extends UITable {
 
     private Color machineColor;
 
+    private Machine pendingMachine;
+
+    private final Runnable redrawUpdate = new Runnable() {
+        @Override
+        public void run() {
+            redraw(pendingMachine);
+        }
+    };
+
+    private final Runnable soloUpdate = new Runnable() {
+        @Override
+        public void run() {
+            redrawSolo(pendingMachine);
+        }
+    };
+
     //--------------------------------------------------------------------------
     // Private Component :: Variables
     //--------------------------------------------------------------------------
@@ -219,6 +235,30 @@ public class MixerPaneItem extends UITable {
         redrawSolo(machineNode);
     }
 
+    /**
+     * Schedules a {@link #redraw(Machine)} with the update scheduler, calls
+     * before the update runs are coalesced.
+     * 
+     * @param machineNode The channel's machine.
+     */
+    public void scheduleRedraw(Machine machineNode) {
+        pendingMachine = machineNode;
+        scheduleUpdate(redrawUpdate);
+    }
+
+    /**
+     * Schedules a {@link #redrawSolo(Machine)}, skipped when a full redraw is
+     * pending.
+     * 
+     * @param machineNode The channel's machine.
+     */
+    public void scheduleRedrawSolo(Machine machineNode) {
+        pendingMachine = machineNode;
+        if (getUpdateScheduler() != null && getUpdateScheduler().isPending(redrawUpdate))
+            return;
+        scheduleUpdate(soloUpdate);
+    }
+
     public void redrawSolo(Machine machineNode) {
         MixerChannel channel = machineNode.getMixer();
         updating = true;
@@ -21,13 +21,23 @@ package com.teotigraphix.caustk.gdx.scene2d.ui.mixer;
 
 import java.util.List;
 
+import com.teotigraphix.caustk.core.ICaustkRack;
 import com.teotigraphix.caustk.core.osc.MixerControls;
 import com.teotigraphix.caustk.core.osc.OSCUtils;
 import com.teotigraphix.caustk.gdx.scene2d.ui.mixer.MixerPane.MixerPaneListener;
 import com.teotigraphix.caustk.groove.behavior.GrooveBehavior;
+import com.teotigraphix.caustk.node.INodeEventListener;
+import com.teotigraphix.caustk.node.NodeEventDispatcher;
+import com.teotigraphix.caustk.node.machine.patch.MixerChannel;
+import com.teotigraphix.caustk.node.machine.patch.MixerChannel.MixerChannelChangeEvent;
+import com.teotigraphix.caustk.node.master.MasterChannel.MasterNodeChangeEvent;
 import com.teotigraphix.caustk.utils.gdx.BehaviorUtils;
 
 /**
+ * The {@link MixerPaneProxy} creates the {@link MixerPane} and redraws a
+ * channel when its mixer changes, the changes are received by typed listeners
+ * of the rack's {@link NodeEventDispatcher}.
+ * 
  * @see com.teotigraphix.caustk.gdx.groove.ui.components.mixer.MixerPane
  * @see com.teotigraphix.caustk.gdx.groove.ui.components.mixer.MixerPaneItem
  * @see #create()
@@ -45,6 +55,22 @@ public class MixerPaneProxy {
 
     private MixerPanePropertyProvider provider;
 
+    private final INodeEventListener<MixerChannelChangeEvent> mixerListener =
+            new INodeEventListener<MixerChannelChangeEvent>() {
+        @Override
+        public void onEvent(MixerChannelChangeEvent event) {
+            pane.redraw(((MixerChannel)event.getTarget()).getMachineNode());
+        }
+    };
+
+    private final INodeEventListener<MasterNodeChangeEvent> masterListener =
+            new INodeEventListener<MasterNodeChangeEvent>() {
+        @Override
+        public void onEvent(MasterNodeChangeEvent event) {
+            pane.redrawMaster();
+        }
+    };
+
     public MixerPaneProxy(GrooveBehavior behavior, MixerPanePropertyProvider provider) {
         this.behavior = behavior;
         this.provider = provider;
@@ -52,6 +78,8 @@ public class MixerPaneProxy {
 
     public MixerPane create() {
         pane = new MixerPane(behavior.getSkin(), provider);
+        if (behavior.getScene() != null)
+            pane.setUpdateScheduler(behavior.getScene().getUpdateScheduler());
         pane.setMixerPaneListener(new MixerPaneListener() {
             @Override
             public void onSend(int index, MixerControls control, float value) {
@@ -59,9 +87,21 @@ public class MixerPaneProxy {
             }
         });
         pane.create("default");
+        final NodeEventDispatcher dispatcher = getRack().getEventDispatcher();
+        dispatcher.addListener(MixerChannelChangeEvent.class, mixerListener);
+        dispatcher.addListener(MasterNodeChangeEvent.class, masterListener);
         return pane;
     }
 
+    /**
+     * Removes the mixer listeners of the pane.
+     */
+    public void dispose() {
+        final NodeEventDispatcher dispatcher = getRack().getEventDispatcher();
+        dispatcher.removeListener(mixerListener);
+        dispatcher.removeListener(masterListener);
+    }
+
     public void redraw() {
         pane.redraw(behavior.getProjectModel().getMachineAPI().machines());
         pane.onMachineSelection(behavior.getProjectModel().getMachineAPI().getSelectedMachine());
@@ -72,12 +112,14 @@ public class MixerPaneProxy {
     }
 
     protected void send(int index, MixerControls control, float value) {
-        BehaviorUtils
-                .send(behavior.getProjectModel().getRackAPI().getRack(), index, control, value);
+        BehaviorUtils.send(getRack(), index, control, value);
         if (provider.getDisplay() != null)
             provider.getDisplay().showNotification(
                     OSCUtils.optimizeName(control.getDisplayName(), 8) + " "
                             + OSCUtils.precision(value, 2), 1f, true);
     }
 
+    private ICaustkRack getRack() {
+        return behavior.getProjectModel().getRackAPI().getRack();
+    }
 }
@@ -20,16 +20,19 @@
 package com.teotigraphix.caustk.groove.browser;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import com.teotigraphix.caustk.groove.importer.LibraryProductImporter;
 import com.teotigraphix.caustk.groove.library.GrooveLibrary;
 import com.teotigraphix.caustk.groove.library.LibraryEffect;
 import com.teotigraphix.caustk.groove.library.LibraryGroup;
 import com.teotigraphix.caustk.groove.library.LibraryInstrument;
+import com.teotigraphix.caustk.groove.library.LibraryItemFormat;
 import com.teotigraphix.caustk.groove.library.LibrarySample;
 import com.teotigraphix.caustk.groove.library.LibrarySound;
+import com.teotigraphix.caustk.node.machine.MachineType;
 
-@SuppressWarnings("unused")
 public class BrowserModel {
 
     private GrooveLibrary library;
@@ -66,4 +69,65 @@ public class BrowserModel {
     public Collection<LibrarySample> getAllSamples() {
         return library.getSamples();
     }
+
+    //----------------------------------
+    // bank
+    //----------------------------------
+
+    public BrowserBank getBank() {
+        return bank;
+    }
+
+    public void setBank(BrowserBank bank) {
+        this.bank = bank;
+    }
+
+    //--------------------------------------------------------------------------
+    // Search API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the items matching the query from the importer's
+     * {@link LibraryIndex}, sorted by display name.
+     * 
+     * @param query The text and facet query.
+     */
+    public List<LibraryIndexEntry> find(LibraryQuery query) {
+        return importer.getIndex().find(query);
+    }
+
+    /**
+     * Returns the items of the current bank whose words start with the
+     * words of the text, optionally restricted to formats.
+     * 
+     * @param text Space separated word prefixes.
+     * @param formats The formats to match, none matches all.
+     */
+    public List<LibraryIndexEntry> findByPrefix(String text, LibraryItemFormat... formats) {
+        LibraryQuery query = new LibraryQuery().setText(text).addBank(bank);
+        for (LibraryItemFormat format : formats) {
+            query.addFormat(format);
+        }
+        return find(query);
+    }
+
+    /**
+     * Returns the match count per format for the query, used to label format
+     * facets.
+     * 
+     * @param query The text and facet query.
+     */
+    public Map<LibraryItemFormat, Integer> countFormats(LibraryQuery query) {
+        return importer.getIndex().countFormats(query);
+    }
+
+    /**
+     * Returns the match count per machine type for the query, used to label
+     * machine type facets.
+     * 
+     * @param query The text and facet query.
+     */
+    public Map<MachineType, Integer> countMachineTypes(LibraryQuery query) {
+        return importer.getIndex().countMachineTypes(query);
+    }
 }
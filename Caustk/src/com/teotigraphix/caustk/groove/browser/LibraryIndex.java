@@ -0,0 +1,491 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.groove.browser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
+import com.teotigraphix.caustk.core.ICaustkSerializer;
+import com.teotigraphix.caustk.core.internal.CaustkRuntime;
+import com.teotigraphix.caustk.groove.library.LibraryItemFormat;
+import com.teotigraphix.caustk.groove.manifest.LibraryItemManifest;
+import com.teotigraphix.caustk.node.effect.EffectType;
+import com.teotigraphix.caustk.node.machine.MachineType;
+
+/**
+ * The {@link LibraryIndex} is a persistent, searchable index of the
+ * {@link LibraryItemManifest}s of every product found in the
+ * {@link com.teotigraphix.caustk.groove.importer.LibraryProductImporter}'s
+ * locations.
+ * <p>
+ * Only the per product entries are saved, the inverted index (word prefix
+ * terms and format, machine type and bank facets as {@link BitSet}s over
+ * entry ordinals) is rebuilt in memory on load and kept current as products
+ * are put and removed.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class LibraryIndex {
+
+    private static final String TAG = "LibraryIndex";
+
+    private static final Comparator<LibraryIndexEntry> DISPLAY_NAME_COMPARATOR =
+            new Comparator<LibraryIndexEntry>() {
+                @Override
+                public int compare(LibraryIndexEntry o1, LibraryIndexEntry o2) {
+                    return String.CASE_INSENSITIVE_ORDER.compare(o1.getDisplayName(),
+                            o2.getDisplayName());
+                }
+            };
+
+    //--------------------------------------------------------------------------
+    // Serialized API
+    //--------------------------------------------------------------------------
+
+    @Tag(0)
+    private HashMap<String, ProductEntry> products = new HashMap<String, ProductEntry>();
+
+    //--------------------------------------------------------------------------
+    // Private :: Variables
+    //--------------------------------------------------------------------------
+
+    private transient ArrayList<LibraryIndexEntry> entries;
+
+    private transient ArrayList<Integer> freeOrdinals;
+
+    private transient BitSet live;
+
+    private transient TreeMap<String, BitSet> terms;
+
+    private transient EnumMap<LibraryItemFormat, BitSet> formats;
+
+    private transient EnumMap<MachineType, BitSet> machineTypes;
+
+    private transient EnumMap<BrowserBank, BitSet> banks;
+
+    private transient boolean stale;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the number of indexed items.
+     */
+    public synchronized int size() {
+        return live.cardinality();
+    }
+
+    /**
+     * Returns whether the index file could not be read and this empty index
+     * replaces it, every product must be indexed again and the index saved.
+     */
+    public synchronized boolean isStale() {
+        return stale;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    LibraryIndex() {
+        rebuild();
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the entries matching the query sorted by display name.
+     *
+     * @param query The query.
+     */
+    public synchronized List<LibraryIndexEntry> find(LibraryQuery query) {
+        BitSet result = match(query, true, true);
+        List<LibraryIndexEntry> list = new ArrayList<LibraryIndexEntry>(result.cardinality());
+        for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+            list.add(entries.get(i));
+        }
+        Collections.sort(list, DISPLAY_NAME_COMPARATOR);
+        if (list.size() > query.getLimit())
+            return new ArrayList<LibraryIndexEntry>(list.subList(0, query.getLimit()));
+        return list;
+    }
+
+    /**
+     * Returns the number of matches per {@link LibraryItemFormat}, ignoring
+     * the query's own format facet.
+     *
+     * @param query The query.
+     */
+    public synchronized Map<LibraryItemFormat, Integer> countFormats(LibraryQuery query) {
+        return count(match(query, false, true), formats, LibraryItemFormat.class);
+    }
+
+    /**
+     * Returns the number of matches per {@link MachineType}, ignoring the
+     * query's own machine type facet.
+     *
+     * @param query The query.
+     */
+    public synchronized Map<MachineType, Integer> countMachineTypes(LibraryQuery query) {
+        return count(match(query, true, false), machineTypes, MachineType.class);
+    }
+
+    /**
+     * Returns whether the product is indexed and its binary has not changed.
+     *
+     * @param productBinary The product's <code>product.bin</code> file.
+     */
+    public synchronized boolean isCurrent(File productBinary) {
+        ProductEntry product = products.get(toKey(productBinary.getParentFile()));
+        return product != null && product.lastModified == productBinary.lastModified()
+                && product.length == productBinary.length();
+    }
+
+    /**
+     * Replaces all entries of a product.
+     *
+     * @param bank The product's bank.
+     * @param productBinary The product's <code>product.bin</code> file.
+     * @param manifests The product's item manifests.
+     */
+    public synchronized void putProduct(BrowserBank bank, File productBinary,
+            Collection<LibraryItemManifest> manifests) {
+        final File directory = productBinary.getParentFile();
+        removeProduct(directory);
+
+        ProductEntry product = new ProductEntry();
+        product.bank = bank;
+        product.lastModified = productBinary.lastModified();
+        product.length = productBinary.length();
+        product.entries = new ArrayList<LibraryIndexEntry>(manifests.size());
+        for (LibraryItemManifest manifest : manifests) {
+            LibraryIndexEntry entry = new LibraryIndexEntry(bank, directory, manifest);
+            product.entries.add(entry);
+            add(entry);
+        }
+        products.put(toKey(directory), product);
+    }
+
+    /**
+     * Removes all entries of a product.
+     *
+     * @param directory The product's directory.
+     * @return Whether the product was indexed.
+     */
+    public synchronized boolean removeProduct(File directory) {
+        ProductEntry product = products.remove(toKey(directory));
+        if (product == null)
+            return false;
+        for (LibraryIndexEntry entry : product.entries) {
+            remove(entry);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the products that are not in the set of product directories.
+     *
+     * @param directories The product directories to keep.
+     * @return Whether any product was removed.
+     */
+    public synchronized boolean retainProducts(Collection<File> directories) {
+        Set<String> keep = new HashSet<String>();
+        for (File directory : directories) {
+            keep.add(toKey(directory));
+        }
+        boolean changed = false;
+        for (String key : new ArrayList<String>(products.keySet())) {
+            if (!keep.contains(key))
+                changed |= removeProduct(new File(key));
+        }
+        return changed;
+    }
+
+    /**
+     * Removes the products located in or below the directory.
+     *
+     * @param location A library location.
+     * @return Whether any product was removed.
+     */
+    public synchronized boolean removeLocation(File location) {
+        final String prefix = toKey(location);
+        boolean changed = false;
+        for (String key : new ArrayList<String>(products.keySet())) {
+            if (key.equals(prefix) || key.startsWith(prefix + File.separator))
+                changed |= removeProduct(new File(key));
+        }
+        return changed;
+    }
+
+    /**
+     * Loads an index from disk, returns an empty index if the file does not
+     * exist or can not be read, the index of an unreadable file is stale.
+     *
+     * @param serializer The rack's serializer.
+     * @param file The index file.
+     */
+    public static LibraryIndex load(ICaustkSerializer serializer, File file) {
+        if (file.exists()) {
+            try {
+                LibraryIndex index = serializer.deserialize(file, LibraryIndex.class);
+                index.rebuild();
+                return index;
+            } catch (Exception e) {
+                CaustkRuntime.getInstance().getLogger()
+                        .err(TAG, "Could not read library index, rebuilding: " + file, e);
+                LibraryIndex index = new LibraryIndex();
+                index.stale = true;
+                return index;
+            }
+        }
+        return new LibraryIndex();
+    }
+
+    public synchronized void save(ICaustkSerializer serializer, File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists())
+            parent.mkdirs();
+        serializer.serialize(file, this);
+        stale = false;
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private void rebuild() {
+        entries = new ArrayList<LibraryIndexEntry>();
+        freeOrdinals = new ArrayList<Integer>();
+        live = new BitSet();
+        terms = new TreeMap<String, BitSet>();
+        formats = new EnumMap<LibraryItemFormat, BitSet>(LibraryItemFormat.class);
+        machineTypes = new EnumMap<MachineType, BitSet>(MachineType.class);
+        banks = new EnumMap<BrowserBank, BitSet>(BrowserBank.class);
+        for (ProductEntry product : products.values()) {
+            for (LibraryIndexEntry entry : product.entries) {
+                add(entry);
+            }
+        }
+    }
+
+    private void add(LibraryIndexEntry entry) {
+        final int ordinal;
+        if (!freeOrdinals.isEmpty()) {
+            ordinal = freeOrdinals.remove(freeOrdinals.size() - 1);
+            entries.set(ordinal, entry);
+        } else {
+            ordinal = entries.size();
+            entries.add(entry);
+        }
+        entry.ordinal = ordinal;
+        live.set(ordinal);
+        for (String term : toTerms(entry)) {
+            posting(terms, term).set(ordinal);
+        }
+        if (entry.getFormat() != null)
+            posting(formats, entry.getFormat()).set(ordinal);
+        if (entry.getMachineType() != null)
+            posting(machineTypes, entry.getMachineType()).set(ordinal);
+        if (entry.getBank() != null)
+            posting(banks, entry.getBank()).set(ordinal);
+    }
+
+    private void remove(LibraryIndexEntry entry) {
+        final int ordinal = entry.ordinal;
+        if (ordinal < 0)
+            return;
+        for (String term : toTerms(entry)) {
+            BitSet bits = terms.get(term);
+            if (bits == null)
+                continue;
+            bits.clear(ordinal);
+            if (bits.isEmpty())
+                terms.remove(term);
+        }
+        clear(formats, entry.getFormat(), ordinal);
+        clear(machineTypes, entry.getMachineType(), ordinal);
+        clear(banks, entry.getBank(), ordinal);
+        live.clear(ordinal);
+        entries.set(ordinal, null);
+        freeOrdinals.add(ordinal);
+        entry.ordinal = -1;
+    }
+
+    private BitSet match(LibraryQuery query, boolean useFormats, boolean useMachineTypes) {
+        BitSet result = (BitSet)live.clone();
+        if (useFormats)
+            and(result, formats, query.getFormats());
+        if (useMachineTypes)
+            and(result, machineTypes, query.getMachineTypes());
+        and(result, banks, query.getBanks());
+
+        final String text = query.getText();
+        if (text != null) {
+            for (String word : tokenize(text)) {
+                if (result.isEmpty())
+                    break;
+                BitSet prefix = new BitSet();
+                for (BitSet bits : terms.subMap(word, word + Character.MAX_VALUE).values()) {
+                    prefix.or(bits);
+                }
+                result.and(prefix);
+            }
+        }
+
+        if (query.hasBpmRange()) {
+            for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+                float bpm = entries.get(i).getBpm();
+                if (bpm <= 0f || bpm < query.getMinBpm() || bpm > query.getMaxBpm())
+                    result.clear(i);
+            }
+        }
+        return result;
+    }
+
+    private static <K extends Enum<K>> void and(BitSet result, EnumMap<K, BitSet> facet,
+            Set<K> values) {
+        if (values.isEmpty())
+            return;
+        BitSet union = new BitSet();
+        for (K value : values) {
+            BitSet bits = facet.get(value);
+            if (bits != null)
+                union.or(bits);
+        }
+        result.and(union);
+    }
+
+    private static <K extends Enum<K>> Map<K, Integer> count(BitSet result,
+            EnumMap<K, BitSet> facet, Class<K> type) {
+        Map<K, Integer> counts = new EnumMap<K, Integer>(type);
+        for (Map.Entry<K, BitSet> entry : facet.entrySet()) {
+            BitSet bits = (BitSet)entry.getValue().clone();
+            bits.and(result);
+            int count = bits.cardinality();
+            if (count > 0)
+                counts.put(entry.getKey(), count);
+        }
+        return counts;
+    }
+
+    private static <K> BitSet posting(Map<K, BitSet> map, K key) {
+        BitSet bits = map.get(key);
+        if (bits == null) {
+            bits = new BitSet();
+            map.put(key, bits);
+        }
+        return bits;
+    }
+
+    private static <K> void clear(Map<K, BitSet> map, K key, int ordinal) {
+        if (key == null)
+            return;
+        BitSet bits = map.get(key);
+        if (bits != null)
+            bits.clear(ordinal);
+    }
+
+    private static Set<String> toTerms(LibraryIndexEntry entry) {
+        Set<String> result = new HashSet<String>();
+        addTerms(result, entry.getName());
+        addTerms(result, entry.getDisplayName());
+        if (entry.getTags() != null) {
+            for (String tag : entry.getTags()) {
+                addTerms(result, tag);
+            }
+        }
+        if (entry.getMachineType() != null)
+            addTerms(result, entry.getMachineType().name());
+        if (entry.getEffectTypes() != null) {
+            for (EffectType effectType : entry.getEffectTypes()) {
+                addTerms(result, effectType.name());
+            }
+        }
+        return result;
+    }
+
+    private static void addTerms(Set<String> result, String value) {
+        if (value != null)
+            result.addAll(tokenize(value));
+    }
+
+    /**
+     * Splits the value into lower case words at every character that is not
+     * a letter or digit.
+     */
+    static List<String> tokenize(String value) {
+        List<String> result = new ArrayList<String>();
+        final String lower = value.toLowerCase(Locale.ENGLISH);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (word && start == -1) {
+                start = i;
+            } else if (!word && start != -1) {
+                result.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    private static String toKey(File directory) {
+        return directory.getAbsolutePath();
+    }
+
+    /**
+     * The indexed state of one product.
+     */
+    public static class ProductEntry {
+
+        @Tag(0)
+        BrowserBank bank;
+
+        @Tag(1)
+        long lastModified;
+
+        @Tag(2)
+        long length;
+
+        @Tag(3)
+        ArrayList<LibraryIndexEntry> entries;
+
+        ProductEntry() {
+        }
+    }
+}
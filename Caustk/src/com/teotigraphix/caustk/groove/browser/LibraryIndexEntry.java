@@ -0,0 +1,200 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.groove.browser;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
+import com.teotigraphix.caustk.groove.library.LibraryItemFormat;
+import com.teotigraphix.caustk.groove.manifest.LibraryEffectManifest;
+import com.teotigraphix.caustk.groove.manifest.LibraryInstrumentManifest;
+import com.teotigraphix.caustk.groove.manifest.LibraryItemManifest;
+import com.teotigraphix.caustk.groove.manifest.LibraryPatternBankManifest;
+import com.teotigraphix.caustk.node.effect.EffectType;
+import com.teotigraphix.caustk.node.machine.MachineType;
+
+/**
+ * The {@link LibraryIndexEntry} is the searchable copy of a
+ * {@link LibraryItemManifest} held in the {@link LibraryIndex}.
+ * <p>
+ * Entries are plain data, answering a query never opens a product.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class LibraryIndexEntry {
+
+    //--------------------------------------------------------------------------
+    // Serialized API
+    //--------------------------------------------------------------------------
+
+    @Tag(0)
+    private UUID id;
+
+    @Tag(1)
+    private UUID productId;
+
+    @Tag(2)
+    private String productDirectory;
+
+    @Tag(3)
+    private BrowserBank bank;
+
+    @Tag(4)
+    private LibraryItemFormat format;
+
+    @Tag(5)
+    private String name;
+
+    @Tag(6)
+    private String displayName;
+
+    @Tag(7)
+    private String relativePath;
+
+    @Tag(8)
+    private ArrayList<String> tags;
+
+    @Tag(9)
+    private MachineType machineType;
+
+    @Tag(10)
+    private ArrayList<EffectType> effectTypes;
+
+    @Tag(11)
+    private float bpm;
+
+    transient int ordinal = -1;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getProductId() {
+        return productId;
+    }
+
+    /**
+     * Returns the absolute directory of the owning product.
+     */
+    public File getProductDirectory() {
+        return new File(productDirectory);
+    }
+
+    public BrowserBank getBank() {
+        return bank;
+    }
+
+    public LibraryItemFormat getFormat() {
+        return format;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the display name, falls back to the name.
+     */
+    public String getDisplayName() {
+        return displayName != null && !displayName.equals("") ? displayName : name;
+    }
+
+    public String getRelativePath() {
+        return relativePath;
+    }
+
+    public ArrayList<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Returns the machine type of instrument and pattern bank items,
+     * <code>null</code> for all others.
+     */
+    public MachineType getMachineType() {
+        return machineType;
+    }
+
+    /**
+     * Returns the effect types of effect items, <code>null</code> for all
+     * others.
+     */
+    public ArrayList<EffectType> getEffectTypes() {
+        return effectTypes;
+    }
+
+    /**
+     * Returns the tempo of the item, 0 if the item has no tempo.
+     */
+    public float getBpm() {
+        return bpm;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Serialized.
+     */
+    LibraryIndexEntry() {
+    }
+
+    LibraryIndexEntry(BrowserBank bank, File productDirectory, LibraryItemManifest manifest) {
+        this.id = manifest.getId();
+        this.productId = manifest.getProductId();
+        this.productDirectory = productDirectory.getAbsolutePath();
+        this.bank = bank;
+        this.format = manifest.getFormat();
+        this.name = manifest.getName();
+        this.displayName = manifest.getDisplayName();
+        this.relativePath = manifest.getRelativePath();
+        this.tags = new ArrayList<String>(manifest.getTags());
+        this.bpm = manifest.getBpm();
+        if (manifest instanceof LibraryInstrumentManifest) {
+            machineType = ((LibraryInstrumentManifest)manifest).getMachineType();
+        } else if (manifest instanceof LibraryPatternBankManifest) {
+            machineType = ((LibraryPatternBankManifest)manifest).getMachineType();
+        } else if (manifest instanceof LibraryEffectManifest) {
+            LibraryEffectManifest effectManifest = (LibraryEffectManifest)manifest;
+            effectTypes = new ArrayList<EffectType>();
+            if (effectManifest.getType1() != null)
+                effectTypes.add(effectManifest.getType1());
+            if (effectManifest.getType2() != null)
+                effectTypes.add(effectManifest.getType2());
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Overridden Public :: Methods
+    //--------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "LibraryIndexEntry [" + format + ", " + getDisplayName() + ", " + bank + "]";
+    }
+}
@@ -0,0 +1,139 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.groove.browser;
+
+import java.util.EnumSet;
+
+import com.teotigraphix.caustk.groove.library.LibraryItemFormat;
+import com.teotigraphix.caustk.node.machine.MachineType;
+
+/**
+ * A {@link LibraryIndex} query.
+ * <p>
+ * Every word of the text must prefix match a word of an item's name, display
+ * name, tags, machine type or effect types. Empty facets match everything,
+ * facets are ANDed together and values within one facet are ORed.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class LibraryQuery {
+
+    private String text;
+
+    private final EnumSet<LibraryItemFormat> formats = EnumSet.noneOf(LibraryItemFormat.class);
+
+    private final EnumSet<MachineType> machineTypes = EnumSet.noneOf(MachineType.class);
+
+    private final EnumSet<BrowserBank> banks = EnumSet.noneOf(BrowserBank.class);
+
+    private float minBpm = 0f;
+
+    private float maxBpm = Float.MAX_VALUE;
+
+    private int limit = Integer.MAX_VALUE;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Sets the search text, <code>null</code> matches everything.
+     *
+     * @param text Space separated word prefixes.
+     */
+    public LibraryQuery setText(String text) {
+        this.text = text;
+        return this;
+    }
+
+    public EnumSet<LibraryItemFormat> getFormats() {
+        return formats;
+    }
+
+    public LibraryQuery addFormat(LibraryItemFormat format) {
+        formats.add(format);
+        return this;
+    }
+
+    public EnumSet<MachineType> getMachineTypes() {
+        return machineTypes;
+    }
+
+    public LibraryQuery addMachineType(MachineType machineType) {
+        machineTypes.add(machineType);
+        return this;
+    }
+
+    public EnumSet<BrowserBank> getBanks() {
+        return banks;
+    }
+
+    public LibraryQuery addBank(BrowserBank bank) {
+        banks.add(bank);
+        return this;
+    }
+
+    public float getMinBpm() {
+        return minBpm;
+    }
+
+    public float getMaxBpm() {
+        return maxBpm;
+    }
+
+    /**
+     * Restricts the results to items with a tempo in the inclusive range,
+     * items without a tempo are excluded.
+     *
+     * @param minBpm The lowest tempo.
+     * @param maxBpm The highest tempo.
+     */
+    public LibraryQuery setBpmRange(float minBpm, float maxBpm) {
+        this.minBpm = minBpm;
+        this.maxBpm = maxBpm;
+        return this;
+    }
+
+    /**
+     * Whether a tempo range is set.
+     */
+    public boolean hasBpmRange() {
+        return minBpm > 0f || maxBpm != Float.MAX_VALUE;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Sets the maximum number of results returned.
+     *
+     * @param limit The result count.
+     */
+    public LibraryQuery setLimit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+}
@@ -20,33 +20,171 @@
 package com.teotigraphix.caustk.groove.importer;
 
 import java.io.File;
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
+import com.teotigraphix.caustk.core.ICaustkSerializer;
+import com.teotigraphix.caustk.core.internal.CaustkRuntime;
 import com.teotigraphix.caustk.groove.browser.BrowserBank;
 import com.teotigraphix.caustk.groove.browser.BrowserModel;
+import com.teotigraphix.caustk.groove.browser.LibraryIndex;
+import com.teotigraphix.caustk.groove.library.LibraryProduct;
+import com.teotigraphix.caustk.utils.core.RuntimeUtils;
+import com.teotigraphix.caustk.utils.groove.LibraryProductUtils;
 
+/**
+ * The {@link LibraryProductImporter} keeps the {@link LibraryIndex} in sync
+ * with the products found in each {@link BrowserBank}'s locations.
+ * <p>
+ * A location is either a product directory or a directory of product
+ * directories. A product is only re-read when its <code>product.bin</code>
+ * changed since it was last indexed.
+ */
 @SuppressWarnings("unused")
 public class LibraryProductImporter {
 
+    private static final String INDEX_FILE = "library.bin";
+
     private BrowserModel browserModel;
 
-    private Map<BrowserBank, List<File>> locations = new HashMap<BrowserBank, List<File>>();
+    private Map<BrowserBank, List<File>> locations = new EnumMap<BrowserBank, List<File>>(
+            BrowserBank.class);
+
+    private File indexFile;
+
+    private LibraryIndex index;
 
     public LibraryProductImporter(BrowserModel browserModel) {
         this.browserModel = browserModel;
     }
 
-    public void addLocation(BrowserBank bank, File location) {
+    //----------------------------------
+    // indexFile
+    //----------------------------------
+
+    /**
+     * Returns the file the index is saved to, defaults to
+     * <code>library.bin</code> in the application's index directory.
+     */
+    public File getIndexFile() {
+        if (indexFile == null)
+            indexFile = new File(RuntimeUtils.getApplicationIndexDirectory(), INDEX_FILE);
+        return indexFile;
+    }
+
+    public void setIndexFile(File indexFile) {
+        this.indexFile = indexFile;
+        index = null;
+    }
+
+    //----------------------------------
+    // index
+    //----------------------------------
 
+    /**
+     * Returns the library index, loaded from the index file on first access.
+     * An index file that can not be read is rebuilt from the locations.
+     */
+    public synchronized LibraryIndex getIndex() {
+        if (index == null) {
+            index = LibraryIndex.load(getSerializer(), getIndexFile());
+            if (index.isStale())
+                rescan();
+        }
+        return index;
     }
 
-    public void removeLocation(BrowserBank bank, File location) {
+    public synchronized void addLocation(BrowserBank bank, File location) {
+        List<File> list = locations.get(bank);
+        if (list == null) {
+            list = new ArrayList<File>();
+            locations.put(bank, list);
+        }
+        if (!list.contains(location))
+            list.add(location);
+    }
+
+    /**
+     * Removes the location and its products from the index.
+     * 
+     * @param bank The location's bank.
+     * @param location The product or products directory.
+     */
+    public synchronized void removeLocation(BrowserBank bank, File location) {
+        List<File> list = locations.get(bank);
+        if (list == null || !list.remove(location))
+            return;
+        if (getIndex().removeLocation(location))
+            saveIndex();
+    }
+
+    /**
+     * Brings the index up to date with all locations, re-reading only the
+     * products that were added or changed and removing those that are gone.
+     * The index is saved if anything changed.
+     */
+    public synchronized void rescan() {
+        final LibraryIndex index = getIndex();
+        final List<File> found = new ArrayList<File>();
+        // a stale index replaces an unreadable file
+        boolean changed = index.isStale();
+        for (Map.Entry<BrowserBank, List<File>> entry : locations.entrySet()) {
+            for (File location : entry.getValue()) {
+                for (File productDirectory : findProducts(location)) {
+                    found.add(productDirectory);
+                    changed |= update(entry.getKey(), productDirectory);
+                }
+            }
+        }
+        changed |= index.retainProducts(found);
+        if (changed)
+            saveIndex();
+    }
+
+    private boolean update(BrowserBank bank, File productDirectory) {
+        final File productBinary = LibraryProductUtils.toProductBinary(productDirectory);
+        if (index.isCurrent(productBinary))
+            return false;
+        try {
+            LibraryProduct product = LibraryProductUtils.readProduct(productDirectory);
+            index.putProduct(bank, productBinary, product.getManifests());
+        } catch (IOException e) {
+            CaustkRuntime.getInstance().getLogger()
+                    .err("LibraryProductImporter", "Could not index " + productDirectory, e);
+            return index.removeProduct(productDirectory);
+        }
+        return true;
+    }
 
+    private static List<File> findProducts(File location) {
+        List<File> result = new ArrayList<File>();
+        if (LibraryProductUtils.toProductBinary(location).isFile()) {
+            result.add(location);
+            return result;
+        }
+        File[] children = location.listFiles();
+        if (children == null)
+            return result;
+        for (File child : children) {
+            if (child.isDirectory() && LibraryProductUtils.toProductBinary(child).isFile())
+                result.add(child);
+        }
+        return result;
     }
 
-    public void rescan() {
+    private void saveIndex() {
+        try {
+            getIndex().save(getSerializer(), getIndexFile());
+        } catch (IOException e) {
+            CaustkRuntime.getInstance().getLogger()
+                    .err("LibraryProductImporter", "Could not save library index", e);
+        }
+    }
 
+    private static ICaustkSerializer getSerializer() {
+        return CaustkRuntime.getInstance().getRack().getSerializer();
     }
 }
@@ -0,0 +1,182 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.groove.library;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.teotigraphix.caustk.groove.manifest.LibraryItemManifest;
+
+/**
+ * The {@link LibraryBlobStore} holds a product's item archives once per
+ * distinct content, under <code>blobs/[hash prefix]/[sha1].[extension]</code>
+ * in the product directory.
+ * <p>
+ * A manifest points at its archive with
+ * {@link LibraryItemManifest#getBlobHash()}. References are counted from the
+ * product's manifests, a blob is deleted when the last item using it is
+ * removed from the product.
+ * <p>
+ * Item archives zip in a fixed entry order with fixed entry times and leave
+ * out the manifests' blob hashes, so saving an item whose content did not
+ * change hashes to the blob it already has.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class LibraryBlobStore {
+
+    static final String BLOBS = "blobs";
+
+    private final LibraryProduct product;
+
+    private Map<String, Integer> references;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the <code>blobs</code> directory of the product.
+     */
+    public File getDirectory() {
+        return new File(product.getDirectory(), BLOBS);
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    LibraryBlobStore(LibraryProduct product) {
+        this.product = product;
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the blob file of the hash, the file may not exist.
+     *
+     * @param hash The sha1 content hash.
+     * @param format The format of the archive.
+     */
+    public File getBlob(String hash, LibraryItemFormat format) {
+        return new File(getDirectory(), hash.substring(0, 2) + File.separator + hash + "."
+                + format.getExtension());
+    }
+
+    /**
+     * Returns the number of product items using the blob.
+     *
+     * @param hash The sha1 content hash.
+     */
+    public synchronized int getReferenceCount(String hash) {
+        Integer count = getReferences().get(hash);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Adds an archive to the store and returns its content hash.
+     * <p>
+     * If a blob with the same content exists the source is not copied. The
+     * blob is not referenced until a manifest of the product points at it, see
+     * {@link LibraryProduct#setItemBlob(LibraryItemManifest, String)}.
+     *
+     * @param source The archive file.
+     * @param format The format of the archive.
+     * @param move Whether the source is a temporary file that may be moved
+     *            into the store instead of copied.
+     * @throws IOException
+     */
+    public synchronized String put(File source, LibraryItemFormat format, boolean move)
+            throws IOException {
+        final String hash = toHash(source);
+        final File blob = getBlob(hash, format);
+        if (blob.exists()) {
+            if (move)
+                FileUtils.deleteQuietly(source);
+            return hash;
+        }
+
+        FileUtils.forceMkdir(blob.getParentFile());
+        if (!move || !source.renameTo(blob))
+            FileUtils.copyFile(source, blob);
+        if (move && source.exists())
+            FileUtils.deleteQuietly(source);
+        return hash;
+    }
+
+    /**
+     * Returns the content hash of a file.
+     *
+     * @param file The file to hash.
+     * @throws IOException
+     */
+    public static String toHash(File file) throws IOException {
+        return Files.hash(file, Hashing.sha1()).toString();
+    }
+
+    //--------------------------------------------------------------------------
+    // Package :: Methods
+    //--------------------------------------------------------------------------
+
+    synchronized void retain(String hash) {
+        Map<String, Integer> map = getReferences();
+        Integer count = map.get(hash);
+        map.put(hash, count != null ? count + 1 : 1);
+    }
+
+    synchronized void release(String hash, LibraryItemFormat format) {
+        Map<String, Integer> map = getReferences();
+        Integer count = map.get(hash);
+        if (count == null)
+            return;
+        if (count > 1) {
+            map.put(hash, count - 1);
+            return;
+        }
+        map.remove(hash);
+        FileUtils.deleteQuietly(getBlob(hash, format));
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private Map<String, Integer> getReferences() {
+        if (references == null) {
+            references = new HashMap<String, Integer>();
+            for (LibraryItemManifest manifest : product.getManifests()) {
+                if (manifest.getBlobHash() == null)
+                    continue;
+                Integer count = references.get(manifest.getBlobHash());
+                references.put(manifest.getBlobHash(), count != null ? count + 1 : 1);
+            }
+        }
+        return references;
+    }
+}
@@ -0,0 +1,188 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.groove.library;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+
+import com.teotigraphix.caustk.core.ICaustkSerializer;
+import com.teotigraphix.caustk.core.internal.CaustkRuntime;
+import com.teotigraphix.caustk.groove.manifest.LibraryItemManifest;
+
+/**
+ * The {@link LibraryItemCache} holds the deserialized items of a product and
+ * their extracted files, keyed by the content of the item's archive.
+ * <p>
+ * The key of a blob archive is its content hash, all other archives are keyed
+ * by the item's id and the archive's modification time so a rewritten archive
+ * gets a new entry. The most recently used {@link #MAX_ITEMS} items are kept,
+ * an evicted item's extraction directory is deleted with it.
+ * <p>
+ * Cached items are never handed out, {@link #get(String, Class)} returns a
+ * copy so each caller owns the returned item and its node graph. The files of
+ * a returned item are valid until its entry is evicted.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class LibraryItemCache {
+
+    /**
+     * The maximum number of deserialized items held by a cache.
+     */
+    public static final int MAX_ITEMS = 32;
+
+    private final File directory;
+
+    private final Map<String, LibraryItem> items = new LinkedHashMap<String, LibraryItem>(16,
+            0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LibraryItem> eldest) {
+            if (size() <= MAX_ITEMS)
+                return false;
+            FileUtils.deleteQuietly(getDirectory(eldest.getKey()));
+            return true;
+        }
+    };
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the directory holding the cache's extraction directories.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates a cache, extraction directories left in the directory by an
+     * earlier session are deleted.
+     *
+     * @param directory The directory of the cache's extraction directories.
+     */
+    public LibraryItemCache(File directory) {
+        this.directory = directory;
+        FileUtils.deleteQuietly(directory);
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the key of an item archive's content.
+     *
+     * @param item The item's manifest.
+     * @param archive The item's archive.
+     */
+    public static String toKey(LibraryItemManifest item, File archive) {
+        if (item.getBlobHash() != null)
+            return item.getBlobHash();
+        return item.getId() + "-" + archive.lastModified();
+    }
+
+    /**
+     * Returns the extraction directory of an item archive's content, the
+     * archive is extracted into it on the first load only.
+     *
+     * @param key The content key, see {@link #toKey(LibraryItemManifest, File)}.
+     */
+    public File getDirectory(String key) {
+        return new File(directory, key);
+    }
+
+    /**
+     * Returns a copy of the cached item, <code>null</code> when the item is not
+     * cached.
+     *
+     * @param key The content key.
+     * @param type The item's type.
+     */
+    public <T extends LibraryItem> T get(String key, Class<T> type) {
+        LibraryItem item;
+        synchronized (items) {
+            item = items.get(key);
+        }
+        return item != null ? type.cast(copy(item)) : null;
+    }
+
+    /**
+     * Caches a deserialized item, the caller keeps the passed instance and
+     * the cache holds a copy.
+     *
+     * @param key The content key.
+     * @param item The item deserialized from the key's extraction directory.
+     */
+    public void put(String key, LibraryItem item) {
+        LibraryItem copy = copy(item);
+        synchronized (items) {
+            items.put(key, copy);
+        }
+    }
+
+    /**
+     * Deletes all cached items and extraction directories, including those of
+     * items still in use.
+     */
+    public void dispose() {
+        synchronized (items) {
+            items.clear();
+        }
+        FileUtils.deleteQuietly(directory);
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private static LibraryItem copy(LibraryItem item) {
+        ICaustkSerializer serializer = CaustkRuntime.getInstance().getRack().getSerializer();
+        if (item instanceof LibrarySound) {
+            // the sound's parts are not serialized with the sound
+            LibrarySound sound = (LibrarySound)item;
+            LibrarySound result = serializer.copy(sound);
+            result.setEffect(serializer.copy(sound.getEffect()));
+            result.setInstrument(copyInstrument(serializer, sound.getInstrument()));
+            result.setPatternBank(serializer.copy(sound.getPatternBank()));
+            return result;
+        }
+        if (item instanceof LibraryInstrument)
+            return copyInstrument(serializer, (LibraryInstrument)item);
+        return serializer.copy(item);
+    }
+
+    private static LibraryInstrument copyInstrument(ICaustkSerializer serializer,
+            LibraryInstrument instrument) {
+        LibraryInstrument result = serializer.copy(instrument);
+        result.setPendingPresetFile(instrument.getPendingPresetFile());
+        return result;
+    }
+}
@@ -21,6 +21,8 @@ package com.teotigraphix.caustk.groove.library;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -53,6 +55,17 @@ public class LibraryProduct extends LibraryItem {
 
     private LibraryProductAccess access;
 
+    private LibraryBlobStore blobStore;
+
+    /**
+     * Returns the store holding the product's item archives by content.
+     */
+    public LibraryBlobStore getBlobStore() {
+        if (blobStore == null)
+            blobStore = new LibraryBlobStore(this);
+        return blobStore;
+    }
+
     public LibraryProductAccess getAccess() {
         if (access == null)
             access = new LibraryProductAccess(this);
@@ -112,6 +125,13 @@ public class LibraryProduct extends LibraryItem {
         return map.isEmpty();
     }
 
+    /**
+     * Returns the manifests of all product items.
+     */
+    public Collection<LibraryItemManifest> getManifests() {
+        return Collections.unmodifiableCollection(map.values());
+    }
+
     /**
      * Returns the total amount of product items.
      */
@@ -162,7 +182,10 @@ public class LibraryProduct extends LibraryItem {
         if (map.containsKey(item.getId()))
             throw new CausticException("Product contains item: " + item.getId());
 
-        map.put(item.getId(), item.getManifest());
+        LibraryItemManifest manifest = item.getManifest();
+        if (manifest.getBlobHash() != null)
+            getBlobStore().retain(manifest.getBlobHash());
+        map.put(item.getId(), manifest);
     }
 
     /**
@@ -184,11 +207,36 @@ public class LibraryProduct extends LibraryItem {
      * @param id The item's {@link java.util.UUID}.
      */
     public LibraryItemManifest removeItem(UUID id) {
-        if (!map.containsKey(id))
+        LibraryItemManifest manifest = map.get(id);
+        if (manifest == null)
             return null;
+        if (manifest.getBlobHash() != null)
+            getBlobStore().release(manifest.getBlobHash(), manifest.getFormat());
         return map.remove(id);
     }
 
+    /**
+     * Points the item's manifest at a blob of the {@link #getBlobStore()},
+     * moving the reference from the blob it pointed at before.
+     * 
+     * @param manifest The item's manifest.
+     * @param hash The blob's content hash, see
+     *            {@link LibraryBlobStore#put(File, LibraryItemFormat, boolean)}
+     *            .
+     */
+    public void setItemBlob(LibraryItemManifest manifest, String hash) {
+        final String oldHash = manifest.getBlobHash();
+        if (hash != null && hash.equals(oldHash))
+            return;
+        if (map.get(manifest.getId()) == manifest) {
+            if (hash != null)
+                getBlobStore().retain(hash);
+            if (oldHash != null)
+                getBlobStore().release(oldHash, manifest.getFormat());
+        }
+        manifest.setBlobHash(hash);
+    }
+
     /**
      * Saves the product item to disk within the product's directory.
      * 
@@ -214,11 +262,14 @@ public class LibraryProduct extends LibraryItem {
      * Resolves the product item's internal product path.
      * <p>
      * Calculates the path based on the {@link #getDirectory()} and the item's
-     * relative path, {@link LibraryItemManifest#getRelativePath()}.
+     * relative path, {@link LibraryItemManifest#getRelativePath()}, or returns
+     * the item's blob when it is held in the {@link #getBlobStore()}.
      * 
      * @param item The product item.
      */
     public final File resolveInternalArchive(LibraryProductItem item) {
+        if (item.getManifest().getBlobHash() != null)
+            return resolveInternalArchive(item.getManifest());
         File archive = new File(getDirectory(), item.getProductPath().getPath());
         return archive;
     }
@@ -229,6 +280,8 @@ public class LibraryProduct extends LibraryItem {
      * @param item The product item's manifest.
      */
     public File resolveInternalArchive(LibraryItemManifest manifest) {
+        if (manifest.getBlobHash() != null)
+            return getBlobStore().getBlob(manifest.getBlobHash(), manifest.getFormat());
         File archive = new File(getDirectory(), LibraryProductUtils.getProductPath(manifest)
                 .getPath());
         return archive;
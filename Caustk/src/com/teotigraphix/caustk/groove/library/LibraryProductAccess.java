@@ -7,8 +7,17 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
-
-import org.apache.commons.io.FileUtils;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.badlogic.gdx.utils.Array;
 import com.teotigraphix.caustk.core.CausticException;
@@ -16,6 +25,7 @@ import com.teotigraphix.caustk.core.internal.CaustkRuntime;
 import com.teotigraphix.caustk.groove.importer.CausticSound;
 import com.teotigraphix.caustk.groove.manifest.LibraryGroupManifest;
 import com.teotigraphix.caustk.groove.manifest.LibraryItemManifest;
+import com.teotigraphix.caustk.groove.manifest.LibrarySoundManifest;
 import com.teotigraphix.caustk.node.machine.Machine;
 import com.teotigraphix.caustk.utils.groove.LibraryGroupUtils;
 import com.teotigraphix.caustk.utils.groove.LibraryPatternBankUtils;
@@ -24,8 +34,25 @@ import com.teotigraphix.caustk.utils.groove.LibrarySoundUtils;
 
 public class LibraryProductAccess {
 
+    private static final int MAX_WORKERS = 4;
+
+    private static final Comparator<LibraryItemManifest> MANIFEST_COMPARATOR =
+            new Comparator<LibraryItemManifest>() {
+                @Override
+                public int compare(LibraryItemManifest o1, LibraryItemManifest o2) {
+                    return toSortName(o1).compareTo(toSortName(o2));
+                }
+            };
+
     private LibraryProduct product;
 
+    private ExecutorService executor;
+
+    private LibraryItemCache itemCache;
+
+    private final ConcurrentMap<UUID, Future<CausticSound>> pending =
+            new ConcurrentHashMap<UUID, Future<CausticSound>>();
+
     //----------------------------------
     // descriptors
     //----------------------------------
@@ -52,49 +79,200 @@ public class LibraryProductAccess {
         this.product = product;
     }
 
+    /**
+     * Returns the cache of the product's extracted items.
+     */
+    public synchronized LibraryItemCache getItemCache() {
+        if (itemCache == null) {
+            File directory = CaustkRuntime.getInstance().getFactory()
+                    .getCacheDirectory("items/" + product.getId());
+            itemCache = new LibraryItemCache(directory);
+        }
+        return itemCache;
+    }
+
+    /**
+     * Returns a new hydrated sound of the manifest, the archive is extracted
+     * and deserialized into the {@link #getItemCache()} on the first import
+     * only.
+     * 
+     * @param manifest The sound's manifest.
+     * @throws CausticException
+     * @throws IOException
+     */
     public LibrarySound importSound(LibraryItemManifest manifest) throws CausticException,
             IOException {
-        File uncompressDirectory = getTempChangeDirectory();
         File archive = product.resolveInternalArchive(manifest);
-        LibrarySound sound = LibrarySoundUtils.importSound(uncompressDirectory, archive);
-        FileUtils.forceDeleteOnExit(uncompressDirectory);
+        String key = LibraryItemCache.toKey(manifest, archive);
+        LibrarySound sound = getItemCache().get(key, LibrarySound.class);
+        if (sound == null) {
+            sound = LibrarySoundUtils.importSound(getItemCache().getDirectory(key), archive);
+            getItemCache().put(key, sound);
+        }
         return sound;
     }
 
-    private static File getTempChangeDirectory() {
-        return CaustkRuntime.getInstance().getFactory()
-                .getCacheDirectory("extract/" + UUID.randomUUID().toString());
+    /**
+     * Returns a new hydrated pattern bank of the manifest, the archive is
+     * extracted and deserialized into the {@link #getItemCache()} on the first
+     * import only.
+     * 
+     * @param manifest The pattern bank's manifest.
+     * @throws CausticException
+     * @throws IOException
+     */
+    public LibraryPatternBank importPatternBank(LibraryItemManifest manifest)
+            throws CausticException, IOException {
+        File archive = product.resolveInternalArchive(manifest);
+        if (!archive.exists())
+            throw new IOException("Archive does not exist: " + archive);
+        String key = LibraryItemCache.toKey(manifest, archive);
+        LibraryPatternBank patternBank = getItemCache().get(key, LibraryPatternBank.class);
+        if (patternBank == null) {
+            patternBank = LibraryPatternBankUtils.importPatternBank(getItemCache()
+                    .getDirectory(key), archive);
+            getItemCache().put(key, patternBank);
+        }
+        return patternBank;
+    }
+
+    //----------------------------------
+    // sounds
+    //----------------------------------
+
+    /**
+     * Returns the product's {@link LibrarySoundManifest}s sorted in display
+     * name order.
+     * <p>
+     * Served from the product's manifest map, no archive is opened. Use
+     * {@link #loadSound(LibraryItemManifest, OnSoundLoadListener)} to hydrate
+     * the sounds that are actually shown.
+     */
+    public Array<LibrarySoundManifest> getSoundManifests() {
+        Array<LibrarySoundManifest> result = new Array<LibrarySoundManifest>();
+        for (LibraryItemManifest manifest : getDescriptors(LibraryItemFormat.Sound)) {
+            result.add((LibrarySoundManifest)manifest);
+        }
+        result.sort(MANIFEST_COMPARATOR);
+        return result;
+    }
+
+    /**
+     * Hydrates a full {@link CausticSound} on the background loader.
+     * <p>
+     * A sound already loading is not queued twice, the pending future is
+     * returned. Cancel the future (or call {@link #cancel(LibraryItemManifest)})
+     * when the sound scrolls out of view.
+     * 
+     * @param manifest The sound's manifest.
+     * @param listener Notified from the worker thread, may be
+     *            <code>null</code>.
+     */
+    public Future<CausticSound> loadSound(final LibraryItemManifest manifest,
+            final OnSoundLoadListener listener) {
+        final UUID id = manifest.getId();
+        FutureTask<CausticSound> task = new FutureTask<CausticSound>(new Callable<CausticSound>() {
+            @Override
+            public CausticSound call() throws Exception {
+                return readSound(manifest);
+            }
+        }) {
+            @Override
+            protected void done() {
+                pending.remove(id, this);
+                if (listener == null || isCancelled())
+                    return;
+                try {
+                    listener.onLoad(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    listener.onError(manifest, e.getCause());
+                }
+            }
+        };
+        Future<CausticSound> current = pending.putIfAbsent(id, task);
+        if (current != null)
+            return current;
+        getExecutor().execute(task);
+        return task;
+    }
+
+    /**
+     * Cancels the pending load of a sound, if any.
+     * 
+     * @param manifest The sound's manifest.
+     * @return Whether a pending load was cancelled.
+     */
+    public boolean cancel(LibraryItemManifest manifest) {
+        Future<CausticSound> future = pending.remove(manifest.getId());
+        return future != null && future.cancel(true);
+    }
+
+    /**
+     * Cancels all pending sound loads.
+     */
+    public void cancelAll() {
+        for (UUID id : pending.keySet()) {
+            Future<CausticSound> future = pending.remove(id);
+            if (future != null)
+                future.cancel(true);
+        }
+    }
+
+    /**
+     * Cancels all pending loads, stops the background loader and clears the
+     * item cache.
+     */
+    public void dispose() {
+        cancelAll();
+        synchronized (this) {
+            if (executor != null)
+                executor.shutdownNow();
+            executor = null;
+            if (itemCache != null)
+                itemCache.dispose();
+            itemCache = null;
+        }
     }
 
     /**
      * Returns an array of {@link CausticSound}s sorted in display name order.
+     * <p>
+     * All sounds are hydrated in parallel on the background loader, blocks
+     * until all are loaded.
      * 
      * @throws IOException
      * @throws CausticException
      */
     public Array<CausticSound> getSounds() throws IOException, CausticException {
-        Array<CausticSound> result = new Array<CausticSound>();
-        for (LibraryItemManifest manifest : getDescriptors(LibraryItemFormat.Sound)) {
-            CausticSound causticSound = readXMLSoundManifest(manifest);
-            result.add(causticSound);
-
-            // resolve the sound archive absolute location
-            File archiveFile = product.resolveInternalArchive(manifest);
-
-            // extract full sound into directory, effect.gfx, instrument.ginst, manifest.xml
-            // patterns.gptbk, sound.bin
-            File uncompressDirectory = getTempChangeDirectory();
-            FileUtils.forceMkdir(uncompressDirectory);
-
-            LibrarySound sound = LibrarySoundUtils.importSound(uncompressDirectory, archiveFile);
-
-            Machine machine = sound.getInstrument().getMachine();
-            causticSound.getInstrument().setMachine(machine);
-            File presetFile = sound.getInstrument().getPendingPresetFile();
-            machine.getPreset().fill(presetFile);
-            causticSound.getPatternBank().setPatterns(sound.getPatternBank().getPatterns());
-            causticSound.getEffect().putEffect(0, sound.getEffect().get(0));
-            causticSound.getEffect().putEffect(1, sound.getEffect().get(1));
+        Array<LibrarySoundManifest> manifests = getSoundManifests();
+        List<Future<CausticSound>> futures = new ArrayList<Future<CausticSound>>(
+                manifests.size);
+        for (LibrarySoundManifest manifest : manifests) {
+            futures.add(loadSound(manifest, null));
+        }
+
+        Array<CausticSound> result = new Array<CausticSound>(manifests.size);
+        try {
+            for (Future<CausticSound> future : futures) {
+                result.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CausticException("Interrupted loading sounds", e);
+        } catch (ExecutionException e) {
+            for (Future<CausticSound> future : futures) {
+                future.cancel(true);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException)cause;
+            if (cause instanceof CausticException)
+                throw (CausticException)cause;
+            throw new CausticException(cause);
+        } catch (CancellationException e) {
+            throw new CausticException("Sound load cancelled", e);
         }
 
         Comparator<CausticSound> comparator = new Comparator<CausticSound>() {
@@ -134,23 +312,55 @@ public class LibraryProductAccess {
 
     private LibraryGroup _loadGroup(LibraryItemManifest manifest) throws CausticException,
             IOException {
-        File groupArchive = new File(product.getDirectory(), manifest.getProductPath());
-        File uncompressDirectory = null;
+        File groupArchive = product.resolveInternalArchive(manifest);
+        File uncompressDirectory = getItemCache().getDirectory(
+                LibraryItemCache.toKey(manifest, groupArchive));
         LibraryGroup instance = LibraryGroupUtils.importGroup(groupArchive, uncompressDirectory);
         return instance;
     }
 
-    @SuppressWarnings("unused")
-    private LibraryProductItem _createFromManifest(LibraryItemManifest libraryItemManifest)
-            throws CausticException, IOException {
-        File archive = libraryItemManifest.getAbsoluteProductPath(product);
-        if (!archive.exists())
-            throw new IOException("Archive doe snot exist: " + archive);
-        File uncompressDirectory = CaustkRuntime.getInstance().getFactory()
-                .getCacheDirectory("imports/" + UUID.randomUUID());
-        LibraryPatternBank instance = LibraryPatternBankUtils.importPatternBank(
-                uncompressDirectory, archive);
-        return instance;
+    private CausticSound readSound(LibraryItemManifest manifest) throws IOException,
+            CausticException, InterruptedException {
+        CausticSound causticSound = readXMLSoundManifest(manifest);
+        checkInterrupted();
+
+        // extract full sound into directory, effect.gfx, instrument.ginst, manifest.xml
+        // patterns.gptbk, sound.bin, or reuse the extracted files
+        LibrarySound sound = importSound(manifest);
+        checkInterrupted();
+
+        Machine machine = sound.getInstrument().getMachine();
+        causticSound.getInstrument().setMachine(machine);
+        File presetFile = sound.getInstrument().getPendingPresetFile();
+        machine.getPreset().fill(presetFile);
+        causticSound.getPatternBank().setPatterns(sound.getPatternBank().getPatterns());
+        causticSound.getEffect().putEffect(0, sound.getEffect().get(0));
+        causticSound.getEffect().putEffect(1, sound.getEffect().get(1));
+        return causticSound;
+    }
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            int workers = Math.max(1,
+                    Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()));
+            executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "LibraryProductAccess-"
+                            + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
     }
 
     private CausticSound readXMLSoundManifest(LibraryItemManifest manifest) throws IOException {
@@ -160,4 +370,18 @@ public class LibraryProductAccess {
         instance.setManifest(manifest);
         return instance;
     }
+
+    private static String toSortName(LibraryItemManifest manifest) {
+        String name = manifest.getDisplayName();
+        if (name == null)
+            name = manifest.getName();
+        return name != null ? name : "";
+    }
+
+    public interface OnSoundLoadListener {
+
+        void onLoad(CausticSound sound);
+
+        void onError(LibraryItemManifest manifest, Throwable cause);
+    }
 }
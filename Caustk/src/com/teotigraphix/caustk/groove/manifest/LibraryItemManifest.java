@@ -79,6 +79,12 @@ public class LibraryItemManifest {
     @Tag(11)
     private Boolean selected;
 
+    @Tag(12)
+    private float bpm;
+
+    @Tag(13)
+    private String blobHash;
+
     //--------------------------------------------------------------------------
     // Public Property API
     //--------------------------------------------------------------------------
@@ -206,6 +212,8 @@ public class LibraryItemManifest {
      * @param product The owning product of the item.
      */
     public File getAbsoluteProductPath(LibraryProduct product) {
+        if (blobHash != null)
+            return product.resolveInternalArchive(this);
         return new File(product.getDirectory(), getProductPath());
     }
 
@@ -332,6 +340,50 @@ public class LibraryItemManifest {
         tags = Arrays.asList(value.split(" "));
     }
 
+    //----------------------------------
+    //  bpm
+    //----------------------------------
+
+    /**
+     * The tempo the item was created at, 0 if the item has no tempo.
+     */
+    public final float getBpm() {
+        return bpm;
+    }
+
+    /**
+     * Sets the tempo the item was created at.
+     * 
+     * @param bpm The beats per minute, 0 for none.
+     */
+    public final void setBpm(float bpm) {
+        this.bpm = bpm;
+    }
+
+    //----------------------------------
+    //  blobHash
+    //----------------------------------
+
+    /**
+     * The content hash of the item's archive in the product's
+     * {@link com.teotigraphix.caustk.groove.library.LibraryBlobStore},
+     * <code>null</code> if the archive lives at its product path.
+     */
+    public final String getBlobHash() {
+        return blobHash;
+    }
+
+    /**
+     * Sets the archive's blob content hash, use
+     * {@link LibraryProduct#setItemBlob(LibraryItemManifest, String)} for
+     * items of a product so the blob's references are counted.
+     * 
+     * @param blobHash The sha1 hash or <code>null</code>.
+     */
+    public final void setBlobHash(String blobHash) {
+        this.blobHash = blobHash;
+    }
+
     //----------------------------------
     //  selected
     //----------------------------------
@@ -0,0 +1,54 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node;
+
+import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
+
+/**
+ * A parameter change of one control of a node, only the last value of a
+ * frame matters to views.
+ * <p>
+ * Implemented by {@link NodeEvent}s, the {@link NodeEventDispatcher} merges
+ * these events per node and control while coalescing.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ * @see NodeEventDispatcher#setCoalescing(boolean)
+ */
+public interface INodeChangeEvent {
+
+    /**
+     * Returns the new value of the control.
+     */
+    float getValue();
+
+    /**
+     * Sets the value of a copy.
+     *
+     * @param value The new value of the control.
+     */
+    void setValue(float value);
+
+    /**
+     * Returns a new, unpooled event of the same class, target, control and
+     * value.
+     */
+    NodeEvent copy();
+}
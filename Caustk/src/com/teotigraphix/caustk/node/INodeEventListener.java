@@ -0,0 +1,40 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node;
+
+import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
+
+/**
+ * A typed listener of the {@link NodeEventDispatcher}.
+ * <p>
+ * Change events may be pooled, an event is only valid during the call.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public interface INodeEventListener<T extends NodeEvent> {
+
+    /**
+     * Called for each event the listener is subscribed to.
+     *
+     * @param event The event, do not keep a reference.
+     */
+    void onEvent(T event);
+}
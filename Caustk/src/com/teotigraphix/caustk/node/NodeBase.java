@@ -292,12 +292,13 @@ public abstract class NodeBase implements ICaustkNode {
 
     /**
      * Posts a {@link NodeEvent} event to all subscribers of the
-     * {@link com.teotigraphix.caustk.core.internal.CaustkRack#getEventBus()}.
+     * {@link com.teotigraphix.caustk.core.internal.CaustkRack#getEventDispatcher()}
+     * .
      * 
      * @param event The {@link NodeEvent}.
      */
     protected void post(NodeEvent event) {
-        getRack().getEventBus().post(event);
+        getRack().getEventDispatcher().post(event);
     }
 
     /**
@@ -19,6 +19,11 @@ public class NodeBaseEvents {
 
         private IOSCControl control;
 
+        /**
+         * The pool of a pooled event during its dispatch.
+         */
+        transient NodeEventPool<?> pool;
+
         /**
          * Returns the {@link NodeBase} target that posted the event.
          */
@@ -48,6 +53,23 @@ public class NodeBaseEvents {
             this.target = target;
             this.control = control;
         }
+
+        /**
+         * Creates an event for a {@link NodeEventPool}.
+         */
+        protected NodeEvent() {
+        }
+
+        /**
+         * Sets the target and control of a pooled event.
+         * 
+         * @param target The {@link NodeBase} target that posts the event.
+         * @param control The OSC control, <code>null</code> if none.
+         */
+        protected final void reset(NodeBase target, IOSCControl control) {
+            this.target = target;
+            this.control = control;
+        }
     }
 
     /**
@@ -0,0 +1,520 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.common.eventbus.Subscribe;
+import com.teotigraphix.caustk.core.osc.IOSCControl;
+import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
+
+/**
+ * The {@link NodeEventDispatcher} delivers {@link NodeEvent}s to typed
+ * listeners without reflection.
+ * <p>
+ * A listener subscribes to an event class and optionally to one target node
+ * and one control. The listeners of each posted event class are resolved once
+ * and kept per target node, a post is two map lookups and a direct call per
+ * listener. Listeners of any target are called before the listeners of the
+ * event's target, each in subscription order.
+ * <p>
+ * {@link #register(Object)} bridges {@link Subscribe} methods taking a
+ * {@link NodeEvent} type, the method is found once and invoked reflectively.
+ * <p>
+ * Dispatch is synchronous on the posting thread. An event posted by a listener
+ * is queued and dispatched after the current event reached all its listeners,
+ * in the order posted, as with the Guava EventBus. A listener exception is
+ * logged and does not stop the dispatch. Pooled events are returned to their
+ * {@link NodeEventPool} after their dispatch.
+ * <p>
+ * With {@link #setCoalescing(boolean)} {@link INodeChangeEvent}s are merged
+ * per node and control and dispatched by {@link #frameChanged(float)}, on the
+ * frame thread, with the last value of each control. All other events are
+ * dispatched at once.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class NodeEventDispatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(NodeEventDispatcher.class.getName());
+
+    private static final Subscription[] EMPTY = new Subscription[0];
+
+    private final List<Subscription> subscriptions = new ArrayList<Subscription>();
+
+    private final Map<Class<?>, Route> routes = new ConcurrentHashMap<Class<?>, Route>();
+
+    private final ThreadLocal<Dispatch> dispatches = new ThreadLocal<Dispatch>() {
+        @Override
+        protected Dispatch initialValue() {
+            return new Dispatch();
+        }
+    };
+
+    private final Object changeLock = new Object();
+
+    private Map<NodeBase, Map<IOSCControl, INodeChangeEvent>> changes =
+            new IdentityHashMap<NodeBase, Map<IOSCControl, INodeChangeEvent>>();
+
+    private List<NodeEvent> changeOrder = new ArrayList<NodeEvent>();
+
+    private volatile boolean coalescing;
+
+    private float flushInterval;
+
+    private float elapsed;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    //----------------------------------
+    // coalescing
+    //----------------------------------
+
+    public boolean isCoalescing() {
+        return coalescing;
+    }
+
+    /**
+     * Sets whether {@link INodeChangeEvent}s are merged until the next flush,
+     * pending changes are dispatched when coalescing is turned off.
+     *
+     * @param coalescing Whether change events are merged.
+     */
+    public void setCoalescing(boolean coalescing) {
+        this.coalescing = coalescing;
+        if (!coalescing)
+            flush();
+    }
+
+    //----------------------------------
+    // flushInterval
+    //----------------------------------
+
+    public float getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * Sets the minimum time between flushes while coalescing, 0 flushes every
+     * frame (default).
+     *
+     * @param flushInterval The interval in seconds.
+     */
+    public void setFlushInterval(float flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Subscribes a listener to all events of a class and its subclasses.
+     *
+     * @param type The event class.
+     * @param listener The listener.
+     */
+    public <T extends NodeEvent> void addListener(Class<T> type,
+            INodeEventListener<? super T> listener) {
+        add(new Subscription(type, null, null, listener, null));
+    }
+
+    /**
+     * Subscribes a listener to the events of a class posted by one node.
+     *
+     * @param type The event class.
+     * @param target The node posting the events.
+     * @param listener The listener.
+     */
+    public <T extends NodeEvent> void addListener(Class<T> type, NodeBase target,
+            INodeEventListener<? super T> listener) {
+        add(new Subscription(type, target, null, listener, null));
+    }
+
+    /**
+     * Subscribes a listener to the events of a class posted by one node for one
+     * control.
+     *
+     * @param type The event class.
+     * @param target The node posting the events.
+     * @param control The control of the events.
+     * @param listener The listener.
+     */
+    public <T extends NodeEvent> void addListener(Class<T> type, NodeBase target,
+            IOSCControl control, INodeEventListener<? super T> listener) {
+        add(new Subscription(type, target, control, listener, null));
+    }
+
+    /**
+     * Removes all subscriptions of a listener.
+     *
+     * @param listener The listener.
+     */
+    public synchronized void removeListener(INodeEventListener<?> listener) {
+        boolean changed = false;
+        for (Iterator<Subscription> i = subscriptions.iterator(); i.hasNext();) {
+            if (i.next().listener == listener) {
+                i.remove();
+                changed = true;
+            }
+        }
+        if (changed)
+            resolveAll();
+    }
+
+    /**
+     * Subscribes the {@link Subscribe} methods of an object that take a
+     * {@link NodeEvent} type, or a super type of {@link NodeEvent}.
+     *
+     * @param subscriber The object with {@link Subscribe} methods.
+     */
+    public synchronized void register(Object subscriber) {
+        boolean changed = false;
+        final Set<String> signatures = new HashSet<String>();
+        for (Class<?> type = subscriber.getClass(); type != null; type = type.getSuperclass()) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (!method.isAnnotationPresent(Subscribe.class) || method.isBridge())
+                    continue;
+                final Class<?>[] parameters = method.getParameterTypes();
+                // an overridden method is only called once
+                if (parameters.length != 1
+                        || !signatures.add(method.getName() + parameters[0].getName()))
+                    continue;
+                Class<?> eventType = parameters[0];
+                if (eventType.isAssignableFrom(NodeEvent.class)) {
+                    eventType = NodeEvent.class;
+                } else if (!NodeEvent.class.isAssignableFrom(eventType)) {
+                    continue;
+                }
+                method.setAccessible(true);
+                subscriptions.add(new Subscription(eventType, null, null, new MethodListener(
+                        subscriber, method), subscriber));
+                changed = true;
+            }
+        }
+        if (changed)
+            resolveAll();
+    }
+
+    /**
+     * Removes the {@link Subscribe} methods of an object.
+     *
+     * @param subscriber The object passed to {@link #register(Object)}.
+     */
+    public synchronized void unregister(Object subscriber) {
+        boolean changed = false;
+        for (Iterator<Subscription> i = subscriptions.iterator(); i.hasNext();) {
+            if (i.next().owner == subscriber) {
+                i.remove();
+                changed = true;
+            }
+        }
+        if (changed)
+            resolveAll();
+    }
+
+    /**
+     * Delivers an event to its listeners.
+     *
+     * @param event The event.
+     */
+    public void post(NodeEvent event) {
+        if (coalescing && event instanceof INodeChangeEvent && event.getTarget() != null) {
+            merge(event);
+            release(event);
+            return;
+        }
+        enqueue(event);
+    }
+
+    /**
+     * Dispatches the merged changes when the flush interval has passed, call
+     * once per render frame.
+     *
+     * @param deltaTime The time since the last frame in seconds.
+     */
+    public void frameChanged(float deltaTime) {
+        elapsed += deltaTime;
+        if (elapsed < flushInterval)
+            return;
+        elapsed = 0f;
+        flush();
+    }
+
+    /**
+     * Dispatches the merged changes, one event per node and control in the
+     * order of their first change.
+     * <p>
+     * Changes posted by listeners during the flush wait for the next flush.
+     */
+    public void flush() {
+        final List<NodeEvent> pending;
+        synchronized (changeLock) {
+            if (changeOrder.isEmpty())
+                return;
+            pending = changeOrder;
+            changeOrder = new ArrayList<NodeEvent>();
+            changes = new IdentityHashMap<NodeBase, Map<IOSCControl, INodeChangeEvent>>();
+        }
+        for (NodeEvent event : pending) {
+            enqueue(event);
+        }
+    }
+
+    /**
+     * Whether any listener receives events of the class.
+     *
+     * @param type The event class.
+     */
+    public boolean hasListeners(Class<? extends NodeEvent> type) {
+        Route route = routes.get(type);
+        if (route == null)
+            route = resolve(type);
+        return route.any.length > 0 || route.byTarget != null;
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private void enqueue(NodeEvent event) {
+        final Dispatch dispatch = dispatches.get();
+        dispatch.queue.add(event);
+        // a post of a listener is dispatched by the outer loop
+        if (dispatch.dispatching)
+            return;
+        dispatch.dispatching = true;
+        try {
+            NodeEvent next;
+            while ((next = dispatch.queue.poll()) != null) {
+                try {
+                    deliver(next);
+                } finally {
+                    release(next);
+                }
+            }
+        } finally {
+            dispatch.dispatching = false;
+        }
+    }
+
+    private static void release(NodeEvent event) {
+        if (event.pool != null)
+            event.pool.free(event);
+    }
+
+    private void deliver(NodeEvent event) {
+        Route route = routes.get(event.getClass());
+        if (route == null)
+            route = resolve(event.getClass());
+        dispatch(route.any, event);
+        if (route.byTarget != null) {
+            final Subscription[] targeted = route.byTarget.get(event.getTarget());
+            if (targeted != null)
+                dispatch(targeted, event);
+        }
+    }
+
+    private void merge(NodeEvent event) {
+        final INodeChangeEvent change = (INodeChangeEvent)event;
+        synchronized (changeLock) {
+            Map<IOSCControl, INodeChangeEvent> controls = changes.get(event.getTarget());
+            if (controls == null) {
+                controls = new HashMap<IOSCControl, INodeChangeEvent>();
+                changes.put(event.getTarget(), controls);
+            }
+            final INodeChangeEvent pending = controls.get(event.getControl());
+            if (pending != null && pending.getClass() == event.getClass()) {
+                pending.setValue(change.getValue());
+                return;
+            }
+            // the posted event may be pooled, keep a copy
+            final NodeEvent copy = change.copy();
+            controls.put(event.getControl(), (INodeChangeEvent)copy);
+            changeOrder.add(copy);
+        }
+    }
+
+    private synchronized void add(Subscription subscription) {
+        subscriptions.add(subscription);
+        for (Class<?> type : routes.keySet()) {
+            if (subscription.type.isAssignableFrom(type))
+                routes.put(type, createRoute(type));
+        }
+    }
+
+    private synchronized Route resolve(Class<?> type) {
+        Route route = routes.get(type);
+        if (route == null) {
+            route = createRoute(type);
+            routes.put(type, route);
+        }
+        return route;
+    }
+
+    private void resolveAll() {
+        for (Class<?> type : routes.keySet()) {
+            routes.put(type, createRoute(type));
+        }
+    }
+
+    private Route createRoute(Class<?> type) {
+        final List<Subscription> any = new ArrayList<Subscription>();
+        Map<NodeBase, List<Subscription>> targets = null;
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.type.isAssignableFrom(type))
+                continue;
+            if (subscription.target == null) {
+                any.add(subscription);
+                continue;
+            }
+            if (targets == null)
+                targets = new IdentityHashMap<NodeBase, List<Subscription>>();
+            List<Subscription> list = targets.get(subscription.target);
+            if (list == null) {
+                list = new ArrayList<Subscription>(1);
+                targets.put(subscription.target, list);
+            }
+            list.add(subscription);
+        }
+
+        Map<NodeBase, Subscription[]> byTarget = null;
+        if (targets != null) {
+            byTarget = new IdentityHashMap<NodeBase, Subscription[]>(targets.size());
+            for (Map.Entry<NodeBase, List<Subscription>> entry : targets.entrySet()) {
+                byTarget.put(entry.getKey(), entry.getValue().toArray(EMPTY));
+            }
+        }
+        return new Route(any.isEmpty() ? EMPTY : any.toArray(EMPTY), byTarget);
+    }
+
+    @SuppressWarnings({
+            "unchecked", "rawtypes"
+    })
+    private static void dispatch(Subscription[] subscriptions, NodeEvent event) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.control != null && subscription.control != event.getControl())
+                continue;
+            try {
+                ((INodeEventListener)subscription.listener).onEvent(event);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Could not dispatch event: " + event + " to "
+                        + subscription.listener, e);
+            }
+        }
+    }
+
+    private static final class Subscription {
+
+        final Class<?> type;
+
+        final NodeBase target;
+
+        final IOSCControl control;
+
+        final INodeEventListener<?> listener;
+
+        final Object owner;
+
+        Subscription(Class<?> type, NodeBase target, IOSCControl control,
+                INodeEventListener<?> listener, Object owner) {
+            this.type = type;
+            this.target = target;
+            this.control = control;
+            this.listener = listener;
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * The resolved listeners of one event class, replaced when the
+     * subscriptions change.
+     */
+    private static final class Route {
+
+        final Subscription[] any;
+
+        final Map<NodeBase, Subscription[]> byTarget;
+
+        Route(Subscription[] any, Map<NodeBase, Subscription[]> byTarget) {
+            this.any = any;
+            this.byTarget = byTarget;
+        }
+    }
+
+    /**
+     * The events posted on one thread and not dispatched yet.
+     */
+    private static final class Dispatch {
+
+        final ArrayDeque<NodeEvent> queue = new ArrayDeque<NodeEvent>();
+
+        boolean dispatching;
+    }
+
+    /**
+     * Calls a {@link Subscribe} method of a registered object.
+     */
+    private static final class MethodListener implements INodeEventListener<NodeEvent> {
+
+        private final Object subscriber;
+
+        private final Method method;
+
+        MethodListener(Object subscriber, Method method) {
+            this.subscriber = subscriber;
+            this.method = method;
+        }
+
+        @Override
+        public void onEvent(NodeEvent event) {
+            try {
+                method.invoke(subscriber, event);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof Error)
+                    throw (Error)e.getCause();
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        @Override
+        public String toString() {
+            return subscriber.getClass().getName() + "#" + method.getName();
+        }
+    }
+}
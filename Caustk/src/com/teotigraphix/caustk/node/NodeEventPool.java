@@ -0,0 +1,114 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node;
+
+import com.teotigraphix.caustk.core.osc.IOSCControl;
+import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
+
+/**
+ * A small pool of reusable {@link INodeChangeEvent}s for events posted on
+ * every value change.
+ * <p>
+ * {@link #post(NodeBase, IOSCControl, float)} obtains an event and posts it,
+ * the {@link NodeEventDispatcher} returns the event to its pool after the
+ * dispatch. A pooled event is only valid during dispatch, listeners must not
+ * keep a reference. Nested posts of the same event type obtain a different
+ * instance.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public abstract class NodeEventPool<T extends NodeEvent & INodeChangeEvent> {
+
+    private final Object[] events;
+
+    private int size;
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates a pool.
+     *
+     * @param capacity The maximum number of free events kept.
+     */
+    public NodeEventPool(int capacity) {
+        events = new Object[capacity];
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Posts a change event of the node's control.
+     *
+     * @param target The node posting the event.
+     * @param control The changed control.
+     * @param value The new value of the control.
+     */
+    public final void post(NodeBase target, IOSCControl control, float value) {
+        final T event = obtain();
+        event.reset(target, control);
+        event.setValue(value);
+        event.pool = this;
+        target.post(event);
+    }
+
+    //--------------------------------------------------------------------------
+    // Internal :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns an event to the pool, its target and control are cleared.
+     *
+     * @param event An event obtained from this pool.
+     */
+    @SuppressWarnings("unchecked")
+    final synchronized void free(NodeEvent event) {
+        event.pool = null;
+        event.reset(null, null);
+        if (size < events.length)
+            events[size++] = (T)event;
+    }
+
+    //--------------------------------------------------------------------------
+    // Protected :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates a new event for the pool.
+     */
+    protected abstract T newEvent();
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private synchronized T obtain() {
+        if (size == 0)
+            return newEvent();
+        final T event = (T)events[--size];
+        events[size] = null;
+        return event;
+    }
+}
@@ -36,6 +36,7 @@ import com.teotigraphix.caustk.core.osc.OSCUtils;
 import com.teotigraphix.caustk.core.osc.RackMessage;
 import com.teotigraphix.caustk.core.osc.RackMessage.RackControl;
 import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
+import com.teotigraphix.caustk.node.automation.AutomationChannel;
 import com.teotigraphix.caustk.node.machine.Machine;
 import com.teotigraphix.caustk.node.machine.MachineType;
 import com.teotigraphix.caustk.node.machine.patch.MixerChannel.OnRackSoloRefresh;
@@ -70,6 +71,9 @@ public class RackInstance extends NodeBase {
     @Tag(54)
     private int selectedIndex = 0;
 
+    @Tag(55)
+    private AutomationChannel automation;
+
     //--------------------------------------------------------------------------
     // Public Property API
     //--------------------------------------------------------------------------
@@ -180,6 +184,20 @@ public class RackInstance extends NodeBase {
         return sequencer;
     }
 
+    //----------------------------------
+    // automation
+    //----------------------------------
+
+    /**
+     * The rack's recorded control automation.
+     */
+    public AutomationChannel getAutomation() {
+        // racks saved before automation have none
+        if (automation == null)
+            automation = new AutomationChannel(this);
+        return automation;
+    }
+
     //----------------------------------
     // sequencer
     //----------------------------------
@@ -249,6 +267,7 @@ public class RackInstance extends NodeBase {
         master = new MasterChannel(this);
         machines = new HashMap<Integer, Machine>();
         sequencer = new MasterSequencerChannel(this);
+        automation = new AutomationChannel(this);
     }
 
     /**
@@ -286,6 +305,9 @@ public class RackInstance extends NodeBase {
         master = new MasterChannel(this);
         sequencer = new MasterSequencerChannel(this);
         machines = new HashMap<Integer, Machine>();
+        if (automation != null)
+            automation.destroy();
+        automation = new AutomationChannel(this);
 
         create();
     }
@@ -330,6 +352,7 @@ public class RackInstance extends NodeBase {
     Machine createMachine(Machine machineNode) {
         addMachine(machineNode);
         machineNode.create();
+        getRack().getSamplePool().releaseMachine(machineNode.getIndex());
         return machineNode;
     }
 
@@ -346,6 +369,8 @@ public class RackInstance extends NodeBase {
     public <T extends Machine> T destroyMachine(int index) {
         Machine machineNode = removeMachine(index);
         machineNode.destroy();
+        getAutomation().removeLanes(index);
+        getRack().getSamplePool().releaseMachine(index);
         if (selectedIndex == index) {
             for (int i = index; i >= 0; i--) {
                 if (machines.containsKey(i))
@@ -400,6 +425,7 @@ public class RackInstance extends NodeBase {
             throw new IOException(".caustic File not found: " + causticFile);
 
         RackMessage.LOAD_SONG.send(getRack(), causticFile.getAbsolutePath());
+        getRack().getSamplePool().releaseAll();
     }
 
     public File saveSong(String name) {
@@ -459,6 +485,7 @@ public class RackInstance extends NodeBase {
         }
 
         sequencer.create();
+        getAutomation().create();
     }
 
     @Override
@@ -472,6 +499,7 @@ public class RackInstance extends NodeBase {
         }
 
         sequencer.destroy();
+        getAutomation().destroy();
     }
 
     @Override
@@ -484,6 +512,7 @@ public class RackInstance extends NodeBase {
         }
 
         sequencer.update();
+        getAutomation().update();
     }
 
     @Override
@@ -512,6 +541,7 @@ public class RackInstance extends NodeBase {
         }
 
         sequencer.restore();
+        getAutomation().restore();
     }
 
     //--------------------------------------------------------------------------
@@ -0,0 +1,452 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node.automation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
+import com.teotigraphix.caustk.core.osc.IAutomatableControl;
+import com.teotigraphix.caustk.core.osc.IEffectControl;
+import com.teotigraphix.caustk.core.osc.IMachineControl;
+import com.teotigraphix.caustk.core.osc.IOSCControl;
+import com.teotigraphix.caustk.core.osc.MixerControls;
+import com.teotigraphix.caustk.core.osc.OSCControlKind;
+import com.teotigraphix.caustk.node.INodeChangeEvent;
+import com.teotigraphix.caustk.node.INodeEventListener;
+import com.teotigraphix.caustk.node.NodeBase;
+import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
+import com.teotigraphix.caustk.node.RackInstance;
+import com.teotigraphix.caustk.node.effect.EffectNode;
+import com.teotigraphix.caustk.node.machine.Machine;
+import com.teotigraphix.caustk.node.machine.PCMSynthMachine;
+import com.teotigraphix.caustk.node.machine.patch.MixerChannel;
+
+/**
+ * The {@link AutomationChannel} records and plays back the
+ * {@link AutomationLane}s of a rack.
+ * <p>
+ * While recording and the sequencer is playing, every change event of an
+ * {@link IAutomatableControl} posted by a mixer channel or effect is added to
+ * the control's lane at the current song beat; other controls are recorded
+ * with {@link #record(int, int, IAutomatableControl, float)}. Points a pass
+ * records over are replaced and the lanes touched by a pass are thinned with
+ * the {@link #getTolerance()} when recording stops.
+ * <p>
+ * Playback runs on {@link #frameChanged(float)}, each lane is interpolated at
+ * the current song beat once per frame and a value is only sent when it moved
+ * by at least the lane's {@link AutomationLane#getResolution()}.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class AutomationChannel extends NodeBase {
+
+    /**
+     * The default thinning tolerance, a fraction of the control range.
+     */
+    public static final float DEFAULT_TOLERANCE = 0.005f;
+
+    private static final String TAG = "AutomationChannel";
+
+    //--------------------------------------------------------------------------
+    // Serialized API
+    //--------------------------------------------------------------------------
+
+    @Tag(50)
+    private RackInstance rackNode;
+
+    @Tag(51)
+    private List<AutomationLane> lanes = new ArrayList<AutomationLane>();
+
+    @Tag(52)
+    private float tolerance = DEFAULT_TOLERANCE;
+
+    @Tag(53)
+    private boolean playbackEnabled = true;
+
+    //--------------------------------------------------------------------------
+    // Private :: Variables
+    //--------------------------------------------------------------------------
+
+    private transient boolean recording;
+
+    /**
+     * The lanes recorded by the current pass and the beat of the last point.
+     */
+    private transient Map<AutomationLane, float[]> touched =
+            new IdentityHashMap<AutomationLane, float[]>();
+
+    /**
+     * The last value sent per lane, reset when the sequencer starts.
+     */
+    private transient Map<AutomationLane, float[]> sent =
+            new IdentityHashMap<AutomationLane, float[]>();
+
+    private transient boolean playing;
+
+    private transient boolean applying;
+
+    private transient INodeEventListener<NodeEvent> recordListener;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    //----------------------------------
+    // lanes
+    //----------------------------------
+
+    /**
+     * Returns the lanes in creation order.
+     */
+    public List<AutomationLane> getLanes() {
+        return Collections.unmodifiableList(lanes);
+    }
+
+    //----------------------------------
+    // tolerance
+    //----------------------------------
+
+    /**
+     * Returns the value error allowed when a recorded lane is thinned, as a
+     * fraction (0..1) of the control range.
+     */
+    public float getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Sets the thinning tolerance, 0 only removes points on a straight line.
+     *
+     * @param tolerance The fraction (0..1) of the control range.
+     */
+    public void setTolerance(float tolerance) {
+        if (tolerance < 0f || tolerance > 1f)
+            throw newRangeException("tolerance", "0..1", tolerance);
+        this.tolerance = tolerance;
+    }
+
+    //----------------------------------
+    // playbackEnabled
+    //----------------------------------
+
+    public boolean isPlaybackEnabled() {
+        return playbackEnabled;
+    }
+
+    /**
+     * Sets whether the lanes are played back while the sequencer plays.
+     *
+     * @param playbackEnabled Whether the lanes are played back.
+     */
+    public void setPlaybackEnabled(boolean playbackEnabled) {
+        this.playbackEnabled = playbackEnabled;
+        sent.clear();
+    }
+
+    //----------------------------------
+    // recording
+    //----------------------------------
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Starts or stops recording control changes.
+     * <p>
+     * Stopping thins every lane recorded since the start.
+     *
+     * @param recording Whether control changes are recorded.
+     */
+    public void setRecording(boolean recording) {
+        if (recording == this.recording)
+            return;
+        this.recording = recording;
+        if (recording) {
+            recordListener = new INodeEventListener<NodeEvent>() {
+                @Override
+                public void onEvent(NodeEvent event) {
+                    recordEvent(event);
+                }
+            };
+            getRack().getEventDispatcher().addListener(NodeEvent.class, recordListener);
+        } else {
+            getRack().getEventDispatcher().removeListener(recordListener);
+            recordListener = null;
+            endPass();
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Serialization.
+     */
+    public AutomationChannel() {
+    }
+
+    public AutomationChannel(RackInstance rackNode) {
+        this.rackNode = rackNode;
+    }
+
+    //--------------------------------------------------------------------------
+    // Public API :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the lane of a control, <code>null</code> if none exists.
+     *
+     * @param machineIndex The machine index.
+     * @param slot The effect slot, -1 for machine and mixer controls.
+     * @param control The control.
+     */
+    public AutomationLane getLane(int machineIndex, int slot, IAutomatableControl control) {
+        for (AutomationLane lane : lanes) {
+            if (lane.isTarget(machineIndex, slot, control))
+                return lane;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the lane of a control, a new lane is added if none exists.
+     *
+     * @param machineIndex The machine index.
+     * @param slot The effect slot, -1 for machine and mixer controls.
+     * @param control The control.
+     */
+    public AutomationLane addLane(int machineIndex, int slot, IAutomatableControl control) {
+        AutomationLane lane = getLane(machineIndex, slot, control);
+        if (lane == null) {
+            lane = new AutomationLane(machineIndex, slot, control);
+            lanes.add(lane);
+        }
+        return lane;
+    }
+
+    /**
+     * Removes a lane.
+     *
+     * @param lane The lane.
+     * @return Whether the lane was removed.
+     */
+    public boolean removeLane(AutomationLane lane) {
+        touched.remove(lane);
+        sent.remove(lane);
+        return lanes.remove(lane);
+    }
+
+    /**
+     * Removes all lanes of a machine, called when the machine is destroyed.
+     *
+     * @param machineIndex The machine index.
+     */
+    public void removeLanes(int machineIndex) {
+        for (Iterator<AutomationLane> i = lanes.iterator(); i.hasNext();) {
+            final AutomationLane lane = i.next();
+            if (lane.getMachineIndex() == machineIndex) {
+                touched.remove(lane);
+                sent.remove(lane);
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Records a value at the current song beat.
+     * <p>
+     * The beat is snapped to the serializer's tick grid, the points between the
+     * previous value of this pass and the beat are replaced. Ignored when not
+     * recording or the sequencer is stopped.
+     *
+     * @see AutomationLaneSerializer#quantize(float)
+     *
+     * @param machineIndex The machine index.
+     * @param slot The effect slot, -1 for machine and mixer controls.
+     * @param control The control.
+     * @param value The control value.
+     * @return Whether the value was recorded.
+     */
+    public boolean record(int machineIndex, int slot, IAutomatableControl control, float value) {
+        if (!recording || !rackNode.getSequencer().isPlaying())
+            return false;
+
+        final float beat = AutomationLaneSerializer.quantize(getRack().getCurrentBeat());
+        final AutomationLane lane = addLane(machineIndex, slot, control);
+        float[] last = touched.get(lane);
+        if (last == null) {
+            last = new float[] {
+                beat
+            };
+            touched.put(lane, last);
+        } else if (beat > last[0]) {
+            lane.remove(last[0], beat);
+        }
+        lane.add(beat, value);
+        last[0] = beat;
+        return true;
+    }
+
+    /**
+     * Thins the lanes recorded since the last call, ends the current pass
+     * without leaving record.
+     */
+    public void endPass() {
+        for (AutomationLane lane : touched.keySet()) {
+            lane.thin(tolerance);
+        }
+        touched.clear();
+    }
+
+    //--------------------------------------------------------------------------
+    // Frame :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Sends the lane values at the current song beat, called once per render
+     * frame.
+     * <p>
+     * Lanes recorded by the current pass are not played back.
+     *
+     * @param deltaTime The time since the last frame in seconds.
+     */
+    public void frameChanged(float deltaTime) {
+        final boolean playing = rackNode.getSequencer().isPlaying();
+        if (playing != this.playing) {
+            this.playing = playing;
+            // send every lane once when the transport starts
+            sent.clear();
+            if (!playing && recording)
+                endPass();
+        }
+        if (!playing || !playbackEnabled || lanes.isEmpty())
+            return;
+
+        final float beat = getRack().getCurrentBeat();
+        for (int i = 0; i < lanes.size(); i++) {
+            final AutomationLane lane = lanes.get(i);
+            if (!lane.isEnabled() || lane.isEmpty() || touched.containsKey(lane))
+                continue;
+
+            float value = lane.getValueAt(beat);
+            if (lane.getControl().getKind() != OSCControlKind.Float)
+                value = Math.round(value);
+
+            float[] last = sent.get(lane);
+            if (last == null) {
+                last = new float[1];
+                sent.put(lane, last);
+            } else if (Math.abs(value - last[0]) < lane.getResolution()) {
+                continue;
+            }
+            last[0] = value;
+            apply(lane, value);
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Overridden Protected :: Methods
+    //--------------------------------------------------------------------------
+
+    @Override
+    protected void createComponents() {
+    }
+
+    @Override
+    protected void destroyComponents() {
+        setRecording(false);
+        sent.clear();
+    }
+
+    @Override
+    protected void updateComponents() {
+    }
+
+    @Override
+    protected void restoreComponents() {
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private void recordEvent(NodeEvent event) {
+        if (applying || !(event instanceof INodeChangeEvent))
+            return;
+        final IOSCControl control = event.getControl();
+        if (!(control instanceof IAutomatableControl))
+            return;
+
+        final NodeBase target = event.getTarget();
+        int slot = -1;
+        int machineIndex;
+        if (target instanceof EffectNode) {
+            machineIndex = ((EffectNode)target).getMachineIndex();
+            slot = ((EffectNode)target).getSlot();
+        } else if (target instanceof MixerChannel) {
+            machineIndex = ((MixerChannel)target).getMachineIndex();
+        } else {
+            return;
+        }
+
+        final float value = ((INodeChangeEvent)event).getValue();
+        final AutomationLane lane = getLane(machineIndex, slot, (IAutomatableControl)control);
+        // coalesced events of played back values arrive after apply() returned
+        if (lane != null && !touched.containsKey(lane)) {
+            final float[] last = sent.get(lane);
+            if (last != null && last[0] == value)
+                return;
+        }
+        record(machineIndex, slot, (IAutomatableControl)control, value);
+    }
+
+    private void apply(AutomationLane lane, float value) {
+        final int machineIndex = lane.getMachineIndex();
+        if (!rackNode.containsMachine(machineIndex))
+            return;
+
+        final Machine machine = rackNode.getMachine(machineIndex);
+        final IAutomatableControl control = lane.getControl();
+        applying = true;
+        try {
+            if (control instanceof MixerControls) {
+                machine.getMixer().invoke((MixerControls)control, value);
+            } else if (control instanceof IEffectControl) {
+                final EffectNode effect = machine.getEffect().getEfffect(lane.getSlot());
+                if (effect != null)
+                    effect.invoke((IEffectControl)control, value);
+            } else if (control instanceof IMachineControl && machine instanceof PCMSynthMachine) {
+                ((PCMSynthMachine)machine).invoke((IMachineControl)control, value);
+            }
+        } catch (RuntimeException e) {
+            getLogger().err(TAG, "Could not apply automation " + lane, e);
+        } finally {
+            applying = false;
+        }
+    }
+}
@@ -0,0 +1,463 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node.automation;
+
+import java.util.Arrays;
+
+import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
+import com.teotigraphix.caustk.core.osc.IAutomatableControl;
+import com.teotigraphix.caustk.core.osc.OSCControlKind;
+
+/**
+ * The {@link AutomationLane} holds the recorded values of one control of one
+ * machine, mixer channel or effect slot.
+ * <p>
+ * Points are kept in two parallel primitive arrays (beat, value) sorted by
+ * beat. Between points {@link OSCControlKind#Float} controls are interpolated
+ * linearly, all other kinds hold the value of the previous point.
+ * <p>
+ * The points are serialized in the delta beat format of the
+ * {@link AutomationLaneSerializer}.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public final class AutomationLane {
+
+    /**
+     * The number of value steps of a {@link OSCControlKind#Float} control
+     * range, smaller changes are not sent during playback.
+     */
+    public static final int FLOAT_RESOLUTION = 1000;
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    //--------------------------------------------------------------------------
+    // Serialized API
+    //--------------------------------------------------------------------------
+
+    @Tag(0)
+    private int machineIndex;
+
+    @Tag(1)
+    private int slot = -1;
+
+    @Tag(2)
+    private IAutomatableControl control;
+
+    @Tag(3)
+    private boolean enabled = true;
+
+    @Tag(4)
+    private byte[] pointData;
+
+    //--------------------------------------------------------------------------
+    // Private :: Variables
+    //--------------------------------------------------------------------------
+
+    private transient float[] beats = new float[0];
+
+    private transient float[] values = new float[0];
+
+    private transient int size;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the index of the machine the lane automates.
+     */
+    public int getMachineIndex() {
+        return machineIndex;
+    }
+
+    /**
+     * Returns the effect slot of an effect control, -1 for machine and mixer
+     * controls.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Returns the automated control.
+     */
+    public IAutomatableControl getControl() {
+        return control;
+    }
+
+    /**
+     * Returns whether the lane is played back.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the smallest value change sent during playback, 1 for integer,
+     * enum and boolean controls.
+     */
+    public float getResolution() {
+        if (control.getKind() != OSCControlKind.Float)
+            return 1f;
+        return (control.getMax() - control.getMin()) / FLOAT_RESOLUTION;
+    }
+
+    /**
+     * Returns the number of points.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the beat of a point.
+     *
+     * @param index The point index.
+     */
+    public float getBeat(int index) {
+        checkIndex(index);
+        return beats[index];
+    }
+
+    /**
+     * Returns the value of a point.
+     *
+     * @param index The point index.
+     */
+    public float getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Serialization
+     */
+    public AutomationLane() {
+    }
+
+    /**
+     * Creates a lane.
+     *
+     * @param machineIndex The machine index.
+     * @param slot The effect slot of an effect control, -1 otherwise.
+     * @param control The automated control.
+     */
+    public AutomationLane(int machineIndex, int slot, IAutomatableControl control) {
+        if (control == null)
+            throw new IllegalArgumentException("control cannot be null");
+        this.machineIndex = machineIndex;
+        this.slot = slot;
+        this.control = control;
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns whether the lane automates the control.
+     *
+     * @param machineIndex The machine index.
+     * @param slot The effect slot, -1 for machine and mixer controls.
+     * @param control The control.
+     */
+    public boolean isTarget(int machineIndex, int slot, IAutomatableControl control) {
+        return this.machineIndex == machineIndex && this.slot == slot && this.control == control;
+    }
+
+    /**
+     * Adds a point, a point at the same beat is replaced.
+     * <p>
+     * Appending in beat order is constant time.
+     *
+     * @param beat The song beat.
+     * @param value The value, clamped to the control range.
+     * @return The index of the point.
+     */
+    public int add(float beat, float value) {
+        value = Math.max(control.getMin(), Math.min(control.getMax(), value));
+        final int index = lowerBound(beat);
+        if (index < size && beats[index] == beat) {
+            values[index] = value;
+            return index;
+        }
+
+        ensureCapacity(size + 1);
+        final int tail = size - index;
+        if (tail > 0) {
+            System.arraycopy(beats, index, beats, index + 1, tail);
+            System.arraycopy(values, index, values, index + 1, tail);
+        }
+        beats[index] = beat;
+        values[index] = value;
+        size++;
+        return index;
+    }
+
+    /**
+     * Removes a point.
+     *
+     * @param index The point index.
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        removeRange(index, index + 1);
+    }
+
+    /**
+     * Removes the points with a beat greater than <code>fromBeat</code> and
+     * less than or equal to <code>toBeat</code>.
+     *
+     * @param fromBeat The exclusive start beat.
+     * @param toBeat The inclusive end beat.
+     * @return The number of points removed.
+     */
+    public int remove(float fromBeat, float toBeat) {
+        final int from = upperBound(fromBeat);
+        final int to = upperBound(toBeat);
+        if (from >= to)
+            return 0;
+        removeRange(from, to);
+        return to - from;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the value at a beat.
+     * <p>
+     * Before the first point the value of the first point is returned.
+     *
+     * @param beat The song beat.
+     * @throws IllegalStateException the lane is empty
+     */
+    public float getValueAt(float beat) {
+        if (size == 0)
+            throw new IllegalStateException("Lane is empty: " + this);
+        final int next = upperBound(beat);
+        if (next == 0)
+            return values[0];
+        final int previous = next - 1;
+        if (next == size || control.getKind() != OSCControlKind.Float)
+            return values[previous];
+        final float start = beats[previous];
+        final float ratio = (beat - start) / (beats[next] - start);
+        return values[previous] + (values[next] - values[previous]) * ratio;
+    }
+
+    /**
+     * Removes the points that playback can do without, using the
+     * Ramer-Douglas-Peucker algorithm on the interpolated curve.
+     * <p>
+     * Controls that are not interpolated only lose points that repeat the
+     * previous value.
+     *
+     * @param tolerance The allowed value error as a fraction (0..1) of the
+     *            control range.
+     * @return The number of points removed.
+     */
+    public int thin(float tolerance) {
+        if (size < 3)
+            return 0;
+
+        final boolean[] keep = new boolean[size];
+        if (control.getKind() == OSCControlKind.Float) {
+            final float epsilon = tolerance * (control.getMax() - control.getMin());
+            markCurve(keep, epsilon);
+        } else {
+            keep[0] = true;
+            for (int i = 1; i < size; i++) {
+                keep[i] = values[i] != values[i - 1];
+            }
+        }
+
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                beats[count] = beats[i];
+                values[count] = values[i];
+                count++;
+            }
+        }
+        final int removed = size - count;
+        size = count;
+        return removed;
+    }
+
+    /**
+     * Shrinks the arrays to the current size.
+     */
+    public void trimToSize() {
+        if (beats.length == size)
+            return;
+        beats = Arrays.copyOf(beats, size);
+        values = Arrays.copyOf(values, size);
+    }
+
+    //--------------------------------------------------------------------------
+    // Internal :: Methods
+    //--------------------------------------------------------------------------
+
+    void packPointData() {
+        pointData = AutomationLaneSerializer.encodePoints(this);
+    }
+
+    void releasePointData() {
+        pointData = null;
+    }
+
+    void unpackPointData() {
+        size = 0;
+        if (pointData != null)
+            AutomationLaneSerializer.decodePoints(pointData, this);
+        pointData = null;
+        trimToSize();
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Marks the points of the simplified curve, iterative so long recordings
+     * cannot overflow the stack.
+     */
+    private void markCurve(boolean[] keep, float epsilon) {
+        final int[] stack = new int[size * 2];
+        int top = 0;
+        keep[0] = true;
+        keep[size - 1] = true;
+        stack[top++] = 0;
+        stack[top++] = size - 1;
+        while (top > 0) {
+            final int last = stack[--top];
+            final int first = stack[--top];
+            if (last - first < 2)
+                continue;
+
+            final float startBeat = beats[first];
+            final float startValue = values[first];
+            final float span = beats[last] - startBeat;
+            final float slope = span == 0f ? 0f : (values[last] - startValue) / span;
+
+            // the playback error is the value distance, not the geometric one
+            float max = -1f;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                final float expected = startValue + (beats[i] - startBeat) * slope;
+                final float distance = Math.abs(values[i] - expected);
+                if (distance > max) {
+                    max = distance;
+                    index = i;
+                }
+            }
+            if (max > epsilon) {
+                keep[index] = true;
+                stack[top++] = first;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = last;
+            }
+        }
+    }
+
+    private void removeRange(int from, int to) {
+        final int tail = size - to;
+        if (tail > 0) {
+            System.arraycopy(beats, to, beats, from, tail);
+            System.arraycopy(values, to, values, from, tail);
+        }
+        size -= to - from;
+    }
+
+    /**
+     * Returns the first point with a beat greater than or equal to the beat.
+     */
+    private int lowerBound(float beat) {
+        if (size > 0 && beats[size - 1] < beat)
+            return size;
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (beats[mid] < beat)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the first point with a beat greater than the beat.
+     */
+    private int upperBound(float beat) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (beats[mid] <= beat)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= beats.length)
+            return;
+        int length = Math.max(INITIAL_CAPACITY, beats.length + (beats.length >> 1));
+        length = Math.max(length, capacity);
+        beats = Arrays.copyOf(beats, length);
+        values = Arrays.copyOf(values, length);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    //--------------------------------------------------------------------------
+    // Overridden Public :: Methods
+    //--------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "AutomationLane [machineIndex=" + machineIndex + ", slot=" + slot + ", control="
+                + control + ", size=" + size + "]";
+    }
+}
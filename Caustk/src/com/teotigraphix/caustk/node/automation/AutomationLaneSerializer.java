@@ -0,0 +1,208 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node.automation;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer;
+
+/**
+ * Serializes {@link AutomationLane} points in a compact delta beat format.
+ * <p>
+ * Each point is one var int holding the beat delta to the previous point in
+ * ticks and two flags, followed by the value. A beat that is not on a tick is
+ * written as an exact float, a value equal to the previous value is not
+ * written again. Lanes whose values are all whole numbers write the values as
+ * zig zag var ints instead of floats.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class AutomationLaneSerializer extends TaggedFieldSerializer<AutomationLane> {
+
+    private static final int VERSION = 1;
+
+    /**
+     * The beat resolution of the delta encoded beats.
+     */
+    public static final int TICKS_PER_BEAT = 96;
+
+    private static final int INT_VALUES = 1;
+
+    private static final int BEAT_EXACT = 1;
+
+    private static final int SAME_VALUE = 2;
+
+    private static final int FLAG_BITS = 2;
+
+    public AutomationLaneSerializer(Kryo kryo) {
+        super(kryo, AutomationLane.class);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, AutomationLane lane) {
+        lane.packPointData();
+        try {
+            super.write(kryo, output, lane);
+        } finally {
+            lane.releasePointData();
+        }
+    }
+
+    @Override
+    public AutomationLane read(Kryo kryo, Input input, Class<AutomationLane> type) {
+        AutomationLane lane = super.read(kryo, input, type);
+        lane.unpackPointData();
+        return lane;
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Static :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the beat snapped to the nearest tick, a snapped beat is written
+     * as a tick delta instead of an exact float.
+     *
+     * @param beat The song beat.
+     */
+    public static float quantize(float beat) {
+        return toBeat(toTicks(beat));
+    }
+
+    /**
+     * Encodes the points of a lane into the packed point format.
+     *
+     * @param lane The lane to encode.
+     * @return The packed point data, <code>null</code> if the lane is empty.
+     */
+    static byte[] encodePoints(AutomationLane lane) {
+        final int size = lane.size();
+        if (size == 0)
+            return null;
+
+        int header = INT_VALUES;
+        for (int i = 0; i < size; i++) {
+            final float value = lane.getValue(i);
+            if (value != (int)value) {
+                header = 0;
+                break;
+            }
+        }
+
+        Output output = new Output(16 + size * 6, -1);
+        output.writeVarInt(VERSION, true);
+        output.writeVarInt(size, true);
+        output.writeByte(header);
+
+        int lastTick = 0;
+        float lastValue = Float.NaN;
+        for (int i = 0; i < size; i++) {
+            final float beat = lane.getBeat(i);
+            final float value = lane.getValue(i);
+
+            final int tick = toTicks(beat);
+            final boolean beatExact = tick < lastTick || !isTicks(beat, tick);
+            final boolean sameValue = Float.floatToIntBits(value) == Float
+                    .floatToIntBits(lastValue);
+
+            int flags = 0;
+            if (beatExact)
+                flags |= BEAT_EXACT;
+            if (sameValue)
+                flags |= SAME_VALUE;
+            if (beatExact) {
+                output.writeVarInt(flags, true);
+                output.writeFloat(beat);
+            } else {
+                output.writeVarInt(((tick - lastTick) << FLAG_BITS) | flags, true);
+                lastTick = tick;
+            }
+
+            if (!sameValue) {
+                if ((header & INT_VALUES) != 0) {
+                    output.writeVarInt((int)value, false);
+                } else {
+                    output.writeFloat(value);
+                }
+                lastValue = value;
+            }
+        }
+        return output.toBytes();
+    }
+
+    /**
+     * Decodes the packed point format into a lane.
+     *
+     * @param data The packed point data.
+     * @param lane The lane the decoded points are added to.
+     * @throws KryoException Unknown point data version
+     */
+    static void decodePoints(byte[] data, AutomationLane lane) {
+        Input input = new Input(data);
+        int version = input.readVarInt(true);
+        if (version != VERSION)
+            throw new KryoException("Unknown automation data version: " + version);
+
+        int count = input.readVarInt(true);
+        int header = input.readByte();
+
+        int lastTick = 0;
+        float value = 0f;
+        for (int i = 0; i < count; i++) {
+            int head = input.readVarInt(true);
+
+            float beat;
+            if ((head & BEAT_EXACT) != 0) {
+                beat = input.readFloat();
+            } else {
+                lastTick += head >>> FLAG_BITS;
+                beat = toBeat(lastTick);
+            }
+
+            if ((head & SAME_VALUE) == 0) {
+                if ((header & INT_VALUES) != 0) {
+                    value = input.readVarInt(false);
+                } else {
+                    value = input.readFloat();
+                }
+            }
+            lane.add(beat, value);
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Private Static :: Methods
+    //--------------------------------------------------------------------------
+
+    private static int toTicks(float beat) {
+        return Math.round(beat * TICKS_PER_BEAT);
+    }
+
+    private static float toBeat(int ticks) {
+        return ticks / (float)TICKS_PER_BEAT;
+    }
+
+    private static boolean isTicks(float beat, int ticks) {
+        return ticks >= 0 && Float.floatToIntBits(toBeat(ticks)) == Float.floatToIntBits(beat);
+    }
+}
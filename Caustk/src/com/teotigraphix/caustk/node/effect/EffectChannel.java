@@ -90,14 +90,15 @@ public class EffectChannel extends MachineChannel {
      * Serialization
      */
     public EffectChannel() {
+        super(false);
     }
 
     public EffectChannel(Machine machineNode) {
-        super(machineNode);
+        super(machineNode, false);
     }
 
     public EffectChannel(MasterChannel masterNode) {
-        super(null);
+        super(null, false);
         this.masterNode = masterNode;
     }
 
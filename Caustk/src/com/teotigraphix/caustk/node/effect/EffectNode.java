@@ -25,8 +25,10 @@ import com.teotigraphix.caustk.core.osc.EffectsRackMessage;
 import com.teotigraphix.caustk.core.osc.IEffectControl;
 import com.teotigraphix.caustk.core.osc.IOSCControl;
 import com.teotigraphix.caustk.core.osc.OSCControlsMap;
+import com.teotigraphix.caustk.node.INodeChangeEvent;
 import com.teotigraphix.caustk.node.NodeBase;
 import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
+import com.teotigraphix.caustk.node.NodeEventPool;
 import com.teotigraphix.caustk.node.NodeMetaData;
 import com.teotigraphix.caustk.node.machine.MachineChannel;
 import com.teotigraphix.caustk.node.machine.Machine;
@@ -41,6 +43,14 @@ import com.teotigraphix.caustk.utils.core.ExceptionUtils;
  */
 public abstract class EffectNode extends MachineChannel {
 
+    private static final NodeEventPool<EffectNodeChangeEvent> CHANGE_EVENTS =
+            new NodeEventPool<EffectNodeChangeEvent>(8) {
+        @Override
+        protected EffectNodeChangeEvent newEvent() {
+            return new EffectNodeChangeEvent();
+        }
+    };
+
     //--------------------------------------------------------------------------
     // Serialized API
     //--------------------------------------------------------------------------
@@ -126,10 +136,11 @@ public abstract class EffectNode extends MachineChannel {
      * Serialization
      */
     public EffectNode() {
+        super(false);
     }
 
     public EffectNode(Machine machineNode, int slot) {
-        super(machineNode);
+        super(machineNode, false);
         this.slot = slot;
         setData(new NodeMetaData(this));
     }
@@ -189,7 +200,7 @@ public abstract class EffectNode extends MachineChannel {
     protected final void set(IEffectControl control, float value) {
         EffectsRackMessage.SET.send(getRack(), getMachineIndex(), getSlot(), control.getControl(),
                 value);
-        post(new EffectNodeChangeEvent(this, control, value));
+        CHANGE_EVENTS.post(this, control, value);
     }
 
     /**
@@ -257,17 +268,33 @@ public abstract class EffectNode extends MachineChannel {
      * @see EffectNode#set(com.teotigraphix.caustk.core.osc.IEffectControl,
      *      float)
      */
-    public static class EffectNodeChangeEvent extends EffectNodeEvent {
+    public static class EffectNodeChangeEvent extends EffectNodeEvent implements
+            INodeChangeEvent {
 
         private float value;
 
+        @Override
         public float getValue() {
             return value;
         }
 
+        @Override
+        public void setValue(float value) {
+            this.value = value;
+        }
+
+        @Override
+        public NodeEvent copy() {
+            return new EffectNodeChangeEvent(getTarget(), (IEffectControl)getControl(), value);
+        }
+
         public EffectNodeChangeEvent(NodeBase target, IEffectControl control, float value) {
             super(target, control);
             this.value = value;
         }
+
+        EffectNodeChangeEvent() {
+            super(null);
+        }
     }
 }
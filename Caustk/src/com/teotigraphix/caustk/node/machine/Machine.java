@@ -381,6 +381,8 @@ public abstract class Machine extends NodeBase {
         mixer.restore();
         effect.restore();
         restorePresetProperties();
+        // the components only read the native patch that was just saved
+        preset.validate();
         sequencer.restore();
         track.restore();
         clip.restore();
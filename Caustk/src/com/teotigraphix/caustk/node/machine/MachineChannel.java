@@ -21,6 +21,8 @@ package com.teotigraphix.caustk.node.machine;
 
 import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
 import com.teotigraphix.caustk.node.NodeBase;
+import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
+import com.teotigraphix.caustk.node.machine.patch.PresetChannel;
 
 /**
  * The {@link MachineChannel} is the base class for all {@link Machine}
@@ -38,6 +40,8 @@ public abstract class MachineChannel extends NodeBase {
     @Tag(50)
     private Machine machineNode;
 
+    private final transient boolean presetState;
+
     //--------------------------------------------------------------------------
     // Public Property API
     //--------------------------------------------------------------------------
@@ -72,9 +76,50 @@ public abstract class MachineChannel extends NodeBase {
      * Serialization
      */
     protected MachineChannel() {
+        this(true);
+    }
+
+    /**
+     * Serialization
+     * 
+     * @param presetState Whether the channel's state is saved in the machine's
+     *            preset.
+     */
+    protected MachineChannel(boolean presetState) {
+        this.presetState = presetState;
     }
 
     public MachineChannel(Machine machineNode) {
+        this(machineNode, true);
+    }
+
+    /**
+     * Creates a channel of the machine.
+     * <p>
+     * Changes posted by preset state invalidate the machine's
+     * {@link PresetChannel} data, channels outside the patch (mixer,
+     * sequencer, effects) pass <code>false</code>.
+     * 
+     * @param machineNode The channel's machine.
+     * @param presetState Whether the channel's state is saved in the machine's
+     *            preset.
+     */
+    protected MachineChannel(Machine machineNode, boolean presetState) {
         this.machineNode = machineNode;
+        this.presetState = presetState;
+    }
+
+    //--------------------------------------------------------------------------
+    // Protected :: Methods
+    //--------------------------------------------------------------------------
+
+    @Override
+    protected void post(NodeEvent event) {
+        if (presetState && machineNode != null) {
+            PresetChannel preset = machineNode.getPreset();
+            if (preset != null)
+                preset.invalidate();
+        }
+        super.post(event);
     }
 }
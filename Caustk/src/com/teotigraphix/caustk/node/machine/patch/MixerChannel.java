@@ -23,7 +23,9 @@ import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
 import com.teotigraphix.caustk.core.osc.MixerChannelMessage;
 import com.teotigraphix.caustk.core.osc.MixerControls;
 import com.teotigraphix.caustk.core.osc.OSCControlsMap;
+import com.teotigraphix.caustk.node.INodeChangeEvent;
 import com.teotigraphix.caustk.node.NodeBase;
+import com.teotigraphix.caustk.node.NodeEventPool;
 import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
 import com.teotigraphix.caustk.node.machine.Machine;
 import com.teotigraphix.caustk.node.machine.MachineChannel;
@@ -389,10 +391,11 @@ public class MixerChannel extends MachineChannel {
      * Serialization
      */
     public MixerChannel() {
+        super(false);
     }
 
     public MixerChannel(Machine machineNode) {
-        super(machineNode);
+        super(machineNode, false);
     }
 
     //--------------------------------------------------------------------------
@@ -514,8 +517,16 @@ public class MixerChannel extends MachineChannel {
     // Events
     //--------------------------------------------------------------------------
 
+    private static final NodeEventPool<MixerChannelChangeEvent> CHANGE_EVENTS =
+            new NodeEventPool<MixerChannelChangeEvent>(8) {
+        @Override
+        protected MixerChannelChangeEvent newEvent() {
+            return new MixerChannelChangeEvent();
+        }
+    };
+
     protected void post(MixerControls control, float value) {
-        post(new MixerChannelChangeEvent(this, control, value));
+        CHANGE_EVENTS.post(this, control, value);
     }
 
     /**
@@ -535,17 +546,31 @@ public class MixerChannel extends MachineChannel {
      * @since 1.0
      * @see MixerChannel
      */
-    public static class MixerChannelChangeEvent extends NodeEvent {
+    public static class MixerChannelChangeEvent extends NodeEvent implements INodeChangeEvent {
         private float value;
 
+        @Override
         public float getValue() {
             return value;
         }
 
+        @Override
+        public void setValue(float value) {
+            this.value = value;
+        }
+
+        @Override
+        public NodeEvent copy() {
+            return new MixerChannelChangeEvent(getTarget(), (MixerControls)getControl(), value);
+        }
+
         public MixerChannelChangeEvent(NodeBase target, MixerControls control, float value) {
             super(target, control);
             this.value = value;
         }
+
+        MixerChannelChangeEvent() {
+        }
     }
 
     public static class OnRackSoloRefresh extends NodeEvent {
@@ -46,16 +46,68 @@ public class PresetChannel extends MachineChannel {
 
     private transient byte[] restoredData;
 
+    private transient boolean dirty;
+
+    private transient File cachedFile;
+
     /**
-     * Returns the original preset data when the {@link #restore()} method was
-     * called.
+     * Returns the preset data of the machine.
      * <p>
-     * Will be <code>null</code> if {@link #restore()} was never called.
+     * The data captured by {@link #restore()}, {@link #fill()} or
+     * {@link #update(PresetChannel)} is returned as is while it is in sync
+     * with the native machine, otherwise the native preset is saved and read
+     * again.
+     * <p>
+     * Will be <code>null</code> if the machine is not native and the data was
+     * never captured.
+     * 
+     * @see #isDirty()
      */
     public byte[] getRestoredData() {
+        if (isDirty() && getMachineNode() != null && getMachineNode().isNative()
+                && getMachineType() != MachineType.Vocoder)
+            fillRestoredData();
         return restoredData;
     }
 
+    /**
+     * Whether the preset data cannot be proven to match the native machine.
+     * <p>
+     * The data is in sync only when it was captured and no preset component
+     * of the machine posted a change since, see {@link #invalidate()}.
+     */
+    public boolean isDirty() {
+        return dirty || restoredData == null;
+    }
+
+    /**
+     * Returns the cached preset file last loaded into the machine,
+     * <code>null</code> if the preset did not come from the preset cache.
+     * 
+     * @see PresetUtils#toCachedPresetFile(byte[], String, MachineType)
+     */
+    public File getCachedFile() {
+        return cachedFile;
+    }
+
+    /**
+     * Marks the preset data stale, the next {@link #getRestoredData()} will
+     * save the native preset again.
+     * <p>
+     * Called when a preset component of the machine posts a change, code that
+     * sends patch messages to the machine without its nodes calls it as well.
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Marks the preset data as matching the native machine.
+     */
+    public void validate() {
+        dirty = false;
+    }
+
     /**
      * Sets the resorted byte array and calls {@link #restorePreset()}.
      * 
@@ -190,10 +242,11 @@ public class PresetChannel extends MachineChannel {
      * Serialization
      */
     public PresetChannel() {
+        super(false);
     }
 
     public PresetChannel(Machine machineNode, String path) {
-        super(machineNode);
+        super(machineNode, false);
         setPath(path);
     }
 
@@ -212,14 +265,21 @@ public class PresetChannel extends MachineChannel {
             throw new IOException("Preset file does not exist:" + presetFile);
         setPath(presetFile.getAbsolutePath());
         SynthMessage.LOAD_PRESET.send(getRack(), getMachineIndex(), path);
+        getRack().getSamplePool().releaseMachine(getMachineIndex());
+        cachedFile = PresetUtils.isCachedPresetFile(presetFile) ? presetFile : null;
+        invalidate();
     }
 
     /**
      * Fills the {@link #getRestoredData()} with the current preset data of the
      * native machine located at {@link #getMachineIndex()}.
+     * <p>
+     * Does not save the native preset again if the data is in sync, see
+     * {@link #isDirty()}.
      */
     public void fill() {
-        fillRestoredData();
+        if (isDirty())
+            fillRestoredData();
     }
 
     /**
@@ -232,6 +292,7 @@ public class PresetChannel extends MachineChannel {
     public void fill(File presetFile) throws IOException {
         name = FilenameUtils.getBaseName(presetFile.getName());
         restoredData = FileUtils.readFileToByteArray(presetFile);
+        dirty = false;
     }
 
     /**
@@ -292,19 +353,16 @@ public class PresetChannel extends MachineChannel {
         if (restoredData == null)
             return;
 
-        // take the byte data, save it temporarily, load as preset
-        final File tempDirectory = RuntimeUtils.getApplicationTempDirectory();
-
         // IF THERE was a preset name, use ONLY that so it shows up
         // correctly when loaded into caustic
         String presetName = name;
         if (presetName == null)
-            presetName = UUID.randomUUID().toString();
+            presetName = PresetUtils.toPresetHash(restoredData);
 
-        File presetFile = new File(tempDirectory, presetName + "." + getType().getExtension());
+        // the content keyed cache file is reused by every load of the same bytes
+        File presetFile = null;
         try {
-            // save the byte[]s to the temp preset file
-            FileUtils.writeByteArrayToFile(presetFile, restoredData);
+            presetFile = PresetUtils.toCachedPresetFile(restoredData, presetName, getType());
         } catch (IOException e) {
             getLogger().err("PresetDefinition", "Could not save preset data");
             throw new CausticException("Preset data was not updated "
@@ -312,12 +370,9 @@ public class PresetChannel extends MachineChannel {
         }
 
         SynthMessage.LOAD_PRESET.send(getRack(), getMachineIndex(), presetFile.getAbsolutePath());
-
-        // delete the temp preset file
-        FileUtils.deleteQuietly(presetFile);
-        if (presetFile.exists()) {
-            getLogger().log("PresetDefinition", "Temp preset file was not deleted");
-        }
+        getRack().getSamplePool().releaseMachine(getMachineIndex());
+        cachedFile = presetFile;
+        dirty = false;
     }
 
     //--------------------------------------------------------------------------
@@ -378,6 +433,7 @@ public class PresetChannel extends MachineChannel {
         // store the original bytes
         String tempName = "__" + UUID.randomUUID().toString().substring(0, 20); // will be deleted
         restoredData = PresetUtils.readPresetBytes(getRack(), getMachineIndex(), type, tempName);
+        dirty = false;
     }
 
     @Override
@@ -24,6 +24,8 @@ import java.util.TreeMap;
 
 import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
 import com.teotigraphix.caustk.core.osc.BeatboxMessage;
+import com.teotigraphix.caustk.core.sample.PooledSample;
+import com.teotigraphix.caustk.core.sample.SamplePool;
 import com.teotigraphix.caustk.node.machine.BeatBoxMachine;
 import com.teotigraphix.caustk.node.machine.MachineChannel;
 import com.teotigraphix.caustk.node.machine.Machine;
@@ -89,6 +91,11 @@ public class WavSamplerComponent extends MachineChannel {
     /**
      * Loads a wav sample into the sampler's channel.
      * <p>
+     * The sample is resolved through the rack's
+     * {@link com.teotigraphix.caustk.core.sample.SamplePool}, a file already
+     * loaded into the channel is not sent again. The requested file is always
+     * the one loaded, the engine names the sample after it.
+     * <p>
      * {@link WavSamplerChannel#restore()} is called after the sample is loaded
      * from disk, which validates all values on the channel instance.
      * 
@@ -97,8 +104,17 @@ public class WavSamplerComponent extends MachineChannel {
      * @return The loaded {@link WavSamplerChannel}.
      */
     public WavSamplerChannel loadChannel(int index, File wavFile) {
-        BeatboxMessage.CHANNEL_LOAD.send(getRack(), getMachineIndex(), index,
-                wavFile.getAbsolutePath());
+        SamplePool pool = getRack().getSamplePool();
+        PooledSample sample = pool.find(wavFile);
+        if (sample == null) {
+            BeatboxMessage.CHANNEL_LOAD.send(getRack(), getMachineIndex(), index,
+                    wavFile.getAbsolutePath());
+            pool.release(getMachineIndex(), index);
+        } else if (!pool.isLoaded(getMachineIndex(), index, sample, wavFile)) {
+            BeatboxMessage.CHANNEL_LOAD.send(getRack(), getMachineIndex(), index,
+                    wavFile.getAbsolutePath());
+            pool.retain(getMachineIndex(), index, sample, wavFile);
+        }
         WavSamplerChannel channel = getChannel(index);
         channel.restore();
         return channel;
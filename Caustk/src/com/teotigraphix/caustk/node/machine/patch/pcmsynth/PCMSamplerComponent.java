@@ -25,6 +25,8 @@ import java.util.TreeMap;
 import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
 import com.teotigraphix.caustk.core.osc.PCMSynthMessage;
 import com.teotigraphix.caustk.core.osc.PCMSynthMessage.PlayMode;
+import com.teotigraphix.caustk.core.sample.PooledSample;
+import com.teotigraphix.caustk.core.sample.SamplePool;
 import com.teotigraphix.caustk.node.NodeBase;
 import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
 import com.teotigraphix.caustk.node.machine.MachineChannel;
@@ -184,6 +186,11 @@ public class PCMSamplerComponent extends MachineChannel {
 
     /**
      * Loads a <strong>wav</strong> sample in the the sample channel index.
+     * <p>
+     * The sample is resolved through the rack's
+     * {@link com.teotigraphix.caustk.core.sample.SamplePool}, a file already
+     * loaded into the channel is not sent again. The requested file is always
+     * the one loaded, the engine names the sample after it.
      * 
      * @param index The sample channel index (0..63).
      * @param wavFile The wav file, absolute location.
@@ -193,7 +200,15 @@ public class PCMSamplerComponent extends MachineChannel {
     public PCMSamplerChannel loadChannel(int index, File wavFile) {
         setActiveIndex(index);
         PCMSamplerChannel result = getActiveChannel();
-        loadSample(wavFile);
+        SamplePool pool = getRack().getSamplePool();
+        PooledSample sample = pool.find(wavFile);
+        if (sample == null) {
+            loadSample(wavFile);
+            pool.release(getMachineIndex(), index);
+        } else if (!pool.isLoaded(getMachineIndex(), index, sample, wavFile)) {
+            loadSample(wavFile);
+            pool.retain(getMachineIndex(), index, sample, wavFile);
+        }
         result.restore();
         post(new PCMSamplerRefreshEvent(this));
         return result;
@@ -75,10 +75,11 @@ public class ClipChannel extends MachineChannel {
      * Serialization
      */
     protected ClipChannel() {
+        super(false);
     }
 
     public ClipChannel(Machine machineNode) {
-        super(machineNode);
+        super(machineNode, false);
     }
 
     //--------------------------------------------------------------------------
@@ -0,0 +1,331 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node.machine.sequencer;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The {@link NoteArray} is the packed note storage of a {@link PatternNode}.
+ * <p>
+ * Each note is a row of primitives across parallel arrays (start, end,
+ * velocity and pitch/flags packed into one int), kept sorted by start beat
+ * then pitch, one note per start beat and pitch. Editor selection is held in
+ * a {@link BitSet} indexed by row. {@link NoteNode}s are only created as views
+ * when the public API asks for them, the view of a row is kept with the row so
+ * every lookup of a note returns the same instance.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+final class NoteArray {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int PITCH_MASK = 0xFFFF;
+
+    private static final int FLAGS_SHIFT = 16;
+
+    private float[] starts = new float[0];
+
+    private float[] ends = new float[0];
+
+    private float[] velocities = new float[0];
+
+    private int[] pitchFlags = new int[0];
+
+    private NoteNode[] views = new NoteNode[0];
+
+    private final BitSet selection = new BitSet();
+
+    private int size;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    int size() {
+        return size;
+    }
+
+    float getStart(int index) {
+        return starts[index];
+    }
+
+    float getEnd(int index) {
+        return ends[index];
+    }
+
+    float getVelocity(int index) {
+        return velocities[index];
+    }
+
+    int getPitch(int index) {
+        return (short)(pitchFlags[index] & PITCH_MASK);
+    }
+
+    int getFlags(int index) {
+        return pitchFlags[index] >>> FLAGS_SHIFT;
+    }
+
+    /**
+     * Returns the view of a row, <code>null</code> if none was created.
+     */
+    NoteNode getView(int index) {
+        return views[index];
+    }
+
+    void setView(int index, NoteNode view) {
+        views[index] = view;
+    }
+
+    boolean isSelected(int index) {
+        return selection.get(index);
+    }
+
+    /**
+     * Sets the selected state of a row.
+     *
+     * @param index The row index.
+     * @param selected The selected state.
+     * @return Whether the state changed.
+     */
+    boolean setSelected(int index, boolean selected) {
+        if (selection.get(index) == selected)
+            return false;
+        selection.set(index, selected);
+        return true;
+    }
+
+    BitSet getSelection() {
+        return selection;
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the row of the note with the start beat and pitch, -1 if not
+     * found.
+     *
+     * @param start The start beat.
+     * @param pitch The MIDI pitch.
+     */
+    int indexOf(float start, int pitch) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, start, pitch) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        if (low < size && compare(low, start, pitch) == 0)
+            return low;
+        return -1;
+    }
+
+    /**
+     * Returns the first row with a start beat greater than or equal to the
+     * beat.
+     *
+     * @param start The start beat.
+     */
+    int lowerBound(float start) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Float.compare(starts[mid], start) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Inserts a note in sorted position, a note with the same start beat and
+     * pitch is replaced, its view detached and its row deselected.
+     *
+     * @return The row the note was inserted at.
+     */
+    int add(int pitch, float start, float end, float velocity, int flags) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, start, pitch) <= 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        if (low > 0 && compare(low - 1, start, pitch) == 0) {
+            final int index = low - 1;
+            if (views[index] != null)
+                views[index].detach();
+            views[index] = null;
+            ends[index] = end;
+            velocities[index] = velocity;
+            pitchFlags[index] = (pitch & PITCH_MASK) | (flags << FLAGS_SHIFT);
+            selection.clear(index);
+            return index;
+        }
+        final int index = low;
+
+        ensureCapacity(size + 1);
+        final int tail = size - index;
+        if (tail > 0) {
+            System.arraycopy(starts, index, starts, index + 1, tail);
+            System.arraycopy(ends, index, ends, index + 1, tail);
+            System.arraycopy(velocities, index, velocities, index + 1, tail);
+            System.arraycopy(pitchFlags, index, pitchFlags, index + 1, tail);
+            System.arraycopy(views, index, views, index + 1, tail);
+            shiftSelection(index, 1);
+        }
+        views[index] = null;
+        starts[index] = start;
+        ends[index] = end;
+        velocities[index] = velocity;
+        pitchFlags[index] = (pitch & PITCH_MASK) | (flags << FLAGS_SHIFT);
+        size++;
+        return index;
+    }
+
+    void remove(int index) {
+        final int tail = size - index - 1;
+        if (tail > 0) {
+            System.arraycopy(starts, index + 1, starts, index, tail);
+            System.arraycopy(ends, index + 1, ends, index, tail);
+            System.arraycopy(velocities, index + 1, velocities, index, tail);
+            System.arraycopy(pitchFlags, index + 1, pitchFlags, index, tail);
+            System.arraycopy(views, index + 1, views, index, tail);
+        }
+        shiftSelection(index + 1, -1);
+        size--;
+        views[size] = null;
+    }
+
+    /**
+     * Shrinks the arrays to the current size, used once a pattern is loaded.
+     */
+    void trimToSize() {
+        if (starts.length == size)
+            return;
+        starts = Arrays.copyOf(starts, size);
+        ends = Arrays.copyOf(ends, size);
+        velocities = Arrays.copyOf(velocities, size);
+        pitchFlags = Arrays.copyOf(pitchFlags, size);
+        views = Arrays.copyOf(views, size);
+    }
+
+    void clear() {
+        Arrays.fill(views, 0, size, null);
+        size = 0;
+        selection.clear();
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private int compare(int index, float start, int pitch) {
+        int result = Float.compare(starts[index], start);
+        if (result != 0)
+            return result;
+        int current = getPitch(index);
+        return current < pitch ? -1 : (current == pitch ? 0 : 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= starts.length)
+            return;
+        int length = Math.max(INITIAL_CAPACITY, starts.length + (starts.length >> 1));
+        length = Math.max(length, capacity);
+        starts = Arrays.copyOf(starts, length);
+        ends = Arrays.copyOf(ends, length);
+        velocities = Arrays.copyOf(velocities, length);
+        pitchFlags = Arrays.copyOf(pitchFlags, length);
+        views = Arrays.copyOf(views, length);
+    }
+
+    /**
+     * Moves the selection bits at and above <code>from</code> by
+     * <code>offset</code> rows.
+     */
+    private void shiftSelection(int from, int offset) {
+        if (selection.isEmpty() || from >= selection.length()) {
+            if (offset < 0)
+                selection.clear(from + offset);
+            return;
+        }
+        BitSet tail = selection.get(from, selection.length());
+        selection.clear(from + Math.min(offset, 0), selection.length());
+        for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+            selection.set(from + offset + i);
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Overridden Public :: Methods
+    //--------------------------------------------------------------------------
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        for (int i = 0; i < size; i++) {
+            result = prime * result + Float.floatToIntBits(starts[i]);
+            result = prime * result + Float.floatToIntBits(ends[i]);
+            result = prime * result + Float.floatToIntBits(velocities[i]);
+            result = prime * result + pitchFlags[i];
+        }
+        result = prime * result + selection.hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        NoteArray other = (NoteArray)obj;
+        if (size != other.size)
+            return false;
+        for (int i = 0; i < size; i++) {
+            if (Float.floatToIntBits(starts[i]) != Float.floatToIntBits(other.starts[i]))
+                return false;
+            if (Float.floatToIntBits(ends[i]) != Float.floatToIntBits(other.ends[i]))
+                return false;
+            if (Float.floatToIntBits(velocities[i]) != Float.floatToIntBits(other.velocities[i]))
+                return false;
+            if (pitchFlags[i] != other.pitchFlags[i])
+                return false;
+        }
+        if (!selection.equals(other.selection))
+            return false;
+        return true;
+    }
+}
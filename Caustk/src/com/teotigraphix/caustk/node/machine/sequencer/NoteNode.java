@@ -21,6 +21,7 @@ package com.teotigraphix.caustk.node.machine.sequencer;
 
 import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
 import com.teotigraphix.caustk.node.NodeBase;
+import com.teotigraphix.caustk.node.NodeBaseEvents.NodeSelectedEvent;
 import com.teotigraphix.caustk.node.machine.sequencer.PatternNode.Resolution;
 import com.teotigraphix.caustk.utils.core.MathUtils;
 
@@ -28,6 +29,10 @@ import com.teotigraphix.caustk.utils.core.MathUtils;
 
 /**
  * The {@link NoteNode} wraps a single note trigger in a {@link PatternNode}.
+ * <p>
+ * The {@link PatternNode} stores its notes packed, the {@link NoteNode}s it
+ * returns are views over that storage and delegate their selected state to
+ * the pattern's selection.
  * 
  * @author Michael Schmalle
  * @since 1.0
@@ -55,6 +60,12 @@ public class NoteNode extends NodeBase {
     @Tag(54)
     private int flags;
 
+    //--------------------------------------------------------------------------
+    // Private :: Variables
+    //--------------------------------------------------------------------------
+
+    private PatternNode pattern;
+
     //--------------------------------------------------------------------------
     // Public Property API
     //--------------------------------------------------------------------------
@@ -200,6 +211,37 @@ public class NoteNode extends NodeBase {
         set(pitch, start, end, velocity, flags);
     }
 
+    /**
+     * Creates a view over a note held in the pattern's packed storage.
+     * 
+     * @param pattern The owning pattern.
+     */
+    NoteNode(PatternNode pattern, int pitch, float start, float end, float velocity, int flags) {
+        this.pattern = pattern;
+        set(pitch, start, end, velocity, flags);
+    }
+
+    //--------------------------------------------------------------------------
+    // Overridden Public :: Methods
+    //--------------------------------------------------------------------------
+
+    @Override
+    public boolean isSelected() {
+        if (pattern != null)
+            return pattern.isNoteSelected(this);
+        return super.isSelected();
+    }
+
+    @Override
+    public void setSelected(boolean selected) {
+        if (pattern == null) {
+            super.setSelected(selected);
+            return;
+        }
+        if (pattern.setNoteSelected(this, selected))
+            post(new NodeSelectedEvent(this, selected));
+    }
+
     //--------------------------------------------------------------------------
     // Public Method API
     //--------------------------------------------------------------------------
@@ -214,6 +256,14 @@ public class NoteNode extends NodeBase {
      * @param flags The bitmasked flags.
      * @see com.teotigraphix.caustk.node.machine.sequencer.NoteNode.NoteFlag
      */
+    /**
+     * Detaches a view from its pattern when its note is removed, the note
+     * keeps its values and is no longer selected.
+     */
+    void detach() {
+        pattern = null;
+    }
+
     void set(int pitch, float start, float end, float velocity, int flags) {
         this.pitch = pitch;
         this.start = start;
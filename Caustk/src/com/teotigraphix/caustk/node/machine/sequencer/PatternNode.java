@@ -20,6 +20,7 @@
 package com.teotigraphix.caustk.node.machine.sequencer;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -60,8 +61,14 @@ public class PatternNode extends MachineChannel {
     @Tag(103)
     private float shuffleAmount;
 
+    /**
+     * Saves written before the compact note encoding; read only.
+     * 
+     * @see PatternNodeSerializer
+     */
+    @Deprecated
     @Tag(104)
-    private List<NoteNode> notes = new ArrayList<NoteNode>();
+    private List<NoteNode> legacyNotes;
 
     @Tag(105)
     private int position = 0;
@@ -69,6 +76,15 @@ public class PatternNode extends MachineChannel {
     @Tag(106)
     private Resolution resolution = Resolution.Sixteenth;
 
+    @Tag(107)
+    private byte[] noteData;
+
+    //--------------------------------------------------------------------------
+    // Private :: Variables
+    //--------------------------------------------------------------------------
+
+    private NoteArray notes = new NoteArray();
+
     //--------------------------------------------------------------------------
     // Public Property API
     //--------------------------------------------------------------------------
@@ -149,10 +165,36 @@ public class PatternNode extends MachineChannel {
     //----------------------------------
 
     /**
-     * Returns an unmodifiable collection of {@link NoteNode}s.
+     * Returns an unmodifiable collection of {@link NoteNode}s sorted by start
+     * beat.
      */
     public Collection<NoteNode> getNotes() {
-        return Collections.unmodifiableCollection(notes);
+        List<NoteNode> result = new ArrayList<NoteNode>(notes.size());
+        for (int i = 0; i < notes.size(); i++) {
+            result.add(toNoteNode(i));
+        }
+        return Collections.unmodifiableCollection(result);
+    }
+
+    /**
+     * Returns the selected {@link NoteNode}s sorted by start beat.
+     */
+    public Collection<NoteNode> getSelectedNotes() {
+        List<NoteNode> result = new ArrayList<NoteNode>();
+        BitSet selection = notes.getSelection();
+        for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+            result.add(toNoteNode(i));
+        }
+        return result;
+    }
+
+    /**
+     * Deselects all notes.
+     */
+    public void clearSelection() {
+        for (NoteNode note : getSelectedNotes()) {
+            note.setSelected(false);
+        }
     }
 
     //----------------------------------
@@ -163,18 +205,19 @@ public class PatternNode extends MachineChannel {
      * Return a {@link NoteNode} at a specified beat and pitch.
      * <p>
      * To be considered a match, the start and pitch must match and existing
-     * {@link NoteNode} found in this pattern.
+     * {@link NoteNode} found in this pattern. A pattern holds one note per
+     * start and pitch, each lookup of a note returns the same instance until
+     * the note is removed.
      * 
      * @param beat The start beat.
      * @param pitch The MIDI pitch.
      * @return A {@link NoteNode} or <code>null</code> if not found.
      */
     public NoteNode getNote(float beat, int pitch) {
-        for (NoteNode note : notes) {
-            if (note.getStart() == beat && note.getPitch() == pitch)
-                return note;
-        }
-        return null;
+        int index = notes.indexOf(beat, pitch);
+        if (index == -1)
+            return null;
+        return toNoteNode(index);
     }
 
     /**
@@ -186,10 +229,9 @@ public class PatternNode extends MachineChannel {
      */
     public Collection<NoteNode> getNotes(float beat) {
         Collection<NoteNode> result = new ArrayList<NoteNode>();
-        for (NoteNode note : notes) {
-            // XXX Might be a Float precision error condition
-            if (beat == note.getStart())
-                result.add(note);
+        // XXX Might be a Float precision error condition
+        for (int i = notes.lowerBound(beat); i < notes.size() && notes.getStart(i) == beat; i++) {
+            result.add(toNoteNode(i));
         }
         return result;
     }
@@ -203,9 +245,9 @@ public class PatternNode extends MachineChannel {
      */
     public Collection<NoteNode> getNotes(float startBeat, float endBeat) {
         List<NoteNode> result = new ArrayList<NoteNode>();
-        for (NoteNode note : notes) {
-            if (note.getStart() >= startBeat && note.getEnd() <= endBeat)
-                result.add(note);
+        for (int i = notes.lowerBound(startBeat); i < notes.size(); i++) {
+            if (notes.getEnd(i) <= endBeat)
+                result.add(toNoteNode(i));
         }
         return result;
     }
@@ -220,10 +262,11 @@ public class PatternNode extends MachineChannel {
     public Collection<NoteNode> getNotes(float startBeat, float endBeat, int startPitch,
             int endPitch) {
         List<NoteNode> result = new ArrayList<NoteNode>();
-        for (NoteNode note : notes) {
-            if (startBeat >= note.getStart() && endBeat <= note.getEnd()) {
-                if (note.getPitch() >= startPitch && note.getPitch() <= endPitch) {
-                    result.add(note);
+        for (int i = 0; i < notes.size() && notes.getStart(i) <= startBeat; i++) {
+            if (endBeat <= notes.getEnd(i)) {
+                final int pitch = notes.getPitch(i);
+                if (pitch >= startPitch && pitch <= endPitch) {
+                    result.add(toNoteNode(i));
                 }
             }
         }
@@ -323,6 +366,7 @@ public class PatternNode extends MachineChannel {
      * Serialization
      */
     public PatternNode() {
+        super(false);
     }
 
     /**
@@ -331,6 +375,7 @@ public class PatternNode extends MachineChannel {
      * @param name The name of the pattern.
      */
     public PatternNode(String name) {
+        super(false);
         this.name = name;
     }
 
@@ -341,7 +386,7 @@ public class PatternNode extends MachineChannel {
      * @param patternIndex The pattern index (0..15).
      */
     public PatternNode(Machine machineNode, int bankIndex, int patternIndex) {
-        super(machineNode);
+        super(machineNode, false);
         this.name = PatternUtils.toString(bankIndex, patternIndex);
     }
 
@@ -352,7 +397,7 @@ public class PatternNode extends MachineChannel {
      * @param machineIndex The machine's rack index.
      */
     public PatternNode(Machine machineNode, String name) {
-        super(machineNode);
+        super(machineNode, false);
         this.name = name;
     }
 
@@ -364,6 +409,7 @@ public class PatternNode extends MachineChannel {
      * @param machineIndex The machine's rack index.
      */
     public PatternNode(int bankIndex, int patternIndex, Machine machineNode) {
+        super(false);
         this.name = PatternUtils.toString(bankIndex, patternIndex);
         setMachineNode(machineNode);
     }
@@ -406,27 +452,26 @@ public class PatternNode extends MachineChannel {
      * @param flags The note flags;
      *            {@link com.teotigraphix.caustk.node.machine.sequencer.NoteNode.NoteFlag}
      *            .
-     * @return A new {@link NoteNode} added to the pattern.
-     * @throws IllegalStateException Note exists at beat
+     * @return A new {@link NoteNode} added to the pattern, it replaces the
+     *         note at the same start beat and pitch.
      * @see com.teotigraphix.caustk.node.machine.sequencer.PatternNode.PatternNodeNoteChangeEvent
      */
     public NoteNode createNote(float startBeat, int pitch, float endBeat, float velocity, int flags) {
-        //        if (containsNote(startBeat, pitch))
-        //            throw new IllegalStateException("Note exists at beat:" + startBeat + " and pitch:"
-        //                    + pitch);
+        final int existing = notes.indexOf(startBeat, pitch);
+        if (existing != -1)
+            destroyNote(toNoteNode(existing));
 
-        NoteNode note = getNote(startBeat, pitch);
         // Message: /caustic/[machine_index]/pattern_sequencer/note_data [start] [pitch] [velocity] [end] [flags] 
         PatternSequencerMessage.NOTE_DATA.send(getRack(), getMachineIndex(), startBeat, pitch,
                 velocity, endBeat, flags);
-        note = new NoteNode(pitch, startBeat, endBeat, velocity, flags);
-        addNote(note);
+        NoteNode note = toNoteNode(notes.add(pitch, startBeat, endBeat, velocity, flags));
         post(new PatternNodeNoteChangeEvent(this, PatternSequencerControl.NoteDataAdd, note));
         return note;
     }
 
     /**
-     * Updates the note using new note values.
+     * Updates the note using new note values, a different note at the new start
+     * beat and pitch is destroyed.
      * 
      * @param noteNode The {@link NoteNode} to update.
      * @param pitch The MIDI pitch.
@@ -441,7 +486,22 @@ public class PatternNode extends MachineChannel {
             float velocity, int flags) {
         PatternSequencerMessage.NOTE_DATA_REMOVE.send(getRack(), getMachineIndex(),
                 noteNode.getStart(), noteNode.getPitch());
+        int index = notes.indexOf(noteNode.getStart(), noteNode.getPitch());
         noteNode.set(pitch, startBeat, endBeat, velocity, flags);
+        if (index != -1) {
+            boolean selected = notes.isSelected(index);
+            final NoteNode old = notes.getView(index);
+            if (old != null && old != noteNode)
+                old.detach();
+            notes.remove(index);
+            final int other = notes.indexOf(startBeat, pitch);
+            if (other != -1)
+                destroyNote(toNoteNode(other));
+            index = notes.add(pitch, startBeat, endBeat, velocity, flags);
+            notes.setSelected(index, selected);
+            // the moved row keeps its view
+            notes.setView(index, noteNode);
+        }
         PatternSequencerMessage.NOTE_DATA.send(getRack(), getMachineIndex(), startBeat, pitch,
                 velocity, endBeat, flags);
         post(new PatternNodeNoteChangeEvent(this, PatternSequencerControl.NoteDataUpdate, noteNode));
@@ -470,9 +530,8 @@ public class PatternNode extends MachineChannel {
      * @throws IllegalStateException Pattern was not cleared
      */
     public void clear() {
-        List<NoteNode> copy = new ArrayList<NoteNode>(notes);
-        for (NoteNode noteNode : copy) {
-            destroyNote(noteNode);
+        for (int i = notes.size() - 1; i >= 0; i--) {
+            destroyNote(toNoteNode(i));
         }
         if (notes.size() != 0)
             throw new IllegalStateException("Pattern was not cleared");
@@ -521,14 +580,40 @@ public class PatternNode extends MachineChannel {
     // Private :: Methods
     //--------------------------------------------------------------------------
 
-    private NoteNode addNote(NoteNode note) {
-        notes.add(note);
-        return note;
+    private NoteNode toNoteNode(int index) {
+        NoteNode view = notes.getView(index);
+        if (view == null) {
+            view = new NoteNode(this, notes.getPitch(index), notes.getStart(index),
+                    notes.getEnd(index), notes.getVelocity(index), notes.getFlags(index));
+            notes.setView(index, view);
+        }
+        return view;
     }
 
-    private NoteNode removeNote(NoteNode note) {
-        notes.remove(note);
-        return note;
+    private void addNote(NoteNode note) {
+        int index = notes.add(note.getPitch(), note.getStart(), note.getEnd(),
+                note.getVelocity(), note.getFlags());
+        notes.setSelected(index, note.isSelected());
+    }
+
+    private void removeNote(NoteNode note) {
+        int index = notes.indexOf(note.getStart(), note.getPitch());
+        if (index == -1)
+            return;
+        final NoteNode view = notes.getView(index);
+        if (view != null)
+            view.detach();
+        notes.remove(index);
+    }
+
+    boolean isNoteSelected(NoteNode note) {
+        int index = notes.indexOf(note.getStart(), note.getPitch());
+        return index != -1 && notes.isSelected(index);
+    }
+
+    boolean setNoteSelected(NoteNode note, boolean selected) {
+        int index = notes.indexOf(note.getStart(), note.getPitch());
+        return index != -1 && notes.setSelected(index, selected);
     }
 
     private NoteNode destroyNote(NoteNode noteNode) {
@@ -570,8 +655,7 @@ public class PatternNode extends MachineChannel {
             float velocity = Float.valueOf(split[2]);
             float endBeat = Float.valueOf(split[3]);
             int flags = Float.valueOf(split[4]).intValue();
-            NoteNode note = new NoteNode(pitch, startBeat, endBeat, velocity, flags);
-            addNote(note);
+            this.notes.add(pitch, startBeat, endBeat, velocity, flags);
             if (doNative) {
                 PatternSequencerMessage.NOTE_DATA.send(getRack(), getMachineIndex(), startBeat,
                         pitch, velocity, endBeat, flags);
@@ -579,10 +663,42 @@ public class PatternNode extends MachineChannel {
         }
     }
 
+    /**
+     * Packs the live notes into the serialized note data before a write.
+     */
+    void packNoteData() {
+        noteData = PatternNodeSerializer.encodeNotes(notes);
+    }
+
+    /**
+     * Drops the packed note data once a write has completed.
+     */
+    void releaseNoteData() {
+        noteData = null;
+    }
+
+    /**
+     * Restores the live notes from the serialized note data after a read,
+     * upgrading saves that still hold the legacy note list.
+     */
+    void unpackNoteData() {
+        if (legacyNotes != null) {
+            for (NoteNode note : legacyNotes) {
+                addNote(note);
+            }
+            legacyNotes = null;
+        }
+        if (noteData != null) {
+            PatternNodeSerializer.decodeNotes(noteData, notes);
+        }
+        noteData = null;
+        notes.trimToSize();
+    }
+
     public String serialize() {
         StringBuilder sb = new StringBuilder();
-        for (NoteNode noteNode : notes) {
-            sb.append(noteNode.toNoteData());
+        for (int i = 0; i < notes.size(); i++) {
+            sb.append(toNoteNode(i).toNoteData());
             sb.append("|");
         }
         return sb.toString();
@@ -620,10 +736,10 @@ public class PatternNode extends MachineChannel {
         // set the correct bank/pattern
         PatternSequencerMessage.NUM_MEASURES.send(getRack(), getMachineIndex(), numMeasures);
         // we already have the NoteNodes, just need to update the machine's pattern_sequencer
-        for (NoteNode noteNode : notes) {
+        for (int i = 0; i < notes.size(); i++) {
             PatternSequencerMessage.NOTE_DATA.send(getRack(), getMachineIndex(),
-                    noteNode.getStart(), noteNode.getPitch(), noteNode.getVelocity(),
-                    noteNode.getEnd(), noteNode.getFlags());
+                    notes.getStart(i), notes.getPitch(i), notes.getVelocity(i), notes.getEnd(i),
+                    notes.getFlags(i));
         }
         PatternSequencerMessage.SHUFFLE_MODE.send(getRack(), getMachineIndex(),
                 shuffleMode.getValue());
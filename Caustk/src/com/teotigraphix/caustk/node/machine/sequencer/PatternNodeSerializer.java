@@ -0,0 +1,222 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+// http://www.apache.org/licenses/LICENSE-2.0 
+// 
+// Unless required by applicable law or agreed to in writing, software 
+// distributed under the License is distributed on an "AS IS" BASIS, 
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and 
+// limitations under the License
+// 
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node.machine.sequencer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer;
+
+/**
+ * The {@link PatternNodeSerializer} writes a {@link PatternNode}'s notes as a
+ * single packed <code>byte[]</code> instead of a list of tagged
+ * {@link NoteNode} objects.
+ * <p>
+ * Notes are written in start beat order; start beats are delta encoded and
+ * gates are written as ticks of {@link #TICKS_PER_BEAT}, pitch and flags as
+ * varints and velocity quantized to (0..127). Any value that does not survive
+ * the quantization exactly is written as a raw float, so decoding is lossless.
+ * <p>
+ * Saves that hold the legacy note list (tag 104) are still read and upgraded
+ * on the next write.
+ * 
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class PatternNodeSerializer extends TaggedFieldSerializer<PatternNode> {
+
+    private static final int VERSION = 1;
+
+    /**
+     * The beat resolution of quantized start and gate values.
+     */
+    public static final int TICKS_PER_BEAT = 96;
+
+    private static final int VELOCITY_STEPS = 127;
+
+    private static final int START_EXACT = 1;
+
+    private static final int END_EXACT = 2;
+
+    private static final int VELOCITY_EXACT = 4;
+
+    private static final int SELECTED = 8;
+
+    public PatternNodeSerializer(Kryo kryo) {
+        super(kryo, PatternNode.class);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, PatternNode patternNode) {
+        patternNode.packNoteData();
+        try {
+            super.write(kryo, output, patternNode);
+        } finally {
+            patternNode.releaseNoteData();
+        }
+    }
+
+    @Override
+    public PatternNode read(Kryo kryo, Input input, Class<PatternNode> type) {
+        PatternNode patternNode = super.read(kryo, input, type);
+        patternNode.unpackNoteData();
+        return patternNode;
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Static :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Encodes the notes into the packed note format.
+     * 
+     * @param notes The notes to encode, sorted by start beat.
+     * @return The packed note data, <code>null</code> if there are no notes.
+     */
+    static byte[] encodeNotes(NoteArray notes) {
+        final int size = notes.size();
+        if (size == 0)
+            return null;
+
+        Output output = new Output(16 + size * 8, -1);
+        output.writeVarInt(VERSION, true);
+        output.writeVarInt(size, true);
+
+        int lastTick = 0;
+        for (int i = 0; i < size; i++) {
+            final float start = notes.getStart(i);
+            final float end = notes.getEnd(i);
+            final float velocity = notes.getVelocity(i);
+
+            int startTick = toTicks(start);
+            boolean startExact = !isTicks(start, startTick) || startTick < lastTick;
+            int gateTicks = startExact ? -1 : toTicks(end) - startTick;
+            boolean endExact = startExact || gateTicks < 0
+                    || !isTicks(end, startTick + gateTicks);
+            int velocityStep = Math.round(velocity * VELOCITY_STEPS);
+            boolean velocityExact = velocityStep < 0 || velocityStep > VELOCITY_STEPS
+                    || velocityStep / (float)VELOCITY_STEPS != velocity;
+
+            int header = 0;
+            if (startExact)
+                header |= START_EXACT;
+            if (endExact)
+                header |= END_EXACT;
+            if (velocityExact)
+                header |= VELOCITY_EXACT;
+            if (notes.isSelected(i))
+                header |= SELECTED;
+            output.writeByte(header);
+
+            if (startExact) {
+                output.writeFloat(start);
+            } else {
+                output.writeVarInt(startTick - lastTick, true);
+                lastTick = startTick;
+            }
+
+            if (endExact) {
+                output.writeFloat(end);
+            } else {
+                output.writeVarInt(gateTicks, true);
+            }
+
+            output.writeVarInt(notes.getPitch(i), true);
+
+            if (velocityExact) {
+                output.writeFloat(velocity);
+            } else {
+                output.writeByte(velocityStep);
+            }
+
+            output.writeVarInt(notes.getFlags(i), true);
+        }
+        return output.toBytes();
+    }
+
+    /**
+     * Decodes the packed note format into the note storage.
+     * 
+     * @param data The packed note data.
+     * @param notes The storage the decoded notes are added to.
+     * @throws KryoException Unknown note data version
+     */
+    static void decodeNotes(byte[] data, NoteArray notes) {
+        Input input = new Input(data);
+        int version = input.readVarInt(true);
+        if (version != VERSION)
+            throw new KryoException("Unknown note data version: " + version);
+
+        int count = input.readVarInt(true);
+
+        int lastTick = 0;
+        for (int i = 0; i < count; i++) {
+            int header = input.readByte();
+
+            int startTick = -1;
+            float start;
+            if ((header & START_EXACT) != 0) {
+                start = input.readFloat();
+            } else {
+                startTick = lastTick + input.readVarInt(true);
+                lastTick = startTick;
+                start = toBeat(startTick);
+            }
+
+            float end;
+            if ((header & END_EXACT) != 0) {
+                end = input.readFloat();
+            } else {
+                end = toBeat(startTick + input.readVarInt(true));
+            }
+
+            int pitch = input.readVarInt(true);
+
+            float velocity;
+            if ((header & VELOCITY_EXACT) != 0) {
+                velocity = input.readFloat();
+            } else {
+                velocity = (input.readByte() & 0xFF) / (float)VELOCITY_STEPS;
+            }
+
+            int flags = input.readVarInt(true);
+            int index = notes.add(pitch, start, end, velocity, flags);
+            if ((header & SELECTED) != 0)
+                notes.setSelected(index, true);
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Private Static :: Methods
+    //--------------------------------------------------------------------------
+
+    private static int toTicks(float beat) {
+        return Math.round(beat * TICKS_PER_BEAT);
+    }
+
+    private static float toBeat(int ticks) {
+        return ticks / (float)TICKS_PER_BEAT;
+    }
+
+    private static boolean isTicks(float beat, int ticks) {
+        return ticks >= 0 && Float.floatToIntBits(toBeat(ticks)) == Float.floatToIntBits(beat);
+    }
+}
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
 import com.teotigraphix.caustk.core.osc.PatternSequencerMessage;
@@ -290,10 +291,11 @@ public class SequencerChannel extends MachineChannel {
      * Serialization
      */
     protected SequencerChannel() {
+        super(false);
     }
 
     public SequencerChannel(Machine machineNode) {
-        super(machineNode);
+        super(machineNode, false);
         // init these here since the sequencer is being created explicitly
         // not through a restore, here we KNOW that bank and patter are 0 in native
         selectedBankIndex = 0;
@@ -508,4 +510,26 @@ public class SequencerChannel extends MachineChannel {
                 patternNode.getNotes()));
     }
 
+    /**
+     * Adds the notes of several patterns in one batch, the machine's bank and
+     * pattern are switched back once after all patterns are sent.
+     * <p>
+     * The notes are passed separately so they can be copied off the engine
+     * thread ahead of time.
+     * 
+     * @param patternNodes The source patterns, by name.
+     * @param notes The notes of each source pattern, same order as the
+     *            patterns.
+     * @see #addPattern(PatternNode)
+     */
+    public void addPatterns(List<PatternNode> patternNodes, List<? extends List<NoteNode>> notes) {
+        List<PatternNode> newPatterns = new ArrayList<PatternNode>(patternNodes.size());
+        for (PatternNode patternNode : patternNodes) {
+            PatternNode newPattern = getPattern(patternNode.getName());
+            newPattern.setNumMeasures(patternNode.getNumMeasures());
+            newPatterns.add(newPattern);
+        }
+        PatternUtils.setNoteData(getRack(), getMachineIndex(), newPatterns, notes);
+    }
+
 }
@@ -408,13 +408,15 @@ public class TrackChannel extends MachineChannel {
      * Serialization
      */
     protected TrackChannel() {
+        super(false);
     }
 
     public TrackChannel(Machine machineNode) {
-        super(machineNode);
+        super(machineNode, false);
     }
 
     public TrackChannel(int machineIndex) {
+        super(false);
         this.machineIndex = machineIndex;
     }
 
@@ -197,11 +197,12 @@ public class TrackEntryNode extends MachineChannel {
      * Serialization
      */
     protected TrackEntryNode() {
+        super(false);
     }
 
     public TrackEntryNode(Machine machineNode, String patternName, int numMeasures,
             int startMeasure, int endMeasure) {
-        super(machineNode);
+        super(machineNode, false);
         this.pattern = patternName;
         this.numMeasures = numMeasures;
         this.startMeasure = startMeasure;
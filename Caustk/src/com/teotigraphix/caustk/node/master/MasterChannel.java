@@ -21,6 +21,7 @@ package com.teotigraphix.caustk.node.master;
 
 import com.esotericsoftware.kryo.serializers.TaggedFieldSerializer.Tag;
 import com.teotigraphix.caustk.core.osc.MasterMixerMessage.MasterMixerControl;
+import com.teotigraphix.caustk.node.INodeChangeEvent;
 import com.teotigraphix.caustk.node.NodeBase;
 import com.teotigraphix.caustk.node.NodeBaseEvents.NodeEvent;
 import com.teotigraphix.caustk.node.RackInstance;
@@ -208,18 +209,35 @@ public class MasterChannel extends NodeBase {
         }
     }
 
-    public static class MasterNodeChangeEvent extends NodeEvent {
+    /**
+     * @see MasterChildNode#post(MasterMixerControl, float)
+     */
+    public static class MasterNodeChangeEvent extends NodeEvent implements INodeChangeEvent {
 
         private float value;
 
+        @Override
         public float getValue() {
             return value;
         }
 
+        @Override
+        public void setValue(float value) {
+            this.value = value;
+        }
+
+        @Override
+        public NodeEvent copy() {
+            return new MasterNodeChangeEvent(getTarget(), (MasterMixerControl)getControl(), value);
+        }
+
         public MasterNodeChangeEvent(NodeBase target, MasterMixerControl control, float value) {
             super(target, control);
             this.value = value;
         }
+
+        MasterNodeChangeEvent() {
+        }
     }
 
     @Override
@@ -24,6 +24,7 @@ import com.teotigraphix.caustk.core.osc.CausticMessage;
 import com.teotigraphix.caustk.core.osc.MasterMixerMessage;
 import com.teotigraphix.caustk.core.osc.MasterMixerMessage.MasterMixerControl;
 import com.teotigraphix.caustk.node.NodeBase;
+import com.teotigraphix.caustk.node.NodeEventPool;
 import com.teotigraphix.caustk.node.master.MasterChannel.MasterNodeChangeEvent;
 
 /**
@@ -38,6 +39,14 @@ public class MasterChildNode extends NodeBase {
     // Private :: Variables
     //--------------------------------------------------------------------------
 
+    private static final NodeEventPool<MasterNodeChangeEvent> CHANGE_EVENTS =
+            new NodeEventPool<MasterNodeChangeEvent>(8) {
+        @Override
+        protected MasterNodeChangeEvent newEvent() {
+            return new MasterNodeChangeEvent();
+        }
+    };
+
     CausticMessage getBypassMessage() {
         return null;
     }
@@ -125,6 +134,6 @@ public class MasterChildNode extends NodeBase {
     }
 
     protected void post(MasterMixerControl control, float value) {
-        post(new MasterNodeChangeEvent(this, control, value));
+        CHANGE_EVENTS.post(this, control, value);
     }
 }
@@ -0,0 +1,345 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node.sequencer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.teotigraphix.caustk.core.CausticException;
+import com.teotigraphix.caustk.node.RackInstance;
+import com.teotigraphix.caustk.node.sequencer.MasterSequencerChannel.ExportLoopMode;
+import com.teotigraphix.caustk.node.sequencer.MasterSequencerChannel.ExportType;
+
+/**
+ * An {@link ExportJob} renders one or more files of the song sequencer on the
+ * {@link ExportQueue}.
+ * <p>
+ * Before each render the job changes the rack through an {@link ExportPatch},
+ * the queue reverts the patch after the last render, when a render fails and
+ * when the job is cancelled.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public abstract class ExportJob {
+
+    private final RackInstance rackInstance;
+
+    private final String name;
+
+    private final ExportType type;
+
+    private final int quality;
+
+    private ExportLoopMode loopMode = ExportLoopMode.Song;
+
+    private final List<File> files = new ArrayList<File>();
+
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private volatile ExportJobState state = ExportJobState.Queued;
+
+    private volatile boolean cancelRequested;
+
+    private volatile float progress;
+
+    private volatile Throwable error;
+
+    private ExportQueue queue;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the rack the job exports from.
+     */
+    public final RackInstance getRackInstance() {
+        return rackInstance;
+    }
+
+    public final String getName() {
+        return name;
+    }
+
+    public final ExportType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the quality of the media as a percentage (10..100).
+     */
+    public final int getQuality() {
+        return quality;
+    }
+
+    public final ExportLoopMode getLoopMode() {
+        return loopMode;
+    }
+
+    /**
+     * Sets whether the song or the loop points are exported, default
+     * {@link ExportLoopMode#Song}.
+     *
+     * @param loopMode The loop mode.
+     */
+    public final void setLoopMode(ExportLoopMode loopMode) {
+        this.loopMode = loopMode;
+    }
+
+    public final ExportJobState getState() {
+        return state;
+    }
+
+    /**
+     * Whether the job completed, failed or was cancelled.
+     */
+    public final boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * Whether {@link #cancel()} was called.
+     */
+    public final boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * Returns the progress of all renders (0..1).
+     */
+    public final float getProgress() {
+        return progress;
+    }
+
+    /**
+     * Returns the failure of a {@link ExportJobState#Failed} job.
+     */
+    public final Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Returns the files rendered so far.
+     */
+    public final synchronized List<File> getFiles() {
+        return new ArrayList<File>(files);
+    }
+
+    /**
+     * Returns the number of files the job renders.
+     */
+    public abstract int getNumRenders();
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates an export job.
+     *
+     * @param rackInstance The rack to export from.
+     * @param name The display name of the job.
+     * @param type The media type of the files.
+     * @param quality The quality of media as a percentage (10..100).
+     */
+    protected ExportJob(RackInstance rackInstance, String name, ExportType type, int quality) {
+        this.rackInstance = rackInstance;
+        this.name = name;
+        this.type = type;
+        this.quality = quality;
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Cancels the job.
+     * <p>
+     * A queued job is removed from the queue. The engine cannot abort a
+     * render, a running job waits for the current render to end, reverts its
+     * patch and deletes its files.
+     *
+     * @return Whether the job was not done yet.
+     */
+    public boolean cancel() {
+        if (isDone())
+            return false;
+        cancelRequested = true;
+        final ExportQueue owner;
+        synchronized (this) {
+            owner = queue;
+        }
+        if (owner != null)
+            owner.cancelled(this);
+        return true;
+    }
+
+    /**
+     * Waits for the job to be done.
+     *
+     * @param timeout The maximum time to wait in milliseconds.
+     * @return Whether the job is done.
+     * @throws InterruptedException
+     */
+    public boolean await(long timeout) throws InterruptedException {
+        return done.await(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Waits for the job and returns its files.
+     *
+     * @param timeout The maximum time to wait in milliseconds.
+     * @throws IOException The job timed out or a render failed.
+     * @throws CausticException The rack could not be patched.
+     * @throws CancellationException The job was cancelled.
+     * @throws InterruptedException
+     */
+    public List<File> get(long timeout) throws IOException, CausticException,
+            InterruptedException {
+        if (!await(timeout))
+            throw new IOException("Export timed out: " + name);
+        switch (state) {
+            case Complete:
+                return getFiles();
+            case Cancelled:
+                throw new CancellationException("Export cancelled: " + name);
+            default:
+                break;
+        }
+        if (error instanceof IOException)
+            throw (IOException)error;
+        if (error instanceof CausticException)
+            throw (CausticException)error;
+        if (error instanceof RuntimeException)
+            throw (RuntimeException)error;
+        if (error instanceof Error)
+            throw (Error)error;
+        throw new IOException("Export failed: " + name, error);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [" + name + ", " + state + "]";
+    }
+
+    //--------------------------------------------------------------------------
+    // Protected :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Changes the rack for a render and returns the export path.
+     * <p>
+     * Every change must go through the patch, the rack is left as the previous
+     * render patched it. Called on the queue's event executor, node events
+     * reach their listeners on the thread they expect.
+     *
+     * @param render The render index (0..numRenders - 1).
+     * @param patch The patch of the job.
+     * @return The absolute path of the file without extension.
+     * @throws CausticException
+     */
+    protected abstract File prepare(int render, ExportPatch patch) throws CausticException;
+
+    //--------------------------------------------------------------------------
+    // Package :: Methods
+    //--------------------------------------------------------------------------
+
+    synchronized boolean enqueue(ExportQueue queue) {
+        if (this.queue != null || isDone())
+            return false;
+        this.queue = queue;
+        return true;
+    }
+
+    void setState(ExportJobState state) {
+        this.state = state;
+    }
+
+    void setProgress(float progress) {
+        this.progress = progress;
+    }
+
+    synchronized void addFile(File file) {
+        files.add(file);
+    }
+
+    /**
+     * Deletes the rendered files.
+     */
+    synchronized void deleteFiles() {
+        for (File file : files) {
+            file.delete();
+        }
+        files.clear();
+    }
+
+    /**
+     * Sets the final state and releases waiting threads, returns false when the
+     * job was already done.
+     */
+    synchronized boolean finish(ExportJobState state, Throwable error) {
+        if (isDone())
+            return false;
+        this.state = state;
+        this.error = error;
+        if (state == ExportJobState.Complete)
+            progress = 1f;
+        done.countDown();
+        return true;
+    }
+
+    /**
+     * The state of an {@link ExportJob}.
+     */
+    public enum ExportJobState {
+
+        /**
+         * Waiting for the jobs before it.
+         */
+        Queued,
+
+        /**
+         * Rendering.
+         */
+        Running,
+
+        /**
+         * All files were rendered.
+         */
+        Complete,
+
+        /**
+         * A render failed, see {@link ExportJob#getError()}.
+         */
+        Failed,
+
+        /**
+         * The job was cancelled, its files were deleted.
+         */
+        Cancelled;
+    }
+}
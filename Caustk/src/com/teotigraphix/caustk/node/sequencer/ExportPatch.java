@@ -0,0 +1,206 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node.sequencer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import com.teotigraphix.caustk.node.RackInstance;
+import com.teotigraphix.caustk.node.machine.Machine;
+import com.teotigraphix.caustk.node.machine.patch.MixerChannel;
+import com.teotigraphix.caustk.node.machine.sequencer.TrackChannel;
+import com.teotigraphix.caustk.node.machine.sequencer.TrackEntryNode;
+
+/**
+ * The {@link ExportPatch} changes the rack for an export and puts it back
+ * when the export is done.
+ * <p>
+ * The original value of a property is recorded the first time the patch
+ * changes it, setting a property again only sends a message when the value
+ * differs. A job with several renders can switch between render states on one
+ * patch, {@link #revert()} restores each property once.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class ExportPatch {
+
+    private final Map<String, Runnable> reverts = new LinkedHashMap<String, Runnable>();
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Whether the patch changed nothing yet.
+     */
+    public boolean isEmpty() {
+        return reverts.isEmpty();
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Records how to restore a property, ignored when the property was already
+     * recorded.
+     * <p>
+     * Call before changing the property.
+     *
+     * @param key The unique key of the property.
+     * @param revert Restores the original value.
+     * @return Whether the revert was recorded.
+     */
+    public boolean record(String key, Runnable revert) {
+        if (reverts.containsKey(key))
+            return false;
+        reverts.put(key, revert);
+        return true;
+    }
+
+    /**
+     * Sets the delay send of a machine's mixer.
+     *
+     * @param machine The machine.
+     * @param delaySend The send (0.0..1.0).
+     */
+    public void setDelaySend(Machine machine, float delaySend) {
+        final MixerChannel mixer = machine.getMixer();
+        final float original = mixer.getDelaySend();
+        record("delaySend:" + machine.getIndex(), new Runnable() {
+            @Override
+            public void run() {
+                mixer.setDelaySend(original);
+            }
+        });
+        mixer.setDelaySend(delaySend);
+    }
+
+    /**
+     * Sets the reverb send of a machine's mixer.
+     *
+     * @param machine The machine.
+     * @param reverbSend The send (0.0..1.0).
+     */
+    public void setReverbSend(Machine machine, float reverbSend) {
+        final MixerChannel mixer = machine.getMixer();
+        final float original = mixer.getReverbSend();
+        record("reverbSend:" + machine.getIndex(), new Runnable() {
+            @Override
+            public void run() {
+                mixer.setReverbSend(original);
+            }
+        });
+        mixer.setReverbSend(reverbSend);
+    }
+
+    /**
+     * Mutes or unmutes a machine's mixer.
+     *
+     * @param machine The machine.
+     * @param mute Whether the machine is muted.
+     */
+    public void setMute(Machine machine, boolean mute) {
+        final MixerChannel mixer = machine.getMixer();
+        final boolean original = mixer.isMute();
+        record("mute:" + machine.getIndex(), new Runnable() {
+            @Override
+            public void run() {
+                if (mixer.isMute() != original)
+                    mixer.setMute(original);
+            }
+        });
+        if (original != mute)
+            mixer.setMute(mute);
+    }
+
+    /**
+     * Solos or unsolos a machine's mixer.
+     *
+     * @param machine The machine.
+     * @param solo Whether the machine is soloed.
+     */
+    public void setSolo(Machine machine, boolean solo) {
+        final MixerChannel mixer = machine.getMixer();
+        final boolean original = mixer.isSolo();
+        record("solo:" + machine.getIndex(), new Runnable() {
+            @Override
+            public void run() {
+                if (mixer.isSolo() != original)
+                    mixer.setSolo(original);
+            }
+        });
+        if (original != solo)
+            mixer.setSolo(solo);
+    }
+
+    /**
+     * Removes all entries from the song sequencer, the entries of the song are
+     * added back on {@link #revert()}.
+     * <p>
+     * Calling again removes the entries added since the last call.
+     *
+     * @param rackInstance The rack.
+     */
+    public void clearSong(RackInstance rackInstance) {
+        for (Machine machine : rackInstance.getMachines()) {
+            final TrackChannel track = machine.getTrack();
+            final List<TrackEntryNode> original = new ArrayList<TrackEntryNode>(track
+                    .getEntries().values());
+            record("track:" + machine.getIndex(), new Runnable() {
+                @Override
+                public void run() {
+                    track.clearEntries();
+                    for (TrackEntryNode entry : original) {
+                        track.addEntry(entry);
+                    }
+                }
+            });
+            track.clearEntries();
+        }
+    }
+
+    /**
+     * Restores the recorded properties in reverse order and empties the
+     * patch.
+     * <p>
+     * Every property is restored even if one fails, the first failure is
+     * thrown after all were tried.
+     */
+    public void revert() {
+        final List<Runnable> list = new ArrayList<Runnable>(reverts.values());
+        reverts.clear();
+        RuntimeException failure = null;
+        for (ListIterator<Runnable> i = list.listIterator(list.size()); i.hasPrevious();) {
+            try {
+                i.previous().run();
+            } catch (RuntimeException e) {
+                if (failure == null)
+                    failure = e;
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+}
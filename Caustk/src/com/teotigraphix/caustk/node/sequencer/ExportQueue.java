@@ -0,0 +1,445 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node.sequencer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.eventbus.EventBus;
+import com.teotigraphix.caustk.node.sequencer.ExportJob.ExportJobState;
+
+/**
+ * The {@link ExportQueue} renders {@link ExportJob}s one after the other on a
+ * background thread.
+ * <p>
+ * A render is complete when the engine's export progress reaches 100 after
+ * it was seen below 100, the engine keeps reporting 100 of the previous render
+ * until the new render starts. A render done before the first poll is
+ * complete when its file exists and stopped growing. The progress is polled
+ * often while a render starts and less often as the remaining time estimated
+ * from the progress rate grows. A render that makes no progress for
+ * {@link #STALL_TIMEOUT} fails.
+ * <p>
+ * {@link ExportQueueEvent}s are posted on the event bus through the event
+ * executor, use an executor that runs on the UI thread when subscribers
+ * update views. The {@link ExportPatch} changes of a job post node events, they
+ * are applied and reverted on the event executor as well, like the export
+ * message and the progress polls, the queue thread waits for them.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class ExportQueue {
+
+    /**
+     * The time in milliseconds a render may report the same progress before
+     * it fails.
+     */
+    public static final long STALL_TIMEOUT = 15000;
+
+    private static final long MIN_POLL_INTERVAL = 5;
+
+    private static final long MAX_POLL_INTERVAL = 250;
+
+    private static final long IDLE_TIMEOUT = 30;
+
+    private final EventBus eventBus;
+
+    private final Executor eventExecutor;
+
+    private final ThreadPoolExecutor executor;
+
+    private final List<ExportJob> jobs = new ArrayList<ExportJob>();
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the queued jobs and the running job.
+     */
+    public synchronized List<ExportJob> getJobs() {
+        return new ArrayList<ExportJob>(jobs);
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates an export queue.
+     *
+     * @param eventBus The bus the {@link ExportQueueEvent}s are posted on.
+     * @param eventExecutor Runs the posts.
+     */
+    public ExportQueue(EventBus eventBus, Executor eventExecutor) {
+        this.eventBus = eventBus;
+        this.eventExecutor = eventExecutor;
+        executor = new ThreadPoolExecutor(1, 1, IDLE_TIMEOUT, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "ExportQueue");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Adds a job to the end of the queue.
+     *
+     * @param job The job, a job can only be queued once.
+     * @return The job.
+     */
+    public <T extends ExportJob> T submit(final T job) {
+        if (!job.enqueue(this))
+            throw new IllegalStateException("Job was already queued: " + job);
+        synchronized (this) {
+            jobs.add(job);
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                execute(job);
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Cancels all queued jobs and the running job.
+     */
+    public void cancelAll() {
+        for (ExportJob job : getJobs()) {
+            job.cancel();
+        }
+    }
+
+    /**
+     * Cancels all jobs and stops the thread once the running job reverted its
+     * patch.
+     */
+    public void dispose() {
+        cancelAll();
+        executor.shutdown();
+    }
+
+    //--------------------------------------------------------------------------
+    // Package :: Methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Called by {@link ExportJob#cancel()}, a queued job is done at once, the
+     * running job is finished by the worker.
+     */
+    void cancelled(ExportJob job) {
+        synchronized (this) {
+            if (job.getState() != ExportJobState.Queued)
+                return;
+            jobs.remove(job);
+            if (!job.finish(ExportJobState.Cancelled, null))
+                return;
+        }
+        post(new ExportQueueEvent(ExportQueueEventKind.Cancelled, job));
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private void execute(final ExportJob job) {
+        synchronized (this) {
+            if (job.getState() != ExportJobState.Queued)
+                return;
+            job.setState(ExportJobState.Running);
+        }
+        post(new ExportQueueEvent(ExportQueueEventKind.Started, job));
+
+        final MasterSequencerChannel sequencer = job.getRackInstance().getSequencer();
+        final ExportPatch patch = new ExportPatch();
+        final int numRenders = job.getNumRenders();
+        boolean cancelled = false;
+        Throwable error = null;
+        try {
+            for (int render = 0; render < numRenders; render++) {
+                if (job.isCancelRequested()) {
+                    cancelled = true;
+                    break;
+                }
+                final int current = render;
+                final File location = runOnEventThread(new Callable<File>() {
+                    @Override
+                    public File call() throws Exception {
+                        return job.prepare(current, patch);
+                    }
+                });
+                final File file = new File(location.getPath() + "."
+                        + job.getType().getExtension());
+                // a file left by an earlier export would pass the check below
+                file.delete();
+                runOnEventThread(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        sequencer.exportSong(job.getLoopMode(), job.getType(), job.getQuality(),
+                                location.getAbsolutePath());
+                        return null;
+                    }
+                });
+                if (!awaitRender(job, sequencer, file, render, numRenders)) {
+                    file.delete();
+                    cancelled = true;
+                    break;
+                }
+                if (!file.isFile())
+                    throw new IOException("Export was not written: " + file);
+                job.addFile(file);
+            }
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            try {
+                runOnEventThread(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        patch.revert();
+                        return null;
+                    }
+                });
+            } catch (Exception e) {
+                if (error == null)
+                    error = e;
+            }
+        }
+
+        final ExportJobState state;
+        final ExportQueueEventKind kind;
+        if (error != null) {
+            job.deleteFiles();
+            state = ExportJobState.Failed;
+            kind = ExportQueueEventKind.Failed;
+        } else if (cancelled) {
+            job.deleteFiles();
+            state = ExportJobState.Cancelled;
+            kind = ExportQueueEventKind.Cancelled;
+        } else {
+            state = ExportJobState.Complete;
+            kind = ExportQueueEventKind.Complete;
+        }
+        synchronized (this) {
+            jobs.remove(job);
+            job.finish(state, error);
+        }
+        post(new ExportQueueEvent(kind, job));
+    }
+
+    /**
+     * Polls the export progress until the render ends.
+     *
+     * @return <code>false</code> when the job was cancelled during the render.
+     */
+    private boolean awaitRender(ExportJob job, final MasterSequencerChannel sequencer, File file,
+            int render, int numRenders) throws Exception {
+        final long started = System.currentTimeMillis();
+        long lastChange = started;
+        long interval = MIN_POLL_INTERVAL;
+        float last = -1f;
+        int lastPercent = (int)(job.getProgress() * 100f);
+        boolean rendering = false;
+        long lastLength = -1L;
+        while (true) {
+            final float value = runOnEventThread(new Callable<Float>() {
+                @Override
+                public Float call() throws Exception {
+                    return sequencer.exportSongProgress();
+                }
+            });
+            final long now = System.currentTimeMillis();
+            if (value >= 100f) {
+                if (rendering)
+                    break;
+                // the previous render's 100, or a render done before the first poll
+                final long length = file.isFile() ? file.length() : -1L;
+                if (length > 0L && length == lastLength)
+                    break;
+                if (length != lastLength)
+                    lastChange = now;
+                lastLength = length;
+            } else {
+                rendering = true;
+            }
+
+            if (rendering && value != last) {
+                last = value;
+                lastChange = now;
+                if (value > 0f) {
+                    // poll about ten times over the estimated remaining time
+                    final long remaining = (long)((now - started) * (100f - value) / value);
+                    interval = Math.max(MIN_POLL_INTERVAL,
+                            Math.min(MAX_POLL_INTERVAL, remaining / 10));
+                }
+                if (!job.isCancelRequested()) {
+                    job.setProgress((render + value / 100f) / numRenders);
+                    final int percent = (int)(job.getProgress() * 100f);
+                    if (percent != lastPercent) {
+                        lastPercent = percent;
+                        post(new ExportQueueEvent(ExportQueueEventKind.Progress, job));
+                    }
+                }
+            } else {
+                if (now - lastChange > STALL_TIMEOUT) {
+                    if (job.isCancelRequested())
+                        return false;
+                    throw new IOException("Export stalled at " + value + "%: " + job.getName());
+                }
+                interval = Math.min(MAX_POLL_INTERVAL, interval * 2);
+            }
+
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                // the engine keeps rendering, finish waiting as cancelled
+                job.cancel();
+            }
+        }
+
+        if (job.isCancelRequested())
+            return false;
+        job.setProgress((render + 1f) / numRenders);
+        if ((int)(job.getProgress() * 100f) != lastPercent)
+            post(new ExportQueueEvent(ExportQueueEventKind.Progress, job));
+        return true;
+    }
+
+    /**
+     * Runs an engine call on the event executor and waits for it, an interrupt
+     * does not stop the wait and is restored after it.
+     */
+    private <T> T runOnEventThread(Callable<T> callable) throws Exception {
+        final FutureTask<T> task = new FutureTask<T>(callable);
+        eventExecutor.execute(task);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof Exception)
+                        throw (Exception)cause;
+                    throw (Error)cause;
+                }
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    private void post(final ExportQueueEvent event) {
+        eventExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                eventBus.post(event);
+            }
+        });
+    }
+
+    /**
+     * The kind of an {@link ExportQueueEvent}.
+     */
+    public enum ExportQueueEventKind {
+
+        /**
+         * The job started its first render.
+         */
+        Started,
+
+        /**
+         * The {@link ExportJob#getProgress()} changed by at least one percent.
+         */
+        Progress,
+
+        /**
+         * All files of the job were rendered.
+         */
+        Complete,
+
+        /**
+         * A render of the job failed.
+         */
+        Failed,
+
+        /**
+         * The job was cancelled.
+         */
+        Cancelled;
+    }
+
+    /**
+     * Posted when an {@link ExportJob} starts, progresses and is done.
+     */
+    public static class ExportQueueEvent {
+
+        private final ExportQueueEventKind kind;
+
+        private final ExportJob job;
+
+        private final float progress;
+
+        public ExportQueueEventKind getKind() {
+            return kind;
+        }
+
+        public ExportJob getJob() {
+            return job;
+        }
+
+        /**
+         * Returns the progress of the job when the event was posted (0..1).
+         */
+        public float getProgress() {
+            return progress;
+        }
+
+        public ExportQueueEvent(ExportQueueEventKind kind, ExportJob job) {
+            this.kind = kind;
+            this.job = job;
+            this.progress = job.getProgress();
+        }
+    }
+}
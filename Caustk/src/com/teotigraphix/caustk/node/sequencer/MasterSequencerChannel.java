@@ -745,22 +745,25 @@ public class MasterSequencerChannel extends NodeBase {
         /**
          * Export as a <code>*.wav</code> file.
          */
-        Wav("WAV"),
+        Wav("WAV", "wav"),
 
         /**
          * Export as a <code>*.ogg</code> file.
          */
-        Ogg("OGG"),
+        Ogg("OGG", "ogg"),
 
         /**
          * Export as a <code>*.mid</code> file.
          */
-        Mid("MID");
+        Mid("MID", "mid");
 
         private final String value;
 
-        ExportType(String value) {
+        private final String extension;
+
+        ExportType(String value, String extension) {
             this.value = value;
+            this.extension = extension;
         }
 
         /**
@@ -769,6 +772,13 @@ public class MasterSequencerChannel extends NodeBase {
         public String getValue() {
             return value;
         }
+
+        /**
+         * Returns the extension the engine appends to the export path.
+         */
+        public String getExtension() {
+            return extension;
+        }
     }
 
     /**
@@ -0,0 +1,129 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node.sequencer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.teotigraphix.caustk.core.CausticException;
+import com.teotigraphix.caustk.node.RackInstance;
+import com.teotigraphix.caustk.node.machine.Machine;
+import com.teotigraphix.caustk.node.machine.sequencer.PatternNode;
+import com.teotigraphix.caustk.node.sequencer.MasterSequencerChannel.ExportType;
+
+/**
+ * The {@link PatternExportJob} renders patterns one at a time, each as the
+ * only entry of the song sequencer.
+ * <p>
+ * The song is restored after the last pattern. By default the delay and reverb
+ * sends of the pattern's machine are turned off while it renders.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class PatternExportJob extends ExportJob {
+
+    private final List<PatternNode> patterns = new ArrayList<PatternNode>();
+
+    private final List<File> locations = new ArrayList<File>();
+
+    private boolean dry = true;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    @Override
+    public int getNumRenders() {
+        return patterns.size();
+    }
+
+    public boolean isDry() {
+        return dry;
+    }
+
+    /**
+     * Sets whether the delay and reverb sends are turned off, default
+     * <code>true</code>.
+     *
+     * @param dry Whether the patterns render without sends.
+     */
+    public void setDry(boolean dry) {
+        this.dry = dry;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates a pattern export job, add patterns before the job is queued.
+     *
+     * @param rackInstance The rack to export from.
+     * @param name The display name of the job.
+     * @param type The media type of the files.
+     * @param quality The quality of media as a percentage (10..100).
+     */
+    public PatternExportJob(RackInstance rackInstance, String name, ExportType type, int quality) {
+        super(rackInstance, name, type, quality);
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Adds a pattern to render.
+     *
+     * @param pattern The pattern.
+     * @param location The absolute path of the file without extension.
+     */
+    public void add(PatternNode pattern, File location) {
+        if (getState() != ExportJobState.Queued || isDone())
+            throw new IllegalStateException("Job already started: " + this);
+        patterns.add(pattern);
+        locations.add(location);
+    }
+
+    //--------------------------------------------------------------------------
+    // Overridden Protected :: Methods
+    //--------------------------------------------------------------------------
+
+    @Override
+    protected File prepare(int render, ExportPatch patch) throws CausticException {
+        final RackInstance rackInstance = getRackInstance();
+        final PatternNode pattern = patterns.get(render);
+        final Machine machine = rackInstance.getMachine(pattern.getMachineIndex());
+        final int numBars = pattern.getNumMeasures();
+
+        // removes the pattern of the previous render as well
+        patch.clearSong(rackInstance);
+        machine.getTrack().addEntry(pattern, 0, numBars);
+        // loop points are not part of the model, they cannot be restored
+        rackInstance.getSequencer().setLoopPoints(0, numBars);
+
+        if (dry) {
+            patch.setDelaySend(machine, 0f);
+            patch.setReverbSend(machine, 0f);
+        }
+        return locations.get(render);
+    }
+}
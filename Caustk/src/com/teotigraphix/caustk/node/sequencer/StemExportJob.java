@@ -0,0 +1,284 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.node.sequencer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.teotigraphix.caustk.core.CausticException;
+import com.teotigraphix.caustk.node.RackInstance;
+import com.teotigraphix.caustk.node.machine.Machine;
+import com.teotigraphix.caustk.node.sequencer.MasterSequencerChannel.ExportType;
+
+/**
+ * The {@link StemExportJob} renders the song once per machine, each file holds
+ * one machine with all other machines muted.
+ * <p>
+ * In {@link StemMode#Mix} a machine is rendered with its inserts and its delay
+ * and reverb sends as in the song, the stems sum to the mix. In
+ * {@link StemMode#Dry} the sends are removed, with
+ * {@link #setIncludeReturns(boolean)} a delay and a reverb stem follow, each
+ * renders the stem machines with the mixer sends of that effect only. The
+ * engine has no wet only output, a return stem holds the dry machines as well,
+ * subtract the sum of the machine stems for the wet signal.
+ * <p>
+ * The machines and their mixer state are read when the job is created, create
+ * the job on the thread that changes the rack. The mute masks and sends of all
+ * renders are computed from them, each render only sends the mute and send
+ * messages that differ from the previous render. The mixer is restored once
+ * after the last render.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class StemExportJob extends ExportJob {
+
+    private final File directory;
+
+    private final String baseName;
+
+    private final List<Integer> selection = new ArrayList<Integer>();
+
+    private final List<Machine> machines;
+
+    private final String[] names;
+
+    private final boolean[] songMachines;
+
+    private final float[] delaySends;
+
+    private final float[] reverbSends;
+
+    private StemMode mode = StemMode.Mix;
+
+    private boolean includeReturns;
+
+    private List<Stem> stems;
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Returns the number of stems, computed on the first call from the machines
+     * read when the job was created.
+     */
+    @Override
+    public synchronized int getNumRenders() {
+        return getStems().size();
+    }
+
+    public StemMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets how the machine stems are rendered, default {@link StemMode#Mix}.
+     *
+     * @param mode The stem mode.
+     */
+    public void setMode(StemMode mode) {
+        checkQueued();
+        this.mode = mode;
+    }
+
+    public boolean isIncludeReturns() {
+        return includeReturns;
+    }
+
+    /**
+     * Sets whether delay and reverb return stems are rendered after the
+     * machine stems in {@link StemMode#Dry}, ignored for {@link ExportType#Mid}.
+     *
+     * @param includeReturns Whether the returns are rendered.
+     */
+    public void setIncludeReturns(boolean includeReturns) {
+        checkQueued();
+        this.includeReturns = includeReturns;
+    }
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    /**
+     * Creates a stem export job, reads the rack's machines.
+     *
+     * @param rackInstance The rack to export from.
+     * @param name The display name of the job.
+     * @param type The media type of the files.
+     * @param quality The quality of media as a percentage (10..100).
+     * @param directory The directory of the stem files.
+     * @param baseName The start of each file name.
+     */
+    public StemExportJob(RackInstance rackInstance, String name, ExportType type, int quality,
+            File directory, String baseName) {
+        super(rackInstance, name, type, quality);
+        this.directory = directory;
+        this.baseName = baseName;
+
+        machines = new ArrayList<Machine>(rackInstance.getMachines());
+        final int count = machines.size();
+        names = new String[count];
+        songMachines = new boolean[count];
+        delaySends = new float[count];
+        reverbSends = new float[count];
+        for (int i = 0; i < count; i++) {
+            final Machine machine = machines.get(i);
+            names[i] = machine.getName();
+            songMachines[i] = machine.getTrack().size() > 0 && !machine.getMixer().isMute();
+            delaySends[i] = machine.getMixer().getDelaySend();
+            reverbSends[i] = machine.getMixer().getReverbSend();
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Adds a machine to render, when no machine is added every machine with
+     * song entries that is not muted gets a stem.
+     *
+     * @param machineIndex The machine index.
+     */
+    public void add(int machineIndex) {
+        checkQueued();
+        if (!selection.contains(machineIndex))
+            selection.add(machineIndex);
+    }
+
+    //--------------------------------------------------------------------------
+    // Overridden Protected :: Methods
+    //--------------------------------------------------------------------------
+
+    @Override
+    protected File prepare(int render, ExportPatch patch) throws CausticException {
+        final Stem stem = getStems().get(render);
+        // a soloed machine would sound in every stem
+        for (Machine machine : machines) {
+            if (machine.getMixer().isSolo())
+                patch.setSolo(machine, false);
+        }
+        for (int i = 0; i < machines.size(); i++) {
+            final Machine machine = machines.get(i);
+            patch.setMute(machine, stem.muted[i]);
+            patch.setDelaySend(machine, stem.delaySends[i]);
+            patch.setReverbSend(machine, stem.reverbSends[i]);
+        }
+        return new File(directory, baseName + "-" + stem.name);
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private synchronized List<Stem> getStems() {
+        if (stems == null)
+            stems = createStems();
+        return stems;
+    }
+
+    private void checkQueued() {
+        if (getState() != ExportJobState.Queued || isDone())
+            throw new IllegalStateException("Job already started: " + this);
+    }
+
+    private List<Stem> createStems() {
+        final int count = machines.size();
+        final boolean[] stemMachine = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            if (selection.isEmpty()) {
+                stemMachine[i] = songMachines[i];
+            } else {
+                stemMachine[i] = selection.contains(machines.get(i).getIndex());
+            }
+        }
+        final boolean mix = mode == StemMode.Mix;
+
+        // machines without a stem stay muted in every render
+        final List<Stem> result = new ArrayList<Stem>();
+        for (int i = 0; i < count; i++) {
+            if (!stemMachine[i])
+                continue;
+            final String fileName = names[i].replaceAll("[^A-Za-z0-9_-]", "_");
+            final Stem stem = new Stem(String.format("%02d-%s", machines.get(i).getIndex(),
+                    fileName), count);
+            for (int j = 0; j < count; j++) {
+                stem.muted[j] = j != i;
+            }
+            if (mix) {
+                // the sends of the muted machines are silent
+                System.arraycopy(delaySends, 0, stem.delaySends, 0, count);
+                System.arraycopy(reverbSends, 0, stem.reverbSends, 0, count);
+            }
+            result.add(stem);
+        }
+
+        if (!mix && includeReturns && !result.isEmpty() && getType() != ExportType.Mid) {
+            final Stem delay = new Stem("delay", count);
+            final Stem reverb = new Stem("reverb", count);
+            for (int i = 0; i < count; i++) {
+                delay.muted[i] = !stemMachine[i];
+                delay.delaySends[i] = delaySends[i];
+                reverb.muted[i] = !stemMachine[i];
+                reverb.reverbSends[i] = reverbSends[i];
+            }
+            result.add(delay);
+            result.add(reverb);
+        }
+        return result;
+    }
+
+    /**
+     * How the machine stems of a {@link StemExportJob} are rendered.
+     */
+    public static enum StemMode {
+
+        /**
+         * The machine with its inserts and sends, the stems sum to the mix.
+         */
+        Mix,
+
+        /**
+         * The machine with its inserts and without delay and reverb sends.
+         */
+        Dry;
+    }
+
+    private static final class Stem {
+
+        final String name;
+
+        final boolean[] muted;
+
+        final float[] delaySends;
+
+        final float[] reverbSends;
+
+        Stem(String name, int numMachines) {
+            this.name = name;
+            muted = new boolean[numMachines];
+            delaySends = new float[numMachines];
+            reverbSends = new float[numMachines];
+        }
+    }
+}
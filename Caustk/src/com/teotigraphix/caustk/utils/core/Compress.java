@@ -41,7 +41,7 @@ import java.util.zip.ZipOutputStream;
  * @since 1.0
  */
 public class Compress {
-    private static final int BUFFER = 2048;
+    private static final int BUFFER = ZipUtils.BUFFER_SIZE;
 
     private Collection<File> _files;
 
@@ -57,7 +57,7 @@ public class Compress {
             BufferedInputStream origin = null;
             FileOutputStream dest = new FileOutputStream(_zipFile);
 
-            ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(dest));
+            ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(dest, BUFFER));
 
             byte data[] = new byte[BUFFER];
 
@@ -44,6 +44,8 @@ public class RuntimeUtils {
 
     private static final String TEMP = ".temp";
 
+    private static final String INDEX = ".index";
+
     private static final String FORWARD_SLASH = "/";
 
     private static final String DOT = ".";
@@ -101,6 +103,18 @@ public class RuntimeUtils {
         return directory;
     }
 
+    /**
+     * Returns the <code>/__external__/Application/.index</code> directory, for
+     * persistent scan indexes that must survive a clean of the
+     * {@link #getApplicationTempDirectory()}.
+     */
+    public static final File getApplicationIndexDirectory() {
+        final File directory = getApplicationDirectory(INDEX);
+        if (!directory.exists())
+            directory.mkdirs();
+        return directory;
+    }
+
     /**
      * Returns the <code>/__external__/Application/Content</code> directory.
      * <p>
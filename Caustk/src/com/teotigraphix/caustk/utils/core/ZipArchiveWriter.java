@@ -0,0 +1,372 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright 2014 Michael Schmalle - Teoti Graphix, LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License
+//
+// Author: Michael Schmalle, Principal Architect
+// mschmalle at teotigraphix dot com
+////////////////////////////////////////////////////////////////////////////////
+
+package com.teotigraphix.caustk.utils.core;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.FileUtils;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Writes a zip archive whose entries are compressed in parallel.
+ * <p>
+ * Each entry is read, checksummed and deflated on a worker thread into
+ * memory, then the finished entries are appended to the archive in the order
+ * they were added, followed by the central directory. Entries that do not
+ * shrink are stored. The output is a plain (non zip64) archive readable by
+ * {@link java.util.zip.ZipFile} and {@link java.util.zip.ZipInputStream}.
+ * <p>
+ * Entries carry a fixed time, so the archive's bytes depend only on the entry
+ * names, their order and content.
+ *
+ * @author Michael Schmalle
+ * @since 1.0
+ */
+public class ZipArchiveWriter {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+
+    private static final int CENTRAL_HEADER = 0x02014b50;
+
+    private static final int END_HEADER = 0x06054b50;
+
+    private static final int VERSION = 20;
+
+    private static final int FLAG_UTF8 = 0x0800;
+
+    private static final int STORED = 0;
+
+    private static final int DEFLATED = 8;
+
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    // 1980-01-01 00:00 in MS-DOS date/time, the same content always zips to
+    // the same bytes whatever the files' modification times
+    private static final int ENTRY_TIME = (1 << 21) | (1 << 16);
+
+    private final List<String> names = new ArrayList<String>();
+
+    private final List<File> files = new ArrayList<File>();
+
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    //--------------------------------------------------------------------------
+    // Public Property API
+    //--------------------------------------------------------------------------
+
+    //----------------------------------
+    // level
+    //----------------------------------
+
+    /**
+     * Returns the {@link Deflater} compression level.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    //----------------------------------
+    // numThreads
+    //----------------------------------
+
+    /**
+     * Returns the maximum number of entries compressed at the same time,
+     * defaults to the number of available processors.
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public void setNumThreads(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    //--------------------------------------------------------------------------
+    // Public Method API
+    //--------------------------------------------------------------------------
+
+    /**
+     * Adds a file to the archive.
+     *
+     * @param name The entry name, '/' separated and relative to the archive
+     *            root.
+     * @param file The file to compress.
+     */
+    public void add(String name, File file) {
+        names.add(name.replace(File.separatorChar, '/'));
+        files.add(file);
+    }
+
+    /**
+     * Compresses all added files into the archive, replacing it if it exists.
+     *
+     * @param zipFile The archive file.
+     * @throws IOException
+     */
+    public void write(File zipFile) throws IOException {
+        if (files.size() > MAX_ENTRIES)
+            throw new IOException("Too many zip entries: " + files.size());
+
+        File parent = zipFile.getAbsoluteFile().getParentFile();
+        if (parent != null)
+            FileUtils.forceMkdir(parent);
+
+        final int size = files.size();
+        final int threads = Math.min(numThreads, size);
+        ExecutorService executor = null;
+        if (threads > 1)
+            executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(zipFile),
+                ZipUtils.BUFFER_SIZE);
+        try {
+            final List<Entry> written = new ArrayList<Entry>(size);
+            final LinkedList<Future<Entry>> pending = new LinkedList<Future<Entry>>();
+            long offset = 0;
+            int next = 0;
+            while (written.size() < size) {
+                // keep a bounded window of compressed entries in memory
+                while (executor != null && next < size && pending.size() < threads * 2) {
+                    pending.add(executor.submit(new EntryTask(names.get(next), files.get(next),
+                            level)));
+                    next++;
+                }
+
+                Entry entry;
+                if (executor != null) {
+                    entry = get(pending.removeFirst());
+                } else {
+                    entry = new EntryTask(names.get(next), files.get(next), level).call();
+                    next++;
+                }
+
+                if (offset > MAX_SIZE)
+                    throw new IOException("Zip archive too large: " + zipFile);
+                entry.offset = offset;
+                offset += writeLocalHeader(output, entry);
+                output.write(entry.data, 0, entry.data.length);
+                offset += entry.data.length;
+                entry.data = null;
+                written.add(entry);
+            }
+
+            final long directoryOffset = offset;
+            for (Entry entry : written) {
+                offset += writeCentralHeader(output, entry);
+            }
+            if (offset > MAX_SIZE)
+                throw new IOException("Zip archive too large: " + zipFile);
+            writeEndHeader(output, size, offset - directoryOffset, directoryOffset);
+        } finally {
+            if (executor != null)
+                executor.shutdownNow();
+            output.close();
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Private :: Methods
+    //--------------------------------------------------------------------------
+
+    private static Entry get(Future<Entry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing zip entries");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException)cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            if (cause instanceof Error)
+                throw (Error)cause;
+            throw new IOException(cause.getMessage());
+        }
+    }
+
+    private static int writeLocalHeader(OutputStream output, Entry entry) throws IOException {
+        writeInt(output, LOCAL_HEADER);
+        writeShort(output, VERSION);
+        writeShort(output, FLAG_UTF8);
+        writeShort(output, entry.method);
+        writeInt(output, entry.time);
+        writeInt(output, (int)entry.crc);
+        writeInt(output, entry.data.length);
+        writeInt(output, (int)entry.size);
+        writeShort(output, entry.name.length);
+        writeShort(output, 0);
+        output.write(entry.name);
+        return 30 + entry.name.length;
+    }
+
+    private static int writeCentralHeader(OutputStream output, Entry entry) throws IOException {
+        writeInt(output, CENTRAL_HEADER);
+        writeShort(output, VERSION);
+        writeShort(output, VERSION);
+        writeShort(output, FLAG_UTF8);
+        writeShort(output, entry.method);
+        writeInt(output, entry.time);
+        writeInt(output, (int)entry.crc);
+        writeInt(output, (int)entry.compressedSize);
+        writeInt(output, (int)entry.size);
+        writeShort(output, entry.name.length);
+        writeShort(output, 0); // extra
+        writeShort(output, 0); // comment
+        writeShort(output, 0); // disk
+        writeShort(output, 0); // internal attributes
+        writeInt(output, 0); // external attributes
+        writeInt(output, (int)entry.offset);
+        output.write(entry.name);
+        return 46 + entry.name.length;
+    }
+
+    private static void writeEndHeader(OutputStream output, int count, long directorySize,
+            long directoryOffset) throws IOException {
+        writeInt(output, END_HEADER);
+        writeShort(output, 0);
+        writeShort(output, 0);
+        writeShort(output, count);
+        writeShort(output, count);
+        writeInt(output, (int)directorySize);
+        writeInt(output, (int)directoryOffset);
+        writeShort(output, 0);
+    }
+
+    private static void writeShort(OutputStream output, int value) throws IOException {
+        output.write(value & 0xFF);
+        output.write((value >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(OutputStream output, int value) throws IOException {
+        output.write(value & 0xFF);
+        output.write((value >>> 8) & 0xFF);
+        output.write((value >>> 16) & 0xFF);
+        output.write((value >>> 24) & 0xFF);
+    }
+
+    private static final class Entry {
+
+        byte[] name;
+
+        int method;
+
+        int time;
+
+        long crc;
+
+        long size;
+
+        long compressedSize;
+
+        long offset;
+
+        byte[] data;
+    }
+
+    private static final class EntryTask implements Callable<Entry> {
+
+        private final String name;
+
+        private final File file;
+
+        private final int level;
+
+        EntryTask(String name, File file, int level) {
+            this.name = name;
+            this.file = file;
+            this.level = level;
+        }
+
+        @Override
+        public Entry call() throws IOException {
+            final byte[] input = FileUtils.readFileToByteArray(file);
+
+            Entry entry = new Entry();
+            entry.name = name.getBytes(Charsets.UTF_8);
+            entry.time = ENTRY_TIME;
+            entry.size = input.length;
+
+            CRC32 crc = new CRC32();
+            crc.update(input, 0, input.length);
+            entry.crc = crc.getValue();
+
+            final Deflater deflater = new Deflater(level, true);
+            try {
+                deflater.setInput(input);
+                deflater.finish();
+                ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64,
+                        input.length / 2));
+                byte[] buffer = new byte[ZipUtils.BUFFER_SIZE];
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(buffer);
+                    output.write(buffer, 0, count);
+                }
+                byte[] compressed = output.toByteArray();
+                if (compressed.length < input.length) {
+                    entry.method = DEFLATED;
+                    entry.data = compressed;
+                } else {
+                    entry.method = STORED;
+                    entry.data = input;
+                }
+            } finally {
+                deflater.end();
+            }
+            entry.compressedSize = entry.data.length;
+            return entry;
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ZipArchiveWriter");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -20,13 +20,10 @@
 package com.teotigraphix.caustk.utils.core;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 public class ZipCompress {
 
@@ -34,6 +31,26 @@ public class ZipCompress {
 
     private File sourceDirectory;
 
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Returns the maximum number of entries compressed at the same time,
+     * defaults to the number of available processors.
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * Sets the maximum number of entries compressed at the same time, use 1
+     * when archives are already compressed in parallel.
+     * 
+     * @param numThreads The number of threads.
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+    }
+
     /**
      * Compresses a directory and extra files into a zip archive.
      * 
@@ -73,47 +90,19 @@ public class ZipCompress {
     }
 
     /**
-     * Zip it
+     * Zip it, compressing the entries in parallel.
      * 
      * @param zipFile output ZIP file location
+     * @throws IOException
+     * @see ZipArchiveWriter
      */
-    public void zip(File zipFile) {
-
-        byte[] buffer = new byte[1024];
-
-        try {
-
-            zipFile.getParentFile().mkdirs();
-
-            FileOutputStream fos = new FileOutputStream(zipFile);
-            ZipOutputStream zos = new ZipOutputStream(fos);
-
-            System.out.println("Output to Zip : " + zipFile);
-
-            for (String file : fileList) {
-
-                System.out.println("File Added : " + file);
-                ZipEntry ze = new ZipEntry(file);
-                zos.putNextEntry(ze);
-
-                FileInputStream in = new FileInputStream(new File(sourceDirectory, file));
-
-                int len;
-                while ((len = in.read(buffer)) > 0) {
-                    zos.write(buffer, 0, len);
-                }
-
-                in.close();
-            }
-
-            zos.closeEntry();
-            //remember close it
-            zos.close();
-
-            System.out.println("Done");
-        } catch (IOException ex) {
-            ex.printStackTrace();
+    public void zip(File zipFile) throws IOException {
+        ZipArchiveWriter writer = new ZipArchiveWriter();
+        writer.setNumThreads(numThreads);
+        for (String file : fileList) {
+            writer.add(file, new File(sourceDirectory, file));
         }
+        writer.write(zipFile);
     }
 
     /**
@@ -130,6 +119,8 @@ public class ZipCompress {
 
         if (node.isDirectory()) {
             String[] subNote = node.list();
+            // a stable entry order, the same files always zip to the same bytes
+            Arrays.sort(subNote);
             for (String filename : subNote) {
                 generateFileList(new File(node, filename));
             }
@@ -19,6 +19,7 @@
 
 package com.teotigraphix.caustk.utils.core;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -42,7 +43,7 @@ public class ZipUncompress {
      */
     public void unzip(File outputFolder) {
 
-        byte[] buffer = new byte[1024];
+        byte[] buffer = new byte[ZipUtils.BUFFER_SIZE];
 
         try {
             //create output directory is not exists
@@ -52,7 +53,8 @@ public class ZipUncompress {
             }
 
             //get the zip file content
-            ZipInputStream zis = new ZipInputStream(new FileInputStream(sourceFile));
+            ZipInputStream zis = new ZipInputStream(new BufferedInputStream(new FileInputStream(
+                    sourceFile), ZipUtils.BUFFER_SIZE));
             //get the zipped file list entry
             ZipEntry ze = zis.getNextEntry();
 
@@ -95,35 +97,10 @@ public class ZipUncompress {
      */
     public String unzipString(File zipFile) {
         try {
-            //get the zip file content
-            @SuppressWarnings("resource")
-            ZipInputStream zin = new ZipInputStream(new FileInputStream(sourceFile));
-            //get the zipped file list entry
-            ZipEntry ze = zin.getNextEntry();
-
-            while (ze != null) {
-
-                String fileName = ze.getName();
-                if (zipFile.getName().equals(fileName)) {
-                    System.out.println("Found it");
-                    StringBuilder sb = new StringBuilder();
-                    for (int c = zin.read(); c != -1; c = zin.read()) {
-                        sb.append((char)c);
-                    }
-
-                    return sb.toString();
-                }
-
-                ze = zin.getNextEntry();
-            }
-
-            zin.closeEntry();
-            zin.close();
-
+            return ZipUtils.readZipString(sourceFile, new File(zipFile.getName()));
         } catch (IOException e) {
             e.printStackTrace();
         }
-
         return null;
     }
 }
@@ -22,13 +22,20 @@ package com.teotigraphix.caustk.utils.core;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Enumeration;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import com.google.common.base.Charsets;
+
 /**
  * @author Michael Schmalle
  * @copyright Teoti Graphix, LLC
@@ -36,14 +43,63 @@ import java.util.zip.ZipInputStream;
  */
 public final class ZipUtils {
 
-    public static String readZipString(File archiveFile, File fileToRead) {
-        ZipUncompress uncompress = new ZipUncompress(archiveFile);
-        return uncompress.unzipString(fileToRead);
+    /**
+     * The buffer size used for all zip stream copies.
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Reads a String entry from a zip archive, <code>null</code> if the entry
+     * does not exist.
+     * 
+     * @param archiveFile The zip archive.
+     * @param fileToRead The relative path of the entry.
+     * @throws IOException
+     */
+    public static String readZipString(File archiveFile, File fileToRead) throws IOException {
+        byte[] data = readZipEntry(archiveFile, fileToRead.getPath());
+        if (data == null)
+            return null;
+        return new String(data, Charsets.UTF_8);
+    }
+
+    /**
+     * Reads a single entry of a zip archive into memory, <code>null</code> if
+     * the entry does not exist.
+     * <p>
+     * The entry is located through the archive's central directory, no other
+     * entries are read.
+     * 
+     * @param archiveFile The zip archive.
+     * @param entryName The entry name.
+     * @throws IOException
+     */
+    public static byte[] readZipEntry(File archiveFile, String entryName) throws IOException {
+        ZipFile zipFile = new ZipFile(archiveFile);
+        try {
+            ZipEntry entry = getEntry(zipFile, entryName);
+            if (entry == null)
+                return null;
+            InputStream input = zipFile.getInputStream(entry);
+            try {
+                ByteArrayOutputStream output = new ByteArrayOutputStream(
+                        entry.getSize() > 0 ? (int)entry.getSize() : BUFFER_SIZE);
+                copy(input, output);
+                return output.toByteArray();
+            } finally {
+                input.close();
+            }
+        } finally {
+            zipFile.close();
+        }
     }
 
     /**
      * Writes a single file to disk from a zip archive, matching on the
      * entryName.
+     * <p>
+     * The entry is located through the archive's central directory, no other
+     * entries are read. Nothing is written if the entry does not exist.
      * 
      * @param archiveFile
      * @param entryName
@@ -52,40 +108,94 @@ public final class ZipUtils {
      */
     public static void writeZipEntryToFile(File archiveFile, String entryName, File outputFile)
             throws IOException {
-        FileInputStream fis = new FileInputStream(archiveFile);
-        ZipInputStream zis = new ZipInputStream(fis);
-
-        ZipEntry entry = null;
-        while ((entry = zis.getNextEntry()) != null) {
-            System.out.println("Reading " + entry.getName());
-            if (entry.getName().equals(entryName)) {
-                FileOutputStream outputfile = new FileOutputStream(outputFile);
-                int data = 0;
-                while ((data = zis.read()) != -1) {
-                    outputfile.write(data);
+        ZipFile zipFile = new ZipFile(archiveFile);
+        try {
+            ZipEntry entry = getEntry(zipFile, entryName);
+            if (entry == null)
+                return;
+            InputStream input = zipFile.getInputStream(entry);
+            try {
+                OutputStream output = new FileOutputStream(outputFile);
+                try {
+                    copy(input, output);
+                } finally {
+                    output.close();
                 }
-                outputfile.close();
-                break;
+            } finally {
+                input.close();
             }
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    /**
+     * Extracts all entries of a zip archive into a directory.
+     * 
+     * @param archiveFile The zip archive.
+     * @param directory The output directory, created if it does not exist.
+     * @throws IOException Entry paths outside the directory.
+     */
+    public static void unzip(File archiveFile, File directory) throws IOException {
+        final String root = directory.getCanonicalPath() + File.separator;
+        ZipFile zipFile = new ZipFile(archiveFile);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                File file = new File(directory, entry.getName());
+                if (!file.getCanonicalPath().startsWith(root))
+                    throw new IOException("Zip entry outside of target: " + entry.getName());
+                if (entry.isDirectory()) {
+                    FileUtils.forceMkdir(file);
+                    continue;
+                }
+                FileUtils.forceMkdir(file.getParentFile());
+                InputStream input = zipFile.getInputStream(entry);
+                try {
+                    OutputStream output = new FileOutputStream(file);
+                    try {
+                        copy(input, output);
+                    } finally {
+                        output.close();
+                    }
+                } finally {
+                    input.close();
+                }
+            }
+        } finally {
+            zipFile.close();
         }
+    }
+
+    /**
+     * Bulk copies a stream with a {@link #BUFFER_SIZE} buffer.
+     * 
+     * @param input The source stream.
+     * @param output The destination stream.
+     * @return The number of bytes copied.
+     * @throws IOException
+     */
+    public static long copy(InputStream input, OutputStream output) throws IOException {
+        return IOUtils.copyLarge(input, output, new byte[BUFFER_SIZE]);
+    }
 
-        zis.close();
-        fis.close();
+    private static ZipEntry getEntry(ZipFile zipFile, String entryName) {
+        ZipEntry entry = zipFile.getEntry(entryName);
+        if (entry == null && File.separatorChar != '/')
+            entry = zipFile.getEntry(entryName.replace(File.separatorChar, '/'));
+        return entry;
     }
 
     public static final void readZip(InputStream is) throws IOException {
 
-        ZipInputStream zis = new ZipInputStream(new BufferedInputStream(is));
+        ZipInputStream zis = new ZipInputStream(new BufferedInputStream(is, BUFFER_SIZE));
         try {
             @SuppressWarnings("unused")
             ZipEntry ze;
             while ((ze = zis.getNextEntry()) != null) {
                 ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                byte[] buffer = new byte[1024];
-                int count;
-                while ((count = zis.read(buffer)) != -1) {
-                    baos.write(buffer, 0, count);
-                }
+                copy(zis, baos);
                 // String filename = ze.getName();
                 // byte[] bytes = baos.toByteArray();
                 // do something with 'filename' and 'bytes'...
@@ -20,6 +20,8 @@
 package com.teotigraphix.caustk.utils.gdx;
 
 import com.teotigraphix.caustk.core.ICaustkRack;
+import com.teotigraphix.caustk.core.MessageThrottle;
+import com.teotigraphix.caustk.core.internal.CaustkRuntime;
 import com.teotigraphix.caustk.core.osc.MixerControls;
 
 public final class BehaviorUtils {
@@ -27,6 +29,10 @@ public final class BehaviorUtils {
     /**
      * Sends mixer channel control messages to the machine's
      * {@link com.teotigraphix.caustk.node.machine.patch.MixerChannel}.
+     * <p>
+     * The messages are throttled by the rack's
+     * {@link MessageThrottle}, the automation widgets call
+     * {@link #endGesture()} when the drag of the control ends.
      * 
      * @param rack The rack.
      * @param index The machine index.
@@ -38,6 +44,48 @@ public final class BehaviorUtils {
         if (!rack.contains(index))
             return;
 
+        final MessageThrottle throttle = rack.getMessageThrottle();
+        throttle.begin();
+        try {
+            sendControl(rack, index, control, value);
+        } finally {
+            throttle.end();
+        }
+    }
+
+    /**
+     * Sends the latest values of the throttled controls, call when a knob or
+     * slider drag ends.
+     * 
+     * @param rack The rack.
+     */
+    public static void endGesture(ICaustkRack rack) {
+        rack.getMessageThrottle().flush();
+    }
+
+    /**
+     * Sends the latest values of the runtime rack's throttled controls, called
+     * by the automation widgets when a drag ends, does nothing without a
+     * runtime.
+     */
+    public static void endGesture() {
+        if (!CaustkRuntime.hasInstance())
+            return;
+        endGesture(CaustkRuntime.getInstance().getRack());
+    }
+
+    /**
+     * Returns the runtime rack's {@link MessageThrottle}, <code>null</code>
+     * without a runtime.
+     */
+    public static MessageThrottle getMessageThrottle() {
+        if (!CaustkRuntime.hasInstance())
+            return null;
+        return CaustkRuntime.getInstance().getRack().getMessageThrottle();
+    }
+
+    private static void sendControl(ICaustkRack rack, int index, MixerControls control,
+            float value) {
         if (control == MixerControls.Solo) {
             rack.getRackInstance().setSolo(index, value == 0f ? false : true);
             return;
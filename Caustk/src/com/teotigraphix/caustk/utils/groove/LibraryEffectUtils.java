@@ -33,7 +33,6 @@ import com.teotigraphix.caustk.groove.library.LibraryEffect;
 import com.teotigraphix.caustk.groove.library.LibraryProduct;
 import com.teotigraphix.caustk.node.effect.EffectType;
 import com.teotigraphix.caustk.utils.core.SerializeUtils;
-import com.teotigraphix.caustk.utils.core.ZipUncompress;
 import com.thoughtworks.xstream.XStream;
 
 public class LibraryEffectUtils {
@@ -78,8 +77,7 @@ public class LibraryEffectUtils {
      */
     public static LibraryEffect importEffect(File uncompressDirectory, File effectFile)
             throws CausticException, IOException {
-        ZipUncompress uncompress = new ZipUncompress(effectFile);
-        uncompress.unzip(uncompressDirectory);
+        LibraryProductUtils.extract(effectFile, uncompressDirectory);
 
         File manifest = new File(uncompressDirectory, LibraryProductUtils.EFFECT_BIN);
         if (!manifest.exists())
@@ -21,6 +21,15 @@ package com.teotigraphix.caustk.utils.groove;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.io.FileUtils;
 
@@ -32,7 +41,6 @@ import com.teotigraphix.caustk.groove.library.LibraryProduct;
 import com.teotigraphix.caustk.groove.library.LibrarySound;
 import com.teotigraphix.caustk.utils.core.SerializeUtils;
 import com.teotigraphix.caustk.utils.core.ZipCompress;
-import com.teotigraphix.caustk.utils.core.ZipUncompress;
 import com.thoughtworks.xstream.XStream;
 
 public class LibraryGroupUtils {
@@ -46,37 +54,88 @@ public class LibraryGroupUtils {
         xstream.useAttributeFor(CausticGroup.class, "sourceFile");
     }
 
-    public static void serialize(LibraryGroup item, LibraryProduct product, File tempDirectory)
-            throws IOException {
+    public static void serialize(LibraryGroup item, final LibraryProduct product,
+            final File tempDirectory) throws IOException {
 
         FileUtils.writeStringToFile(new File(tempDirectory, LibraryProductUtils.MANIFEST_XML),
                 LibraryProductUtils.toGroupXML(item));
 
-        for (LibrarySound librarySound : item.getSounds()) {
-            File tempSoundDir = new File(tempDirectory, "sounds/sound-" + librarySound.getIndex());
-            LibrarySoundUtils.serialize(librarySound, product, tempSoundDir);
+        final Collection<LibrarySound> sounds = item.getSounds();
 
-            ZipCompress compress = new ZipCompress(tempSoundDir);
-            File zipFile = new File(tempDirectory, "sounds/sound-" + librarySound.getIndex()
-                    + ".gsnd");
-            compress.zip(zipFile);
+        // the preset capture talks to the native engine, take the bytes on
+        // this thread, the workers only write them
+        final List<byte[]> presets = new ArrayList<byte[]>(sounds.size());
+        for (LibrarySound librarySound : sounds) {
+            presets.add(LibraryInstrumentUtils.capturePreset(librarySound.getInstrument()));
+        }
 
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        // sounds are zipped in parallel, each zip compresses on its worker
+        final int numThreads = Math.max(1,
+                Math.min(sounds.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "LibraryGroupUtils");
+                thread.setDaemon(true);
+                return thread;
             }
-
-            FileUtils.forceDelete(tempSoundDir);
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            int i = 0;
+            for (final LibrarySound librarySound : sounds) {
+                final byte[] presetData = presets.get(i++);
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        serializeSound(librarySound, product, tempDirectory, presetData);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                await(future);
+            }
+        } finally {
+            executor.shutdownNow();
         }
 
         SerializeUtils.pack(new File(tempDirectory, GROUP_BIN), item);
     }
 
+    private static void serializeSound(LibrarySound librarySound, LibraryProduct product,
+            File tempDirectory, byte[] presetData) throws IOException {
+        File tempSoundDir = new File(tempDirectory, "sounds/sound-" + librarySound.getIndex());
+        LibrarySoundUtils.serialize(librarySound, product, tempSoundDir, 1, presetData);
+
+        ZipCompress compress = new ZipCompress(tempSoundDir);
+        compress.setNumThreads(1);
+        File zipFile = new File(tempDirectory, "sounds/sound-" + librarySound.getIndex()
+                + ".gsnd");
+        compress.zip(zipFile);
+
+        FileUtils.forceDelete(tempSoundDir);
+    }
+
+    private static void await(Future<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted serializing group");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException)cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            throw new IOException(cause.toString());
+        }
+    }
+
     public static LibraryGroup importGroup(File sourceFile, File uncompressDirectory)
             throws CausticException, IOException {
-        ZipUncompress uncompress = new ZipUncompress(sourceFile);
-        uncompress.unzip(uncompressDirectory);
+        LibraryProductUtils.extract(sourceFile, uncompressDirectory);
 
         File manifest = new File(uncompressDirectory, GROUP_BIN);
         if (!manifest.exists())
@@ -34,7 +34,6 @@ import com.teotigraphix.caustk.groove.library.LibraryProduct;
 import com.teotigraphix.caustk.node.machine.Machine;
 import com.teotigraphix.caustk.node.machine.VocoderMachine;
 import com.teotigraphix.caustk.utils.core.SerializeUtils;
-import com.teotigraphix.caustk.utils.core.ZipUncompress;
 import com.thoughtworks.xstream.XStream;
 
 /**
@@ -83,8 +82,45 @@ public class LibraryInstrumentUtils {
     // Public State API
     //--------------------------------------------------------------------------
 
+    /**
+     * Returns the instrument's preset bytes, saved from the native engine if
+     * they are not in sync.
+     * <p>
+     * Must be called on the thread that owns the engine, the bytes returned
+     * can be passed to
+     * {@link #serialize(LibraryInstrument, LibraryProduct, File, byte[])} on
+     * any thread.
+     * 
+     * @param item The instrument.
+     * @return The preset bytes, <code>null</code> for a vocoder.
+     */
+    public static byte[] capturePreset(LibraryInstrument item) {
+        if (item.getMachine() instanceof VocoderMachine)
+            return null;
+        return item.getMachine().getPreset().getRestoredData();
+    }
+
+    /**
+     * Serializes the instrument with its current preset, call on the thread
+     * that owns the engine.
+     */
     public static void serialize(LibraryInstrument item, LibraryProduct product, File tempDirectory)
             throws IOException {
+        serialize(item, product, tempDirectory, capturePreset(item));
+    }
+
+    /**
+     * Serializes the instrument with preset bytes taken by
+     * {@link #capturePreset(LibraryInstrument)}, does not touch the engine.
+     * 
+     * @param item The instrument.
+     * @param product The instrument's product.
+     * @param tempDirectory The directory of the instrument's files.
+     * @param presetData The preset bytes, <code>null</code> for a vocoder.
+     * @throws IOException
+     */
+    public static void serialize(LibraryInstrument item, LibraryProduct product,
+            File tempDirectory, byte[] presetData) throws IOException {
 
         FileUtils.writeStringToFile(new File(tempDirectory, LibraryProductUtils.MANIFEST_XML),
                 LibraryProductUtils.toInstrumentXML(item));
@@ -98,7 +134,7 @@ public class LibraryInstrumentUtils {
             Machine machineNode = item.getMachine();
             File file = new File(presetsDirectory, PRESET + "."
                     + machineNode.getType().getExtension());
-            FileUtils.writeByteArrayToFile(file, machineNode.getPreset().getRestoredData());
+            FileUtils.writeByteArrayToFile(file, presetData);
         }
     }
 
@@ -111,8 +147,7 @@ public class LibraryInstrumentUtils {
 
     public static LibraryInstrument importInstrument(File uncompressDirectory, File instrumentFile)
             throws CausticException, IOException {
-        ZipUncompress uncompress = new ZipUncompress(instrumentFile);
-        uncompress.unzip(uncompressDirectory);
+        LibraryProductUtils.extract(instrumentFile, uncompressDirectory);
 
         File manifest = new File(uncompressDirectory, INSTRUMENT_BIN);
         if (!manifest.exists())
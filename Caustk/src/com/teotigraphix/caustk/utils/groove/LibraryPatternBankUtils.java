@@ -13,7 +13,6 @@ import com.teotigraphix.caustk.groove.importer.CausticPatternBank;
 import com.teotigraphix.caustk.groove.library.LibraryPatternBank;
 import com.teotigraphix.caustk.groove.library.LibraryProduct;
 import com.teotigraphix.caustk.utils.core.SerializeUtils;
-import com.teotigraphix.caustk.utils.core.ZipUncompress;
 import com.thoughtworks.xstream.XStream;
 
 public final class LibraryPatternBankUtils {
@@ -42,8 +41,7 @@ public final class LibraryPatternBankUtils {
 
     public static LibraryPatternBank importPatternBank(File uncompressDirectory, File patternFile)
             throws CausticException, IOException {
-        ZipUncompress uncompress = new ZipUncompress(patternFile);
-        uncompress.unzip(uncompressDirectory);
+        LibraryProductUtils.extract(patternFile, uncompressDirectory);
 
         File manifest = new File(uncompressDirectory, LibraryProductUtils.PATTERNS_BIN);
         if (!manifest.exists())
@@ -21,7 +21,11 @@ package com.teotigraphix.caustk.utils.groove;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
@@ -35,6 +39,7 @@ import com.teotigraphix.caustk.groove.importer.CausticGroup;
 import com.teotigraphix.caustk.groove.importer.CausticInstrument;
 import com.teotigraphix.caustk.groove.importer.CausticPatternBank;
 import com.teotigraphix.caustk.groove.importer.CausticSound;
+import com.teotigraphix.caustk.groove.library.LibraryBlobStore;
 import com.teotigraphix.caustk.groove.library.LibraryEffect;
 import com.teotigraphix.caustk.groove.library.LibraryGroup;
 import com.teotigraphix.caustk.groove.library.LibraryInstrument;
@@ -59,6 +64,11 @@ public class LibraryProductUtils {
 
     private static final String TEMP_EXTRACTION = ".tempExtraction";
 
+    private static final String EXTRACTED_PREFIX = ".extracted-";
+
+    private static final ConcurrentMap<String, Object> extractLocks =
+            new ConcurrentHashMap<String, Object>();
+
     static final String MANIFEST_XML = "manifest.xml";
 
     static final String EFFECT_BIN = "effect.bin";
@@ -102,84 +112,98 @@ public class LibraryProductUtils {
 
     public static void addToDirectory(LibraryProduct product, File groupArchive)
             throws IOException, CausticException {
-        File productDirectory = product.getDirectory();
-
-        File groupsDirectory = new File(productDirectory, "Groups");
-        File soundsDirectory = new File(productDirectory, "Sounds");
-        File instrumentsDirectory = new File(productDirectory, "Instruments");
-        File effectsDirectory = new File(productDirectory, "Effects");
-        File patternsDirectory = new File(productDirectory, "PatternBanks");
-
         File uncompressDir = CaustkRuntime.getInstance().getFactory()
-                .getCacheDirectory(TEMP_EXTRACTION);
+                .getCacheDirectory(TEMP_EXTRACTION + "/" + UUID.randomUUID());
         File uncompressSoundsDir = new File(uncompressDir, "sounds");
         LibraryGroup libraryGroup = LibraryGroupUtils.importGroup(groupArchive, uncompressDir);
 
-        //------------------------------
-        // Copy LibraryGroup.ggrp to Product directory
-        File groupSrc = groupArchive;
-
-        String groupPath = libraryGroup.getCalculatedPath();
-        String groupName = libraryGroup.getFileName();
-        File groupDest = new File(groupsDirectory, groupPath);
+        // archives are added to the product's blob store, identical archives
+        // are stored once and the extracted temp archives are moved, not copied
 
-        // Save group to product directory
-        FileUtils.copyFile(groupSrc, new File(groupDest, groupName));
+        //------------------------------
+        // Save LibraryGroup.ggrp to Product directory
+        storeArchive(product, libraryGroup, groupArchive, false);
         product.addItem(libraryGroup);
 
         //------------------------------
         for (LibrarySound librarySound : libraryGroup.getSounds()) {
             // SOUND
             int index = librarySound.getIndex();
-            String soundPath = librarySound.getCalculatedPath();
-            String soundName = librarySound.getName();
-            File soundDest = new File(soundsDirectory, soundPath);
+            File soundDir = new File(uncompressSoundsDir, "sound-" + index);
             File soundArchiveSrc = new File(uncompressSoundsDir, "sound-" + index + ".gsnd");
 
-            // Save sound to product directory
-            FileUtils.copyFile(soundArchiveSrc, new File(soundDest, soundName + ".gsnd"));
+            storeArchive(product, librarySound, soundArchiveSrc, true);
             product.addItem(librarySound);
 
             // INSTRUMENT
             LibraryInstrument libraryInstrument = librarySound.getInstrument();
-            String instPath = libraryInstrument.getCalculatedPath();
-            String instName = libraryInstrument.getName();
-
-            File instDest = new File(instrumentsDirectory, instPath);
-            File instArchiveSrc = new File(uncompressSoundsDir, "sound-" + index + File.separator
-                    + "instrument.ginst");
-
-            // Save instrument to product directory
-            FileUtils.copyFile(instArchiveSrc, new File(instDest, instName + ".ginst"));
+            storeArchive(product, libraryInstrument, new File(soundDir, "instrument.ginst"), true);
             product.addItem(libraryInstrument);
 
             // PATTERNS
             LibraryPatternBank libraryPatternBank = librarySound.getPatternBank();
-            //String pbType = libraryPatternBank.getManifest().getMachineType().name();
-            String pbPath = libraryPatternBank.getCalculatedPath();
-            String pbName = libraryPatternBank.getName();
-
-            File pbDest = new File(patternsDirectory, pbPath);
-            File pbArchiveSrc = new File(uncompressSoundsDir, "sound-" + index + File.separator
-                    + "patterns.gptbk");
-
-            // Save patternBank to product directory
-            FileUtils.copyFile(pbArchiveSrc, new File(pbDest, pbName + ".gptbk"));
+            storeArchive(product, libraryPatternBank, new File(soundDir, "patterns.gptbk"), true);
             product.addItem(libraryPatternBank);
 
             // EFFECT
             LibraryEffect libraryEffect = librarySound.getEffect();
-            String effectPath = libraryEffect.getCalculatedPath();
-            String effectName = libraryEffect.getName();
+            storeArchive(product, libraryEffect, new File(soundDir, "effect.gfx"), true);
+            product.addItem(libraryEffect);
+        }
 
-            File effectDest = new File(effectsDirectory, effectPath);
-            File effectArchiveSrc = new File(uncompressSoundsDir, "sound-" + index + File.separator
-                    + "effect.gfx");
+        FileUtils.forceDeleteOnExit(uncompressDir);
+    }
 
-            // Save instrument to product directory
-            FileUtils.copyFile(effectArchiveSrc, new File(effectDest, effectName + ".gfx"));
-            product.addItem(libraryEffect);
+    /**
+     * Adds the item's archive to the product's blob store and points the
+     * item's manifest at it.
+     * 
+     * @param product The owning product.
+     * @param item The product item.
+     * @param archive The item's archive.
+     * @param move Whether the archive is a temporary file that can be moved.
+     * @throws IOException
+     */
+    public static void storeArchive(LibraryProduct product, LibraryProductItem item,
+            File archive, boolean move) throws IOException {
+        LibraryBlobStore store = product.getBlobStore();
+        String hash = store.put(archive, item.getFormat(), move);
+        product.setItemBlob(item.getManifest(), hash);
+    }
+
+    /**
+     * Extracts an item archive into a directory, unless the same archive was
+     * already extracted there.
+     * <p>
+     * A marker holding the archive's size and modification time is written
+     * after a complete extraction, so a directory keyed by a blob hash is
+     * extracted once and then reused.
+     * 
+     * @param archive The item archive.
+     * @param directory The output directory.
+     * @throws IOException
+     */
+    public static void extract(File archive, File directory) throws IOException {
+        final File marker = new File(directory, EXTRACTED_PREFIX + archive.getName());
+        final String stamp = archive.length() + ":" + archive.lastModified();
+        synchronized (toExtractLock(directory)) {
+            if (marker.isFile() && stamp.equals(FileUtils.readFileToString(marker)))
+                return;
+            ZipUtils.unzip(archive, directory);
+            FileUtils.writeStringToFile(marker, stamp);
+        }
+    }
+
+    private static Object toExtractLock(File directory) {
+        final String key = directory.getAbsolutePath();
+        Object lock = extractLocks.get(key);
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = extractLocks.putIfAbsent(key, newLock);
+            if (lock == null)
+                lock = newLock;
         }
+        return lock;
     }
 
     public static File saveItemAsArchive(LibraryProductItem item, LibraryProduct product,
@@ -188,7 +212,18 @@ public class LibraryProductUtils {
         File tempDir = new File(extractDir, UUID.randomUUID().toString());
 
         FileUtils.forceMkdir(tempDir);
+        try {
+            writeItem(item, product, tempDir);
+            ZipCompress compress = new ZipCompress(tempDir);
+            compress.zip(zipFile);
+        } finally {
+            FileUtils.deleteQuietly(tempDir);
+        }
+        return zipFile;
+    }
 
+    private static void writeItem(LibraryProductItem item, LibraryProduct product, File tempDir)
+            throws IOException {
         switch (item.getFormat()) {
             case Effect:
                 LibraryEffectUtils.serialize((LibraryEffect)item, product, tempDir);
@@ -220,17 +255,49 @@ public class LibraryProductUtils {
                 break;
 
         }
-
-        ZipCompress compress = new ZipCompress(tempDir);
-        compress.zip(zipFile);
-        FileUtils.forceDeleteOnExit(tempDir);
-        return zipFile;
     }
 
     public static File addArchiveToProduct(LibraryProductItem item, LibraryProduct product)
             throws IOException {
-        File zipFile = product.resolveInternalArchive(item);
-        return saveItemAsArchive(item, product, zipFile);
+        // zip next to the store so the archive is moved in, not copied
+        File zipFile = new File(product.getBlobStore().getDirectory(), UUID.randomUUID()
+                + ".tmp");
+        // the archive is hashed, it must not embed the hashes of earlier saves
+        // or saving the same content again would never match its blob
+        List<LibraryItemManifest> manifests = toArchivedManifests(item);
+        String[] hashes = new String[manifests.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = manifests.get(i).getBlobHash();
+            manifests.get(i).setBlobHash(null);
+        }
+        try {
+            saveItemAsArchive(item, product, zipFile);
+        } finally {
+            for (int i = 0; i < hashes.length; i++) {
+                manifests.get(i).setBlobHash(hashes[i]);
+            }
+        }
+        storeArchive(product, item, zipFile, true);
+        return product.resolveInternalArchive(item);
+    }
+
+    private static List<LibraryItemManifest> toArchivedManifests(LibraryProductItem item) {
+        List<LibraryItemManifest> result = new ArrayList<LibraryItemManifest>();
+        result.add(item.getManifest());
+        if (item instanceof LibraryGroup) {
+            for (LibrarySound sound : ((LibraryGroup)item).getSounds()) {
+                result.addAll(toArchivedManifests(sound));
+            }
+        } else if (item instanceof LibrarySound) {
+            LibrarySound sound = (LibrarySound)item;
+            if (sound.getEffect() != null)
+                result.add(sound.getEffect().getManifest());
+            if (sound.getInstrument() != null)
+                result.add(sound.getInstrument().getManifest());
+            if (sound.getPatternBank() != null)
+                result.add(sound.getPatternBank().getManifest());
+        }
+        return result;
     }
 
     public static void addToProduct(File archiveFile, LibraryProduct product, Class<?> clazz)
@@ -416,10 +483,14 @@ public class LibraryProductUtils {
             throw new CausticException(".caustic File does not exist ;" + causticFile);
 
         RackInstance rackNode = CaustkRuntime.getInstance().getRack().fill(causticFile);
+        final float bpm = rackNode.getSequencer().getBPM();
+        libraryGroup.getManifest().setBpm(bpm);
 
         for (Machine machineNode : rackNode.getMachines()) {
             int index = machineNode.getIndex();
             LibrarySound librarySound = fillSound(index, product, libraryGroup, machineNode);
+            librarySound.getManifest().setBpm(bpm);
+            librarySound.getPatternBank().getManifest().setBpm(bpm);
             libraryGroup.addSound(machineNode.getIndex(), librarySound);
         }
     }
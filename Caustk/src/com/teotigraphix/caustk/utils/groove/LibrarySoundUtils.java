@@ -33,7 +33,6 @@ import com.teotigraphix.caustk.groove.library.LibraryProduct;
 import com.teotigraphix.caustk.groove.library.LibrarySound;
 import com.teotigraphix.caustk.utils.core.SerializeUtils;
 import com.teotigraphix.caustk.utils.core.ZipCompress;
-import com.teotigraphix.caustk.utils.core.ZipUncompress;
 import com.thoughtworks.xstream.XStream;
 
 public class LibrarySoundUtils {
@@ -54,6 +53,24 @@ public class LibrarySoundUtils {
 
     public static void serialize(LibrarySound item, LibraryProduct product, File tempDirectory)
             throws IOException {
+        serialize(item, product, tempDirectory, Runtime.getRuntime().availableProcessors(),
+                LibraryInstrumentUtils.capturePreset(item.getInstrument()));
+    }
+
+    /**
+     * Serializes a sound into the directory and zips its parts, does not
+     * touch the engine.
+     * 
+     * @param item The sound.
+     * @param product The sound's product.
+     * @param tempDirectory The directory of the sound's files.
+     * @param numZipThreads The number of threads each zip compresses with.
+     * @param presetData The instrument's preset bytes, see
+     *            {@link LibraryInstrumentUtils#capturePreset(LibraryInstrument)}.
+     * @throws IOException
+     */
+    public static void serialize(LibrarySound item, LibraryProduct product, File tempDirectory,
+            int numZipThreads, byte[] presetData) throws IOException {
 
         FileUtils.writeStringToFile(new File(tempDirectory, LibraryProductUtils.MANIFEST_XML),
                 LibraryProductUtils.toSoundXML(item));
@@ -73,26 +90,23 @@ public class LibrarySoundUtils {
             FileUtils.forceMkdir(tempPatternDir);
 
         LibraryEffectUtils.serialize(effect, product, tempEffectDir);
-        LibraryInstrumentUtils.serialize(instrument, product, tempInstrumentDir);
+        LibraryInstrumentUtils.serialize(instrument, product, tempInstrumentDir, presetData);
         LibraryPatternBankUtils.serialize(patternBank, product, tempPatternDir);
 
         ZipCompress compress = null;
 
         compress = new ZipCompress(tempEffectDir);
+        compress.setNumThreads(numZipThreads);
         compress.zip(new File(tempDirectory, EFFECT_GFX));
 
         compress = new ZipCompress(tempInstrumentDir);
+        compress.setNumThreads(numZipThreads);
         compress.zip(new File(tempDirectory, INSTRUMENT_GINST));
 
         compress = new ZipCompress(tempPatternDir);
+        compress.setNumThreads(numZipThreads);
         compress.zip(new File(tempDirectory, PATTERNS_GPTBK));
 
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-
         FileUtils.forceDelete(tempEffectDir);
         FileUtils.forceDelete(tempInstrumentDir);
         FileUtils.forceDelete(tempPatternDir);
@@ -108,8 +122,7 @@ public class LibrarySoundUtils {
         File soundsDirectory = new File(groupDirectory, "sounds");
         File soundFile = new File(soundsDirectory, fileName + ".gsnd");
 
-        ZipUncompress uncompress = new ZipUncompress(soundFile);
-        uncompress.unzip(tempDirectory);
+        LibraryProductUtils.extract(soundFile, tempDirectory);
 
         LibraryEffect effect = LibraryEffectUtils.importEffectFromSoundDirectory(tempDirectory);
         librarySound.setEffect(effect);
@@ -125,8 +138,7 @@ public class LibrarySoundUtils {
 
     public static LibrarySound importSound(File uncompressDirectory, File soundFile)
             throws CausticException, IOException {
-        ZipUncompress uncompress = new ZipUncompress(soundFile);
-        uncompress.unzip(uncompressDirectory);
+        LibraryProductUtils.extract(soundFile, uncompressDirectory);
 
         LibraryEffect libraryEffect = LibraryEffectUtils
                 .importEffectFromSoundDirectory(uncompressDirectory);
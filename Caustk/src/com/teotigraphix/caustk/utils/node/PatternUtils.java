@@ -20,6 +20,7 @@
 package com.teotigraphix.caustk.utils.node;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.teotigraphix.caustk.core.ICaustkRack;
@@ -143,13 +144,34 @@ public final class PatternUtils {
 
     public static void setNoteData(ICaustkRack rack, int machineIndex, PatternNode patternNode,
             ArrayList<NoteNode> notes) {
+        setNoteData(rack, machineIndex, Collections.singletonList(patternNode),
+                Collections.singletonList(notes));
+    }
+
+    /**
+     * Sends the notes of several patterns of one machine, the machine's bank
+     * and pattern are queried and restored once for the whole batch.
+     * 
+     * @param rack The rack.
+     * @param machineIndex The machine index.
+     * @param patternNodes The target patterns, in send order.
+     * @param notes The notes of each target pattern, same order as the
+     *            patterns.
+     */
+    public static void setNoteData(ICaustkRack rack, int machineIndex,
+            List<PatternNode> patternNodes, List<? extends List<NoteNode>> notes) {
+        if (patternNodes.isEmpty())
+            return;
         int originalBank = (int)PatternSequencerMessage.BANK.query(rack, machineIndex);
         int originalPattern = (int)PatternSequencerMessage.PATTERN.query(rack, machineIndex);
-        PatternSequencerMessage.BANK.send(rack, machineIndex, patternNode.getBankIndex());
-        PatternSequencerMessage.PATTERN.send(rack, machineIndex, patternNode.getPatternIndex());
-        for (NoteNode noteData : notes) {
-            patternNode.createNote(noteData.getStart(), noteData.getPitch(), noteData.getEnd(),
-                    noteData.getVelocity(), noteData.getFlags());
+        for (int i = 0; i < patternNodes.size(); i++) {
+            PatternNode patternNode = patternNodes.get(i);
+            PatternSequencerMessage.BANK.send(rack, machineIndex, patternNode.getBankIndex());
+            PatternSequencerMessage.PATTERN.send(rack, machineIndex, patternNode.getPatternIndex());
+            for (NoteNode noteData : notes.get(i)) {
+                patternNode.createNote(noteData.getStart(), noteData.getPitch(),
+                        noteData.getEnd(), noteData.getVelocity(), noteData.getFlags());
+            }
         }
         PatternSequencerMessage.BANK.send(rack, machineIndex, originalBank);
         PatternSequencerMessage.PATTERN.send(rack, machineIndex, originalPattern);
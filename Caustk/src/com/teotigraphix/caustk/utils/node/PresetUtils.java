@@ -21,11 +21,16 @@ package com.teotigraphix.caustk.utils.node;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
 
+import com.google.common.hash.Hashing;
 import com.teotigraphix.caustk.core.ICaustkRack;
+import com.teotigraphix.caustk.core.internal.CaustkRuntime;
 import com.teotigraphix.caustk.core.osc.SynthMessage;
+import com.teotigraphix.caustk.node.machine.Machine;
 import com.teotigraphix.caustk.node.machine.MachineType;
 import com.teotigraphix.caustk.node.machine.patch.PresetChannel;
 import com.teotigraphix.caustk.utils.core.RuntimeUtils;
@@ -38,6 +43,8 @@ import com.teotigraphix.caustk.utils.core.RuntimeUtils;
  */
 public final class PresetUtils {
 
+    private static final String PRESET_CACHE = "presets";
+
     public static byte[] readPresetBytes(ICaustkRack caustkRack, int machineIndex,
             MachineType machineType, String tempPresetName) {
         SynthMessage.SAVE_PRESET.send(caustkRack, machineIndex, tempPresetName);
@@ -63,4 +70,93 @@ public final class PresetUtils {
     public static File toPresetFile(MachineType machineType, String presetName) {
         return RuntimeUtils.getPresetsFile(machineType, presetName);
     }
+
+    /**
+     * Returns the content hash used to key cached preset files.
+     * 
+     * @param data The preset bytes.
+     */
+    public static String toPresetHash(byte[] data) {
+        return Hashing.sha1().hashBytes(data).toString();
+    }
+
+    /**
+     * Returns a preset file holding the data that can be passed to
+     * <code>LOAD_PRESET</code>.
+     * <p>
+     * Files are kept in the factory's <code>presets</code> cache directory
+     * keyed by content hash, so the same bytes are written once and reused by
+     * every machine that loads them until {@link #prunePresetCache(ICaustkRack)}
+     * removes them.
+     * 
+     * @param data The preset bytes.
+     * @param presetName The file name without extension, this is the name
+     *            Caustic displays for the preset.
+     * @param machineType The machine type for the preset extension.
+     * @throws IOException Preset file could not be written
+     */
+    public static File toCachedPresetFile(byte[] data, String presetName,
+            MachineType machineType) throws IOException {
+        File directory = new File(getPresetCacheDirectory(), toPresetHash(data));
+        File presetFile = new File(directory, presetName + "." + machineType.getExtension());
+        if (!presetFile.exists() || presetFile.length() != data.length) {
+            // fills prepare presets on worker threads, write aside and rename
+            // so a reader never sees a partial file
+            FileUtils.forceMkdir(directory);
+            File tempFile = File.createTempFile("preset", ".tmp", directory);
+            FileUtils.writeByteArrayToFile(tempFile, data);
+            if (!tempFile.renameTo(presetFile)) {
+                FileUtils.deleteQuietly(tempFile);
+                if (presetFile.length() != data.length)
+                    throw new IOException("Could not write preset file: " + presetFile);
+            }
+        }
+        return presetFile;
+    }
+
+    /**
+     * Returns whether the file is a preset file of the preset cache.
+     * 
+     * @param presetFile The preset file.
+     * @see #toCachedPresetFile(byte[], String, MachineType)
+     */
+    public static boolean isCachedPresetFile(File presetFile) {
+        File directory = presetFile.getAbsoluteFile().getParentFile();
+        return directory != null
+                && getPresetCacheDirectory().getAbsoluteFile().equals(directory.getParentFile());
+    }
+
+    /**
+     * Deletes the cached preset files that are not loaded into a machine of
+     * the rack.
+     * <p>
+     * Call after a rack or group load replaced the machines, presets of the
+     * machines it removed are otherwise kept for the session.
+     * 
+     * @param rack The rack whose machines reference cached presets.
+     */
+    public static void prunePresetCache(ICaustkRack rack) {
+        File[] directories = getPresetCacheDirectory().listFiles();
+        if (directories == null)
+            return;
+
+        Set<File> referenced = new HashSet<File>();
+        if (rack.isLoaded()) {
+            for (Machine machine : rack.machines()) {
+                PresetChannel preset = machine.getPreset();
+                File cachedFile = preset != null ? preset.getCachedFile() : null;
+                if (cachedFile != null)
+                    referenced.add(cachedFile.getAbsoluteFile().getParentFile());
+            }
+        }
+
+        for (File directory : directories) {
+            if (!referenced.contains(directory.getAbsoluteFile()))
+                FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    private static File getPresetCacheDirectory() {
+        return CaustkRuntime.getInstance().getFactory().getCacheDirectory(PRESET_CACHE);
+    }
 }